@@ -21,7 +21,6 @@ import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.util.Collection;
-import java.util.concurrent.CountDownLatch;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.tile.Tile;
 import org.geotools.tile.TileService;
@@ -29,18 +28,45 @@ import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.operation.TransformException;
 
 /**
- * This Layer is an attempt to speed rendering by using a CountDownLatch and threads to render each
- * tile. The performance improvement is minimal, though.
+ * This Layer speeds up rendering by loading the tile images concurrently with a {@link
+ * TileFetcher}, which also keeps the most recently used images in memory and prefetches the tiles
+ * around the current view. The tiles are then drawn sequentially, as they become available.
  *
  * @author Ugo Taddei
  * @since 12
  */
 public class AsyncTileLayer extends TileLayer {
 
-    private CountDownLatch countDownLatch;
+    private final TileFetcher fetcher;
+
+    private final boolean ownFetcher;
 
     public AsyncTileLayer(TileService service) {
+        this(service, new TileFetcher(), true);
+    }
+
+    /**
+     * Builds a layer using the given fetcher, which can be shared among layers and won't be
+     * disposed along with the layer
+     *
+     * @since 22
+     */
+    public AsyncTileLayer(TileService service, TileFetcher fetcher) {
+        this(service, fetcher, false);
+    }
+
+    private AsyncTileLayer(TileService service, TileFetcher fetcher, boolean ownFetcher) {
         super(service);
+        if (fetcher == null) {
+            throw new IllegalArgumentException("TileFetcher cannot be null");
+        }
+        this.fetcher = fetcher;
+        this.ownFetcher = ownFetcher;
+    }
+
+    /** Returns the fetcher used to load the tile images */
+    public TileFetcher getFetcher() {
+        return fetcher;
     }
 
     @Override
@@ -50,38 +76,35 @@ public class AsyncTileLayer extends TileLayer {
             ReferencedEnvelope viewportExtent,
             AffineTransform worldToImageTransform) {
 
-        this.countDownLatch = new CountDownLatch(tiles.size());
+        // start loading all the images, then draw them in order as they become available
+        for (Tile tile : tiles) {
+            tile.setImageLoader(fetcher);
+            fetcher.fetch(tile);
+        }
 
         localRenderTiles(tiles, g2d, viewportExtent, worldToImageTransform);
-        try {
-            this.countDownLatch.await();
-        } catch (InterruptedException ie) {
-            java.util.logging.Logger.getGlobal().log(java.util.logging.Level.INFO, "", ie);
-        }
-        this.countDownLatch = null;
     }
 
-    protected void renderTile(final Tile tile, final Graphics2D g2d, final double[] points) {
-
-        Runnable r =
-                new Runnable() {
-
-                    @Override
-                    public void run() {
-                        BufferedImage img = getTileImage(tile);
+    @Override
+    protected void prefetchTiles(
+            Collection<Tile> tiles, ReferencedEnvelope viewportExtent, int scale) {
+        fetcher.prefetch(getService(), viewportExtent, scale, tiles);
+    }
 
-                        g2d.drawImage(
-                                img,
-                                (int) points[0],
-                                (int) points[1],
-                                (int) Math.ceil(points[2] - points[0]),
-                                (int) Math.ceil(points[3] - points[1]),
-                                null);
+    @Override
+    protected BufferedImage getTileImage(Tile tile) {
+        // the tile might have been created after the fetch started, make sure it goes through
+        // the fetcher anyways
+        tile.setImageLoader(fetcher);
+        return super.getTileImage(tile);
+    }
 
-                        AsyncTileLayer.this.countDownLatch.countDown();
-                    }
-                };
-        new Thread(r).start();
+    @Override
+    public void dispose() {
+        if (ownFetcher) {
+            fetcher.dispose();
+        }
+        super.dispose();
     }
 
     protected void localRenderTiles(
@@ -17,14 +17,30 @@
 package org.geotools.tile.util;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.imageio.ImageIO;
+import java.util.stream.Stream;
 import org.geotools.image.io.ImageIOExt;
 import org.geotools.tile.ImageLoader;
 import org.geotools.tile.Tile;
+import org.geotools.tile.TileIdentifier;
 import org.geotools.util.logging.Logging;
 
 /**
@@ -32,13 +48,15 @@ import org.geotools.util.logging.Logging;
  * plug this implementation into a Tile object. Note that the TileService also has a cache of its
  * own, but for caching tiles, not necessarily their images.
  *
- * <p>
+ * <p>The tiles are stored as returned by the server, without re-encoding them, in a {@code
+ * service/z/x/y} directory structure. Writes go through a temporary file that is then atomically
+ * moved in place, so that concurrent loaders (even in different processes) never see a partial
+ * tile. Optionally the total size of the cache can be capped, in which case the least recently used
+ * tiles get evicted.
  *
  * <p>Image loading is an important performance factor to tile clients. Tests have shown that image
- * loading is more important than image rendering. The risk is, however, to fill your disk with tile
- * images, so make sure to empty the directory from time to time. Also note that some tile service
- * may not allow you to save tile locally. If you do so, you might be breaching licenses. So, be
- * nice.
+ * loading is more important than image rendering. Also note that some tile service may not allow
+ * you to save tile locally. If you do so, you might be breaching licenses. So, be nice.
  *
  * @author Ugo Taddei
  * @since 12
@@ -47,39 +65,258 @@ public class CachedImageLoader implements ImageLoader {
 
     private static final Logger LOGGER = Logging.getLogger(CachedImageLoader.class);
 
+    /** Extension of the cached tiles, the actual format is recognized from the contents */
+    static final String TILE_EXTENSION = ".tile";
+
     private final File cacheDirectory;
 
+    private final long maxSize;
+
+    /** The cached tiles and their size, in least recently used order. Lazily initialized. */
+    private LinkedHashMap<Path, Long> index;
+
+    private long size;
+
+    /** Builds a cache without size limits */
     public CachedImageLoader(File cacheDirectory) {
+        this(cacheDirectory, Long.MAX_VALUE);
+    }
+
+    /**
+     * Builds a cache whose total size is kept below the given limit, by evicting the least recently
+     * used tiles
+     *
+     * @param cacheDirectory The cache root directory
+     * @param maxSize The maximum size of the cache, in bytes
+     * @since 22
+     */
+    public CachedImageLoader(File cacheDirectory, long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The maximum cache size must be positive");
+        }
         this.cacheDirectory = cacheDirectory;
+        this.maxSize = maxSize;
     }
 
     @Override
     public BufferedImage loadImageTileImage(Tile tile) throws IOException {
+        Path tilePath = getTilePath(tile);
+        BufferedImage img = readCached(tilePath);
+        if (img != null) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Found image in cache for '" + tile.getId() + "' at " + tilePath);
+            }
+            touch(tilePath);
+            return img;
+        }
 
-        BufferedImage img = null;
+        // older versions stored the tiles as PNG files in the cache root
+        File legacy = new File(this.cacheDirectory, tile.getId() + ".png");
+        if (legacy.exists()) {
+            img = ImageIOExt.readBufferedImage(legacy);
+            if (img != null) {
+                return img;
+            }
+        }
 
-        File imgFile = new File(this.cacheDirectory, tile.getId() + ".png");
-        if (imgFile.exists()) {
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine(
-                        "Found image in cache for '"
-                                + tile.getId()
-                                + "' at "
-                                + imgFile.getAbsolutePath());
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Not found in cache '" + tile.getId() + "'. Loading from " + tile.getUrl());
+        }
+        byte[] bytes;
+        try (InputStream is = tile.getUrl().openStream()) {
+            bytes = readFully(is);
+        }
+        img = ImageIOExt.readBufferedImage(new ByteArrayInputStream(bytes));
+        if (img == null) {
+            throw new IOException("Could not decode the image at " + tile.getUrl());
+        }
+        store(tilePath, bytes);
+        return img;
+    }
+
+    /** Returns the current size of the cache, in bytes */
+    public long getSize() throws IOException {
+        synchronized (this) {
+            loadIndex();
+            return size;
+        }
+    }
+
+    Path getTilePath(Tile tile) {
+        TileIdentifier id = tile.getTileIdentifier();
+        return cacheDirectory
+                .toPath()
+                .resolve(sanitize(id.getServiceName()))
+                .resolve(String.valueOf(id.getZ()))
+                .resolve(String.valueOf(id.getX()))
+                .resolve(id.getY() + TILE_EXTENSION);
+    }
+
+    private BufferedImage readCached(Path tilePath) throws IOException {
+        if (!Files.isRegularFile(tilePath)) {
+            return null;
+        }
+        try {
+            return ImageIOExt.readBufferedImage(tilePath.toFile());
+        } catch (IOException e) {
+            if (!Files.exists(tilePath)) {
+                return null;
             }
-            img = ImageIOExt.readBufferedImage(imgFile);
+            // corrupted (should not happen given the atomic writes), remove and reload it
+            LOGGER.log(Level.WARNING, "Removing unreadable cached tile " + tilePath, e);
+            remove(tilePath);
+            return null;
+        }
+    }
 
-        } else {
-            if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine(
-                        "Not found in cache '" + tile.getId() + "'. Loading from " + tile.getUrl());
+    private void store(Path tilePath, byte[] bytes) {
+        try {
+            Path parent = tilePath.getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "tile", ".tmp");
+            try {
+                Files.write(temp, bytes);
+                try {
+                    Files.move(
+                            temp,
+                            tilePath,
+                            StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, tilePath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
             }
-            img = ImageIOExt.readBufferedImage(tile.getUrl());
-            ImageIO.write(img, "png", imgFile);
             if (LOGGER.isLoggable(Level.FINE)) {
-                LOGGER.fine("Wrote to cache " + imgFile.getAbsolutePath());
+                LOGGER.fine("Wrote to cache " + tilePath);
             }
+            added(tilePath, bytes.length);
+        } catch (IOException e) {
+            // the tile has been loaded anyways, caching is just an optimization
+            LOGGER.log(Level.WARNING, "Failed to cache tile at " + tilePath, e);
         }
-        return img;
+    }
+
+    private synchronized void added(Path tilePath, long tileSize) throws IOException {
+        if (index == null && maxSize == Long.MAX_VALUE) {
+            // no need to track the contents of an unbounded cache until asked for its size
+            return;
+        }
+        loadIndex();
+        Long previous = index.put(tilePath, tileSize);
+        if (previous != null) {
+            size -= previous;
+        }
+        size += tileSize;
+        evict();
+    }
+
+    private synchronized void touch(Path tilePath) {
+        if (index != null) {
+            Long tileSize = index.get(tilePath);
+            if (tileSize == null) {
+                // written by some other process
+                try {
+                    tileSize = Files.size(tilePath);
+                    index.put(tilePath, tileSize);
+                    size += tileSize;
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+        if (maxSize < Long.MAX_VALUE) {
+            // persist the access order, so that it survives restarts
+            try {
+                FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+                Files.setLastModifiedTime(tilePath, now);
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to update the access time of " + tilePath, e);
+            }
+        }
+    }
+
+    private synchronized void remove(Path tilePath) {
+        try {
+            Files.deleteIfExists(tilePath);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to remove " + tilePath, e);
+        }
+        if (index != null) {
+            Long tileSize = index.remove(tilePath);
+            if (tileSize != null) {
+                size -= tileSize;
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Path, Long>> it = index.entrySet().iterator();
+        while (size > maxSize && it.hasNext()) {
+            Map.Entry<Path, Long> entry = it.next();
+            try {
+                Files.deleteIfExists(entry.getKey());
+            } catch (NoSuchFileException e) {
+                // removed by someone else
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to evict " + entry.getKey(), e);
+                continue;
+            }
+            size -= entry.getValue();
+            it.remove();
+        }
+    }
+
+    /** Scans the cache directory, sorting the tiles by last access */
+    private void loadIndex() throws IOException {
+        if (index != null) {
+            return;
+        }
+        List<Object[]> tiles = new ArrayList<>();
+        Path root = cacheDirectory.toPath();
+        if (Files.isDirectory(root)) {
+            try (Stream<Path> paths = Files.walk(root)) {
+                Iterator<Path> it = paths.iterator();
+                while (it.hasNext()) {
+                    Path path = it.next();
+                    if (path.getFileName().toString().endsWith(TILE_EXTENSION)) {
+                        BasicFileAttributes attributes =
+                                Files.readAttributes(path, BasicFileAttributes.class);
+                        tiles.add(
+                                new Object[] {
+                                    path, attributes.size(), attributes.lastModifiedTime()
+                                });
+                    }
+                }
+            }
+        }
+        tiles.sort((t1, t2) -> ((FileTime) t1[2]).compareTo((FileTime) t2[2]));
+        // access ordered, so that get and put move the tile at the end of the list
+        index = new LinkedHashMap<>(Math.max(16, tiles.size() * 2), 0.75f, true);
+        size = 0;
+        for (Object[] tile : tiles) {
+            index.put((Path) tile[0], (Long) tile[1]);
+            size += (Long) tile[1];
+        }
+    }
+
+    private static byte[] readFully(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(16 * 1024);
+        byte[] buffer = new byte[8 * 1024];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            bos.write(buffer, 0, read);
+        }
+        return bos.toByteArray();
+    }
+
+    private static String sanitize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            sb.append(Character.isLetterOrDigit(c) || c == '-' ? c : '_');
+        }
+        return sb.toString();
     }
 }
@@ -0,0 +1,424 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.tile.util;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.tile.ImageLoader;
+import org.geotools.tile.Tile;
+import org.geotools.tile.TileService;
+import org.geotools.util.logging.Logging;
+
+/**
+ * An {@link ImageLoader} fetching tile images concurrently on a bounded thread pool. It can be
+ * plugged into tiles like any other image loader, and adds:
+ *
+ * <ul>
+ *   <li>a limit on the number of concurrent requests against the same host
+ *   <li>coalescing of concurrent requests for the same tile
+ *   <li>a size bounded, least recently used, in memory cache of the fetched images
+ *   <li>low priority prefetching of the tiles around the current view, and of the next zoom level
+ * </ul>
+ *
+ * The actual loading is delegated to another image loader, or to the tile itself if none is
+ * provided. Using a {@link CachedImageLoader} as the delegate puts the memory cache in front of the
+ * disk one.
+ *
+ * @since 22
+ */
+public class TileFetcher implements ImageLoader {
+
+    private static final Logger LOGGER = Logging.getLogger(TileFetcher.class);
+
+    /** Default number of fetching threads */
+    public static final int DEFAULT_THREADS = 8;
+
+    /** Default number of concurrent requests against the same host */
+    public static final int DEFAULT_HOST_CONCURRENCY = 4;
+
+    /** Default size of the in memory cache, in bytes */
+    public static final long DEFAULT_MEMORY_CACHE_SIZE = 64 * 1024 * 1024;
+
+    static final int FOREGROUND = 0;
+
+    static final int PREFETCH = 1;
+
+    private static final AtomicInteger FETCHER_SEQUENCE = new AtomicInteger();
+
+    private final ImageLoader delegate;
+
+    private final int hostConcurrency;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, HostQueue> hosts = new ConcurrentHashMap<>();
+
+    private final Map<String, FetchTask> inFlight = new ConcurrentHashMap<>();
+
+    private final ImageCache cache;
+
+    private final AtomicLong taskSequence = new AtomicLong();
+
+    /** Builds a fetcher loading images directly from the tiles, with the default settings */
+    public TileFetcher() {
+        this(null, DEFAULT_THREADS, DEFAULT_HOST_CONCURRENCY, DEFAULT_MEMORY_CACHE_SIZE);
+    }
+
+    /**
+     * Builds a new fetcher
+     *
+     * @param delegate The image loader performing the actual loads, if null the tiles will load
+     *     their own images
+     * @param threads The maximum number of concurrent loads
+     * @param hostConcurrency The maximum number of concurrent loads against the same host
+     * @param memoryCacheSize The size of the in memory image cache, in bytes, 0 to disable it
+     */
+    public TileFetcher(
+            ImageLoader delegate, int threads, int hostConcurrency, long memoryCacheSize) {
+        if (threads < 1 || hostConcurrency < 1) {
+            throw new IllegalArgumentException(
+                    "The number of threads and the host concurrency must be positive");
+        }
+        this.delegate = delegate;
+        this.hostConcurrency = hostConcurrency;
+        this.cache = new ImageCache(memoryCacheSize);
+        final String prefix = "TileFetcher-" + FETCHER_SEQUENCE.incrementAndGet() + "-";
+        ThreadFactory threadFactory =
+                new ThreadFactory() {
+                    AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, prefix + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                };
+        this.executor =
+                new ThreadPoolExecutor(
+                        threads,
+                        threads,
+                        60,
+                        TimeUnit.SECONDS,
+                        new PriorityBlockingQueue<Runnable>(),
+                        threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Loads the tile image, waiting for it to be available. The image is taken from the memory
+     * cache if possible, otherwise it's fetched with high priority.
+     */
+    @Override
+    public BufferedImage loadImageTileImage(Tile tile) throws IOException {
+        try {
+            return fetch(tile).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading tile " + tile.getId(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to load tile " + tile.getId(), cause);
+        }
+    }
+
+    /**
+     * Starts fetching the image of the tile, unless it's already cached or being fetched, and
+     * returns a future for it
+     */
+    public Future<BufferedImage> fetch(Tile tile) {
+        return schedule(tile, FOREGROUND);
+    }
+
+    /**
+     * Starts fetching the images of the given tiles, at lower priority than the tiles requested
+     * via {@link #fetch(Tile)} or {@link #loadImageTileImage(Tile)}
+     */
+    public void prefetch(Collection<Tile> tiles) {
+        for (Tile tile : tiles) {
+            schedule(tile, PREFETCH);
+        }
+    }
+
+    /**
+     * Prefetches the tiles surrounding the given extent, and the ones of the next zoom level inside
+     * it, excluding the tiles already visible.
+     *
+     * @param service The tile service
+     * @param extent The current view extent
+     * @param scale The current scale denominator
+     * @param visible The tiles already visible, which won't be prefetched
+     */
+    public void prefetch(
+            TileService service, ReferencedEnvelope extent, int scale, Collection<Tile> visible) {
+        try {
+            int maxTiles = Math.max(visible.size(), 1) * 4;
+            Set<Tile> tiles = new HashSet<>();
+            // the neighbours, half a view around the current one
+            ReferencedEnvelope around = new ReferencedEnvelope(extent);
+            around.expandBy(extent.getWidth() / 2, extent.getHeight() / 2);
+            tiles.addAll(service.findTilesInExtent(around, scale, false, maxTiles));
+            // the next zoom level, in case the user zooms in
+            if (scale > 1) {
+                tiles.addAll(service.findTilesInExtent(extent, scale / 2, false, maxTiles));
+            }
+            tiles.removeAll(visible);
+            prefetch(tiles);
+        } catch (RuntimeException e) {
+            // prefetching is just an optimization
+            LOGGER.log(Level.FINE, "Failed to compute the tiles to prefetch", e);
+        }
+    }
+
+    /** Stops the fetching threads, pending requests are cancelled */
+    public void dispose() {
+        executor.shutdownNow();
+        for (FetchTask task : inFlight.values()) {
+            task.future.cancel(false);
+        }
+        inFlight.clear();
+        cache.clear();
+    }
+
+    private Future<BufferedImage> schedule(Tile tile, int priority) {
+        String key = tile.getUrl().toString();
+        BufferedImage cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        String host = tile.getUrl().getHost();
+        HostQueue queue = hosts.computeIfAbsent(host, h -> new HostQueue());
+        CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+        FetchTask task =
+                new FetchTask(tile, key, queue, future, priority, taskSequence.getAndIncrement());
+        FetchTask existing = inFlight.putIfAbsent(key, task);
+        if (existing != null) {
+            // coalesce with the request already queued or running, someone is now waiting for it
+            if (priority == FOREGROUND) {
+                existing.queue.promote(existing);
+            }
+            return existing.future;
+        }
+        queue.submit(task);
+        return future;
+    }
+
+    private BufferedImage load(Tile tile) throws IOException {
+        if (delegate != null) {
+            return delegate.loadImageTileImage(tile);
+        }
+        // tiles are image loaders loading from their URL
+        return tile.loadImageTileImage(tile);
+    }
+
+    /** Limits the number of concurrent fetches against a single host */
+    class HostQueue {
+
+        int active;
+
+        PriorityQueue<FetchTask> pending = new PriorityQueue<>();
+
+        void submit(FetchTask task) {
+            synchronized (this) {
+                if (active >= hostConcurrency) {
+                    pending.add(task);
+                    return;
+                }
+                active++;
+            }
+            execute(task);
+        }
+
+        /**
+         * Moves a prefetch task still waiting, in this queue or in the executor one, ahead of the
+         * other prefetches. Tasks are only modified while out of the queues, to keep them ordered.
+         */
+        void promote(FetchTask task) {
+            synchronized (this) {
+                if (task.priority != PREFETCH) {
+                    return;
+                }
+                if (pending.remove(task)) {
+                    task.priority = FOREGROUND;
+                    pending.add(task);
+                    return;
+                }
+            }
+            if (executor.remove(task)) {
+                synchronized (this) {
+                    task.priority = FOREGROUND;
+                }
+                execute(task);
+            }
+        }
+
+        void completed() {
+            FetchTask next;
+            synchronized (this) {
+                next = pending.poll();
+                if (next == null) {
+                    active--;
+                    return;
+                }
+            }
+            execute(next);
+        }
+
+        private void execute(FetchTask task) {
+            try {
+                executor.execute(task);
+            } catch (RuntimeException e) {
+                // the fetcher has been disposed
+                task.future.completeExceptionally(e);
+                inFlight.remove(task.key, task);
+            }
+        }
+    }
+
+    /** Fetches a single tile image, ordered by priority and then by submission order */
+    class FetchTask implements Runnable, Comparable<FetchTask> {
+
+        Tile tile;
+
+        String key;
+
+        HostQueue queue;
+
+        CompletableFuture<BufferedImage> future;
+
+        int priority;
+
+        long sequence;
+
+        FetchTask(
+                Tile tile,
+                String key,
+                HostQueue queue,
+                CompletableFuture<BufferedImage> future,
+                int priority,
+                long sequence) {
+            this.tile = tile;
+            this.key = key;
+            this.queue = queue;
+            this.future = future;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!future.isDone()) {
+                    BufferedImage image = load(tile);
+                    if (image != null) {
+                        cache.put(key, image);
+                    }
+                    future.complete(image);
+                }
+            } catch (Throwable t) {
+                if (priority == PREFETCH && LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Failed to prefetch tile " + tile.getId(), t);
+                }
+                future.completeExceptionally(t);
+            } finally {
+                inFlight.remove(key, this);
+                queue.completed();
+            }
+        }
+
+        @Override
+        public int compareTo(FetchTask other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /** A least recently used image cache, bounded by the size of the cached rasters */
+    static class ImageCache {
+
+        long maxSize;
+
+        long size;
+
+        LinkedHashMap<String, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+
+        ImageCache(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        synchronized BufferedImage get(String key) {
+            return images.get(key);
+        }
+
+        synchronized void put(String key, BufferedImage image) {
+            long imageSize = sizeOf(image);
+            if (imageSize > maxSize) {
+                return;
+            }
+            BufferedImage previous = images.put(key, image);
+            if (previous != null) {
+                size -= sizeOf(previous);
+            }
+            size += imageSize;
+            Iterator<BufferedImage> it = images.values().iterator();
+            while (size > maxSize && it.hasNext()) {
+                size -= sizeOf(it.next());
+                it.remove();
+            }
+        }
+
+        synchronized void clear() {
+            images.clear();
+            size = 0;
+        }
+
+        synchronized long getSize() {
+            return size;
+        }
+
+        static long sizeOf(BufferedImage image) {
+            long pixelBits = image.getColorModel().getPixelSize();
+            return (long) image.getWidth() * image.getHeight() * Math.max(1, pixelBits / 8);
+        }
+    }
+}
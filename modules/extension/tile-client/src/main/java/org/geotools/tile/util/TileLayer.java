@@ -84,6 +84,7 @@ public class TileLayer extends DirectLayer {
         BufferedImage mosaickedImage = createImage(viewport.getScreenArea());
         Graphics2D g2d = mosaickedImage.createGraphics();
         renderTiles(tiles, g2d, viewportExtent, viewport.getWorldToScreen());
+        prefetchTiles(tiles, viewportExtent, scale);
 
         this.coverage = gridFactory.create("GridCoverage", mosaickedImage, viewportExtent);
 
@@ -126,6 +127,23 @@ public class TileLayer extends DirectLayer {
         }
     }
 
+    /**
+     * Called after the tiles have been rendered, allows subclasses to start loading the tiles that
+     * are likely to be needed next. The default implementation does nothing.
+     *
+     * @param tiles The tiles just rendered
+     * @param viewportExtent The extent just rendered
+     * @param scale The scale denominator used to look up the tiles
+     */
+    protected void prefetchTiles(
+            Collection<Tile> tiles, ReferencedEnvelope viewportExtent, int scale) {
+        // nothing to do
+    }
+
+    protected TileService getService() {
+        return service;
+    }
+
     protected void renderTile(Tile tile, Graphics2D g2d, double[] points) {
 
         BufferedImage img = getTileImage(tile);
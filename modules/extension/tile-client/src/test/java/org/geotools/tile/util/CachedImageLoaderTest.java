@@ -0,0 +1,120 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.tile.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.geotools.tile.Tile;
+import org.geotools.tile.TileIdentifierTest;
+import org.geotools.tile.impl.WebMercatorZoomLevel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CachedImageLoaderTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStoresOriginalBytes() throws Exception {
+        File source = createImage("source.jpg", "jpeg");
+        File cacheDir = folder.newFolder("cache");
+        CachedImageLoader loader = new CachedImageLoader(cacheDir);
+
+        Tile tile = createTile(source, 3);
+        BufferedImage image = loader.loadImageTileImage(tile);
+        assertNotNull(image);
+
+        // sharded by service, zoom, x and y, and not re-encoded
+        Path cached = loader.getTilePath(tile);
+        assertEquals(cacheDir.toPath().resolve("SomeService/5/3/0.tile"), cached);
+        assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(cached));
+        assertEquals(Files.size(cached), loader.getSize());
+
+        // served from the cache even if the source is gone
+        assertTrue(source.delete());
+        assertNotNull(loader.loadImageTileImage(tile));
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        File source = createImage("source.png", "png");
+        long tileSize = source.length();
+        File cacheDir = folder.newFolder("cache");
+        // room for two tiles
+        CachedImageLoader loader = new CachedImageLoader(cacheDir, tileSize * 2 + tileSize / 2);
+
+        Tile t1 = createTile(source, 1);
+        Tile t2 = createTile(source, 2);
+        Tile t3 = createTile(source, 3);
+        loader.loadImageTileImage(t1);
+        loader.loadImageTileImage(t2);
+        // use the first one again, the second becomes the least recently used
+        loader.loadImageTileImage(t1);
+        loader.loadImageTileImage(t3);
+
+        assertTrue(Files.exists(loader.getTilePath(t1)));
+        assertFalse(Files.exists(loader.getTilePath(t2)));
+        assertTrue(Files.exists(loader.getTilePath(t3)));
+        assertEquals(tileSize * 2, loader.getSize());
+
+        // a new loader on the same directory picks up the existing tiles
+        CachedImageLoader other = new CachedImageLoader(cacheDir, tileSize * 2 + tileSize / 2);
+        assertEquals(tileSize * 2, other.getSize());
+    }
+
+    private File createImage(String name, String format) throws IOException {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_3BYTE_BGR);
+        image.getGraphics().fillRect(4, 4, 8, 8);
+        File file = folder.newFile(name);
+        ImageIO.write(image, format, file);
+        return file;
+    }
+
+    private Tile createTile(final File source, final int x) {
+        ReferencedEnvelope env = new ReferencedEnvelope(0, 1, 0, 1, DefaultGeographicCRS.WGS84);
+        return new Tile(
+                TileIdentifierTest.createTileIdentifierPrototype(
+                        new WebMercatorZoomLevel(5), x, 0, "SomeService"),
+                env,
+                16) {
+
+            @Override
+            public URL getUrl() {
+                try {
+                    return source.toURI().toURL();
+                } catch (MalformedURLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+}
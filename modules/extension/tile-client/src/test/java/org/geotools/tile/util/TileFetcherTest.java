@@ -0,0 +1,221 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.tile.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.geotools.tile.ImageLoader;
+import org.geotools.tile.Tile;
+import org.geotools.tile.TileIdentifierTest;
+import org.geotools.tile.impl.WebMercatorZoomLevel;
+import org.junit.After;
+import org.junit.Test;
+
+public class TileFetcherTest {
+
+    TileFetcher fetcher;
+
+    @After
+    public void dispose() {
+        if (fetcher != null) {
+            fetcher.dispose();
+        }
+    }
+
+    @Test
+    public void testCoalesceAndCache() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingLoader loader = new CountingLoader(release);
+        fetcher = new TileFetcher(loader, 4, 4, 1024 * 1024);
+
+        Tile tile = createTile("localhost", 1);
+        Future<BufferedImage> f1 = fetcher.fetch(tile);
+        Future<BufferedImage> f2 = fetcher.fetch(createTile("localhost", 1));
+        release.countDown();
+        assertSame(f1.get(), f2.get());
+        assertEquals(1, loader.loads.get());
+
+        // now it's in the memory cache
+        assertSame(f1.get(), fetcher.loadImageTileImage(tile));
+        assertEquals(1, loader.loads.get());
+    }
+
+    @Test
+    public void testMemoryCacheBounded() throws Exception {
+        CountingLoader loader = new CountingLoader(null);
+        // room for two 16x16 ARGB images
+        fetcher = new TileFetcher(loader, 1, 1, 16 * 16 * 4 * 2);
+        fetcher.loadImageTileImage(createTile("localhost", 1));
+        fetcher.loadImageTileImage(createTile("localhost", 2));
+        fetcher.loadImageTileImage(createTile("localhost", 3));
+        assertEquals(3, loader.loads.get());
+        // the first one got evicted, the last one is still there
+        fetcher.loadImageTileImage(createTile("localhost", 3));
+        assertEquals(3, loader.loads.get());
+        fetcher.loadImageTileImage(createTile("localhost", 1));
+        assertEquals(4, loader.loads.get());
+    }
+
+    @Test
+    public void testHostConcurrency() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingLoader loader = new CountingLoader(release);
+        fetcher = new TileFetcher(loader, 8, 2, 0);
+        List<Future<BufferedImage>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(fetcher.fetch(createTile("hostA", i)));
+        }
+        futures.add(fetcher.fetch(createTile("hostB", 0)));
+        // two loads on host A and one on host B should be running, the others are waiting
+        assertTrue(loader.started.tryAcquire(3, 5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(2, loader.maxConcurrent("hostA"));
+        release.countDown();
+        for (Future<BufferedImage> future : futures) {
+            future.get();
+        }
+        assertEquals(2, loader.maxConcurrent("hostA"));
+        assertEquals(7, loader.loads.get());
+    }
+
+    @Test
+    public void testPromotePrefetch() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingLoader loader = new CountingLoader(release);
+        fetcher = new TileFetcher(loader, 1, 1, 0);
+        Future<BufferedImage> first = fetcher.fetch(createTile("localhost", 1));
+        assertTrue(loader.started.tryAcquire(5, TimeUnit.SECONDS));
+        fetcher.prefetch(
+                Arrays.asList(
+                        createTile("localhost", 2),
+                        createTile("localhost", 3),
+                        createTile("localhost", 4)));
+
+        // the queued prefetch is now needed, it goes before the other prefetches
+        Future<BufferedImage> promoted = fetcher.fetch(createTile("localhost", 4));
+        release.countDown();
+        first.get();
+        promoted.get();
+        assertEquals("http://localhost/tiles/5/4/0.png", loader.loaded.get(1));
+    }
+
+    @Test
+    public void testLoadFailure() throws Exception {
+        fetcher =
+                new TileFetcher(
+                        tile -> {
+                            throw new IOException("Cannot load " + tile.getId());
+                        },
+                        1,
+                        1,
+                        0);
+        try {
+            fetcher.loadImageTileImage(createTile("localhost", 1));
+            fail("Should have failed");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Cannot load"));
+        }
+    }
+
+    static Tile createTile(final String host, final int x) {
+        ReferencedEnvelope env = new ReferencedEnvelope(0, 1, 0, 1, DefaultGeographicCRS.WGS84);
+        return new Tile(
+                TileIdentifierTest.createTileIdentifierPrototype(
+                        new WebMercatorZoomLevel(5), x, 0, "SomeService"),
+                env,
+                16) {
+
+            @Override
+            public URL getUrl() {
+                try {
+                    return new URL("http://" + host + "/tiles/5/" + x + "/0.png");
+                } catch (MalformedURLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    static class CountingLoader implements ImageLoader {
+
+        CountDownLatch release;
+
+        AtomicInteger loads = new AtomicInteger();
+
+        List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+
+        Semaphore started = new Semaphore(0);
+
+        Map<String, AtomicInteger> running = new HashMap<>();
+
+        Map<String, Integer> maxRunning = new HashMap<>();
+
+        CountingLoader(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public BufferedImage loadImageTileImage(Tile tile) throws IOException {
+            String host = tile.getUrl().getHost();
+            loaded.add(tile.getUrl().toString());
+            synchronized (this) {
+                int current =
+                        running.computeIfAbsent(host, h -> new AtomicInteger()).incrementAndGet();
+                maxRunning.merge(host, current, Math::max);
+            }
+            started.release();
+            try {
+                if (release != null) {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                loads.incrementAndGet();
+                return new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } finally {
+                synchronized (this) {
+                    running.get(host).decrementAndGet();
+                }
+            }
+        }
+
+        synchronized int maxConcurrent(String host) {
+            Integer max = maxRunning.get(host);
+            return max == null ? 0 : max;
+        }
+    }
+}
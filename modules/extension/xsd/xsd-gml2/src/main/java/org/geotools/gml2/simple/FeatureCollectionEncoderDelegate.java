@@ -204,11 +204,7 @@ public abstract class FeatureCollectionEncoderDelegate implements EncoderDelegat
             Geometry g = (Geometry) value;
             Integer dimension =
                     GML2EncodingUtils.getGeometryDimension(g, encoder.getConfiguration());
-            AttributesImpl atts =
-                    buildSrsAttributes(
-                            ((GeometryDescriptor) attribute.descriptor)
-                                    .getCoordinateReferenceSystem(),
-                            dimension);
+            AttributesImpl atts = getGeometrySrsAttributes(attribute, dimension);
             GeometryEncoder geometryEncoder = getGeometryEncoder(value, attribute);
             geometryEncoder.encode(g, atts, output, featureId);
         } else if (value instanceof Envelope) {
@@ -246,6 +242,18 @@ public abstract class FeatureCollectionEncoderDelegate implements EncoderDelegat
     }
 
     private GeometryEncoder getGeometryEncoder(Object value, AttributeContext attribute) {
+        Class<? extends Object> clazz = value.getClass();
+        // values of an attribute are normally all of the same class, avoid repeated lookups
+        if (clazz == attribute.geometryClass) {
+            return attribute.geometryEncoder;
+        }
+        GeometryEncoder encoder = lookupGeometryEncoder(value, attribute);
+        attribute.geometryClass = clazz;
+        attribute.geometryEncoder = encoder;
+        return encoder;
+    }
+
+    private GeometryEncoder lookupGeometryEncoder(Object value, AttributeContext attribute) {
         Class<? extends Object> clazz = value.getClass();
         if (MultiLineString.class.equals(clazz)) {
             // we have a wrinkle with curve support, were we supposed to encode the
@@ -268,6 +276,26 @@ public abstract class FeatureCollectionEncoderDelegate implements EncoderDelegat
         }
     }
 
+    /**
+     * Returns the srsName/srsDimension attributes for a geometry of the given attribute. They only
+     * depend on the attribute CRS and on the geometry dimension, so they are computed once and
+     * cached in the attribute context (the geometry encoders clone them before adding anything)
+     */
+    private AttributesImpl getGeometrySrsAttributes(AttributeContext attribute, Integer dimension) {
+        CoordinateReferenceSystem crs =
+                ((GeometryDescriptor) attribute.descriptor).getCoordinateReferenceSystem();
+        int key = dimension == null ? 0 : dimension;
+        if (key >= attribute.srsAttributes.length) {
+            return buildSrsAttributes(crs, dimension);
+        }
+        AttributesImpl atts = attribute.srsAttributes[key];
+        if (atts == null) {
+            atts = buildSrsAttributes(crs, dimension);
+            attribute.srsAttributes[key] = atts;
+        }
+        return atts;
+    }
+
     private AttributesImpl buildSrsAttributes(CoordinateReferenceSystem crs, Integer dimension) {
         AttributesImpl atts = null;
         if (crs != null || dimension != null) {
@@ -313,6 +341,15 @@ public abstract class FeatureCollectionEncoderDelegate implements EncoderDelegat
 
         FeatureType featureType;
 
+        /** The srsName/srsDimension attributes for geometry values, indexed by dimension */
+        AttributesImpl[] srsAttributes = new AttributesImpl[5];
+
+        /** The class of the last geometry value encoded */
+        Class<?> geometryClass;
+
+        /** The encoder used for the last geometry value */
+        GeometryEncoder geometryEncoder;
+
         public AttributeContext(QualifiedName name) {
             this.name = name;
         }
@@ -479,6 +516,7 @@ public abstract class FeatureCollectionEncoderDelegate implements EncoderDelegat
                     result = new FeatureTypeContext(f, gml);
                     featureTypeContexts.put(f.getFeatureType(), result);
                 }
+                last = result;
 
                 return result;
             }
@@ -66,6 +66,9 @@ public class GMLWriter {
     /** Controls if coordinates measures should be encoded in GML * */
     private boolean encodeMeasures;
 
+    /** Shared attributes for elements that have none, never modified */
+    private final AttributesImpl emptyAttributes = new AttributesImpl();
+
     /**
      * Create a new content handler
      *
@@ -198,12 +201,12 @@ public class GMLWriter {
             qualifiedName = qualify(qn.getNamespaceURI(), qn.getLocalPart(), null);
         }
         if (atts == null) {
-            atts = new AttributesImpl();
+            atts = emptyAttributes;
         }
         if (qualifiedName != null) {
             String localName = null;
-            if (qualifiedName.contains(":")) {
-                localName = qualifiedName.split(":")[1];
+            if (qualifiedName.indexOf(':') != -1) {
+                localName = qn.getLocalPart();
             }
             handler.startElement(qn.getNamespaceURI(), localName, qualifiedName, atts);
         } else {
@@ -0,0 +1,67 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.jdbc;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Streams rows to a table using a database specific bulk loading protocol, as a faster alternative
+ * to batches of INSERT statements. Instances are created by {@link
+ * SQLDialect#createBulkInsertWriter}, and the rows become part of the transaction of the connection
+ * they have been created with.
+ *
+ * <p>Values are written in the order of the columns given at creation time, each row being
+ * terminated by {@link #endRow()}. The connection must not be used for other statements until
+ * {@link #finish()} or {@link #cancel()} are called.
+ *
+ * @since 22
+ */
+public interface BulkInsertWriter {
+
+    /**
+     * Writes a geometry value in the current row.
+     *
+     * @param g The geometry, may be {@code null}.
+     * @param dimension The geometry dimension.
+     * @param srid The native SRID of the geometry.
+     * @param binding The binding of the column.
+     */
+    void writeGeometry(Geometry g, int dimension, int srid, Class<?> binding) throws IOException;
+
+    /**
+     * Writes a non geometric value in the current row.
+     *
+     * @param value The value, may be {@code null}.
+     * @param binding The binding of the column.
+     */
+    void writeValue(Object value, Class<?> binding) throws IOException;
+
+    /** Terminates the current row. */
+    void endRow() throws IOException;
+
+    /**
+     * Completes the load.
+     *
+     * @return The number of rows inserted.
+     */
+    long finish() throws IOException, SQLException;
+
+    /** Aborts the load, no row is inserted. */
+    void cancel() throws IOException, SQLException;
+}
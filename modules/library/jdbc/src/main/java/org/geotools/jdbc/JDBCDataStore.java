@@ -56,6 +56,8 @@ import org.geotools.data.FeatureStore;
 import org.geotools.data.GmlObjectStore;
 import org.geotools.data.InProcessLockingManager;
 import org.geotools.data.Query;
+import org.geotools.data.QueryInstrumentation;
+import org.geotools.data.QueryStatistics;
 import org.geotools.data.Transaction;
 import org.geotools.data.Transaction.State;
 import org.geotools.data.jdbc.FilterToSQL;
@@ -268,6 +270,12 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
     /** flag controlling whether primary key columns of a table are exposed via the feature type. */
     protected boolean exposePrimaryKeyColumns = false;
 
+    /**
+     * Caches the SQL encoding of filters by their structure, null if disabled (only used with
+     * {@link PreparedStatementSQLDialect})
+     */
+    volatile SQLTemplateCache sqlTemplateCache;
+
     /**
      * Finds the primary key definitions (instantiated here because the finders might keep state)
      */
@@ -441,6 +449,26 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         this.batchInsertSize = batchInsertSize;
     }
 
+    /**
+     * Returns the maximum number of filter SQL encodings cached, or 0 if the cache is disabled
+     *
+     * @see #setSQLTemplateCacheSize(int)
+     */
+    public int getSQLTemplateCacheSize() {
+        SQLTemplateCache cache = sqlTemplateCache;
+        return cache != null ? cache.maxSize : 0;
+    }
+
+    /**
+     * Sets the maximum number of filter SQL encodings to be cached. When using prepared
+     * statements, filters having the same structure and differing only in their literal values
+     * (e.g., the bounding box of map tiles) share the same SQL, which is encoded only once and then
+     * reused with the new values. A value of zero or less disables the cache.
+     */
+    public void setSQLTemplateCacheSize(int size) {
+        this.sqlTemplateCache = size > 0 ? new SQLTemplateCache(size) : null;
+    }
+
     /**
      * Determines if the datastore creates feature types which include those columns / attributes
      * which compose the primary key.
@@ -1769,6 +1797,10 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         // first to figure out what the id will be, then the insert statement
         synchronized (this) {
             try {
+                features = insertBulk(features, featureType, cx, key);
+                if (features.isEmpty()) {
+                    return;
+                }
                 if (dialect instanceof PreparedStatementSQLDialect) {
                     Map<InsertionClassifier, Collection<SimpleFeature>> kinds =
                             InsertionClassifier.classify(featureType, features);
@@ -1792,6 +1824,128 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         }
     }
 
+    /**
+     * Inserts the features with the {@linkplain SQLDialect#createBulkInsertWriter bulk loading
+     * protocol} of the dialect, if any.
+     *
+     * @return The features that could not be bulk inserted.
+     */
+    private Collection<? extends SimpleFeature> insertBulk(
+            Collection<? extends SimpleFeature> features,
+            SimpleFeatureType featureType,
+            Connection cx,
+            PrimaryKey key)
+            throws IOException, SQLException {
+        // not worth it for a single feature
+        if (features.size() < 2) {
+            return features;
+        }
+        List<SimpleFeature> useExistings = new ArrayList<>();
+        List<SimpleFeature> notUseExistings = new ArrayList<>();
+        for (SimpleFeature cur : features) {
+            (InsertionClassifier.useExisting(cur) ? useExistings : notUseExistings).add(cur);
+        }
+        List<SimpleFeature> remaining = new ArrayList<>();
+        if (!insertBulk(useExistings, featureType, cx, key, true)) {
+            remaining.addAll(useExistings);
+        }
+        if (!insertBulk(notUseExistings, featureType, cx, key, false)) {
+            remaining.addAll(notUseExistings);
+        }
+        return remaining;
+    }
+
+    /**
+     * Specialized insertion for dialects that support bulk loading.
+     *
+     * @return false if the dialect can not bulk load the features, nothing has been inserted then
+     */
+    private boolean insertBulk(
+            Collection<SimpleFeature> features,
+            SimpleFeatureType featureType,
+            Connection cx,
+            PrimaryKey key,
+            boolean useExisting)
+            throws IOException, SQLException {
+        if (features.isEmpty()) {
+            return true;
+        }
+        // skip the pk columns in case we have exposed them, we grab the value from the pk itself
+        Set<String> keyColumnNames = new HashSet<>();
+        for (PrimaryKeyColumn col : key.getColumns()) {
+            keyColumnNames.add(col.getName());
+        }
+        List<AttributeDescriptor> attributes = new ArrayList<>();
+        for (AttributeDescriptor att : featureType.getAttributeDescriptors()) {
+            if (!keyColumnNames.contains(att.getLocalName())) {
+                attributes.add(att);
+            }
+        }
+        final BulkInsertWriter writer =
+                dialect.createBulkInsertWriter(
+                        databaseSchema,
+                        featureType.getTypeName(),
+                        attributes,
+                        key.getColumns(),
+                        cx);
+        if (writer == null) {
+            return false;
+        }
+        boolean finished = false;
+        try {
+            final KeysFetcher keysFetcher = KeysFetcher.createBulk(this, cx, useExisting, key);
+            if (keysFetcher.isPostInsert()) {
+                // keys generated by the database, we would not know the feature ids
+                return false;
+            }
+            final List<List<Object>> keyValues =
+                    keysFetcher.getBulkKeyValues(cx, featureType, features);
+            LOGGER.log(Level.FINE, "Bulk inserting {0} features", features.size());
+
+            final Iterator<List<Object>> keyIterator = keyValues.iterator();
+            for (SimpleFeature feature : features) {
+                for (AttributeDescriptor att : attributes) {
+                    String colName = att.getLocalName();
+                    Class binding = att.getType().getBinding();
+
+                    Object value = feature.getAttribute(colName);
+                    if (value == null && !att.isNillable()) {
+                        throw new IOException(
+                                "Cannot set a NULL value on the not null column " + colName);
+                    }
+
+                    if (Geometry.class.isAssignableFrom(binding)) {
+                        Geometry g = (Geometry) value;
+                        int srid = getGeometrySRID(g, att);
+                        int dimension = getGeometryDimension(g, att);
+                        writer.writeGeometry(g, dimension, srid, binding);
+                    } else {
+                        writer.writeValue(value, binding);
+                    }
+                }
+                final List<Object> values = keyIterator.next();
+                for (int i = 0; i < key.getColumns().size(); i++) {
+                    writer.writeValue(values.get(i), key.getColumns().get(i).getType());
+                }
+                writer.endRow();
+            }
+            long inserted = writer.finish();
+            finished = true;
+            if (inserted != features.size()) {
+                throw new IOException("Failed to insert some features");
+            }
+            return true;
+        } finally {
+            if (!finished) {
+                try {
+                    writer.cancel();
+                } catch (IOException | SQLException e) {
+                    LOGGER.log(Level.WARNING, "Failed to cancel the bulk insert", e);
+                }
+            }
+        }
+    }
+
     /** Specialized insertion for dialects that are using prepared statements. */
     private void insertPS(
             Collection<SimpleFeature> features,
@@ -3377,6 +3531,7 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         // add search hints if the dialect supports them
         applySearchHints(featureType, query, sql);
 
+        recordStatement(sql);
         return sql.toString();
     }
 
@@ -3421,9 +3576,18 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         // finally encode limit/offset, if necessary
         applyLimitOffset(sql, query.getStartIndex(), query.getMaxFeatures());
 
+        recordStatement(sql);
         return sql.toString();
     }
 
+    /** Records the statement in the statistics of the query being run, if any */
+    private void recordStatement(StringBuffer sql) {
+        QueryStatistics statistics = QueryInstrumentation.getCurrent();
+        if (statistics != null) {
+            statistics.setStatement(sql.toString());
+        }
+    }
+
     void selectColumns(SimpleFeatureType featureType, String prefix, Query query, StringBuffer sql)
             throws IOException {
 
@@ -3481,6 +3645,10 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
     FilterToSQL filter(SimpleFeatureType featureType, Filter filter, StringBuffer sql)
             throws IOException {
         SimpleFeatureType fullSchema = getSchema(featureType.getTypeName());
+        SQLTemplateCache cache = sqlTemplateCache;
+        if (cache != null && dialect instanceof PreparedStatementSQLDialect) {
+            return filterCached(fullSchema, filter, sql, cache);
+        }
         FilterToSQL toSQL = getFilterToSQL(fullSchema);
         return filter(featureType, filter, sql, toSQL);
     }
@@ -3488,27 +3656,60 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
     FilterToSQL filter(
             SimpleFeatureType featureType, Filter filter, StringBuffer sql, FilterToSQL toSQL)
             throws IOException {
+        appendFilter(encodeFilter(filter, toSQL), sql);
+        return toSQL;
+    }
+
+    /**
+     * Encodes the filter reusing, if possible, the SQL of a previously encoded filter with the
+     * same structure
+     */
+    private PreparedFilterToSQL filterCached(
+            SimpleFeatureType fullSchema, Filter filter, StringBuffer sql, SQLTemplateCache cache)
+            throws IOException {
+        PreparedFilterToSQL toSQL = createPreparedFilterToSQL(fullSchema);
+        SQLTemplateCache.Shape shape = SQLTemplateCache.getShape(filter);
+        if (shape == null) {
+            filter(fullSchema, filter, sql, toSQL);
+            return toSQL;
+        }
+
+        SQLTemplateCache.Template template = cache.get(fullSchema, shape);
+        if (template != null) {
+            template.apply(toSQL, shape.getLiterals());
+            appendFilter(template.sql, sql);
+        } else {
+            String filterSql = encodeFilter(filter, toSQL);
+            cache.put(fullSchema, shape, filterSql, toSQL);
+            appendFilter(filterSql, sql);
+        }
+        return toSQL;
+    }
+
+    private String encodeFilter(Filter filter, FilterToSQL toSQL) {
         try {
             // grab the full feature type, as we might be encoding a filter
             // that uses attributes that aren't returned in the results
             toSQL.setInline(true);
-            String filterSql = toSQL.encodeToString(filter);
-            int whereClauseIndex = sql.indexOf(WHERE_CLAUSE_PLACE_HOLDER);
-            if (whereClauseIndex != -1) {
-                sql.replace(
-                        whereClauseIndex,
-                        whereClauseIndex + WHERE_CLAUSE_PLACE_HOLDER_LENGTH,
-                        "AND " + filterSql);
-                sql.append("1 = 1");
-            } else {
-                sql.append(filterSql);
-            }
-            return toSQL;
+            return toSQL.encodeToString(filter);
         } catch (FilterToSQLException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private void appendFilter(String filterSql, StringBuffer sql) {
+        int whereClauseIndex = sql.indexOf(WHERE_CLAUSE_PLACE_HOLDER);
+        if (whereClauseIndex != -1) {
+            sql.replace(
+                    whereClauseIndex,
+                    whereClauseIndex + WHERE_CLAUSE_PLACE_HOLDER_LENGTH,
+                    "AND " + filterSql);
+            sql.append("1 = 1");
+        } else {
+            sql.append(filterSql);
+        }
+    }
+
     private FilterToSQL getFilterToSQL(SimpleFeatureType fullSchema) {
         return dialect instanceof PreparedStatementSQLDialect
                 ? createPreparedFilterToSQL(fullSchema)
@@ -3605,6 +3806,7 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         applySearchHints(featureType, query, sql);
 
         LOGGER.fine(sql.toString());
+        recordStatement(sql);
         PreparedStatement ps =
                 cx.prepareStatement(
                         sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
@@ -3649,6 +3851,7 @@ public final class JDBCDataStore extends ContentDataStore implements GmlObjectSt
         applyLimitOffset(sql, query.getStartIndex(), query.getMaxFeatures());
 
         LOGGER.fine(sql.toString());
+        recordStatement(sql);
         PreparedStatement ps =
                 cx.prepareStatement(
                         sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
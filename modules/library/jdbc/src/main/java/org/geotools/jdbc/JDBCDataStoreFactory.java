@@ -204,6 +204,19 @@ public abstract class JDBCDataStoreFactory implements DataStoreFactorySpi {
                     false,
                     50);
 
+    /**
+     * Number of filter SQL encodings cached by structure (this param is exposed only by factories
+     * supporting prepared statements)
+     */
+    public static final Param SQL_TEMPLATE_CACHE_SIZE =
+            new Param(
+                    "SQL template cache size",
+                    Integer.class,
+                    "Maximum number of filter SQL encodings cached and reused for filters "
+                            + "differing only in their values. Set to 0 to disable caching",
+                    false,
+                    0);
+
     /** expose primary key columns as attributes */
     public static final Param EXPOSE_PK =
             new Param(
@@ -313,6 +326,12 @@ public abstract class JDBCDataStoreFactory implements DataStoreFactorySpi {
         Integer fetchSize = (Integer) FETCHSIZE.lookUp(params);
         if (fetchSize != null && fetchSize > 0) dataStore.setFetchSize(fetchSize);
 
+        // filter encoding cache, only used with prepared statements
+        Integer templateCacheSize = (Integer) SQL_TEMPLATE_CACHE_SIZE.lookUp(params);
+        if (templateCacheSize != null && templateCacheSize > 0) {
+            dataStore.setSQLTemplateCacheSize(templateCacheSize);
+        }
+
         Integer batchInsertSize = (Integer) BATCH_INSERT_SIZE.lookUp(params);
         if (batchInsertSize != null && batchInsertSize > 0) {
             dataStore.setBatchInsertSize(batchInsertSize);
@@ -49,6 +49,7 @@ import org.geotools.util.Converters;
 import org.geotools.util.factory.Hints;
 import org.geotools.util.logging.Logging;
 import org.locationtech.jts.geom.CoordinateSequenceFactory;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.opengis.feature.FeatureFactory;
@@ -96,6 +97,9 @@ public class JDBCFeatureReader implements FeatureReader<SimpleFeatureType, Simpl
     /** Screenmap for feature skipping behaviour */
     protected ScreenMap screenMap;
 
+    /** Reused to decode the geometry envelopes for the screenmap checks */
+    private final Envelope screenMapEnvelope = new Envelope();
+
     /** current transaction */
     protected Transaction tx;
     /** flag indicating if the iterator has another feature */
@@ -345,53 +349,74 @@ public class JDBCFeatureReader implements FeatureReader<SimpleFeatureType, Simpl
                 // is this a geometry?
                 if (type instanceof GeometryDescriptor) {
                     GeometryDescriptor gatt = (GeometryDescriptor) type;
+                    int column = offset + attributeRsIndex[i];
+                    SQLDialect dialect = dataStore.getSQLDialect();
 
-                    // read the geometry
+                    Geometry geometry = null;
+                    boolean screenMapChecked = false;
                     try {
-                        value =
-                                dataStore
-                                        .getSQLDialect()
-                                        .decodeGeometryValue(
-                                                gatt,
-                                                rs,
-                                                offset + attributeRsIndex[i],
-                                                geometryFactory,
-                                                cx,
-                                                hints);
+                        // geometries smaller than a pixel are skipped or replaced by a shape
+                        // built from their envelope, see if we can avoid reading them
+                        if (screenMap != null) {
+                            try {
+                                Class<? extends Geometry> geometryType =
+                                        dialect.decodeGeometryValueEnvelope(
+                                                gatt, rs, column, screenMapEnvelope, cx);
+                                if (geometryType != null) {
+                                    screenMapChecked = true;
+                                    if (screenMap.canSimplify(screenMapEnvelope)) {
+                                        if (screenMap.checkAndSet(screenMapEnvelope)) {
+                                            builder.reset();
+                                            return null;
+                                        }
+                                        geometry =
+                                                screenMap.getSimplifiedShape(
+                                                        screenMapEnvelope.getMinX(),
+                                                        screenMapEnvelope.getMinY(),
+                                                        screenMapEnvelope.getMaxX(),
+                                                        screenMapEnvelope.getMaxY(),
+                                                        geometryFactory,
+                                                        geometryType);
+                                    }
+                                }
+                            } catch (TransformException e) {
+                                logScreenMapFailure(e);
+                            }
+                        }
+
+                        // read the geometry
+                        if (geometry == null) {
+                            geometry =
+                                    dialect.decodeGeometryValue(
+                                            gatt, rs, column, geometryFactory, cx, hints);
+                        }
                     } catch (IOException e) {
                         throw new RuntimeException(e);
                     }
 
-                    if (value != null) {
-                        // check to see if a crs was set
-                        Geometry geometry = (Geometry) value;
-                        if (geometry.getUserData() == null) {
-                            // if not set, set from descriptor
-                            geometry.setUserData(gatt.getCoordinateReferenceSystem());
-                        }
-
+                    if (geometry != null && screenMap != null && !screenMapChecked) {
                         try {
                             // is position already busy skip it
-                            if (screenMap != null) {
-                                if (screenMap.canSimplify(geometry.getEnvelopeInternal())) {
-                                    if (screenMap.checkAndSet(geometry.getEnvelopeInternal())) {
-                                        builder.reset();
-                                        return null;
-                                    } else {
-                                        value = screenMap.getSimplifiedShape(geometry);
-                                    }
+                            if (screenMap.canSimplify(geometry.getEnvelopeInternal())) {
+                                if (screenMap.checkAndSet(geometry.getEnvelopeInternal())) {
+                                    builder.reset();
+                                    return null;
+                                } else {
+                                    geometry = screenMap.getSimplifiedShape(geometry);
                                 }
                             }
                         } catch (TransformException e) {
-                            if (LOGGER.isLoggable(Level.WARNING)) {
-                                LOGGER.log(
-                                        Level.WARNING,
-                                        "Failed to process screenmap checks, proceeding without",
-                                        e);
-                            }
+                            logScreenMapFailure(e);
                         }
                     }
 
+                    // check to see if a crs was set
+                    if (geometry != null && geometry.getUserData() == null) {
+                        // if not set, set from descriptor
+                        geometry.setUserData(gatt.getCoordinateReferenceSystem());
+                    }
+                    value = geometry;
+
                 } else {
                     value = rs.getObject(offset + attributeRsIndex[i]);
                 }
@@ -432,6 +457,12 @@ public class JDBCFeatureReader implements FeatureReader<SimpleFeatureType, Simpl
         }
     }
 
+    private void logScreenMapFailure(TransformException e) {
+        if (LOGGER.isLoggable(Level.WARNING)) {
+            LOGGER.log(Level.WARNING, "Failed to process screenmap checks, proceeding without", e);
+        }
+    }
+
     protected void ensureNext() {
         if (next == null) {
             throw new IllegalStateException("Must call hasNext before calling next");
@@ -38,6 +38,8 @@ import org.geotools.data.FilteringFeatureReader;
 import org.geotools.data.MaxFeatureReader;
 import org.geotools.data.Query;
 import org.geotools.data.QueryCapabilities;
+import org.geotools.data.QueryInstrumentation;
+import org.geotools.data.QueryStatistics;
 import org.geotools.data.ReTypeFeatureReader;
 import org.geotools.data.Transaction;
 import org.geotools.data.store.ContentEntry;
@@ -551,6 +553,12 @@ public class JDBCFeatureSource extends ContentFeatureSource {
         Filter preFilter = split[0];
         Filter postFilter = split[1];
         boolean postFilterRequired = postFilter != null && postFilter != Filter.INCLUDE;
+        QueryStatistics statistics = QueryInstrumentation.getCurrent();
+        if (statistics != null) {
+            statistics.setFilters(
+                    preFilter != null ? preFilter : Filter.INCLUDE,
+                    postFilterRequired ? postFilter : Filter.INCLUDE);
+        }
 
         // rebuild a new query with the same params, but just the pre-filter
         DefaultQuery preQuery = new DefaultQuery(query);
@@ -24,10 +24,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -59,7 +61,23 @@ abstract class KeysFetcher {
         if (useExisting) {
             return new Existing(ds.getSQLDialect(), key);
         } else {
-            return new FromDB(ds, cx, key);
+            return new FromDB(ds, cx, key, false);
+        }
+    }
+
+    /**
+     * Creates a fetcher for a {@linkplain BulkInsertWriter bulk insert}. Values coming from
+     * sequences are fetched before the insert, many at a time, even if the dialect usually looks
+     * them up after the insert. The returned fetcher is still post insert if some key values are
+     * generated by the database without a sequence, in which case a bulk insert is not possible.
+     */
+    public static KeysFetcher createBulk(
+            JDBCDataStore ds, Connection cx, boolean useExisting, PrimaryKey key)
+            throws SQLException, IOException {
+        if (useExisting) {
+            return new Existing(ds.getSQLDialect(), key);
+        } else {
+            return new FromDB(ds, cx, key, true);
         }
     }
 
@@ -123,6 +141,32 @@ abstract class KeysFetcher {
         }
     }
 
+    /**
+     * Computes the key values of the given features before a bulk insert, and reports the feature
+     * ids as user data. All the queries needed to compute the values are run by this method, the
+     * connection can not be used while the rows are streamed.
+     *
+     * @return The key values, for each feature.
+     */
+    public List<List<Object>> getBulkKeyValues(
+            Connection cx,
+            SimpleFeatureType featureType,
+            Collection<? extends SimpleFeature> features)
+            throws IOException, SQLException {
+        prefetch(cx, features.size());
+        final List<List<Object>> result = new ArrayList<>(features.size());
+        for (SimpleFeature feature : features) {
+            final List<Object> keyValues = getNextValues(cx, feature);
+            String fid = featureType.getTypeName() + "." + JDBCDataStore.encodeFID(keyValues);
+            feature.getUserData().put("fid", fid);
+            result.add(keyValues);
+        }
+        return result;
+    }
+
+    /** Prepares the computation of the given number of key values. The default does nothing. */
+    protected void prefetch(Connection cx, int count) throws SQLException {}
+
     public abstract void addKeyColumns(StringBuffer sql);
 
     public abstract void addKeyBindings(StringBuffer sql);
@@ -233,23 +277,27 @@ abstract class KeysFetcher {
     private static class FromDB extends KeysFetcher {
         private final List<KeyFetcher> fetchers;
 
-        public FromDB(JDBCDataStore ds, Connection cx, PrimaryKey key)
+        public FromDB(JDBCDataStore ds, Connection cx, PrimaryKey key, boolean bulk)
                 throws SQLException, IOException {
             super(key);
             fetchers = new ArrayList<>(key.getColumns().size());
             for (PrimaryKeyColumn col : key.getColumns()) {
-                fetchers.add(createKeyFetcher(ds, cx, key, col));
+                fetchers.add(createKeyFetcher(ds, cx, key, col, bulk));
             }
         }
 
         private KeyFetcher createKeyFetcher(
-                JDBCDataStore ds, Connection cx, PrimaryKey key, PrimaryKeyColumn col)
+                JDBCDataStore ds,
+                Connection cx,
+                PrimaryKey key,
+                PrimaryKeyColumn col,
+                boolean bulk)
                 throws SQLException, IOException {
             final Class t = col.getType();
             if (col instanceof AutoGeneratedPrimaryKeyColumn) {
                 return new AutoGenerated(ds, key, col);
             } else if (col instanceof SequencedPrimaryKeyColumn) {
-                return new FromSequence(ds, col);
+                return new FromSequence(ds, col, bulk);
             } else {
                 // try to calculate
 
@@ -338,6 +386,13 @@ abstract class KeysFetcher {
             return false;
         }
 
+        @Override
+        protected void prefetch(Connection cx, int count) throws SQLException {
+            for (KeyFetcher fetcher : fetchers) {
+                fetcher.prefetch(cx, count);
+            }
+        }
+
         private List<Object> getLastValues(Connection cx, Statement st) throws SQLException {
             List<Object> last = new ArrayList<>();
             for (KeyFetcher fetcher : fetchers) {
@@ -409,6 +464,9 @@ abstract class KeysFetcher {
         public boolean isAutoGenerated() {
             return false;
         }
+
+        /** Prepares the computation of the given number of values. The default does nothing. */
+        public void prefetch(Connection cx, int count) throws SQLException {}
     }
 
     private static class FromRandom extends KeyFetcher {
@@ -567,9 +625,36 @@ abstract class KeysFetcher {
     private static class FromSequence extends KeyFetcher {
         private final JDBCDataStore ds;
 
-        public FromSequence(JDBCDataStore ds, PrimaryKeyColumn col) {
+        /** Whether the values are always fetched before insert, for bulk inserts. */
+        private final boolean bulk;
+
+        /** The values fetched by {@link #prefetch}, not used yet. */
+        private final Deque<Object> prefetched = new ArrayDeque<>();
+
+        public FromSequence(JDBCDataStore ds, PrimaryKeyColumn col, boolean bulk) {
             super(ds, col);
             this.ds = ds;
+            this.bulk = bulk;
+        }
+
+        @Override
+        public void prefetch(Connection cx, int count) throws SQLException {
+            if (!isPostInsert() && count > prefetched.size()) {
+                String sequenceName = ((SequencedPrimaryKeyColumn) col).getSequenceName();
+                List<Object> values =
+                        ds.getSQLDialect()
+                                .getNextSequenceValues(
+                                        ds.getDatabaseSchema(),
+                                        sequenceName,
+                                        count - prefetched.size(),
+                                        cx);
+                for (Object value : values) {
+                    // nulls are not supported by the deque, getNext will query them again
+                    if (value != null) {
+                        prefetched.add(value);
+                    }
+                }
+            }
         }
 
         @Override
@@ -590,7 +675,8 @@ abstract class KeysFetcher {
 
         @Override
         public boolean isPostInsert() {
-            return ds.getSQLDialect().lookupGeneratedValuesPostInsert()
+            return !bulk
+                    && ds.getSQLDialect().lookupGeneratedValuesPostInsert()
                     && ds.getSQLDialect() instanceof PreparedStatementSQLDialect;
         }
 
@@ -598,6 +684,8 @@ abstract class KeysFetcher {
         public Object getNext(Connection cx) throws IOException, SQLException {
             if (isPostInsert()) {
                 return NOT_SET_BEFORE_INSERT;
+            } else if (!prefetched.isEmpty()) {
+                return prefetched.poll();
             } else {
                 String sequenceName = ((SequencedPrimaryKeyColumn) col).getSequenceName();
                 return ds.getSQLDialect()
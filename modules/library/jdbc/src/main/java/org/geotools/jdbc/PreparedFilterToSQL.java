@@ -47,6 +47,8 @@ public class PreparedFilterToSQL extends FilterToSQL {
     protected List<Integer> SRIDs = new ArrayList<>();
     protected List<Integer> dimensions = new ArrayList<>();
     protected List<AttributeDescriptor> descriptors = new ArrayList<>();
+    /** The literal expressions the values have been evaluated from, null if not a literal */
+    protected List<Literal> literalExpressions = new ArrayList<>();
     protected PreparedStatementSQLDialect dialect;
     boolean prepareEnabled = true;
 
@@ -94,6 +96,7 @@ public class PreparedFilterToSQL extends FilterToSQL {
         // evaluate the literal and store it for later
         Object literalValue = evaluateLiteral(expression, clazz);
         literalValues.add(literalValue);
+        literalExpressions.add(expression);
         SRIDs.add(currentSRID);
         dimensions.add(currentDimension);
         descriptors.add(
@@ -177,6 +180,7 @@ public class PreparedFilterToSQL extends FilterToSQL {
                     // if it's not null, we can also infer the type
                     literalTypes.add(attValues[j] != null ? attValues[j].getClass() : null);
                     descriptors.add(null);
+                    literalExpressions.add(null);
 
                     if (j < (attValues.length - 1)) {
                         out.write(" AND ");
@@ -233,4 +237,12 @@ public class PreparedFilterToSQL extends FilterToSQL {
     public List<AttributeDescriptor> getDescriptors() {
         return descriptors;
     }
+
+    /**
+     * Returns the literal expressions each value has been evaluated from, or null for values that
+     * did not originate from a literal (e.g., feature ids)
+     */
+    public List<Literal> getLiteralExpressions() {
+        return literalExpressions;
+    }
 }
@@ -858,6 +858,44 @@ public abstract class SQLDialect {
         return decodeGeometryValue(descriptor, rs, columnName, factory, cx, hints);
     }
 
+    /**
+     * Decodes the envelope and type of a geometry value from the result of a query, without
+     * building the geometry itself.
+     *
+     * <p>This method is used when the features are read with a {@link Hints#SCREENMAP}, where
+     * geometries smaller than a pixel are either skipped or replaced by a simplified shape built
+     * out of their envelope. Dialects able to compute the envelope from the encoded value (for
+     * example, reading it from a header or scanning the coordinates) can avoid building geometries
+     * that are going to be thrown away.
+     *
+     * <p>The default implementation returns <code>null</code>, meaning the envelope cannot be
+     * decoded cheaply and the geometry will be read with {@link
+     * #decodeGeometryValue(GeometryDescriptor, ResultSet, int, GeometryFactory, Connection,
+     * Hints)}. Implementations should also return <code>null</code> for null or empty values.
+     *
+     * <p>When the envelope is not enough, the geometry is read right after with {@link
+     * #decodeGeometryValue(GeometryDescriptor, ResultSet, int, GeometryFactory, Connection,
+     * Hints)}, on the same row: implementations that have to decode the whole value to compute
+     * the envelope should keep the decoded value and reuse it there, rather than decoding it twice.
+     *
+     * @param descriptor The geometry attribute descriptor
+     * @param rs The result set
+     * @param column The index of the geometry column
+     * @param envelope The envelope to be filled with the geometry envelope
+     * @param cx The database connection
+     * @return The geometry type, or <code>null</code> if the envelope was not decoded
+     * @since 22
+     */
+    public Class<? extends Geometry> decodeGeometryValueEnvelope(
+            GeometryDescriptor descriptor,
+            ResultSet rs,
+            int column,
+            Envelope envelope,
+            Connection cx)
+            throws IOException, SQLException {
+        return null;
+    }
+
     /**
      * Encodes the primary key definition in a CREATE TABLE statement.
      *
@@ -1158,6 +1196,30 @@ public abstract class SQLDialect {
         return null;
     }
 
+    /**
+     * Obtains the next values of a sequence, incrementing the sequence in the process. Used to
+     * compute the keys of many features at once, e.g. before a {@linkplain #createBulkInsertWriter
+     * bulk insert}.
+     *
+     * <p>The default implementation calls {@link #getNextSequenceValue} for each value, subclasses
+     * should override it to fetch all values in a single query.
+     *
+     * @param schemaName The schema name, this might be <code>null</code>.
+     * @param sequenceName The name of the sequence.
+     * @param count The number of values to fetch.
+     * @param cx The database connection.
+     * @return The next values of the sequence.
+     */
+    public List<Object> getNextSequenceValues(
+            String schemaName, String sequenceName, int count, Connection cx)
+            throws SQLException {
+        List<Object> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(getNextSequenceValue(schemaName, sequenceName, cx));
+        }
+        return values;
+    }
+
     /**
      * Encodes how to get the next sequence value from the DB.
      *
@@ -1167,6 +1229,37 @@ public abstract class SQLDialect {
         return null;
     }
 
+    /**
+     * Creates a writer inserting rows in a table with a database specific bulk loading protocol,
+     * faster than batches of INSERT statements. {@link JDBCDataStore} uses it, when available, to
+     * insert the features buffered by the feature writers.
+     *
+     * <p>The rows will contain a value for each of the given attributes, followed by a value for
+     * each of the given primary key columns. Implementations should return <code>null</code> if
+     * they can not load some of the columns, in which case INSERT statements are used.
+     *
+     * <p>This method is given a direct connection to the database, but this connection should never
+     * be closed. The writer must not use it before the first row is written, the primary key
+     * values are computed in between. The default implementation returns <code>null</code>.
+     *
+     * @param schemaName The schema name, this might be <code>null</code>.
+     * @param tableName The table name.
+     * @param attributes The attributes to insert.
+     * @param keyColumns The primary key columns to insert.
+     * @param cx The database connection.
+     * @return The writer, or <code>null</code> if bulk loading is not supported.
+     * @since 22
+     */
+    public BulkInsertWriter createBulkInsertWriter(
+            String schemaName,
+            String tableName,
+            List<AttributeDescriptor> attributes,
+            List<PrimaryKeyColumn> keyColumns,
+            Connection cx)
+            throws SQLException {
+        return null;
+    }
+
     /**
      * Returns true if this dialect can encode both {@linkplain Query#getStartIndex()} and
      * {@linkplain Query#getMaxFeatures()} into native SQL.
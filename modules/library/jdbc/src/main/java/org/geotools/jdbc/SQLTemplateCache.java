@@ -0,0 +1,619 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.jdbc;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.ExcludeFilter;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterVisitor;
+import org.opengis.filter.Id;
+import org.opengis.filter.IncludeFilter;
+import org.opengis.filter.NativeFilter;
+import org.opengis.filter.Not;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.PropertyIsNil;
+import org.opengis.filter.PropertyIsNotEqualTo;
+import org.opengis.filter.PropertyIsNull;
+import org.opengis.filter.expression.Add;
+import org.opengis.filter.expression.BinaryExpression;
+import org.opengis.filter.expression.Divide;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.ExpressionVisitor;
+import org.opengis.filter.expression.Function;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.Multiply;
+import org.opengis.filter.expression.NilExpression;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.expression.Subtract;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.filter.spatial.Beyond;
+import org.opengis.filter.spatial.BinarySpatialOperator;
+import org.opengis.filter.spatial.Contains;
+import org.opengis.filter.spatial.Crosses;
+import org.opengis.filter.spatial.DWithin;
+import org.opengis.filter.spatial.Disjoint;
+import org.opengis.filter.spatial.DistanceBufferOperator;
+import org.opengis.filter.spatial.Equals;
+import org.opengis.filter.spatial.Intersects;
+import org.opengis.filter.spatial.Overlaps;
+import org.opengis.filter.spatial.Touches;
+import org.opengis.filter.spatial.Within;
+import org.opengis.filter.temporal.After;
+import org.opengis.filter.temporal.AnyInteracts;
+import org.opengis.filter.temporal.Before;
+import org.opengis.filter.temporal.Begins;
+import org.opengis.filter.temporal.BegunBy;
+import org.opengis.filter.temporal.BinaryTemporalOperator;
+import org.opengis.filter.temporal.During;
+import org.opengis.filter.temporal.EndedBy;
+import org.opengis.filter.temporal.Ends;
+import org.opengis.filter.temporal.Meets;
+import org.opengis.filter.temporal.MetBy;
+import org.opengis.filter.temporal.OverlappedBy;
+import org.opengis.filter.temporal.TContains;
+import org.opengis.filter.temporal.TEquals;
+import org.opengis.filter.temporal.TOverlaps;
+
+/**
+ * Caches the SQL encoding of filters by their structure, so that filters differing only in their
+ * literal values (e.g., the bounding box of tile requests) are encoded by {@link
+ * PreparedFilterToSQL} only once.
+ *
+ * <p>The cache key is a structural signature of the filter, in which literals are replaced by a
+ * placeholder and the type of their value. A template is stored only if each literal of the
+ * filter has been turned into a prepared statement parameter, and only through the {@link
+ * PreparedFilterToSQL#visit(Literal, Object)} method: dialects evaluating literals on their own,
+ * or writing them inline in the SQL, make the filter non cacheable. On a cache hit the literal
+ * values of the new filter are evaluated against the types recorded in the template and bound to
+ * the same parameters.
+ *
+ * <p>The resulting SQL is the same for all filters with the same structure, so the server side
+ * prepared statements pooled along with the connections get reused as well.
+ */
+class SQLTemplateCache {
+
+    final int maxSize;
+
+    final Map<Key, Template> templates;
+
+    final AtomicLong hits = new AtomicLong();
+
+    final AtomicLong misses = new AtomicLong();
+
+    SQLTemplateCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.templates =
+                new LinkedHashMap<Key, Template>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Key, Template> eldest) {
+                        return size() > maxSize;
+                    }
+                };
+    }
+
+    /**
+     * Computes the structural signature of the filter, or returns null if the filter cannot be
+     * cached
+     */
+    static Shape getShape(Filter filter) {
+        Shape shape = new Shape();
+        filter.accept(shape, null);
+        return shape.cacheable ? shape : null;
+    }
+
+    /** Looks up the template for the given schema and filter shape */
+    Template get(SimpleFeatureType schema, Shape shape) {
+        Template template;
+        synchronized (templates) {
+            template = templates.get(new Key(schema, shape.signature.toString()));
+        }
+        if (template == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return template;
+    }
+
+    /**
+     * Builds a template out of the encoder used to turn the filter into SQL and caches it. If the
+     * encoding cannot be replayed for other literal values nothing is cached.
+     */
+    void put(SimpleFeatureType schema, Shape shape, String sql, PreparedFilterToSQL toSQL) {
+        Template template = Template.create(sql, toSQL, shape.literals);
+        if (template != null) {
+            synchronized (templates) {
+                templates.put(new Key(schema, shape.signature.toString()), template);
+            }
+        }
+    }
+
+    int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    /** The schema is compared by identity, a schema change results in new entries */
+    static final class Key {
+        final SimpleFeatureType schema;
+
+        final String signature;
+
+        Key(SimpleFeatureType schema, String signature) {
+            this.schema = schema;
+            this.signature = signature;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return schema == other.schema && signature.equals(other.signature);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(schema) + signature.hashCode();
+        }
+    }
+
+    /** The SQL encoding of a filter, along with the parameters it needs */
+    static final class Template {
+        final String sql;
+
+        /** For each parameter, the index of the literal providing its value */
+        final int[] literals;
+
+        final List<Class> types;
+
+        final List<Integer> srids;
+
+        final List<Integer> dimensions;
+
+        final List<AttributeDescriptor> descriptors;
+
+        Template(String sql, int[] literals, PreparedFilterToSQL toSQL) {
+            this.sql = sql;
+            this.literals = literals;
+            this.types = new ArrayList<>(toSQL.getLiteralTypes());
+            this.srids = new ArrayList<>(toSQL.getSRIDs());
+            this.dimensions = new ArrayList<>(toSQL.getDimensions());
+            this.descriptors = new ArrayList<>(toSQL.getDescriptors());
+        }
+
+        static Template create(String sql, PreparedFilterToSQL toSQL, List<Literal> literals) {
+            List<Literal> sources = toSQL.getLiteralExpressions();
+            int count = toSQL.getLiteralValues().size();
+            if (!toSQL.isPrepareEnabled() || sources.size() != count) {
+                return null;
+            }
+            Map<Literal, Integer> indexes = new IdentityHashMap<>();
+            for (int i = 0; i < literals.size(); i++) {
+                indexes.putIfAbsent(literals.get(i), i);
+            }
+            int[] mapping = new int[count];
+            boolean[] used = new boolean[literals.size()];
+            for (int i = 0; i < count; i++) {
+                Integer index = indexes.get(sources.get(i));
+                if (index == null) {
+                    // a literal built on the fly by the encoder
+                    return null;
+                }
+                mapping[i] = index;
+                used[index] = true;
+            }
+            for (boolean u : used) {
+                // the literal has been handled by the encoder on its own, possibly inline
+                if (!u) {
+                    return null;
+                }
+            }
+            return new Template(sql, mapping, toSQL);
+        }
+
+        /** Sets up the encoder parameters as if it had encoded a filter with the given literals */
+        void apply(PreparedFilterToSQL toSQL, List<Literal> values) {
+            for (int i = 0; i < literals.length; i++) {
+                Literal literal = values.get(literals[i]);
+                toSQL.literalValues.add(toSQL.evaluateLiteral(literal, types.get(i)));
+                toSQL.literalExpressions.add(literal);
+            }
+            toSQL.literalTypes.addAll(types);
+            toSQL.SRIDs.addAll(srids);
+            toSQL.dimensions.addAll(dimensions);
+            toSQL.descriptors.addAll(descriptors);
+        }
+    }
+
+    /**
+     * Structural signature of a filter. All filter and expression types are handled explicitly so
+     * that any attribute that might influence the encoding makes it into the signature.
+     */
+    static final class Shape implements FilterVisitor, ExpressionVisitor {
+
+        final StringBuilder signature = new StringBuilder();
+
+        final List<Literal> literals = new ArrayList<>();
+
+        boolean cacheable = true;
+
+        List<Literal> getLiterals() {
+            return literals;
+        }
+
+        private Object node(Object node, Object... parts) {
+            signature.append(node.getClass().getName()).append('(');
+            for (Object part : parts) {
+                if (part instanceof Expression) {
+                    ((Expression) part).accept(this, null);
+                } else if (part instanceof Filter) {
+                    ((Filter) part).accept(this, null);
+                } else {
+                    // length prefixed, so that no text can be mistaken for structure
+                    String text = String.valueOf(part);
+                    signature.append(text.length()).append(':').append(text);
+                }
+                signature.append(',');
+            }
+            signature.append(')');
+            return null;
+        }
+
+        private Object comparison(BinaryComparisonOperator filter) {
+            return node(
+                    filter,
+                    filter.isMatchingCase(),
+                    filter.getMatchAction(),
+                    filter.getExpression1(),
+                    filter.getExpression2());
+        }
+
+        private Object spatial(BinarySpatialOperator filter) {
+            return node(
+                    filter,
+                    filter.getMatchAction(),
+                    filter.getExpression1(),
+                    filter.getExpression2());
+        }
+
+        private Object distance(DistanceBufferOperator filter) {
+            return node(
+                    filter,
+                    filter.getMatchAction(),
+                    filter.getDistance(),
+                    filter.getDistanceUnits(),
+                    filter.getExpression1(),
+                    filter.getExpression2());
+        }
+
+        private Object temporal(BinaryTemporalOperator filter) {
+            return node(
+                    filter,
+                    filter.getMatchAction(),
+                    filter.getExpression1(),
+                    filter.getExpression2());
+        }
+
+        private Object binary(BinaryExpression expression) {
+            return node(expression, expression.getExpression1(), expression.getExpression2());
+        }
+
+        @Override
+        public Object visitNullFilter(Object extraData) {
+            signature.append("null");
+            return null;
+        }
+
+        @Override
+        public Object visit(ExcludeFilter filter, Object extraData) {
+            return node(filter);
+        }
+
+        @Override
+        public Object visit(IncludeFilter filter, Object extraData) {
+            return node(filter);
+        }
+
+        @Override
+        public Object visit(And filter, Object extraData) {
+            return node(filter, filter.getChildren().toArray());
+        }
+
+        @Override
+        public Object visit(Id filter, Object extraData) {
+            // identifiers are encoded as parameters without going through literals
+            cacheable = false;
+            return null;
+        }
+
+        @Override
+        public Object visit(Not filter, Object extraData) {
+            return node(filter, filter.getFilter());
+        }
+
+        @Override
+        public Object visit(Or filter, Object extraData) {
+            return node(filter, filter.getChildren().toArray());
+        }
+
+        @Override
+        public Object visit(PropertyIsBetween filter, Object extraData) {
+            return node(
+                    filter,
+                    filter.getMatchAction(),
+                    filter.getExpression(),
+                    filter.getLowerBoundary(),
+                    filter.getUpperBoundary());
+        }
+
+        @Override
+        public Object visit(PropertyIsEqualTo filter, Object extraData) {
+            return comparison(filter);
+        }
+
+        @Override
+        public Object visit(PropertyIsNotEqualTo filter, Object extraData) {
+            return comparison(filter);
+        }
+
+        @Override
+        public Object visit(PropertyIsGreaterThan filter, Object extraData) {
+            return comparison(filter);
+        }
+
+        @Override
+        public Object visit(PropertyIsGreaterThanOrEqualTo filter, Object extraData) {
+            return comparison(filter);
+        }
+
+        @Override
+        public Object visit(PropertyIsLessThan filter, Object extraData) {
+            return comparison(filter);
+        }
+
+        @Override
+        public Object visit(PropertyIsLessThanOrEqualTo filter, Object extraData) {
+            return comparison(filter);
+        }
+
+        @Override
+        public Object visit(PropertyIsLike filter, Object extraData) {
+            return node(
+                    filter,
+                    filter.isMatchingCase(),
+                    filter.getMatchAction(),
+                    filter.getLiteral(),
+                    filter.getWildCard(),
+                    filter.getSingleChar(),
+                    filter.getEscape(),
+                    filter.getExpression());
+        }
+
+        @Override
+        public Object visit(PropertyIsNull filter, Object extraData) {
+            return node(filter, filter.getExpression());
+        }
+
+        @Override
+        public Object visit(PropertyIsNil filter, Object extraData) {
+            return node(filter, filter.getNilReason(), filter.getExpression());
+        }
+
+        @Override
+        public Object visit(BBOX filter, Object extraData) {
+            return spatial(filter);
+        }
+
+        @Override
+        public Object visit(Beyond filter, Object extraData) {
+            return distance(filter);
+        }
+
+        @Override
+        public Object visit(Contains filter, Object extraData) {
+            return spatial(filter);
+        }
+
+        @Override
+        public Object visit(Crosses filter, Object extraData) {
+            return spatial(filter);
+        }
+
+        @Override
+        public Object visit(Disjoint filter, Object extraData) {
+            return spatial(filter);
+        }
+
+        @Override
+        public Object visit(DWithin filter, Object extraData) {
+            return distance(filter);
+        }
+
+        @Override
+        public Object visit(Equals filter, Object extraData) {
+            return spatial(filter);
+        }
+
+        @Override
+        public Object visit(Intersects filter, Object extraData) {
+            return spatial(filter);
+        }
+
+        @Override
+        public Object visit(Overlaps filter, Object extraData) {
+            return spatial(filter);
+        }
+
+        @Override
+        public Object visit(Touches filter, Object extraData) {
+            return spatial(filter);
+        }
+
+        @Override
+        public Object visit(Within filter, Object extraData) {
+            return spatial(filter);
+        }
+
+        @Override
+        public Object visit(After after, Object extraData) {
+            return temporal(after);
+        }
+
+        @Override
+        public Object visit(AnyInteracts anyInteracts, Object extraData) {
+            return temporal(anyInteracts);
+        }
+
+        @Override
+        public Object visit(Before before, Object extraData) {
+            return temporal(before);
+        }
+
+        @Override
+        public Object visit(Begins begins, Object extraData) {
+            return temporal(begins);
+        }
+
+        @Override
+        public Object visit(BegunBy begunBy, Object extraData) {
+            return temporal(begunBy);
+        }
+
+        @Override
+        public Object visit(During during, Object extraData) {
+            return temporal(during);
+        }
+
+        @Override
+        public Object visit(EndedBy endedBy, Object extraData) {
+            return temporal(endedBy);
+        }
+
+        @Override
+        public Object visit(Ends ends, Object extraData) {
+            return temporal(ends);
+        }
+
+        @Override
+        public Object visit(Meets meets, Object extraData) {
+            return temporal(meets);
+        }
+
+        @Override
+        public Object visit(MetBy metBy, Object extraData) {
+            return temporal(metBy);
+        }
+
+        @Override
+        public Object visit(OverlappedBy overlappedBy, Object extraData) {
+            return temporal(overlappedBy);
+        }
+
+        @Override
+        public Object visit(TContains contains, Object extraData) {
+            return temporal(contains);
+        }
+
+        @Override
+        public Object visit(TEquals equals, Object extraData) {
+            return temporal(equals);
+        }
+
+        @Override
+        public Object visit(TOverlaps contains, Object extraData) {
+            return temporal(contains);
+        }
+
+        @Override
+        public Object visit(NativeFilter filter, Object extraData) {
+            return node(filter, filter.getNative());
+        }
+
+        @Override
+        public Object visit(NilExpression expression, Object extraData) {
+            return node(expression);
+        }
+
+        @Override
+        public Object visit(Add expression, Object extraData) {
+            return binary(expression);
+        }
+
+        @Override
+        public Object visit(Divide expression, Object extraData) {
+            return binary(expression);
+        }
+
+        @Override
+        public Object visit(Function expression, Object extraData) {
+            List<Object> parts = new ArrayList<>();
+            parts.add(expression.getName());
+            Literal fallback = expression.getFallbackValue();
+            parts.add(fallback != null ? fallback.getValue() : null);
+            parts.addAll(expression.getParameters());
+            return node(expression, parts.toArray());
+        }
+
+        @Override
+        public Object visit(Literal expression, Object extraData) {
+            literals.add(expression);
+            Object value = expression.getValue();
+            signature.append('?').append(value != null ? value.getClass().getName() : "null");
+            return null;
+        }
+
+        @Override
+        public Object visit(Multiply expression, Object extraData) {
+            return binary(expression);
+        }
+
+        @Override
+        public Object visit(PropertyName expression, Object extraData) {
+            return node(expression, expression.getPropertyName());
+        }
+
+        @Override
+        public Object visit(Subtract expression, Object extraData) {
+            return binary(expression);
+        }
+    }
+}
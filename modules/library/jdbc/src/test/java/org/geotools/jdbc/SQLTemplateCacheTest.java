@@ -0,0 +1,148 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import org.geotools.data.DataUtilities;
+import org.geotools.factory.CommonFactoryFinder;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+public class SQLTemplateCacheTest {
+
+    FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2();
+
+    @Test
+    public void testSameShape() {
+        SQLTemplateCache.Shape s1 =
+                SQLTemplateCache.getShape(ff.bbox("geom", 0, 0, 10, 10, "EPSG:4326"));
+        SQLTemplateCache.Shape s2 =
+                SQLTemplateCache.getShape(ff.bbox("geom", 5, 5, 20, 20, "EPSG:4326"));
+        assertEquals(s1.signature.toString(), s2.signature.toString());
+        assertEquals(1, s1.getLiterals().size());
+        assertNotEquals(s1.getLiterals().get(0).getValue(), s2.getLiterals().get(0).getValue());
+    }
+
+    @Test
+    public void testDifferentShape() {
+        String base = signature(ff.equal(ff.property("a"), ff.literal(10), true));
+        assertEquals(base, signature(ff.equal(ff.property("a"), ff.literal(20), true)));
+        assertNotEquals(base, signature(ff.equal(ff.property("a"), ff.literal(10), false)));
+        assertNotEquals(base, signature(ff.equal(ff.property("b"), ff.literal(10), true)));
+        assertNotEquals(base, signature(ff.equal(ff.property("a"), ff.literal("10"), true)));
+        assertNotEquals(base, signature(ff.notEqual(ff.property("a"), ff.literal(10), true)));
+        assertNotEquals(
+                signature(ff.like(ff.property("a"), "*x*")),
+                signature(ff.like(ff.property("a"), "*y*")));
+    }
+
+    @Test
+    public void testIdNotCacheable() {
+        assertNull(SQLTemplateCache.getShape(ff.id(ff.featureId("t.1"))));
+        Filter greater = ff.greater(ff.property("a"), ff.literal(1));
+        assertNull(SQLTemplateCache.getShape(ff.or(ff.id(ff.featureId("t.1")), greater)));
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        SimpleFeatureType schema = DataUtilities.createType("t", "a:Integer,b:String");
+        Filter f1 =
+                ff.and(
+                        ff.greater(ff.property("a"), ff.literal(5)),
+                        ff.equal(ff.property("b"), ff.literal("x"), true));
+        Filter f2 =
+                ff.and(
+                        ff.greater(ff.property("a"), ff.literal("7")),
+                        ff.equal(ff.property("b"), ff.literal("y"), true));
+        SQLTemplateCache cache = new SQLTemplateCache(10);
+
+        SQLTemplateCache.Shape s1 = SQLTemplateCache.getShape(f1);
+        assertNull(cache.get(schema, s1));
+        PreparedFilterToSQL encoder = newEncoder(schema);
+        String sql = encoder.encodeToString(f1);
+        cache.put(schema, s1, sql, encoder);
+        assertEquals(1, cache.size());
+
+        // a different literal type is a different shape
+        assertNull(cache.get(schema, SQLTemplateCache.getShape(f2)));
+
+        Filter f3 =
+                ff.and(
+                        ff.greater(ff.property("a"), ff.literal(7)),
+                        ff.equal(ff.property("b"), ff.literal("y"), true));
+        SQLTemplateCache.Shape s3 = SQLTemplateCache.getShape(f3);
+        SQLTemplateCache.Template template = cache.get(schema, s3);
+        assertNotNull(template);
+        assertEquals(sql, template.sql);
+        PreparedFilterToSQL replay = newEncoder(schema);
+        template.apply(replay, s3.getLiterals());
+
+        PreparedFilterToSQL expected = newEncoder(schema);
+        assertEquals(expected.encodeToString(f3), template.sql);
+        assertEquals(Arrays.asList(7, "y"), replay.getLiteralValues());
+        assertEquals(expected.getLiteralValues(), replay.getLiteralValues());
+        assertEquals(expected.getLiteralTypes(), replay.getLiteralTypes());
+        assertSame(s3.getLiterals().get(0), replay.getLiteralExpressions().get(0));
+    }
+
+    @Test
+    public void testInlineNotCacheable() throws Exception {
+        SimpleFeatureType schema = DataUtilities.createType("t", "a:Integer");
+        Filter filter = ff.greater(ff.property("a"), ff.literal(5));
+        SQLTemplateCache cache = new SQLTemplateCache(10);
+        PreparedFilterToSQL encoder = newEncoder(schema);
+        encoder.setPrepareEnabled(false);
+        SQLTemplateCache.Shape shape = SQLTemplateCache.getShape(filter);
+        cache.put(schema, shape, encoder.encodeToString(filter), encoder);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        SimpleFeatureType schema = DataUtilities.createType("t", "a:Integer");
+        SQLTemplateCache cache = new SQLTemplateCache(1);
+        Filter f1 = ff.greater(ff.property("a"), ff.literal(5));
+        Filter f2 = ff.less(ff.property("a"), ff.literal(5));
+        for (Filter f : Arrays.asList(f1, f2)) {
+            PreparedFilterToSQL encoder = newEncoder(schema);
+            cache.put(schema, SQLTemplateCache.getShape(f), encoder.encodeToString(f), encoder);
+        }
+        assertEquals(1, cache.size());
+        assertNull(cache.get(schema, SQLTemplateCache.getShape(f1)));
+        assertNotNull(cache.get(schema, SQLTemplateCache.getShape(f2)));
+    }
+
+    @SuppressWarnings("deprecation")
+    private PreparedFilterToSQL newEncoder(SimpleFeatureType schema) {
+        PreparedFilterToSQL encoder = new PreparedFilterToSQL();
+        encoder.setFeatureType(schema);
+        encoder.setInline(true);
+        return encoder;
+    }
+
+    private String signature(Filter filter) {
+        return SQLTemplateCache.getShape(filter).signature.toString();
+    }
+}
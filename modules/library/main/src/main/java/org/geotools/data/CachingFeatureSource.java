@@ -10,60 +10,42 @@
 package org.geotools.data;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.lang.ref.WeakReference;
 import java.util.List;
 import java.util.Set;
 import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
 import org.geotools.data.simple.SimpleFeatureSource;
-import org.geotools.data.store.EmptyFeatureCollection;
-import org.geotools.data.store.FilteringIterator;
-import org.geotools.data.store.ReTypingIterator;
-import org.geotools.factory.CommonFactoryFinder;
-import org.geotools.feature.FeatureCollection;
-import org.geotools.feature.FeatureIterator;
-import org.geotools.feature.collection.AbstractFeatureCollection;
+import org.geotools.data.store.ReTypingFeatureCollection;
+import org.geotools.feature.collection.BaseSimpleFeatureCollection;
+import org.geotools.feature.collection.DelegateSimpleFeatureIterator;
+import org.geotools.feature.collection.FilteringSimpleFeatureCollection;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
 import org.geotools.geometry.jts.ReferencedEnvelope;
-import org.geotools.util.factory.Hints;
-import org.locationtech.jts.geom.Envelope;
-import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.index.strtree.STRtree;
-import org.opengis.feature.Feature;
 import org.opengis.feature.IllegalAttributeException;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.feature.type.FeatureType;
 import org.opengis.feature.type.Name;
-import org.opengis.filter.And;
 import org.opengis.filter.Filter;
-import org.opengis.filter.FilterFactory;
-import org.opengis.filter.expression.Expression;
-import org.opengis.filter.expression.Literal;
-import org.opengis.filter.expression.PropertyName;
-import org.opengis.filter.spatial.BBOX;
-import org.opengis.filter.spatial.BinarySpatialOperator;
-import org.opengis.filter.spatial.Contains;
-import org.opengis.filter.spatial.Crosses;
-import org.opengis.filter.spatial.DWithin;
-import org.opengis.filter.spatial.Equals;
-import org.opengis.filter.spatial.Intersects;
-import org.opengis.filter.spatial.Overlaps;
-import org.opengis.filter.spatial.Touches;
-import org.opengis.filter.spatial.Within;
 
 /**
  * A caching feature source for fast data access.
  *
- * <p>This feature source is used as a wrapper offering a spatial index, for a quick user interface
- * experience at the cost of memory, all data returned by the last query will be loaded in a in
- * memory spatial index.
+ * <p>This feature source is used as a wrapper around slow sources (remote services, document
+ * databases, ...), keeping the results of recent queries in a {@link QueryCache}, so that repeated
+ * requests, such as the ones issued while rendering tiles, do not hit the original source again.
  *
- * <p>This class is meant as an example, it is not tested enough to be considered production worthy
+ * <p>The cache is bounded in size and evicts the least recently used results, see {@link
+ * QueryCache} for details. Cached results are invalidated when the wrapped source notifies a
+ * change through its {@link FeatureListener}s, as {@link
+ * org.geotools.data.store.ContentFeatureStore} does.
+ *
+ * <p>When a tile size is set, bounding boxes in the query filters are expanded to the enclosing
+ * tiles before looking up the cache, so that requests falling in the same tiles share the same
+ * cached results.
  *
  * @author Andrea Aime - GeoSolutions
  * @since 2.6
@@ -71,67 +53,101 @@ import org.opengis.filter.spatial.Within;
  * @deprecated This class is not tested enough to be considered production ready
  */
 public class CachingFeatureSource implements SimpleFeatureSource {
-    private SimpleFeatureSource wrapped;
-
-    private STRtree index;
-
-    private boolean dirty;
-
-    private Query cachedQuery;
+    private final SimpleFeatureSource wrapped;
 
-    private Envelope cachedBounds;
+    private final QueryCache cache;
 
-    private Envelope originalBounds;
+    private final FeatureListener listener;
 
-    private static FilterFactory ff = CommonFactoryFinder.getFilterFactory(null);
-
-    private static final Set<Class> supportedFilterTypes =
-            new HashSet<Class>(
-                    Arrays.asList(
-                            BBOX.class,
-                            Contains.class,
-                            Crosses.class,
-                            DWithin.class,
-                            Equals.class,
-                            Intersects.class,
-                            Overlaps.class,
-                            Touches.class,
-                            Within.class));
+    private volatile double tileSize;
 
     public CachingFeatureSource(FeatureSource original) throws IOException {
         this(DataUtilities.simple(original));
     }
 
     public CachingFeatureSource(SimpleFeatureSource original) throws IOException {
+        this(original, new QueryCache());
+    }
+
+    /**
+     * Wraps the original source, storing the results in the provided cache, which can be shared
+     * with other sources
+     *
+     * @param original
+     * @param cache
+     */
+    public CachingFeatureSource(SimpleFeatureSource original, QueryCache cache) {
         this.wrapped = original;
-        this.originalBounds = original.getBounds();
-        if (originalBounds == null)
-            originalBounds =
-                    new Envelope(
-                            -Double.MAX_VALUE,
-                            Double.MAX_VALUE,
-                            -Double.MAX_VALUE,
-                            Double.MAX_VALUE);
+        this.cache = cache;
+        this.listener = new InvalidatingListener(original, cache);
+        original.addFeatureListener(listener);
     }
 
-    private void fillCache(Query query) throws IOException {
-        Query cloned = new DefaultQuery(query);
-        cloned.getHints().remove(Hints.GEOMETRY_DISTANCE);
-
-        FeatureCollection features = wrapped.getFeatures(cloned);
-        FeatureIterator fi = features.features();
-        index = null;
-        STRtree newIndex = new STRtree();
-        while (fi.hasNext()) {
-            // consider turning all geometries into packed ones, to save space
-            Feature f = fi.next();
-            newIndex.insert(ReferencedEnvelope.reference(f.getBounds()), f);
+    /**
+     * Invalidates the cached results of the source when it changes. It holds the cache weakly, so
+     * that the wrapped source does not keep the cache alive once the caching source is dropped
+     * without being disposed.
+     */
+    static final class InvalidatingListener implements FeatureListener {
+
+        private final SimpleFeatureSource source;
+
+        private final WeakReference<QueryCache> cache;
+
+        InvalidatingListener(SimpleFeatureSource source, QueryCache cache) {
+            this.source = source;
+            this.cache = new WeakReference<>(cache);
+        }
+
+        @Override
+        public void changed(FeatureEvent event) {
+            QueryCache cache = this.cache.get();
+            if (cache == null) {
+                return;
+            }
+            switch (event.getType()) {
+                case ROLLBACK:
+                    // the committed contents did not change
+                    break;
+                case ADDED:
+                case REMOVED:
+                    cache.invalidate(source, event.getBounds());
+                    break;
+                default:
+                    // change events report the new bounds only, the old ones are unknown
+                    cache.invalidate(source, null);
+            }
         }
-        fi.close();
-        index = newIndex;
-        cachedQuery = query;
-        cachedBounds = getEnvelope(query.getFilter());
-        dirty = false;
+    }
+
+    /** The cache holding the query results */
+    public QueryCache getCache() {
+        return cache;
+    }
+
+    /** The size of the tiles bounding boxes are expanded to, 0 if disabled */
+    public double getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Sets the size of the tiles bounding boxes are expanded to, in the units of the bounding box
+     * CRS. Expanding bounding boxes allows nearby queries to share the same cached results, at
+     * the cost of loading more features. Use 0 to disable.
+     *
+     * @param tileSize
+     */
+    public void setTileSize(double tileSize) {
+        if (tileSize < 0 || Double.isNaN(tileSize) || Double.isInfinite(tileSize)) {
+            throw new IllegalArgumentException("Invalid tile size " + tileSize);
+        }
+        this.tileSize = tileSize;
+    }
+
+    /** Stops listening to the wrapped source changes, and removes its results from the cache */
+    public void dispose() {
+        wrapped.removeFeatureListener(listener);
+        cache.invalidate(wrapped, null);
     }
 
     public void addFeatureListener(FeatureListener listener) {
@@ -155,6 +171,15 @@ public class CachingFeatureSource implements SimpleFeatureSource {
     }
 
     public int getCount(Query query) throws IOException {
+        if (isCacheable(query)) {
+            QueryCacheKey key = QueryCacheKey.build(wrapped, query, getSchema(), tileSize);
+            if (key.isExact()) {
+                int count = cache.getCount(key);
+                if (count >= 0) {
+                    return count;
+                }
+            }
+        }
         return wrapped.getCount(query);
     }
 
@@ -167,7 +192,7 @@ public class CachingFeatureSource implements SimpleFeatureSource {
     }
 
     public SimpleFeatureCollection getFeatures(Filter filter) throws IOException {
-        return getFeatures(new DefaultQuery(wrapped.getSchema().getName().getLocalPart(), filter));
+        return getFeatures(new Query(wrapped.getSchema().getName().getLocalPart(), filter));
     }
 
     public SimpleFeatureCollection getFeatures(Query query) throws IOException {
@@ -180,25 +205,43 @@ public class CachingFeatureSource implements SimpleFeatureSource {
                             + schemaName
                             + "'");
         }
+        if (!isCacheable(query)) {
+            return wrapped.getFeatures(query);
+        }
 
-        return getFeatureCollection(query, getEnvelope(query.getFilter()));
-    }
-
-    private SimpleFeatureCollection getFeatureCollection(Query query, Envelope bounds)
-            throws IOException {
-        try {
-            SimpleFeatureType base = wrapped.getSchema();
-            SimpleFeatureType alternate = base;
-            if (query.getPropertyNames() != Query.ALL_NAMES) {
-                alternate = SimpleFeatureTypeBuilder.retype(base, query.getPropertyNames());
-                if (alternate.equals(base)) alternate = base;
+        QueryCacheKey key = QueryCacheKey.build(wrapped, query, getSchema(), tileSize);
+        SimpleFeatureCollection delegate = wrapped.getFeatures(key.toQuery(query));
+        SimpleFeatureCollection result = new CachedFeatureCollection(key, delegate);
+        if (!key.isExact()) {
+            // the cached results are a superset of the requested ones
+            if (query.getFilter() != null && query.getFilter() != Filter.INCLUDE) {
+                result = new FilteringSimpleFeatureCollection(result, query.getFilter());
+            }
+            if (!query.retrievesAllProperties()) {
+                SimpleFeatureType target =
+                        SimpleFeatureTypeBuilder.retype(
+                                result.getSchema(), query.getPropertyNames());
+                if (!target.equals(result.getSchema())) {
+                    result = new ReTypingFeatureCollection(result, target);
+                }
             }
+        }
+        return result;
+    }
 
-            return new CachingFeatureCollection(bounds, base, alternate, query);
-        } catch (Exception e) {
-            throw new DataSourceException(
-                    "Error occurred extracting features from the spatial index", e);
+    /** The cache holds auto commit contents, and can only deal with plain queries */
+    private boolean isCacheable(Query query) {
+        if (query.getFilter() == Filter.EXCLUDE) {
+            return false;
+        }
+        if (query.getJoins() != null && !query.getJoins().isEmpty()) {
+            return false;
+        }
+        if (wrapped instanceof FeatureStore
+                && ((FeatureStore) wrapped).getTransaction() != Transaction.AUTO_COMMIT) {
+            return false;
         }
+        return true;
     }
 
     /**
@@ -229,98 +272,6 @@ public class CachingFeatureSource implements SimpleFeatureSource {
         return SimpleFeatureBuilder.build(featureType, attributes, id);
     }
 
-    boolean isSubQuery(Query query) {
-        // no cached data?
-        if (cachedQuery == null) return false;
-
-        // do we miss some properties?
-        String[] cachedPropNames = cachedQuery.getPropertyNames();
-        String[] propNames = query.getPropertyNames();
-        if (cachedPropNames != Query.ALL_NAMES
-                && (propNames == Query.ALL_NAMES
-                        || !Arrays.asList(cachedPropNames).containsAll(Arrays.asList(propNames))))
-            return false;
-
-        Filter[] filters = splitFilters(query);
-        Filter[] cachedFilters = splitFilters(cachedQuery);
-        if (!filters[0].equals(cachedFilters[0])) return false;
-
-        Envelope envelope = getEnvelope(filters[1]);
-        return cachedBounds.contains(envelope);
-    }
-
-    Envelope getEnvelope(Filter filter) {
-        Envelope result = originalBounds;
-        if (filter instanceof And) {
-            Envelope bounds = new Envelope();
-            for (Iterator iter = ((And) filter).getChildren().iterator(); iter.hasNext(); ) {
-                Filter f = (Filter) iter.next();
-                Envelope e = getEnvelope(f);
-                if (e == null) return null;
-                else bounds.expandToInclude(e);
-            }
-            result = bounds;
-        } else if (filter instanceof BinarySpatialOperator) {
-            BinarySpatialOperator gf = (BinarySpatialOperator) filter;
-            if (supportedFilterTypes.contains(gf.getClass())) {
-                Expression lg = gf.getExpression1();
-                Expression rg = gf.getExpression2();
-                if (lg instanceof Literal) {
-                    Geometry g = (Geometry) ((Literal) lg).getValue();
-                    if (rg instanceof PropertyName) result = g.getEnvelopeInternal();
-                } else if (rg instanceof Literal) {
-                    Geometry g = (Geometry) ((Literal) rg).getValue();
-                    if (lg instanceof PropertyName) result = g.getEnvelopeInternal();
-                }
-            }
-        }
-        return result.intersection(originalBounds);
-    }
-
-    /**
-     * Splits a query into two parts, a spatial component that can be turned into a bbox filter (by
-     * including some more feature in the result) and a residual component that we cannot address
-     * with the spatial index
-     *
-     * @param query
-     */
-    Filter[] splitFilters(Query query) {
-        Filter filter = query.getFilter();
-        if (filter == null || filter.equals(Filter.EXCLUDE)) {
-            return new Filter[] {Filter.EXCLUDE, bboxFilter(originalBounds)};
-        }
-
-        if (!(filter instanceof And)) {
-            Envelope envelope = getEnvelope(filter);
-            if (envelope == null) return new Filter[] {Filter.EXCLUDE, bboxFilter(originalBounds)};
-            else return new Filter[] {Filter.EXCLUDE, bboxFilter(envelope)};
-        }
-
-        And and = (And) filter;
-        List residuals = new ArrayList();
-        List bboxBacked = new ArrayList();
-        for (Iterator it = and.getChildren().iterator(); it.hasNext(); ) {
-            Filter child = (Filter) it.next();
-            if (getEnvelope(child) != null) {
-                bboxBacked.add(child);
-            } else {
-                residuals.add(child);
-            }
-        }
-
-        return new Filter[] {(Filter) ff.and(residuals), (Filter) ff.and(bboxBacked)};
-    }
-
-    private BBOX bboxFilter(Envelope bbox) {
-        return ff.bbox(
-                wrapped.getSchema().getGeometryDescriptor().getLocalName(),
-                bbox.getMinX(),
-                bbox.getMinY(),
-                bbox.getMaxX(),
-                bbox.getMaxY(),
-                null);
-    }
-
     public ResourceInfo getInfo() {
         return wrapped.getInfo();
     }
@@ -334,101 +285,90 @@ public class CachingFeatureSource implements SimpleFeatureSource {
     }
 
     public Set getSupportedHints() {
-        HashSet hints = new HashSet(wrapped.getSupportedHints());
-        hints.remove(Hints.FEATURE_DETACHED);
-        return hints;
+        return wrapped.getSupportedHints();
     }
 
     /**
-     * A custom feature collection directly peeking on the feature source spatial index
-     *
-     * @author Andrea Aime - Geosolutions
+     * A feature collection reading from the cache if possible, or from the wrapped source
+     * otherwise, filling the cache while doing so
      */
-    final class CachingFeatureCollection extends AbstractFeatureCollection {
-
-        private SimpleFeatureType sourceSchema;
-        private SimpleFeatureType targetSchema;
-        private Query query;
-        private Envelope queryBounds;
-
-        protected CachingFeatureCollection(
-                Envelope queryBounds,
-                SimpleFeatureType sourceSchema,
-                SimpleFeatureType targetSchema,
-                Query query) {
-            super(targetSchema);
-            this.queryBounds = queryBounds;
-            this.sourceSchema = sourceSchema;
-            this.targetSchema = targetSchema;
-            this.query = query;
+    final class CachedFeatureCollection extends BaseSimpleFeatureCollection {
+
+        private final QueryCacheKey key;
+
+        private final SimpleFeatureCollection delegate;
+
+        CachedFeatureCollection(QueryCacheKey key, SimpleFeatureCollection delegate) {
+            super(delegate.getSchema());
+            this.key = key;
+            this.delegate = delegate;
         }
 
         @Override
-        public int size() {
+        public SimpleFeatureIterator features() {
+            List<SimpleFeature> cached;
             try {
-                return getCount(query);
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to count features", e);
+                cached = cache.get(key);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read cached features", e);
             }
+            if (cached != null) {
+                return new DelegateSimpleFeatureIterator(cached.iterator());
+            }
+            return new RecordingIterator(delegate.features(), cache.record(key, getSchema()));
         }
 
         @Override
-        public synchronized ReferencedEnvelope getBounds() {
-            try {
-                return CachingFeatureSource.this.getBounds(query);
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to count features", e);
+        public int size() {
+            int count = cache.getCount(key);
+            if (count >= 0) {
+                return count;
             }
+            return delegate.size();
         }
 
         @Override
-        protected Iterator openIterator() {
-            List features;
-            synchronized (CachingFeatureSource.this) {
-                try {
-                    if (index == null || dirty || !isSubQuery(query)) {
-                        fillCache(query);
-                    }
-                    if (queryBounds != null) {
-                        features = index.query(queryBounds);
-                    } else {
-                        features = index.query((Envelope) index.getRoot().getBounds());
-                    }
-                } catch (Exception e) {
-                    throw new RuntimeException("Failed to get data", e);
-                }
-            }
-            Iterator it = features.iterator();
-            if (query.getFilter() != null && Filter.INCLUDE.equals(query.getFilter())) {
-                it = new FilteringIterator<Feature>(it, query.getFilter());
-            }
-            if (targetSchema != sourceSchema) {
-                it = new ReTypingIterator(it, sourceSchema, targetSchema);
+        public ReferencedEnvelope getBounds() {
+            if (cache.getCount(key) >= 0) {
+                return super.getBounds();
             }
-            return it;
+            return delegate.getBounds();
+        }
+    }
+
+    /** Passes through the features of the wrapped source, recording them in the cache */
+    static final class RecordingIterator implements SimpleFeatureIterator {
+
+        private final SimpleFeatureIterator delegate;
+
+        private final QueryCache.Recorder recorder;
+
+        RecordingIterator(SimpleFeatureIterator delegate, QueryCache.Recorder recorder) {
+            this.delegate = delegate;
+            this.recorder = recorder;
         }
 
         @Override
-        public SimpleFeatureCollection subCollection(Filter filter) {
-            // get the new target envelope
-            Envelope filterEnvelope = getEnvelope(filter);
-            Envelope subEnvelope = queryBounds;
-            if (filterEnvelope != null) {
-                subEnvelope = subEnvelope.intersection(queryBounds);
-            }
-            if (subEnvelope.isNull()) {
-                return new EmptyFeatureCollection(targetSchema);
+        public boolean hasNext() {
+            boolean hasNext = delegate.hasNext();
+            if (!hasNext) {
+                recorder.complete();
             }
+            return hasNext;
+        }
 
-            // mix filters
-            Query subQuery = new Query(query);
-            Filter baseFilter = query.getFilter();
-            if (baseFilter != null && !Filter.INCLUDE.equals(baseFilter)) {
-                Filter mixed = ff.and(baseFilter, filter);
-                subQuery.setFilter(mixed);
-            }
+        @Override
+        public SimpleFeature next() {
+            SimpleFeature feature = delegate.next();
+            recorder.add(feature);
+            return feature;
+        }
 
-            return new CachingFeatureCollection(subEnvelope, sourceSchema, targetSchema, subQuery);
+        @Override
+        public void close() {
+            // does nothing if the recording has been completed already
+            recorder.abort();
+            delegate.close();
         }
     }
 }
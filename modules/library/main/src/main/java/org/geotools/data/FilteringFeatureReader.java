@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.NoSuchElementException;
 import org.geotools.feature.IllegalAttributeException;
 import org.geotools.filter.visitor.BindingFilterVisitor;
+import org.geotools.filter.visitor.CompilingFilterVisitor;
 import org.opengis.feature.Feature;
 import org.opengis.feature.type.FeatureType;
 import org.opengis.filter.Filter;
@@ -43,6 +44,9 @@ public class FilteringFeatureReader<T extends FeatureType, F extends Feature>
     protected final Filter filter;
     protected F next;
 
+    /** The statistics of the query being run, if instrumented */
+    protected final QueryStatistics statistics;
+
     /**
      * Creates a new instance of AbstractFeatureReader
      *
@@ -54,11 +58,12 @@ public class FilteringFeatureReader<T extends FeatureType, F extends Feature>
      */
     public FilteringFeatureReader(FeatureReader<T, F> featureReader, Filter filter) {
         this.featureReader = featureReader;
-        this.filter =
-                (Filter)
-                        filter.accept(
-                                new BindingFilterVisitor(featureReader.getFeatureType()), null);
+        FeatureType schema = featureReader.getFeatureType();
+        Filter bound = (Filter) filter.accept(new BindingFilterVisitor(schema), null);
+        // the filter is evaluated against every feature, resolve attributes up front
+        this.filter = CompilingFilterVisitor.compile(bound, schema);
         next = null;
+        this.statistics = QueryInstrumentation.getCurrent();
     }
 
     /** @return THe delegate reader. */
@@ -112,7 +117,7 @@ public class FilteringFeatureReader<T extends FeatureType, F extends Feature>
             while (featureReader.hasNext()) {
                 peek = featureReader.next();
 
-                if (filter.evaluate(peek)) {
+                if (evaluate(peek)) {
                     next = peek;
                     return true;
                 }
@@ -122,4 +127,17 @@ public class FilteringFeatureReader<T extends FeatureType, F extends Feature>
         }
         return next != null;
     }
+
+    private boolean evaluate(F feature) {
+        if (statistics == null) {
+            return filter.evaluate(feature);
+        }
+        long start = System.nanoTime();
+        boolean result = filter.evaluate(feature);
+        statistics.addTime(QueryStatistics.Phase.FILTERING, System.nanoTime() - start);
+        if (!result) {
+            statistics.incrementFeaturesRejected();
+        }
+        return result;
+    }
 }
@@ -0,0 +1,634 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.data.sort.SimpleFeatureIO;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Envelope;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+
+/**
+ * A cache of query results, bounded by the amount of memory used rather than by the number of
+ * entries, used by {@link CachingFeatureSource}.
+ *
+ * <p>Results are stored in a compact binary form (see {@link SimpleFeatureIO}) and decoded back
+ * into features on each hit, so that the memory accounting is precise and cached features are
+ * never shared among callers. The least recently used entries are evicted once the memory limit is
+ * exceeded. If a spill directory is provided, evicted entries are moved to disk, which is in turn
+ * bounded by its own size limit.
+ *
+ * <p>The cache is thread safe and can be shared among several {@link CachingFeatureSource}, each
+ * using its own portion of the key space.
+ */
+public class QueryCache {
+
+    static final Logger LOGGER = Logging.getLogger(QueryCache.class);
+
+    /** Default memory limit, 64MB */
+    public static final long DEFAULT_MEMORY_LIMIT = 64 * 1024 * 1024;
+
+    /** Approximate heap overhead of an entry, on top of the encoded features */
+    static final int ENTRY_OVERHEAD = 256;
+
+    final long maxMemory;
+
+    final File spillDirectory;
+
+    final long maxDisk;
+
+    /** In memory entries, in access order */
+    final LinkedHashMap<QueryCacheKey, MemoryEntry> memory =
+            new LinkedHashMap<QueryCacheKey, MemoryEntry>(16, 0.75f, true);
+
+    /** Spilled entries, in access order */
+    final LinkedHashMap<QueryCacheKey, DiskEntry> disk =
+            new LinkedHashMap<QueryCacheKey, DiskEntry>(16, 0.75f, true);
+
+    /**
+     * Number of features of each entry, in memory or on disk, to look them up without altering the
+     * access order
+     */
+    final Map<QueryCacheKey, Integer> counts = new HashMap<>();
+
+    long memoryBytes;
+
+    long diskBytes;
+
+    /** Incremented on each invalidation, results loaded across it are not cached */
+    final AtomicLong generation = new AtomicLong();
+
+    final AtomicLong hits = new AtomicLong();
+
+    final AtomicLong diskHits = new AtomicLong();
+
+    final AtomicLong misses = new AtomicLong();
+
+    final AtomicLong evictions = new AtomicLong();
+
+    final AtomicLong spills = new AtomicLong();
+
+    final AtomicLong invalidations = new AtomicLong();
+
+    /** Builds a memory only cache, using at most {@link #DEFAULT_MEMORY_LIMIT} bytes */
+    public QueryCache() {
+        this(DEFAULT_MEMORY_LIMIT);
+    }
+
+    /**
+     * Builds a memory only cache
+     *
+     * @param maxMemory the maximum amount of memory used by the cache, in bytes
+     */
+    public QueryCache(long maxMemory) {
+        this(maxMemory, null, 0);
+    }
+
+    /**
+     * Builds a cache spilling evicted entries to disk
+     *
+     * @param maxMemory the maximum amount of memory used by the cache, in bytes
+     * @param spillDirectory the directory receiving the evicted entries, or null to disable
+     *     spilling
+     * @param maxDisk the maximum amount of disk space used by the spilled entries, in bytes
+     */
+    public QueryCache(long maxMemory, File spillDirectory, long maxDisk) {
+        if (maxMemory <= 0) {
+            throw new IllegalArgumentException("The memory limit must be positive");
+        }
+        if (spillDirectory != null && !spillDirectory.isDirectory()) {
+            throw new IllegalArgumentException(spillDirectory + " is not a directory");
+        }
+        this.maxMemory = maxMemory;
+        this.spillDirectory = spillDirectory;
+        this.maxDisk = spillDirectory != null ? maxDisk : 0;
+    }
+
+    /**
+     * The maximum size of a single entry. Results larger than this are not cached, in order to
+     * avoid a single large query flushing the whole cache.
+     */
+    public long getMaxEntrySize() {
+        return maxMemory / 4;
+    }
+
+    /**
+     * Returns the cached features for the given key, or null if not found
+     *
+     * @param key
+     * @return
+     * @throws IOException
+     */
+    List<SimpleFeature> get(QueryCacheKey key) throws IOException {
+        MemoryEntry entry;
+        synchronized (this) {
+            entry = memory.get(key);
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.decode(entry.data);
+        }
+
+        DiskEntry spilled;
+        long startGeneration;
+        synchronized (this) {
+            startGeneration = generation.get();
+            spilled = disk.remove(key);
+            if (spilled != null) {
+                diskBytes -= spilled.size;
+                removeCount(key);
+            }
+        }
+        if (spilled != null) {
+            byte[] data = spilled.read();
+            if (data != null) {
+                diskHits.incrementAndGet();
+                // move it back in memory, it's being used again, unless invalidated meanwhile
+                put(new MemoryEntry(key, spilled.schema, spilled.count, data), startGeneration);
+                return spilled.decode(data);
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Returns the number of features cached for the given key, or -1 if not found. Does not
+     * affect the eviction order nor the statistics.
+     */
+    synchronized int getCount(QueryCacheKey key) {
+        Integer count = counts.get(key);
+        return count != null ? count : -1;
+    }
+
+    /** Drops the count of an entry removed from memory or disk, if not found in the other one */
+    private void removeCount(QueryCacheKey key) {
+        // containsKey, unlike get, does not alter the access order
+        if (!memory.containsKey(key) && !disk.containsKey(key)) {
+            counts.remove(key);
+        }
+    }
+
+    /**
+     * Returns a recorder that can be used to fill the cache while the results of a query are read
+     * from the original source
+     */
+    Recorder record(QueryCacheKey key, SimpleFeatureType schema) {
+        return new Recorder(key, schema, generation.get());
+    }
+
+    /**
+     * Adds the entry, unless the cache has been invalidated since the given generation, as the
+     * entry might then contain stale features
+     */
+    private void put(MemoryEntry entry, long startGeneration) {
+        List<MemoryEntry> evicted = new ArrayList<>();
+        long evictionGeneration;
+        synchronized (this) {
+            // invalidations bump the generation before taking the lock, checking it here
+            // guarantees they either see the entry, or the entry sees them
+            evictionGeneration = generation.get();
+            if (evictionGeneration != startGeneration) {
+                return;
+            }
+            MemoryEntry previous = memory.put(entry.key, entry);
+            if (previous != null) {
+                memoryBytes -= previous.size();
+            }
+            memoryBytes += entry.size();
+            counts.put(entry.key, entry.count);
+            Iterator<MemoryEntry> it = memory.values().iterator();
+            while (memoryBytes > maxMemory && it.hasNext()) {
+                MemoryEntry eldest = it.next();
+                if (eldest == entry) {
+                    continue;
+                }
+                it.remove();
+                memoryBytes -= eldest.size();
+                removeCount(eldest.key);
+                evicted.add(eldest);
+            }
+        }
+        evictions.addAndGet(evicted.size());
+        if (spillDirectory != null) {
+            for (MemoryEntry e : evicted) {
+                spill(e, evictionGeneration);
+            }
+        }
+    }
+
+    /**
+     * Moves an evicted entry to disk, unless the cache has been invalidated since its eviction
+     */
+    private void spill(MemoryEntry entry, long evictionGeneration) {
+        if (entry.data.length > maxDisk) {
+            return;
+        }
+        File file;
+        try {
+            file = File.createTempFile("query", ".cache", spillDirectory);
+            Files.write(file.toPath(), entry.data);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to spill query cache entry to disk", e);
+            return;
+        }
+        spills.incrementAndGet();
+
+        List<DiskEntry> evicted = new ArrayList<>();
+        DiskEntry spilled = new DiskEntry(entry.key, entry.schema, entry.count, file, entry.data);
+        synchronized (this) {
+            if (generation.get() != evictionGeneration) {
+                // written outside of the lock, an invalidation might have missed it
+                evicted.add(spilled);
+            } else {
+                addToDisk(spilled, evicted);
+            }
+        }
+        for (DiskEntry e : evicted) {
+            e.delete();
+        }
+    }
+
+    /** Adds the spilled entry, collecting the ones to be deleted to stay within the limit */
+    private void addToDisk(DiskEntry spilled, List<DiskEntry> evicted) {
+        DiskEntry previous = disk.put(spilled.key, spilled);
+        if (previous != null) {
+            diskBytes -= previous.size;
+            evicted.add(previous);
+        }
+        diskBytes += spilled.size;
+        counts.put(spilled.key, spilled.count);
+        Iterator<DiskEntry> it = disk.values().iterator();
+        while (diskBytes > maxDisk && it.hasNext()) {
+            DiskEntry eldest = it.next();
+            it.remove();
+            diskBytes -= eldest.size;
+            removeCount(eldest.key);
+            evicted.add(eldest);
+        }
+    }
+
+    /**
+     * Removes all the entries of the given owner whose area intersects the given one
+     *
+     * @param owner the owner of the entries, see {@link QueryCacheKey#getOwner()}
+     * @param area the modified area, or null to remove all the entries of the owner
+     */
+    void invalidate(Object owner, Envelope area) {
+        generation.incrementAndGet();
+        List<DiskEntry> removed = new ArrayList<>();
+        synchronized (this) {
+            for (Iterator<MemoryEntry> it = memory.values().iterator(); it.hasNext(); ) {
+                MemoryEntry entry = it.next();
+                if (entry.key.isAffectedBy(owner, area)) {
+                    it.remove();
+                    memoryBytes -= entry.size();
+                    removeCount(entry.key);
+                    invalidations.incrementAndGet();
+                }
+            }
+            for (Iterator<DiskEntry> it = disk.values().iterator(); it.hasNext(); ) {
+                DiskEntry entry = it.next();
+                if (entry.key.isAffectedBy(owner, area)) {
+                    it.remove();
+                    diskBytes -= entry.size;
+                    removeCount(entry.key);
+                    removed.add(entry);
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+        for (DiskEntry entry : removed) {
+            entry.delete();
+        }
+    }
+
+    /** Removes all the entries from the cache */
+    public void clear() {
+        generation.incrementAndGet();
+        List<DiskEntry> removed;
+        synchronized (this) {
+            memory.clear();
+            memoryBytes = 0;
+            removed = new ArrayList<>(disk.values());
+            disk.clear();
+            diskBytes = 0;
+            counts.clear();
+        }
+        for (DiskEntry entry : removed) {
+            entry.delete();
+        }
+    }
+
+    /** Returns a snapshot of the cache usage statistics */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(
+                hits.get(),
+                diskHits.get(),
+                misses.get(),
+                evictions.get(),
+                spills.get(),
+                invalidations.get(),
+                memory.size(),
+                memoryBytes,
+                disk.size(),
+                diskBytes);
+    }
+
+    /** Base class for the cache entries */
+    abstract static class Entry {
+        final QueryCacheKey key;
+
+        final SimpleFeatureType schema;
+
+        final int count;
+
+        Entry(QueryCacheKey key, SimpleFeatureType schema, int count) {
+            this.key = key;
+            this.schema = schema;
+            this.count = count;
+        }
+
+        List<SimpleFeature> decode(byte[] data) throws IOException {
+            DataInputStream dis = new DataInputStream(new ByteArrayInputStream(data));
+            SimpleFeatureBuilder builder = new SimpleFeatureBuilder(schema);
+            List<SimpleFeature> features = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String fid = dis.readUTF();
+                for (AttributeDescriptor ad : schema.getAttributeDescriptors()) {
+                    builder.add(SimpleFeatureIO.readAttribute(dis, ad));
+                }
+                features.add(builder.buildFeature(fid));
+            }
+            return features;
+        }
+    }
+
+    /** An entry held in memory */
+    static class MemoryEntry extends Entry {
+        final byte[] data;
+
+        MemoryEntry(QueryCacheKey key, SimpleFeatureType schema, int count, byte[] data) {
+            super(key, schema, count);
+            this.data = data;
+        }
+
+        long size() {
+            return data.length + ENTRY_OVERHEAD;
+        }
+    }
+
+    /** An entry spilled to disk */
+    static class DiskEntry extends Entry {
+        final File file;
+
+        final long size;
+
+        DiskEntry(QueryCacheKey key, SimpleFeatureType schema, int count, File file, byte[] data) {
+            super(key, schema, count);
+            this.file = file;
+            this.size = data.length;
+        }
+
+        /** Reads back the data, or returns null if the file is gone */
+        byte[] read() {
+            try {
+                return Files.readAllBytes(file.toPath());
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to read back spilled query cache entry", e);
+                return null;
+            } finally {
+                delete();
+            }
+        }
+
+        void delete() {
+            if (file.exists() && !file.delete()) {
+                LOGGER.log(Level.FINE, "Could not delete spilled query cache entry " + file);
+            }
+        }
+    }
+
+    /**
+     * Encodes features as they are read from the original source, and adds them to the cache once
+     * the read is complete. Gives up as soon as the encoded features exceed the {@link
+     * #getMaxEntrySize()}.
+     */
+    class Recorder {
+        final QueryCacheKey key;
+
+        final SimpleFeatureType schema;
+
+        final long startGeneration;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        int count;
+
+        Recorder(QueryCacheKey key, SimpleFeatureType schema, long startGeneration) {
+            this.key = key;
+            this.schema = schema;
+            this.startGeneration = startGeneration;
+        }
+
+        void add(SimpleFeature feature) {
+            if (out == null) {
+                return;
+            }
+            try {
+                out.writeUTF(feature.getID());
+                for (AttributeDescriptor ad : schema.getAttributeDescriptors()) {
+                    SimpleFeatureIO.writeAttribute(
+                            out, ad, feature.getAttribute(ad.getLocalName()));
+                }
+                count++;
+                if (out.size() + ENTRY_OVERHEAD > getMaxEntrySize()) {
+                    LOGGER.fine("Query results too large to be cached: " + key);
+                    abort();
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to encode feature for caching, giving up", e);
+                abort();
+            }
+        }
+
+        /** Adds the recorded features to the cache */
+        void complete() {
+            if (out == null) {
+                return;
+            }
+            if (generation.get() == startGeneration) {
+                put(new MemoryEntry(key, schema, count, bytes.toByteArray()), startGeneration);
+            }
+            abort();
+        }
+
+        /** Discards the recorded features */
+        void abort() {
+            out = null;
+            bytes = null;
+        }
+    }
+
+    /** A snapshot of the cache usage statistics */
+    public static class Statistics {
+        final long hits;
+
+        final long diskHits;
+
+        final long misses;
+
+        final long evictions;
+
+        final long spills;
+
+        final long invalidations;
+
+        final int memoryEntries;
+
+        final long memoryBytes;
+
+        final int diskEntries;
+
+        final long diskBytes;
+
+        Statistics(
+                long hits,
+                long diskHits,
+                long misses,
+                long evictions,
+                long spills,
+                long invalidations,
+                int memoryEntries,
+                long memoryBytes,
+                int diskEntries,
+                long diskBytes) {
+            this.hits = hits;
+            this.diskHits = diskHits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.spills = spills;
+            this.invalidations = invalidations;
+            this.memoryEntries = memoryEntries;
+            this.memoryBytes = memoryBytes;
+            this.diskEntries = diskEntries;
+            this.diskBytes = diskBytes;
+        }
+
+        /** Number of lookups served from memory */
+        public long getHits() {
+            return hits;
+        }
+
+        /** Number of lookups served from the spilled entries */
+        public long getDiskHits() {
+            return diskHits;
+        }
+
+        /** Number of lookups that had to go to the original source */
+        public long getMisses() {
+            return misses;
+        }
+
+        /** Number of entries evicted from memory to make room for new ones */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /** Number of entries spilled to disk */
+        public long getSpills() {
+            return spills;
+        }
+
+        /** Number of entries removed due to changes in the original source */
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        /** Number of entries held in memory */
+        public int getMemoryEntries() {
+            return memoryEntries;
+        }
+
+        /** Memory used by the entries, in bytes */
+        public long getMemoryBytes() {
+            return memoryBytes;
+        }
+
+        /** Number of entries spilled to disk */
+        public int getDiskEntries() {
+            return diskEntries;
+        }
+
+        /** Disk space used by the spilled entries, in bytes */
+        public long getDiskBytes() {
+            return diskBytes;
+        }
+
+        /** The ratio of lookups served by the cache, between 0 and 1 */
+        public double getHitRatio() {
+            long total = hits + diskHits + misses;
+            return total == 0 ? 0 : (hits + diskHits) / (double) total;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics [hits="
+                    + hits
+                    + ", diskHits="
+                    + diskHits
+                    + ", misses="
+                    + misses
+                    + ", evictions="
+                    + evictions
+                    + ", spills="
+                    + spills
+                    + ", invalidations="
+                    + invalidations
+                    + ", memoryEntries="
+                    + memoryEntries
+                    + ", memoryBytes="
+                    + memoryBytes
+                    + ", diskEntries="
+                    + diskEntries
+                    + ", diskBytes="
+                    + diskBytes
+                    + "]";
+        }
+    }
+}
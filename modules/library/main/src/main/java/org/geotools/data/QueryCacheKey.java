@@ -0,0 +1,328 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.filter.FilterAttributeExtractor;
+import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
+import org.geotools.filter.visitor.SimplifyingFilterVisitor;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.CRS;
+import org.geotools.util.factory.Hints;
+import org.locationtech.jts.geom.Envelope;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.And;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.geometry.BoundingBox;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Key of a {@link QueryCache} entry, built out of a normalized {@link Query}.
+ *
+ * <p>The filter is simplified and, when a tile size is provided, the bounding boxes are expanded
+ * to the enclosing tiles, so that nearby requests share the same key. In that case the key
+ * describes a superset of the requested features, which need to be filtered again by the caller
+ * (see {@link #isExact()}).
+ */
+final class QueryCacheKey {
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    static final Hints.Key[] GEOMETRY_HINTS = {
+        Hints.GEOMETRY_DISTANCE, Hints.GEOMETRY_GENERALIZATION, Hints.GEOMETRY_SIMPLIFICATION
+    };
+
+    /** The owner of the entry, usually the source whose data is cached */
+    final Object owner;
+
+    final String typeName;
+
+    final Filter filter;
+
+    /** The properties to load, or null for all properties */
+    final List<String> properties;
+
+    final CoordinateReferenceSystem crs;
+
+    final CoordinateReferenceSystem reprojectCrs;
+
+    final List<SortBy> sortBy;
+
+    final int maxFeatures;
+
+    final Integer startIndex;
+
+    final String version;
+
+    /** Hints altering the returned geometries, such as generalization ones */
+    final Map<Object, Object> geometryHints;
+
+    /** The area covered by the query in the native CRS, or null if unknown */
+    final Envelope area;
+
+    final boolean exact;
+
+    private QueryCacheKey(
+            Object owner, Query query, Filter filter, List<String> properties, Envelope area) {
+        this.owner = owner;
+        this.typeName = query.getTypeName();
+        this.filter = filter;
+        this.properties = properties;
+        this.crs = query.getCoordinateSystem();
+        this.reprojectCrs = query.getCoordinateSystemReproject();
+        this.sortBy =
+                query.getSortBy() == null
+                        ? Collections.<SortBy>emptyList()
+                        : Arrays.asList(query.getSortBy());
+        this.maxFeatures = query.getMaxFeatures();
+        this.startIndex = query.getStartIndex();
+        this.version = query.getVersion();
+        this.geometryHints = new HashMap<>();
+        if (query.getHints() != null) {
+            for (Hints.Key hint : GEOMETRY_HINTS) {
+                if (query.getHints().containsKey(hint)) {
+                    geometryHints.put(hint, query.getHints().get(hint));
+                }
+            }
+        }
+        this.area = area;
+        Filter original = query.getFilter() == null ? Filter.INCLUDE : query.getFilter();
+        this.exact =
+                filter.equals(original)
+                        && Objects.equals(properties, getPropertyNames(query));
+    }
+
+    /**
+     * Builds the key for the given query
+     *
+     * @param owner the owner of the entry, usually the source whose data is cached
+     * @param query the query
+     * @param schema the native schema of the source
+     * @param tileSize the size of the tiles bounding boxes are expanded to, or 0 to use them as is
+     * @return
+     */
+    static QueryCacheKey build(
+            Object owner, Query query, SimpleFeatureType schema, double tileSize) {
+        Filter original = query.getFilter() == null ? Filter.INCLUDE : query.getFilter();
+        Filter filter = SimplifyingFilterVisitor.simplify(original, schema);
+
+        // expanding the bounding boxes is safe only if we get all the features back
+        boolean limited =
+                !query.isMaxFeaturesUnlimited()
+                        || query.getStartIndex() != null
+                        || (query.getSortBy() != null && query.getSortBy().length > 0);
+        if (tileSize > 0 && !limited) {
+            filter = snap(filter, tileSize);
+        }
+
+        // the features will be filtered again by the caller, make sure it has the attributes
+        List<String> properties = getPropertyNames(query);
+        if (properties != null && !filter.equals(original)) {
+            FilterAttributeExtractor extractor = new FilterAttributeExtractor(schema);
+            original.accept(extractor, null);
+            Set<String> names = new LinkedHashSet<>(properties);
+            names.addAll(extractor.getAttributeNameSet());
+            properties = new ArrayList<>(names);
+        }
+
+        return new QueryCacheKey(owner, query, filter, properties, getArea(filter, schema));
+    }
+
+    private static List<String> getPropertyNames(Query query) {
+        if (query.retrievesAllProperties()) {
+            return null;
+        }
+        return Arrays.asList(query.getPropertyNames());
+    }
+
+    /** Returns the area touched by the filter, if it can be expressed in the native CRS */
+    private static Envelope getArea(Filter filter, SimpleFeatureType schema) {
+        Envelope area = new ReferencedEnvelope();
+        area = (Envelope) filter.accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, area);
+        if (area == null
+                || area.isNull()
+                || Double.isInfinite(area.getWidth())
+                || Double.isInfinite(area.getHeight())) {
+            return null;
+        }
+        if (area instanceof ReferencedEnvelope) {
+            CoordinateReferenceSystem areaCrs =
+                    ((ReferencedEnvelope) area).getCoordinateReferenceSystem();
+            CoordinateReferenceSystem nativeCrs = schema.getCoordinateReferenceSystem();
+            if (areaCrs != null
+                    && nativeCrs != null
+                    && !CRS.equalsIgnoreMetadata(areaCrs, nativeCrs)) {
+                return null;
+            }
+        }
+        return new Envelope(area);
+    }
+
+    /** Expands top level bounding boxes to the enclosing tiles */
+    static Filter snap(Filter filter, double tileSize) {
+        if (filter instanceof BBOX) {
+            return snap((BBOX) filter, tileSize);
+        } else if (filter instanceof And) {
+            List<Filter> children = new ArrayList<>();
+            boolean changed = false;
+            for (Filter child : ((And) filter).getChildren()) {
+                Filter snapped = child instanceof BBOX ? snap((BBOX) child, tileSize) : child;
+                changed |= snapped != child;
+                children.add(snapped);
+            }
+            return changed ? FF.and(children) : filter;
+        }
+        return filter;
+    }
+
+    private static Filter snap(BBOX bbox, double tileSize) {
+        if (!(bbox.getExpression1() instanceof PropertyName)
+                || !(bbox.getExpression2() instanceof Literal)) {
+            return bbox;
+        }
+        BoundingBox bounds = bbox.getBounds();
+        if (bounds == null
+                || bounds.isEmpty()
+                || Double.isInfinite(bounds.getWidth())
+                || Double.isInfinite(bounds.getHeight())) {
+            return bbox;
+        }
+        double minX = Math.floor(bounds.getMinX() / tileSize) * tileSize;
+        double minY = Math.floor(bounds.getMinY() / tileSize) * tileSize;
+        double maxX = Math.ceil(bounds.getMaxX() / tileSize) * tileSize;
+        double maxY = Math.ceil(bounds.getMaxY() / tileSize) * tileSize;
+        if (minX == bounds.getMinX()
+                && minY == bounds.getMinY()
+                && maxX == bounds.getMaxX()
+                && maxY == bounds.getMaxY()) {
+            return bbox;
+        }
+        ReferencedEnvelope tiles =
+                new ReferencedEnvelope(
+                        minX, maxX, minY, maxY, bounds.getCoordinateReferenceSystem());
+        return FF.bbox(bbox.getExpression1(), tiles, bbox.getMatchAction());
+    }
+
+    /**
+     * Builds the query loading the features described by this key
+     *
+     * @param query the original query, used as a template
+     */
+    Query toQuery(Query query) {
+        Query result = new Query(query);
+        result.setFilter(filter);
+        if (properties == null) {
+            result.setPropertyNames(Query.ALL_NAMES);
+        } else {
+            result.setPropertyNames(properties);
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the features described by this key are exactly the ones requested by the
+     * original query, false if they need to be filtered and retyped again
+     */
+    boolean isExact() {
+        return exact;
+    }
+
+    /** The owner of the entry */
+    Object getOwner() {
+        return owner;
+    }
+
+    /**
+     * Returns true if the entry belongs to the given owner, and might contain features in the
+     * given area
+     *
+     * @param owner
+     * @param modified the modified area, or null if unknown
+     * @return
+     */
+    boolean isAffectedBy(Object owner, Envelope modified) {
+        return this.owner == owner
+                && (modified == null || area == null || area.intersects(modified));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                System.identityHashCode(owner),
+                typeName,
+                filter,
+                properties,
+                crs,
+                reprojectCrs,
+                sortBy,
+                maxFeatures,
+                startIndex,
+                version,
+                geometryHints);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof QueryCacheKey)) {
+            return false;
+        }
+        QueryCacheKey other = (QueryCacheKey) obj;
+        return owner == other.owner
+                && Objects.equals(typeName, other.typeName)
+                && Objects.equals(filter, other.filter)
+                && Objects.equals(properties, other.properties)
+                && Objects.equals(crs, other.crs)
+                && Objects.equals(reprojectCrs, other.reprojectCrs)
+                && Objects.equals(sortBy, other.sortBy)
+                && maxFeatures == other.maxFeatures
+                && Objects.equals(startIndex, other.startIndex)
+                && Objects.equals(version, other.version)
+                && Objects.equals(geometryHints, other.geometryHints);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCacheKey [typeName="
+                + typeName
+                + ", filter="
+                + filter
+                + ", properties="
+                + properties
+                + ", maxFeatures="
+                + maxFeatures
+                + ", startIndex="
+                + startIndex
+                + "]";
+    }
+}
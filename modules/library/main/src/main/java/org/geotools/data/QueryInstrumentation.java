@@ -0,0 +1,118 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data;
+
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.util.logging.Logging;
+
+/**
+ * Entry point for the query instrumentation: collects {@link QueryStatistics} for the queries run
+ * against {@link org.geotools.data.store.ContentFeatureSource} and hands them to the registered
+ * {@link QueryListener}s.
+ *
+ * <p>Statistics are collected only when at least one listener is registered, otherwise the
+ * instrumentation has no overhead. While a reader is being built, the statistics of the query are
+ * available to the code building it via {@link #getCurrent()}; the feature readers wrapping the
+ * native one capture them at construction time, to record the time spent filtering and
+ * reprojecting.
+ *
+ * @since 22
+ */
+public final class QueryInstrumentation {
+
+    static final Logger LOGGER = Logging.getLogger(QueryInstrumentation.class);
+
+    static final List<QueryListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    static final ThreadLocal<QueryStatistics> CURRENT = new ThreadLocal<>();
+
+    static {
+        try {
+            for (QueryListener listener : ServiceLoader.load(QueryListener.class)) {
+                LISTENERS.add(listener);
+            }
+        } catch (Throwable t) {
+            LOGGER.log(Level.WARNING, "Failed to load the query listeners", t);
+        }
+    }
+
+    private QueryInstrumentation() {}
+
+    /** Registers a listener */
+    public static void addListener(QueryListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /** Removes a listener */
+    public static void removeListener(QueryListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /** Returns true if there is at least one listener, and thus statistics are being collected */
+    public static boolean isEnabled() {
+        return !LISTENERS.isEmpty();
+    }
+
+    /**
+     * Starts collecting statistics for a query
+     *
+     * @return The statistics, or null if the instrumentation is not enabled
+     */
+    public static QueryStatistics start(String typeName, Query query) {
+        if (!isEnabled()) {
+            return null;
+        }
+        return new QueryStatistics(typeName, query);
+    }
+
+    /** Returns the statistics of the query being set up in the current thread, if any */
+    public static QueryStatistics getCurrent() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sets the statistics of the query being set up in the current thread
+     *
+     * @param statistics The statistics, or null to clear them
+     * @return The previous statistics, to be restored once done
+     */
+    public static QueryStatistics setCurrent(QueryStatistics statistics) {
+        QueryStatistics previous = CURRENT.get();
+        if (statistics == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(statistics);
+        }
+        return previous;
+    }
+
+    /** Marks the query as completed and notifies the listeners */
+    public static void complete(QueryStatistics statistics) {
+        statistics.end();
+        for (QueryListener listener : LISTENERS) {
+            try {
+                listener.queryCompleted(statistics);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Query listener failed: " + listener, e);
+            }
+        }
+    }
+}
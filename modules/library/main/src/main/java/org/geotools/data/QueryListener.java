@@ -0,0 +1,39 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data;
+
+/**
+ * Receives the statistics of each query run against a {@link
+ * org.geotools.data.store.ContentFeatureSource}, once the reader returned for it gets closed.
+ *
+ * <p>Listeners can be registered programmatically with {@link
+ * QueryInstrumentation#addListener(QueryListener)}, or declared in a <code>
+ * META-INF/services/org.geotools.data.QueryListener</code> file. They are called in the thread that
+ * closed the reader, so implementations should be fast and thread safe, e.g., handing the
+ * statistics to a monitoring system rather than performing I/O directly.
+ *
+ * @since 22
+ */
+public interface QueryListener {
+
+    /**
+     * Called when a query has been fully consumed, or its reader closed before reaching the end
+     *
+     * @param statistics The statistics collected for the query
+     */
+    void queryCompleted(QueryStatistics statistics);
+}
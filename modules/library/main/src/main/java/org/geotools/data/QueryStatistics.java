@@ -0,0 +1,239 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data;
+
+import java.util.concurrent.TimeUnit;
+import org.opengis.filter.And;
+import org.opengis.filter.Filter;
+
+/**
+ * Statistics collected while running a single query, see {@link QueryInstrumentation}.
+ *
+ * <p>The time spent in the query is split in {@link Phase phases}, the number of features read
+ * from the store is compared with the number of features returned to the caller, and the filter
+ * is split between the part handed to the store (e.g., encoded in SQL) and the part evaluated in
+ * memory.
+ *
+ * <p>Instances are not thread safe, they are meant to be updated by the thread opening and
+ * consuming the reader.
+ *
+ * @since 22
+ */
+public class QueryStatistics {
+
+    /** The phases a query goes through */
+    public enum Phase {
+        /** Opening the reader, which usually means running the native query (e.g., the SQL) */
+        EXECUTION,
+        /** Reading and decoding the features out of the store */
+        READING,
+        /** Evaluating in memory the filters that could not be handed to the store */
+        FILTERING,
+        /** Reprojecting the features in memory */
+        REPROJECTION
+    }
+
+    final String typeName;
+
+    final Query query;
+
+    final long startTime;
+
+    long endTime = -1;
+
+    final long[] times = new long[Phase.values().length];
+
+    long iterationTime;
+
+    long featuresReturned;
+
+    long featuresRejected;
+
+    Filter preFilter;
+
+    Filter postFilter;
+
+    String statement;
+
+    public QueryStatistics(String typeName, Query query) {
+        this.typeName = typeName;
+        this.query = query;
+        this.startTime = System.nanoTime();
+    }
+
+    /** The name of the feature type being queried */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /** The query, as received by the feature source */
+    public Query getQuery() {
+        return query;
+    }
+
+    /** Marks the end of the query. Only the first call has an effect. */
+    public void end() {
+        if (endTime < 0) {
+            endTime = System.nanoTime();
+        }
+    }
+
+    /** Returns true if the query has been completed */
+    public boolean isCompleted() {
+        return endTime >= 0;
+    }
+
+    /**
+     * The total time spent in the query, from the reader request to its closing (or to the
+     * current time, if the query is still running)
+     */
+    public long getTotalTime(TimeUnit unit) {
+        long end = endTime < 0 ? System.nanoTime() : endTime;
+        return unit.convert(end - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the time spent in the given phase. The {@link Phase#READING} time is the time spent
+     * iterating over the features, minus the time spent filtering and reprojecting them.
+     */
+    public long getTime(Phase phase, TimeUnit unit) {
+        long nanos;
+        if (phase == Phase.READING) {
+            nanos =
+                    iterationTime
+                            - times[Phase.FILTERING.ordinal()]
+                            - times[Phase.REPROJECTION.ordinal()];
+            nanos = Math.max(0, nanos);
+        } else {
+            nanos = times[phase.ordinal()];
+        }
+        return unit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Adds time, in nanoseconds, to the given phase */
+    public void addTime(Phase phase, long nanos) {
+        if (phase == Phase.READING) {
+            throw new IllegalArgumentException(
+                    "Reading time is computed from the iteration time, use addIterationTime");
+        }
+        times[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * Adds time, in nanoseconds, spent iterating over the features returned to the caller. This
+     * includes the filtering and reprojection times.
+     */
+    public void addIterationTime(long nanos) {
+        iterationTime += nanos;
+    }
+
+    /** The number of features returned to the caller */
+    public long getFeaturesReturned() {
+        return featuresReturned;
+    }
+
+    public void incrementFeaturesReturned() {
+        featuresReturned++;
+    }
+
+    /** The number of features read from the store but discarded by the in memory filtering */
+    public long getFeaturesRejected() {
+        return featuresRejected;
+    }
+
+    public void incrementFeaturesRejected() {
+        featuresRejected++;
+    }
+
+    /**
+     * The number of features read from the store, that is, the ones returned plus the ones
+     * rejected by the in memory filtering
+     */
+    public long getFeaturesRead() {
+        return featuresReturned + featuresRejected;
+    }
+
+    /** The part of the filter handed to the store, or null if unknown */
+    public Filter getPreFilter() {
+        return preFilter;
+    }
+
+    /** The part of the filter evaluated in memory, or null if unknown */
+    public Filter getPostFilter() {
+        return postFilter;
+    }
+
+    /**
+     * Records how the filter has been split between the store and the in memory evaluation. Stores
+     * splitting filters on their own should call this method, otherwise a split is inferred from
+     * {@link org.geotools.data.store.ContentFeatureSource#canFilter()}.
+     */
+    public void setFilters(Filter preFilter, Filter postFilter) {
+        this.preFilter = preFilter;
+        this.postFilter = postFilter;
+    }
+
+    /**
+     * Returns the ratio of filter conditions handed to the store over the total, counting the
+     * top level conditions of an {@link And} separately. Returns 1 if the query is not filtered,
+     * or {@link Double#NaN} if the filter split is not known.
+     */
+    public double getPushdownRatio() {
+        if (preFilter == null || postFilter == null) {
+            return Double.NaN;
+        }
+        int pre = countConditions(preFilter);
+        int post = countConditions(postFilter);
+        if (pre + post == 0) {
+            return 1;
+        }
+        return pre / (double) (pre + post);
+    }
+
+    private int countConditions(Filter filter) {
+        if (filter == Filter.INCLUDE) {
+            return 0;
+        } else if (filter instanceof And) {
+            return ((And) filter).getChildren().size();
+        }
+        return 1;
+    }
+
+    /** The native statement run by the store (e.g., the SQL query), or null if not available */
+    public String getStatement() {
+        return statement;
+    }
+
+    public void setStatement(String statement) {
+        this.statement = statement;
+    }
+
+    @Override
+    public String toString() {
+        TimeUnit ms = TimeUnit.MILLISECONDS;
+        StringBuilder sb = new StringBuilder("QueryStatistics[").append(typeName);
+        sb.append(", total=").append(getTotalTime(ms)).append("ms");
+        for (Phase phase : Phase.values()) {
+            sb.append(", ").append(phase.name().toLowerCase()).append('=');
+            sb.append(getTime(phase, ms)).append("ms");
+        }
+        sb.append(", read=").append(getFeaturesRead());
+        sb.append(", returned=").append(featuresReturned);
+        sb.append(", pushdown=").append(getPushdownRatio());
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.collection;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.geotools.feature.GeometryAttributeImpl;
+import org.geotools.feature.IllegalAttributeException;
+import org.geotools.feature.type.AttributeDescriptorImpl;
+import org.geotools.feature.type.Types;
+import org.geotools.filter.identity.FeatureIdImpl;
+import org.geotools.geometry.jts.JTS;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.geometry.jts.coordinatesequence.CoordinateSequences;
+import org.geotools.util.Utilities;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.GeometryAttribute;
+import org.opengis.feature.Property;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.AttributeType;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.feature.type.Name;
+import org.opengis.filter.identity.FeatureId;
+import org.opengis.filter.identity.Identifier;
+import org.opengis.geometry.BoundingBox;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Lightweight {@link SimpleFeature} view over a row of a {@link ColumnarFeatureList}, values are
+ * read from (and written to) the list columns on demand.
+ *
+ * @since 22
+ */
+class ColumnarFeature implements SimpleFeature {
+
+    final ColumnarFeatureList list;
+
+    final int row;
+
+    ColumnarFeature(ColumnarFeatureList list, int row) {
+        this.list = list;
+        this.row = row;
+    }
+
+    public FeatureId getIdentifier() {
+        return new FeatureIdImpl(getID());
+    }
+
+    public String getID() {
+        return list.getID(row);
+    }
+
+    public SimpleFeatureType getFeatureType() {
+        return list.schema;
+    }
+
+    public SimpleFeatureType getType() {
+        return list.schema;
+    }
+
+    public int getAttributeCount() {
+        return list.columns.length;
+    }
+
+    public Object getAttribute(int index) throws IndexOutOfBoundsException {
+        return list.getValue(row, index);
+    }
+
+    public Object getAttribute(String name) {
+        int index = list.schema.indexOf(name);
+        return index < 0 ? null : getAttribute(index);
+    }
+
+    public Object getAttribute(Name name) {
+        return getAttribute(name.getLocalPart());
+    }
+
+    public List<Object> getAttributes() {
+        List<Object> values = new ArrayList<>(list.columns.length);
+        for (int i = 0; i < list.columns.length; i++) {
+            values.add(getAttribute(i));
+        }
+        return values;
+    }
+
+    public void setAttribute(int index, Object value) throws IndexOutOfBoundsException {
+        list.setValue(row, index, value);
+    }
+
+    public void setAttribute(String name, Object value) {
+        int index = list.schema.indexOf(name);
+        if (index < 0) throw new IllegalAttributeException("Unknown attribute " + name);
+        setAttribute(index, value);
+    }
+
+    public void setAttribute(Name name, Object value) {
+        setAttribute(name.getLocalPart(), value);
+    }
+
+    public void setAttributes(List<Object> values) {
+        for (int i = 0; i < list.columns.length; i++) {
+            setAttribute(i, values.get(i));
+        }
+    }
+
+    public void setAttributes(Object[] values) {
+        setAttributes(Arrays.asList(values));
+    }
+
+    public Object getDefaultGeometry() {
+        int index = getDefaultGeometryIndex();
+        return index < 0 ? null : getAttribute(index);
+    }
+
+    public void setDefaultGeometry(Object geometry) {
+        int index = getDefaultGeometryIndex();
+        if (index >= 0) {
+            setAttribute(index, geometry);
+        }
+    }
+
+    int getDefaultGeometryIndex() {
+        GeometryDescriptor descriptor = list.schema.getGeometryDescriptor();
+        return descriptor == null ? -1 : list.schema.indexOf(descriptor.getLocalName());
+    }
+
+    public BoundingBox getBounds() {
+        CoordinateReferenceSystem crs = list.schema.getCoordinateReferenceSystem();
+        Envelope bounds = ReferencedEnvelope.create(crs);
+        for (int i = 0; i < list.columns.length; i++) {
+            if (!Geometry.class.isAssignableFrom(list.columns[i].binding)) {
+                continue;
+            }
+            Object value = getAttribute(i);
+            if (value instanceof Geometry) {
+                if (bounds.isNull()) {
+                    bounds.init(JTS.bounds((Geometry) value, crs));
+                } else {
+                    bounds.expandToInclude(JTS.bounds((Geometry) value, crs));
+                }
+            }
+        }
+        return (BoundingBox) bounds;
+    }
+
+    public GeometryAttribute getDefaultGeometryProperty() {
+        GeometryDescriptor descriptor = list.schema.getGeometryDescriptor();
+        if (descriptor == null) {
+            return null;
+        }
+        return new GeometryAttributeImpl(getDefaultGeometry(), descriptor, null);
+    }
+
+    public void setDefaultGeometryProperty(GeometryAttribute geometryAttribute) {
+        setDefaultGeometry(geometryAttribute != null ? geometryAttribute.getValue() : null);
+    }
+
+    public Collection<Property> getProperties() {
+        return new AttributeList();
+    }
+
+    public Collection<Property> getProperties(Name name) {
+        return getProperties(name.getLocalPart());
+    }
+
+    public Collection<Property> getProperties(String name) {
+        int index = list.schema.indexOf(name);
+        if (index < 0) {
+            return Collections.emptyList();
+        }
+        return Collections.singleton(property(index));
+    }
+
+    public Property getProperty(Name name) {
+        return getProperty(name.getLocalPart());
+    }
+
+    public Property getProperty(String name) {
+        int index = list.schema.indexOf(name);
+        return index < 0 ? null : property(index);
+    }
+
+    Property property(int index) {
+        if (list.schema.getDescriptor(index) instanceof GeometryDescriptor) {
+            return new GeometryAttributeImpl(
+                    getAttribute(index),
+                    (GeometryDescriptor) list.schema.getDescriptor(index),
+                    null);
+        }
+        return new Attribute(index);
+    }
+
+    public Collection<? extends Property> getValue() {
+        return getProperties();
+    }
+
+    public void setValue(Collection<Property> values) {
+        int i = 0;
+        for (Property p : values) {
+            setAttribute(i++, p.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void setValue(Object newValue) {
+        setValue((Collection<Property>) newValue);
+    }
+
+    public AttributeDescriptor getDescriptor() {
+        return new AttributeDescriptorImpl(
+                list.schema, list.schema.getName(), 0, Integer.MAX_VALUE, true, null);
+    }
+
+    public Name getName() {
+        return list.schema.getName();
+    }
+
+    public boolean isNillable() {
+        return true;
+    }
+
+    public Map<Object, Object> getUserData() {
+        return list.getUserData(row);
+    }
+
+    public void validate() {
+        for (int i = 0; i < list.columns.length; i++) {
+            Types.validate(list.schema.getDescriptor(i), getAttribute(i));
+        }
+    }
+
+    public int hashCode() {
+        String id = getID();
+        return (id == null ? 0 : id.hashCode()) * list.schema.hashCode();
+    }
+
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof SimpleFeature)) {
+            return false;
+        }
+        SimpleFeature other = (SimpleFeature) obj;
+        if (!Utilities.equals(getID(), other.getID())
+                || !list.schema.equals(other.getFeatureType())) {
+            return false;
+        }
+        for (int i = 0; i < list.columns.length; i++) {
+            Object value = getAttribute(i);
+            Object otherValue = other.getAttribute(i);
+            if (value instanceof Geometry && otherValue instanceof Geometry) {
+                if (!CoordinateSequences.equalsND((Geometry) value, (Geometry) otherValue)) {
+                    return false;
+                }
+            } else if (!Utilities.equals(value, otherValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String toString() {
+        return "ColumnarFeature:" + list.schema.getTypeName() + "=" + getAttributes();
+    }
+
+    /** Live collection backed by the list columns */
+    class AttributeList extends AbstractList<Property> {
+
+        public Property get(int index) {
+            return property(index);
+        }
+
+        public Property set(int index, Property element) {
+            setAttribute(index, element.getValue());
+            return null;
+        }
+
+        public int size() {
+            return list.columns.length;
+        }
+    }
+
+    /** Attribute reading and writing directly the list column */
+    class Attribute implements org.opengis.feature.Attribute {
+        final int index;
+
+        Attribute(int index) {
+            this.index = index;
+        }
+
+        public Identifier getIdentifier() {
+            return null;
+        }
+
+        public AttributeDescriptor getDescriptor() {
+            return list.schema.getDescriptor(index);
+        }
+
+        public AttributeType getType() {
+            return list.schema.getType(index);
+        }
+
+        public Name getName() {
+            return getDescriptor().getName();
+        }
+
+        /** Attribute user data is not stored, modifications to the returned map are lost */
+        public Map<Object, Object> getUserData() {
+            return new HashMap<>();
+        }
+
+        public Object getValue() {
+            return getAttribute(index);
+        }
+
+        public boolean isNillable() {
+            return getDescriptor().isNillable();
+        }
+
+        public void setValue(Object newValue) {
+            setAttribute(index, newValue);
+        }
+
+        public void validate() {
+            Types.validate(getDescriptor(), getValue());
+        }
+
+        public int hashCode() {
+            Object value = getValue();
+            return 37 * getDescriptor().hashCode() + (37 * (value == null ? 0 : value.hashCode()));
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Attribute)) {
+                return false;
+            }
+            Attribute other = (Attribute) obj;
+            return Utilities.equals(getDescriptor(), other.getDescriptor())
+                    && Utilities.deepEquals(getValue(), other.getValue());
+        }
+
+        public String toString() {
+            String name = getDescriptor().getLocalName();
+            return "ColumnarFeature.Attribute: " + name + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.collection;
+
+import java.io.IOException;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.opengis.feature.Feature;
+import org.opengis.feature.FeatureVisitor;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * A {@link ListFeatureCollection} storing its content in a {@link ColumnarFeatureList}, trading a
+ * bit of access speed for a much smaller memory footprint on large, attribute heavy collections.
+ *
+ * <pre>
+ * ColumnarFeatureCollection collection = new ColumnarFeatureCollection(source.getFeatures());
+ * SimpleFeatureSource cached = new CollectionFeatureSource(collection);
+ * </pre>
+ *
+ * <p>The features returned while iterating are views over the collection columns, modifying them
+ * modifies the collection contents.
+ *
+ * @since 22
+ */
+public class ColumnarFeatureCollection extends ListFeatureCollection {
+
+    /**
+     * Create an empty ColumnarFeatureCollection for the provided schema
+     *
+     * @param schema
+     */
+    public ColumnarFeatureCollection(SimpleFeatureType schema) {
+        super(schema, new ColumnarFeatureList(schema));
+    }
+
+    /**
+     * Create a ColumnarFeatureCollection copying the contents of the provided collection
+     *
+     * @param copy
+     */
+    public ColumnarFeatureCollection(SimpleFeatureCollection copy) throws IOException {
+        this(copy.getSchema());
+        copy.accepts(
+                new FeatureVisitor() {
+                    public void visit(Feature feature) {
+                        list.add((SimpleFeature) feature);
+                    }
+                },
+                null);
+        trimToSize();
+    }
+
+    /** Trims the storage to the current number of features */
+    public void trimToSize() {
+        ((ColumnarFeatureList) list).trimToSize();
+    }
+}
@@ -0,0 +1,802 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.collection;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import org.geotools.feature.IllegalAttributeException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.util.Converters;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+
+/**
+ * A list of features of a single {@link SimpleFeatureType} stored column by column.
+ *
+ * <p>Rather than keeping one {@link SimpleFeature} (and one boxed value per attribute) for each
+ * entry, the attribute values are stored in one array per attribute: numbers and booleans in
+ * primitive arrays, strings dictionary encoded, points as packed ordinates and other geometries
+ * rebuilt over packed coordinate sequences. Feature ids following the usual {@code prefix + number}
+ * pattern are stored as numbers as well.
+ *
+ * <p>The features returned by {@link #get(int)} are lightweight views reading and writing the
+ * columns at their position in the list. Views are positional, removing an element shifts the
+ * content seen by the views of the following elements. Attribute level user data is not stored.
+ *
+ * <p>The list can be used directly as the storage of a {@link ListFeatureCollection}, see also
+ * {@link ColumnarFeatureCollection}. Like {@link ArrayList} this class is not thread safe.
+ *
+ * @since 22
+ */
+public class ColumnarFeatureList extends AbstractList<SimpleFeature> implements RandomAccess {
+
+    static final int INITIAL_CAPACITY = 16;
+
+    final SimpleFeatureType schema;
+
+    final Column[] columns;
+
+    final IdColumn ids = new IdColumn();
+
+    /** Feature user data, lazily created for the features actually using it */
+    Map<Object, Object>[] userData;
+
+    int size;
+
+    int capacity;
+
+    public ColumnarFeatureList(SimpleFeatureType schema) {
+        this.schema = schema;
+        this.columns = new Column[schema.getAttributeCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = createColumn(schema.getDescriptor(i).getType().getBinding());
+        }
+        ensureCapacity(INITIAL_CAPACITY);
+    }
+
+    /** The schema shared by all the features in the list */
+    public SimpleFeatureType getSchema() {
+        return schema;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public SimpleFeature get(int index) {
+        checkIndex(index);
+        return new ColumnarFeature(this, index);
+    }
+
+    @Override
+    public boolean add(SimpleFeature feature) {
+        ensureCapacity(size + 1);
+        size++;
+        store(size - 1, feature);
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Replaces the values of the feature at the specified position.
+     *
+     * @return a detached copy of the previous feature
+     */
+    @Override
+    public SimpleFeature set(int index, SimpleFeature feature) {
+        checkIndex(index);
+        SimpleFeature previous = SimpleFeatureBuilder.copy(get(index));
+        store(index, feature);
+        return previous;
+    }
+
+    /**
+     * Removes the feature at the specified position, shifting the following ones.
+     *
+     * @return a detached copy of the removed feature
+     */
+    @Override
+    public SimpleFeature remove(int index) {
+        checkIndex(index);
+        SimpleFeature removed = SimpleFeatureBuilder.copy(get(index));
+        int moved = size - index - 1;
+        for (Column column : columns) {
+            column.shift(index, moved);
+            column.set(size - 1, null);
+        }
+        ids.shift(index, moved);
+        if (userData != null) {
+            System.arraycopy(userData, index + 1, userData, index, moved);
+            userData[size - 1] = null;
+        }
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = createColumn(schema.getDescriptor(i).getType().getBinding());
+        }
+        ids.clear();
+        userData = null;
+        size = 0;
+        capacity = 0;
+        ensureCapacity(INITIAL_CAPACITY);
+        modCount++;
+    }
+
+    /** Trims the columns capacity to the current size, once all features have been added */
+    public void trimToSize() {
+        if (capacity > size) {
+            resize(size);
+        }
+    }
+
+    /** Copies the identifier, attributes and user data of the feature in the specified row */
+    void store(int row, SimpleFeature feature) {
+        if (feature == null) {
+            throw new IllegalArgumentException("Provided Feature is empty");
+        }
+        ids.set(row, feature.getID());
+        SimpleFeatureType type = feature.getFeatureType();
+        boolean sameType = type == schema || schema.equals(type);
+        for (int i = 0; i < columns.length; i++) {
+            Object value;
+            if (sameType) {
+                value = feature.getAttribute(i);
+            } else {
+                value = feature.getAttribute(schema.getDescriptor(i).getLocalName());
+            }
+            setValue(row, i, value);
+        }
+        Map<Object, Object> data = feature.getUserData();
+        if (data != null && !data.isEmpty()) {
+            // replace rather than merge, copying first as the data might be this row's own view
+            Map<Object, Object> copy = new HashMap<>(data);
+            ensureUserData();
+            userData[row] = copy;
+        } else if (userData != null) {
+            userData[row] = null;
+        }
+    }
+
+    String getID(int row) {
+        return ids.get(row);
+    }
+
+    Object getValue(int row, int column) {
+        return columns[column].get(row);
+    }
+
+    void setValue(int row, int column, Object value) {
+        Column target = columns[column];
+        Object converted = Converters.convert(value, target.binding);
+        if (value != null && converted == null) {
+            AttributeDescriptor descriptor = schema.getDescriptor(column);
+            throw new IllegalAttributeException(descriptor, value);
+        }
+        target.set(row, converted);
+    }
+
+    /** Returns a live view of the row user data, the backing map is allocated on first write */
+    Map<Object, Object> getUserData(int row) {
+        return new RowUserData(row);
+    }
+
+    @SuppressWarnings("unchecked")
+    void ensureUserData() {
+        if (userData == null) {
+            userData = new Map[capacity];
+        }
+    }
+
+    Map<Object, Object> writableUserData(int row) {
+        ensureUserData();
+        if (userData[row] == null) {
+            userData[row] = new HashMap<>();
+        }
+        return userData[row];
+    }
+
+    /**
+     * User data of a row, reads of rows without user data (the common case, e.g. {@link
+     * SimpleFeatureBuilder#copy(SimpleFeature)}) do not allocate anything
+     */
+    class RowUserData extends AbstractMap<Object, Object> {
+
+        final int row;
+
+        RowUserData(int row) {
+            this.row = row;
+        }
+
+        Map<Object, Object> stored() {
+            return userData == null ? null : userData[row];
+        }
+
+        @Override
+        public Set<Entry<Object, Object>> entrySet() {
+            Map<Object, Object> stored = stored();
+            return stored == null ? Collections.emptySet() : stored.entrySet();
+        }
+
+        @Override
+        public int size() {
+            Map<Object, Object> stored = stored();
+            return stored == null ? 0 : stored.size();
+        }
+
+        @Override
+        public Object get(Object key) {
+            Map<Object, Object> stored = stored();
+            return stored == null ? null : stored.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Map<Object, Object> stored = stored();
+            return stored != null && stored.containsKey(key);
+        }
+
+        @Override
+        public Object put(Object key, Object value) {
+            return writableUserData(row).put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            Map<Object, Object> stored = stored();
+            return stored == null ? null : stored.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            if (userData != null) {
+                userData[row] = null;
+            }
+        }
+    }
+
+    void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    void ensureCapacity(int required) {
+        if (required > capacity) {
+            resize(Math.max(required, capacity + (capacity >> 1)));
+        }
+    }
+
+    void resize(int newCapacity) {
+        for (Column column : columns) {
+            column.resize(newCapacity);
+        }
+        ids.resize(newCapacity);
+        if (userData != null) {
+            userData = Arrays.copyOf(userData, newCapacity);
+        }
+        capacity = newCapacity;
+    }
+
+    static Column createColumn(Class<?> binding) {
+        if (binding == Integer.class || binding == Short.class || binding == Byte.class) {
+            return new IntColumn(binding);
+        } else if (binding == Long.class) {
+            return new LongColumn();
+        } else if (binding == Double.class || binding == Float.class) {
+            return new DoubleColumn(binding);
+        } else if (binding == Boolean.class) {
+            return new BooleanColumn();
+        } else if (binding == String.class) {
+            return new StringColumn();
+        } else if (binding == Point.class) {
+            return new PointColumn();
+        } else if (Geometry.class.isAssignableFrom(binding)) {
+            return new GeometryColumn(binding);
+        } else {
+            return new ObjectColumn(binding);
+        }
+    }
+
+    /** Moves the bits after {@code row} one position back */
+    static void shift(BitSet bits, int row, int length) {
+        for (int i = row; i < row + length; i++) {
+            bits.set(i, bits.get(i + 1));
+        }
+        bits.clear(row + length);
+    }
+
+    /** Storage for the values of a single attribute */
+    abstract static class Column {
+        final Class<?> binding;
+
+        /** Rows holding a null value, for columns backed by primitive arrays */
+        final BitSet nulls = new BitSet();
+
+        Column(Class<?> binding) {
+            this.binding = binding;
+        }
+
+        /** Returns the value in the specified row */
+        abstract Object get(int row);
+
+        /** Sets the value in the specified row, the value is already converted to the binding */
+        abstract void set(int row, Object value);
+
+        /** Resizes the backing arrays */
+        abstract void resize(int capacity);
+
+        /** Moves {@code length} rows following {@code row} one position back */
+        abstract void shift(int row, int length);
+    }
+
+    static class IntColumn extends Column {
+        int[] values = new int[0];
+
+        IntColumn(Class<?> binding) {
+            super(binding);
+        }
+
+        @Override
+        Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            int value = values[row];
+            if (binding == Short.class) {
+                return (short) value;
+            } else if (binding == Byte.class) {
+                return (byte) value;
+            }
+            return value;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            nulls.set(row, value == null);
+            values[row] = value == null ? 0 : ((Number) value).intValue();
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void shift(int row, int length) {
+            System.arraycopy(values, row + 1, values, row, length);
+            ColumnarFeatureList.shift(nulls, row, length);
+        }
+    }
+
+    static class LongColumn extends Column {
+        long[] values = new long[0];
+
+        LongColumn() {
+            super(Long.class);
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            nulls.set(row, value == null);
+            values[row] = value == null ? 0 : ((Number) value).longValue();
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void shift(int row, int length) {
+            System.arraycopy(values, row + 1, values, row, length);
+            ColumnarFeatureList.shift(nulls, row, length);
+        }
+    }
+
+    static class DoubleColumn extends Column {
+        double[] values = new double[0];
+
+        DoubleColumn(Class<?> binding) {
+            super(binding);
+        }
+
+        @Override
+        Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            double value = values[row];
+            if (binding == Float.class) {
+                return (float) value;
+            }
+            return value;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            nulls.set(row, value == null);
+            values[row] = value == null ? 0 : ((Number) value).doubleValue();
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void shift(int row, int length) {
+            System.arraycopy(values, row + 1, values, row, length);
+            ColumnarFeatureList.shift(nulls, row, length);
+        }
+    }
+
+    static class BooleanColumn extends Column {
+        final BitSet values = new BitSet();
+
+        BooleanColumn() {
+            super(Boolean.class);
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values.get(row);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            nulls.set(row, value == null);
+            values.set(row, Boolean.TRUE.equals(value));
+        }
+
+        @Override
+        void resize(int capacity) {
+            // bit sets grow on demand
+        }
+
+        @Override
+        void shift(int row, int length) {
+            ColumnarFeatureList.shift(values, row, length);
+            ColumnarFeatureList.shift(nulls, row, length);
+        }
+    }
+
+    /** Dictionary encoded strings, each distinct value is stored only once */
+    static class StringColumn extends Column {
+        int[] codes = new int[0];
+
+        final List<String> dictionary = new ArrayList<>();
+
+        final Map<String, Integer> lookup = new HashMap<>();
+
+        StringColumn() {
+            super(String.class);
+        }
+
+        @Override
+        Object get(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            if (value == null) {
+                codes[row] = -1;
+                return;
+            }
+            Integer code = lookup.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add((String) value);
+                lookup.put((String) value, code);
+            }
+            codes[row] = code;
+        }
+
+        @Override
+        void resize(int capacity) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        @Override
+        void shift(int row, int length) {
+            System.arraycopy(codes, row + 1, codes, row, length);
+        }
+    }
+
+    /**
+     * Points stored as packed x/y ordinates (plus z when present), rebuilt on access. Points that
+     * cannot be rebuilt identically (empty, carrying user data or built by a different factory) are
+     * kept as is.
+     */
+    static class PointColumn extends Column {
+        double[] ordinates = new double[0];
+
+        double[] z;
+
+        Object[] objects;
+
+        GeometryFactory factory;
+
+        PointColumn() {
+            super(Point.class);
+        }
+
+        @Override
+        Object get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            } else if (objects != null && objects[row] != null) {
+                return objects[row];
+            }
+            double ordinateZ = z == null ? Coordinate.NULL_ORDINATE : z[row];
+            return factory.createPoint(
+                    new Coordinate(ordinates[row * 2], ordinates[row * 2 + 1], ordinateZ));
+        }
+
+        @Override
+        void set(int row, Object value) {
+            nulls.set(row, value == null);
+            if (objects != null) {
+                objects[row] = null;
+            }
+            if (value == null) {
+                return;
+            }
+            Point point = (Point) value;
+            if (factory == null) {
+                factory = point.getFactory();
+            }
+            if (!isPackable(point)) {
+                if (objects == null) {
+                    objects = new Object[ordinates.length / 2];
+                }
+                objects[row] = point;
+                return;
+            }
+            ordinates[row * 2] = point.getX();
+            ordinates[row * 2 + 1] = point.getY();
+            double ordinateZ = point.getCoordinate().z;
+            if (z == null && !Double.isNaN(ordinateZ)) {
+                z = new double[ordinates.length / 2];
+                Arrays.fill(z, Coordinate.NULL_ORDINATE);
+            }
+            if (z != null) {
+                z[row] = ordinateZ;
+            }
+        }
+
+        boolean isPackable(Point point) {
+            if (point.isEmpty() || point.getUserData() != null) {
+                return false;
+            }
+            GeometryFactory pointFactory = point.getFactory();
+            if (pointFactory != factory
+                    && (pointFactory.getSRID() != factory.getSRID()
+                            || !pointFactory
+                                    .getPrecisionModel()
+                                    .equals(factory.getPrecisionModel()))) {
+                return false;
+            }
+            CoordinateSequence sequence = point.getCoordinateSequence();
+            return sequence.getDimension() <= 3 && sequence.getMeasures() == 0;
+        }
+
+        @Override
+        void resize(int capacity) {
+            ordinates = Arrays.copyOf(ordinates, capacity * 2);
+            if (z != null) {
+                int previous = z.length;
+                z = Arrays.copyOf(z, capacity);
+                if (capacity > previous) {
+                    Arrays.fill(z, previous, capacity, Coordinate.NULL_ORDINATE);
+                }
+            }
+            if (objects != null) {
+                objects = Arrays.copyOf(objects, capacity);
+            }
+        }
+
+        @Override
+        void shift(int row, int length) {
+            System.arraycopy(ordinates, (row + 1) * 2, ordinates, row * 2, length * 2);
+            if (z != null) {
+                System.arraycopy(z, row + 1, z, row, length);
+            }
+            if (objects != null) {
+                System.arraycopy(objects, row + 1, objects, row, length);
+            }
+            ColumnarFeatureList.shift(nulls, row, length);
+        }
+    }
+
+    /** Generic geometries, copied over packed coordinate sequences when needed */
+    static class GeometryColumn extends ObjectColumn {
+        GeometryFactory factory;
+
+        GeometryColumn(Class<?> binding) {
+            super(binding);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            super.set(row, value == null ? null : pack((Geometry) value));
+        }
+
+        Geometry pack(Geometry geometry) {
+            GeometryFactory source = geometry.getFactory();
+            if (source.getCoordinateSequenceFactory() instanceof PackedCoordinateSequenceFactory) {
+                return geometry;
+            }
+            if (factory == null
+                    || factory.getSRID() != source.getSRID()
+                    || !factory.getPrecisionModel().equals(source.getPrecisionModel())) {
+                factory =
+                        new GeometryFactory(
+                                source.getPrecisionModel(),
+                                source.getSRID(),
+                                PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+            }
+            Geometry packed = factory.createGeometry(geometry);
+            packed.setUserData(geometry.getUserData());
+            return packed;
+        }
+    }
+
+    static class ObjectColumn extends Column {
+        Object[] values = new Object[0];
+
+        ObjectColumn(Class<?> binding) {
+            super(binding);
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            values[row] = value;
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void shift(int row, int length) {
+            System.arraycopy(values, row + 1, values, row, length);
+        }
+    }
+
+    /**
+     * Feature identifiers, stored as a shared prefix plus a number when they follow the {@code
+     * prefix + number} pattern, as strings otherwise.
+     */
+    static class IdColumn {
+        String prefix;
+
+        long[] numbers = new long[0];
+
+        String[] strings;
+
+        /** Rows whose identifier is stored in {@link #strings} */
+        final BitSet textual = new BitSet();
+
+        String get(int row) {
+            if (textual.get(row)) {
+                return strings[row];
+            }
+            return prefix + numbers[row];
+        }
+
+        void set(int row, String id) {
+            int start = id == null ? -1 : numberStart(id);
+            if (start >= 0 && prefix == null) {
+                prefix = id.substring(0, start);
+            }
+            if (start >= 0 && start == prefix.length() && id.startsWith(prefix)) {
+                numbers[row] = Long.parseLong(id.substring(start));
+                textual.clear(row);
+                if (strings != null) {
+                    strings[row] = null;
+                }
+            } else {
+                if (strings == null) {
+                    strings = new String[numbers.length];
+                }
+                strings[row] = id;
+                textual.set(row);
+            }
+        }
+
+        /**
+         * Returns the start of the trailing number in the identifier, or -1 if the identifier does
+         * not end with a number that would be printed back the same way.
+         */
+        static int numberStart(String id) {
+            int start = id.length();
+            while (start > 0 && Character.isDigit(id.charAt(start - 1))) {
+                start--;
+            }
+            int digits = id.length() - start;
+            if (digits == 0 || digits > 18 || (digits > 1 && id.charAt(start) == '0')) {
+                return -1;
+            }
+            for (int i = start; i < id.length(); i++) {
+                if (id.charAt(i) > '9') {
+                    // non ASCII digit
+                    return -1;
+                }
+            }
+            return start;
+        }
+
+        void resize(int capacity) {
+            numbers = Arrays.copyOf(numbers, capacity);
+            if (strings != null) {
+                strings = Arrays.copyOf(strings, capacity);
+            }
+        }
+
+        void shift(int row, int length) {
+            System.arraycopy(numbers, row + 1, numbers, row, length);
+            if (strings != null) {
+                System.arraycopy(strings, row + 1, strings, row, length);
+                strings[row + length] = null;
+            }
+            ColumnarFeatureList.shift(textual, row, length);
+        }
+
+        void clear() {
+            prefix = null;
+            numbers = new long[0];
+            strings = null;
+            textual.clear();
+        }
+    }
+}
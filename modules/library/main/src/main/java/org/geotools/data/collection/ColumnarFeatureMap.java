@@ -0,0 +1,264 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.collection;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * A map from feature identifier to feature, in insertion order, storing the features in a {@link
+ * ColumnarFeatureList}.
+ *
+ * <p>No object is kept per feature: the values are views over the list rows created on access, and
+ * identifiers are resolved with an open addressing table of row numbers, rather than a map of
+ * identifier strings to views. Features must be stored under their own identifier.
+ *
+ * <p>Removed rows are only marked as such, so that the views already handed out keep on reading
+ * the same feature, their storage is reclaimed by {@link #clear()}. Like the list, this class is
+ * not thread safe.
+ *
+ * @since 22
+ */
+public class ColumnarFeatureMap extends AbstractMap<String, SimpleFeature> {
+
+    static final int INITIAL_SLOTS = 32;
+
+    final ColumnarFeatureList list;
+
+    /** Rows of the list whose feature has been removed from the map */
+    final BitSet removed = new BitSet();
+
+    int removedCount;
+
+    /** Row number plus one for each slot, 0 for free slots and -1 for removed ones */
+    int[] slots;
+
+    /** Hash of the identifier of the row held in each slot */
+    int[] hashes;
+
+    /** Number of slots not free, including the removed ones */
+    int usedSlots;
+
+    public ColumnarFeatureMap(SimpleFeatureType schema) {
+        this.list = new ColumnarFeatureList(schema);
+        clearSlots();
+    }
+
+    @Override
+    public int size() {
+        return list.size() - removedCount;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key, hash(key)) >= 0;
+    }
+
+    @Override
+    public SimpleFeature get(Object key) {
+        int slot = find(key, hash(key));
+        return slot < 0 ? null : list.get(slots[slot] - 1);
+    }
+
+    /**
+     * Stores the feature, replacing the values of the feature with the same identifier if any
+     *
+     * @return a detached copy of the replaced feature, or null
+     */
+    @Override
+    public SimpleFeature put(String key, SimpleFeature feature) {
+        if (feature == null) {
+            throw new IllegalArgumentException("Provided Feature is empty");
+        } else if (!Objects.equals(key, feature.getID())) {
+            throw new IllegalArgumentException(
+                    "Feature " + feature.getID() + " cannot be stored under the key " + key);
+        }
+        int hash = hash(key);
+        int slot = find(key, hash);
+        if (slot >= 0) {
+            return list.set(slots[slot] - 1, feature);
+        }
+        list.add(feature);
+        insert(list.size() - 1, hash);
+        return null;
+    }
+
+    /** Removes the feature, the returned view stays readable until the map is cleared */
+    @Override
+    public SimpleFeature remove(Object key) {
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        int row = slots[slot] - 1;
+        slots[slot] = -1;
+        removed.set(row);
+        removedCount++;
+        return list.get(row);
+    }
+
+    @Override
+    public void clear() {
+        list.clear();
+        removed.clear();
+        removedCount = 0;
+        clearSlots();
+    }
+
+    @Override
+    public Collection<SimpleFeature> values() {
+        return new AbstractCollection<SimpleFeature>() {
+
+            @Override
+            public Iterator<SimpleFeature> iterator() {
+                return new RowIterator<SimpleFeature>() {
+                    @Override
+                    SimpleFeature value(int row) {
+                        return list.get(row);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ColumnarFeatureMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, SimpleFeature>> entrySet() {
+        return new AbstractSet<Entry<String, SimpleFeature>>() {
+
+            @Override
+            public Iterator<Entry<String, SimpleFeature>> iterator() {
+                return new RowIterator<Entry<String, SimpleFeature>>() {
+                    @Override
+                    Entry<String, SimpleFeature> value(int row) {
+                        return new SimpleImmutableEntry<>(list.getID(row), list.get(row));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ColumnarFeatureMap.this.size();
+            }
+        };
+    }
+
+    void clearSlots() {
+        slots = new int[INITIAL_SLOTS];
+        hashes = new int[INITIAL_SLOTS];
+        usedSlots = 0;
+    }
+
+    static int hash(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /** Returns the slot holding the feature with the given identifier, or -1 */
+    int find(Object key, int hash) {
+        int mask = slots.length - 1;
+        for (int i = hash & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (slots[i] > 0
+                    && hashes[i] == hash
+                    && Objects.equals(list.getID(slots[i] - 1), key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    void insert(int row, int hash) {
+        if ((usedSlots + 1) * 2 > slots.length) {
+            // grow only if the live rows need it, otherwise just drop the removed slots
+            int length = slots.length;
+            if ((size() + 1) * 4 > length) {
+                length *= 2;
+            }
+            rehash(length);
+        }
+        int mask = slots.length - 1;
+        int i = hash & mask;
+        while (slots[i] > 0) {
+            i = (i + 1) & mask;
+        }
+        if (slots[i] == 0) {
+            usedSlots++;
+        }
+        slots[i] = row + 1;
+        hashes[i] = hash;
+    }
+
+    void rehash(int length) {
+        int[] oldSlots = slots;
+        int[] oldHashes = hashes;
+        slots = new int[length];
+        hashes = new int[length];
+        usedSlots = 0;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] > 0) {
+                insert(oldSlots[i] - 1, oldHashes[i]);
+            }
+        }
+    }
+
+    /** Iterates over the rows not removed */
+    abstract class RowIterator<T> implements Iterator<T> {
+
+        int next = removed.nextClearBit(0);
+
+        int last = -1;
+
+        abstract T value(int row);
+
+        @Override
+        public boolean hasNext() {
+            return next < list.size();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = removed.nextClearBit(next + 1);
+            return value(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0 || removed.get(last)) {
+                throw new IllegalStateException();
+            }
+            ColumnarFeatureMap.this.remove(list.getID(last));
+            last = -1;
+        }
+    }
+}
@@ -21,6 +21,8 @@ import java.util.NoSuchElementException;
 import org.geotools.data.DataSourceException;
 import org.geotools.data.DelegatingFeatureReader;
 import org.geotools.data.FeatureReader;
+import org.geotools.data.QueryInstrumentation;
+import org.geotools.data.QueryStatistics;
 import org.geotools.feature.FeatureTypes;
 import org.geotools.feature.IllegalAttributeException;
 import org.geotools.feature.SchemaException;
@@ -72,6 +74,8 @@ public class ReprojectFeatureReader
     FeatureReader<SimpleFeatureType, SimpleFeature> reader;
     SimpleFeatureType schema;
     GeometryCoordinateSequenceTransformer transformer = new GeometryCoordinateSequenceTransformer();
+    /** The statistics of the query being run, if instrumented */
+    QueryStatistics statistics = QueryInstrumentation.getCurrent();
 
     /**
      * Direct constructor reprojecting the provided reader into the schema indicated (using the
@@ -159,6 +163,7 @@ public class ReprojectFeatureReader
         }
 
         SimpleFeature next = reader.next();
+        long start = statistics != null ? System.nanoTime() : 0;
         Object[] attributes = next.getAttributes().toArray();
 
         try {
@@ -175,6 +180,9 @@ public class ReprojectFeatureReader
         SimpleFeature reprojected = SimpleFeatureBuilder.build(schema, attributes, next.getID());
         // copying the user data if any
         reprojected.getUserData().putAll(next.getUserData());
+        if (statistics != null) {
+            statistics.addTime(QueryStatistics.Phase.REPROJECTION, System.nanoTime() - start);
+        }
         return reprojected;
     }
 
@@ -55,6 +55,9 @@ import org.opengis.feature.type.Name;
  */
 public class MemoryDataStore extends ContentDataStore {
 
+    /** Whether new entries store their features in columnar form */
+    protected boolean columnar = false;
+
     public MemoryDataStore() {
         super();
     }
@@ -234,6 +237,29 @@ public class MemoryDataStore extends ContentDataStore {
         }
     }
 
+    /**
+     * Whether feature types added from now on store their features column by column.
+     *
+     * @see #setColumnar(boolean)
+     */
+    public boolean isColumnar() {
+        return columnar;
+    }
+
+    /**
+     * Enables columnar storage for the feature types added from now on.
+     *
+     * <p>Columnar storage keeps attribute values in primitive arrays and indexes features by
+     * position (see {@link org.geotools.data.collection.ColumnarFeatureMap}), greatly reducing the
+     * memory used by large collections, at the cost of slightly slower access. It is best suited to
+     * mostly read-only content, as the space used by removed features is not reclaimed.
+     *
+     * @param columnar true to enable columnar storage
+     */
+    public void setColumnar(boolean columnar) {
+        this.columnar = columnar;
+    }
+
     /**
      * Access MemoryState for typeName.
      *
@@ -19,7 +19,9 @@ package org.geotools.data.memory;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import org.geotools.data.collection.ColumnarFeatureMap;
 import org.geotools.data.store.ContentEntry;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 
@@ -52,6 +54,14 @@ public class MemoryEntry extends ContentEntry {
      */
     private final Map<String, SimpleFeature> memory;
 
+    /**
+     * Whether {@link #memory} is a {@link ColumnarFeatureMap}, enabled in the store. Its values are
+     * then views over the columns, which are not thread safe: the features are read with {@link
+     * #copyFeature(SimpleFeature)} and modified with {@link #updateFeature(SimpleFeature,
+     * SimpleFeature)}, that synchronize on {@link #memory} like its own methods do.
+     */
+    private final boolean columnar;
+
     /**
      * Entry to store content of the provided SimpleFeatureType.
      *
@@ -61,7 +71,12 @@ public class MemoryEntry extends ContentEntry {
     MemoryEntry(MemoryDataStore store, SimpleFeatureType schema) {
         super(store, schema.getName());
         this.schema = schema;
-        memory = Collections.synchronizedMap(new LinkedHashMap<String, SimpleFeature>());
+        columnar = store.isColumnar();
+        memory =
+                Collections.synchronizedMap(
+                        columnar
+                                ? new ColumnarFeatureMap(schema)
+                                : new LinkedHashMap<String, SimpleFeature>());
     }
 
     protected MemoryState createContentState(ContentEntry entry) {
@@ -101,4 +116,30 @@ public class MemoryEntry extends ContentEntry {
         }
         getMemory().put(feature.getID(), feature);
     }
+
+    /** Returns a detached copy of a feature stored in {@link #memory} */
+    SimpleFeature copyFeature(SimpleFeature stored) {
+        if (columnar) {
+            synchronized (memory) {
+                return SimpleFeatureBuilder.copy(stored);
+            }
+        }
+        return SimpleFeatureBuilder.copy(stored);
+    }
+
+    /**
+     * Copies the attributes of the modified feature into the one stored in {@link #memory}, if
+     * they differ
+     */
+    void updateFeature(SimpleFeature stored, SimpleFeature modified) {
+        if (columnar) {
+            synchronized (memory) {
+                if (!stored.equals(modified)) {
+                    stored.setAttributes(modified.getAttributes());
+                }
+            }
+        } else if (!stored.equals(modified)) {
+            stored.setAttributes(modified.getAttributes());
+        }
+    }
 }
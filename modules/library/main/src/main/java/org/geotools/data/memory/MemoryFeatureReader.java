@@ -25,7 +25,6 @@ import org.geotools.data.DataSourceException;
 import org.geotools.data.FeatureReader;
 import org.geotools.data.Query;
 import org.geotools.data.store.ContentState;
-import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.opengis.feature.IllegalAttributeException;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
@@ -34,16 +33,25 @@ import org.opengis.feature.simple.SimpleFeatureType;
 public class MemoryFeatureReader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
 
     SimpleFeatureType featureType;
+    MemoryEntry entry;
     Iterator<SimpleFeature> iterator;
 
     public MemoryFeatureReader(ContentState state, Query query) throws IOException {
         featureType = state.getFeatureType();
-        MemoryEntry entry = (MemoryEntry) state.getEntry();
+        entry = (MemoryEntry) state.getEntry();
 
         final List<SimpleFeature> internalCollection = new ArrayList<>(entry.getMemory().values());
         iterator = internalCollection.iterator();
     }
 
+    /** Reads the features returned by the iterator, used to read a partition of the contents */
+    MemoryFeatureReader(
+            MemoryEntry entry, SimpleFeatureType featureType, Iterator<SimpleFeature> iterator) {
+        this.entry = entry;
+        this.featureType = featureType;
+        this.iterator = iterator;
+    }
+
     public SimpleFeatureType getFeatureType() {
         return featureType;
     }
@@ -55,7 +63,7 @@ public class MemoryFeatureReader implements FeatureReader<SimpleFeatureType, Sim
         }
 
         try {
-            return SimpleFeatureBuilder.copy((SimpleFeature) iterator.next());
+            return entry.copyFeature(iterator.next());
         } catch (NoSuchElementException end) {
             throw new DataSourceException("There are no more Features", end);
         }
@@ -17,6 +17,9 @@
 package org.geotools.data.memory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import org.geotools.data.FeatureReader;
 import org.geotools.data.Query;
 import org.geotools.data.store.ContentEntry;
@@ -35,6 +38,11 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
  */
 public class MemoryFeatureSource extends ContentFeatureSource {
 
+    /** Minimum number of features in each partition of a parallel visit */
+    static final int MIN_PARTITION_SIZE = 10000;
+
+    int minPartitionSize = MIN_PARTITION_SIZE;
+
     public MemoryFeatureSource(ContentEntry entry) {
         this(entry, Query.ALL);
     }
@@ -93,6 +101,30 @@ public class MemoryFeatureSource extends ContentFeatureSource {
         return new MemoryFeatureReader(getState(), query);
     }
 
+    /** Splits the contents in segments of consecutive features */
+    @Override
+    protected List<Callable<FeatureReader<SimpleFeatureType, SimpleFeature>>>
+            getReaderPartitionsInternal(Query query, int partitions) throws IOException {
+        SimpleFeatureType featureType = getState().getFeatureType();
+        MemoryEntry entry = getEntry();
+        List<SimpleFeature> features = new ArrayList<>(entry.getMemory().values());
+        int segments = Math.min(partitions, features.size() / minPartitionSize);
+        if (segments < 2) {
+            return null;
+        }
+
+        List<Callable<FeatureReader<SimpleFeatureType, SimpleFeature>>> result =
+                new ArrayList<>(segments);
+        for (int i = 0; i < segments; i++) {
+            List<SimpleFeature> segment =
+                    features.subList(
+                            (int) ((long) i * features.size() / segments),
+                            (int) ((long) (i + 1) * features.size() / segments));
+            result.add(() -> new MemoryFeatureReader(entry, featureType, segment.iterator()));
+        }
+        return result;
+    }
+
     @Override
     protected SimpleFeatureType buildFeatureType() {
         return getState()
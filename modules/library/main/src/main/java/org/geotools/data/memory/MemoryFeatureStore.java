@@ -17,6 +17,8 @@
 package org.geotools.data.memory;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
 import org.geotools.data.FeatureReader;
 import org.geotools.data.FeatureWriter;
 import org.geotools.data.Query;
@@ -99,6 +101,12 @@ public class MemoryFeatureStore extends ContentFeatureStore {
         return delegate.handleVisitor(query, visitor);
     }
 
+    @Override
+    protected List<Callable<FeatureReader<SimpleFeatureType, SimpleFeature>>>
+            getReaderPartitionsInternal(Query query, int partitions) throws IOException {
+        return delegate.getReaderPartitionsInternal(query, partitions);
+    }
+
     @Override
     protected QueryCapabilities buildQueryCapabilities() {
         return new QueryCapabilities() {
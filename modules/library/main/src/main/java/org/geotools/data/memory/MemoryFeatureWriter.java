@@ -25,7 +25,6 @@ import org.geotools.data.Query;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.feature.simple.SimpleFeatureImpl;
 import org.geotools.filter.identity.FeatureIdImpl;
-import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.util.factory.Hints;
 import org.opengis.feature.IllegalAttributeException;
 import org.opengis.feature.simple.SimpleFeature;
@@ -63,7 +62,7 @@ public class MemoryFeatureWriter implements FeatureWriter<SimpleFeatureType, Sim
             live = iterator.next();
 
             try {
-                current = SimpleFeatureBuilder.copy(live);
+                current = state.getEntry().copyFeature(live);
             } catch (IllegalAttributeException e) {
                 throw new DataSourceException("Unable to edit " + live.getID() + " of " + typeName);
             }
@@ -121,30 +120,15 @@ public class MemoryFeatureWriter implements FeatureWriter<SimpleFeatureType, Sim
         }
 
         if (live != null) {
-            if (live.equals(current)) {
-                // no modifications made to current
-                //
-                live = null;
-                current = null;
-            } else {
-                // accept modifications
-                //
-                try {
-                    live.setAttributes(current.getAttributes());
-                } catch (Exception e) {
-                    throw new DataSourceException(
-                            "Unable to accept modifications to "
-                                    + live.getID()
-                                    + " on "
-                                    + typeName);
-                }
-
-                ReferencedEnvelope bounds = new ReferencedEnvelope();
-                bounds.expandToInclude(new ReferencedEnvelope(live.getBounds()));
-                bounds.expandToInclude(new ReferencedEnvelope(current.getBounds()));
-                live = null;
-                current = null;
+            // accept modifications, if any
+            try {
+                state.getEntry().updateFeature(live, current);
+            } catch (Exception e) {
+                throw new DataSourceException(
+                        "Unable to accept modifications to " + current.getID() + " on " + typeName);
             }
+            live = null;
+            current = null;
         } else {
             // add new content
             MemoryEntry entry = state.getEntry();
@@ -0,0 +1,203 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.offheap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.geotools.data.FeatureReader;
+import org.geotools.data.Query;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.store.ContentDataStore;
+import org.geotools.data.store.ContentEntry;
+import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.feature.FeatureTypes;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.Name;
+
+/**
+ * A read only data store keeping its features outside of the Java heap, either in direct buffers
+ * or in memory mapped temporary files, along with a {@link PackedHilbertRTree} spatial index.
+ *
+ * <p>It is meant to hold large, static datasets without putting pressure on the garbage collector.
+ * Contents are loaded with the {@code addFeatures} methods, which append to the storage: features
+ * cannot be modified or removed afterwards, other than by removing the whole feature type.
+ *
+ * <p>Bounding box queries are resolved using the spatial index, any other filter is evaluated on
+ * the decoded features.
+ */
+public class OffHeapDataStore extends ContentDataStore {
+
+    /** Directory holding the memory mapped files, or null to use direct buffers */
+    final File directory;
+
+    final int chunkSize;
+
+    /** Builds a store keeping the features in direct buffers */
+    public OffHeapDataStore() {
+        this(null, OffHeapFeatureStorage.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Builds a store keeping the features in memory mapped files, created in the given directory
+     * and removed on {@link #dispose()}
+     *
+     * @param directory
+     */
+    public OffHeapDataStore(File directory) {
+        this(directory, OffHeapFeatureStorage.DEFAULT_CHUNK_SIZE);
+    }
+
+    OffHeapDataStore(File directory, int chunkSize) {
+        if (directory != null && !directory.isDirectory()) {
+            throw new IllegalArgumentException(directory + " is not a directory");
+        }
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Adds the features to the store, creating the schema if needed
+     *
+     * @param collection
+     * @throws IOException
+     */
+    public void addFeatures(SimpleFeatureCollection collection) throws IOException {
+        OffHeapEntry entry = entry(collection.getSchema());
+        try (SimpleFeatureIterator it = collection.features()) {
+            while (it.hasNext()) {
+                entry.storage.add(it.next());
+            }
+        }
+    }
+
+    /**
+     * Adds the features to the store, creating the schema if needed. The reader is closed once
+     * done.
+     *
+     * @param reader
+     * @throws IOException
+     */
+    public void addFeatures(FeatureReader<SimpleFeatureType, SimpleFeature> reader)
+            throws IOException {
+        try {
+            OffHeapEntry entry = entry(reader.getFeatureType());
+            while (reader.hasNext()) {
+                entry.storage.add(reader.next());
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Access to entry to store content of the provided schema, will create new entry if needed.
+     *
+     * @param schema
+     * @throws IOException If new entry could not be created due to typeName conflict
+     */
+    protected OffHeapEntry entry(SimpleFeatureType schema) throws IOException {
+        Name typeName = schema.getName();
+        synchronized (entries) {
+            if (entries.containsKey(typeName)) {
+                OffHeapEntry entry = (OffHeapEntry) entries.get(typeName);
+                if (FeatureTypes.equals(entry.schema, schema)) {
+                    return entry;
+                } else {
+                    throw new IOException(
+                            "Entry "
+                                    + typeName
+                                    + " schema "
+                                    + entry.schema
+                                    + " incompatible with provided "
+                                    + schema);
+                }
+            } else {
+                OffHeapEntry entry = new OffHeapEntry(this, schema);
+                entries.put(typeName, entry);
+                return entry;
+            }
+        }
+    }
+
+    @Override
+    protected List<Name> createTypeNames() {
+        List<Name> names = new ArrayList<Name>(this.entries.keySet());
+        Collections.sort(
+                names,
+                new Comparator<Name>() {
+                    public int compare(Name n1, Name n2) {
+                        return n1.toString().compareTo(n2.toString());
+                    }
+                });
+        return names;
+    }
+
+    @Override
+    protected ContentFeatureSource createFeatureSource(ContentEntry entry) {
+        return new OffHeapFeatureSource(entry, Query.ALL);
+    }
+
+    @Override
+    public void createSchema(SimpleFeatureType featureType) throws IOException {
+        Name typeName = featureType.getName();
+        synchronized (entries) {
+            if (entries.containsKey(typeName)) {
+                throw new IOException(typeName + " already exists");
+            }
+            entries.put(typeName, new OffHeapEntry(this, featureType));
+        }
+    }
+
+    @Override
+    public void removeSchema(String typeName) throws IOException {
+        for (Name name : entries.keySet()) {
+            if (name.getLocalPart().equals(typeName)) {
+                removeSchema(name);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void removeSchema(Name typeName) throws IOException {
+        if (typeName != null) {
+            OffHeapEntry entry;
+            synchronized (entries) {
+                entry = (OffHeapEntry) entries.remove(typeName);
+            }
+            if (entry != null) {
+                entry.storage.dispose();
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (entries) {
+            for (ContentEntry entry : entries.values()) {
+                ((OffHeapEntry) entry).storage.dispose();
+            }
+        }
+        super.dispose();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.offheap;
+
+import org.geotools.data.store.ContentEntry;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * Entry for a feature type stored in a {@link OffHeapDataStore}, holds the schema and the off heap
+ * storage of the features.
+ */
+public class OffHeapEntry extends ContentEntry {
+
+    /** Schema of managed content. */
+    final SimpleFeatureType schema;
+
+    final OffHeapFeatureStorage storage;
+
+    OffHeapEntry(OffHeapDataStore store, SimpleFeatureType schema) {
+        super(store, schema.getName());
+        this.schema = schema;
+        this.storage = new OffHeapFeatureStorage(schema, store.directory, store.chunkSize);
+    }
+
+    /** The number of features stored in this entry */
+    public int getCount() {
+        return storage.getCount();
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapEntry '" + getTypeName() + "': " + getCount() + " features";
+    }
+}
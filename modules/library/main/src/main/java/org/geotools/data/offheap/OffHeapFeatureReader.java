@@ -0,0 +1,124 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.offheap;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+import org.geotools.data.FeatureReader;
+import org.geotools.data.sort.SimpleFeatureIO;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+
+/** Decodes features out of a {@link OffHeapFeatureStorage} */
+class OffHeapFeatureReader implements FeatureReader<SimpleFeatureType, SimpleFeature> {
+
+    SimpleFeatureType featureType;
+
+    OffHeapFeatureStorage storage;
+
+    SimpleFeatureBuilder builder;
+
+    /** The ids of the features to read, or null to read them all */
+    int[] ids;
+
+    /** The number of features to read */
+    int count;
+
+    int next;
+
+    OffHeapFeatureReader(SimpleFeatureType featureType, OffHeapFeatureStorage storage, int[] ids) {
+        this.featureType = featureType;
+        this.storage = storage;
+        this.builder = new SimpleFeatureBuilder(featureType);
+        this.ids = ids;
+        // features added while reading are not returned
+        this.count = ids != null ? ids.length : storage.getCount();
+    }
+
+    @Override
+    public SimpleFeatureType getFeatureType() {
+        return featureType;
+    }
+
+    @Override
+    public SimpleFeature next() throws IOException, NoSuchElementException {
+        if (storage == null) {
+            throw new IOException("Feature Reader has been closed");
+        }
+        if (next >= count) {
+            throw new NoSuchElementException("There are no more Features");
+        }
+        int id = ids != null ? ids[next] : next;
+        next++;
+
+        DataInputStream dis = new DataInputStream(new ByteBufferInputStream(storage.getRecord(id)));
+        String fid = dis.readUTF();
+        for (AttributeDescriptor ad : featureType.getAttributeDescriptors()) {
+            builder.add(SimpleFeatureIO.readAttribute(dis, ad));
+        }
+        return builder.buildFeature(fid);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return storage != null && next < count;
+    }
+
+    @Override
+    public void close() {
+        storage = null;
+        ids = null;
+    }
+
+    /** Minimal stream over a byte buffer, avoids copying the record on the heap */
+    static class ByteBufferInputStream extends InputStream {
+
+        final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(len, buffer.remaining());
+            buffer.get(b, off, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
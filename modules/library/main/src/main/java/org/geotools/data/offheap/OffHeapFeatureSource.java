@@ -0,0 +1,104 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.offheap;
+
+import java.io.IOException;
+import org.geotools.data.FeatureReader;
+import org.geotools.data.Query;
+import org.geotools.data.store.ContentEntry;
+import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.locationtech.jts.geom.Envelope;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+
+/**
+ * Read only feature source for the {@link OffHeapDataStore}. Uses the spatial index to locate the
+ * features matching the bounding box of the query filter, the filter itself is evaluated by the
+ * base class.
+ */
+public class OffHeapFeatureSource extends ContentFeatureSource {
+
+    public OffHeapFeatureSource(ContentEntry entry, Query query) {
+        super(entry, query);
+    }
+
+    /** Access parent OffHeapDataStore. */
+    @Override
+    public OffHeapDataStore getDataStore() {
+        return (OffHeapDataStore) super.getDataStore();
+    }
+
+    /** The entry for the feature source. */
+    @Override
+    public OffHeapEntry getEntry() {
+        return (OffHeapEntry) super.getEntry();
+    }
+
+    @Override
+    protected ReferencedEnvelope getBoundsInternal(Query query) throws IOException {
+        if (query.getFilter() == Filter.INCLUDE) {
+            Envelope bounds = getEntry().storage.getBounds();
+            return ReferencedEnvelope.create(bounds, getSchema().getCoordinateReferenceSystem());
+        }
+        // feature by feature scan required
+        return null;
+    }
+
+    @Override
+    protected int getCountInternal(Query query) throws IOException {
+        if (query.getFilter() == Filter.INCLUDE) {
+            return getEntry().getCount();
+        }
+        // feature by feature count required
+        return -1;
+    }
+
+    @Override
+    protected FeatureReader<SimpleFeatureType, SimpleFeature> getReaderInternal(Query query)
+            throws IOException {
+        OffHeapFeatureStorage storage = getEntry().storage;
+
+        // grab the target bbox, if any
+        Envelope bbox = new ReferencedEnvelope();
+        if (query != null && query.getFilter() != null) {
+            bbox =
+                    (Envelope)
+                            query.getFilter()
+                                    .accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, bbox);
+            if (bbox == null) {
+                bbox = new ReferencedEnvelope();
+            }
+        }
+
+        int[] ids = null;
+        if (!bbox.isNull()
+                && !Double.isInfinite(bbox.getWidth())
+                && !Double.isInfinite(bbox.getHeight())) {
+            ids = storage.query(bbox);
+        }
+        return new OffHeapFeatureReader(getSchema(), storage, ids);
+    }
+
+    @Override
+    protected SimpleFeatureType buildFeatureType() {
+        // cache schema unchanged (as we do not retype/reproject)
+        return getEntry().schema;
+    }
+}
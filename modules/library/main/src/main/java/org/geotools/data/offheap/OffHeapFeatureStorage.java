@@ -0,0 +1,317 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.offheap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.data.sort.SimpleFeatureIO;
+import org.geotools.util.NIOUtilities;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Envelope;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+
+/**
+ * Append only storage of the features of a single type, kept outside of the Java heap.
+ *
+ * <p>Features are encoded with {@link SimpleFeatureIO} (geometries end up as WKB) and appended to
+ * large chunks, which are either direct buffers or memory mapped temporary files. Addresses and
+ * envelopes of the features are kept in direct buffers too, so that the only heap cost is the one
+ * of the {@link PackedHilbertRTree} handle, whose nodes are also off heap.
+ */
+class OffHeapFeatureStorage {
+
+    static final Logger LOGGER = Logging.getLogger(OffHeapFeatureStorage.class);
+
+    /** Default size of the chunks holding the encoded features */
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    static final int INITIAL_CAPACITY = 1024;
+
+    final SimpleFeatureType schema;
+
+    /** Directory holding the memory mapped chunks, or null to use direct buffers */
+    final File directory;
+
+    final int chunkSize;
+
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    final List<ByteBuffer> chunks = new ArrayList<>();
+
+    final List<File> files = new ArrayList<>();
+
+    /** Chunk and offset of each feature, packed as (chunk << 32 | offset) */
+    ByteBuffer addresses;
+
+    /** minX, minY, maxX, maxY of each feature */
+    ByteBuffer envelopes;
+
+    Envelope bounds = new Envelope();
+
+    int count;
+
+    PackedHilbertRTree index;
+
+    boolean disposed;
+
+    OffHeapFeatureStorage(SimpleFeatureType schema, File directory, int chunkSize) {
+        this.schema = schema;
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+        this.addresses = allocate(INITIAL_CAPACITY * 8);
+        this.envelopes = allocate(INITIAL_CAPACITY * 4 * 8);
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Appends a feature to the storage
+     *
+     * @param feature
+     * @throws IOException
+     */
+    void add(SimpleFeature feature) throws IOException {
+        byte[] record = encode(feature);
+        Envelope envelope = feature.getBounds();
+
+        lock.writeLock().lock();
+        try {
+            checkDisposed();
+            if (count == Integer.MAX_VALUE) {
+                throw new IOException("Storage is full, cannot add more features");
+            }
+            ByteBuffer chunk = getChunkFor(4 + record.length);
+            long address = ((long) (chunks.size() - 1) << 32) | chunk.position();
+            chunk.putInt(record.length);
+            chunk.put(record);
+
+            ensureCapacity(count + 1);
+            addresses.putLong(count * 8, address);
+            int base = count * 4 * 8;
+            if (envelope == null || envelope.isNull()) {
+                // an inverted box, never matched by spatial searches
+                envelopes.putDouble(base, Double.POSITIVE_INFINITY);
+                envelopes.putDouble(base + 8, Double.POSITIVE_INFINITY);
+                envelopes.putDouble(base + 16, Double.NEGATIVE_INFINITY);
+                envelopes.putDouble(base + 24, Double.NEGATIVE_INFINITY);
+            } else {
+                envelopes.putDouble(base, envelope.getMinX());
+                envelopes.putDouble(base + 8, envelope.getMinY());
+                envelopes.putDouble(base + 16, envelope.getMaxX());
+                envelopes.putDouble(base + 24, envelope.getMaxY());
+                bounds.expandToInclude(envelope);
+            }
+            count++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private byte[] encode(SimpleFeature feature) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(bos);
+        dos.writeUTF(feature.getID());
+        for (AttributeDescriptor ad : schema.getAttributeDescriptors()) {
+            SimpleFeatureIO.writeAttribute(dos, ad, feature.getAttribute(ad.getLocalName()));
+        }
+        dos.flush();
+        return bos.toByteArray();
+    }
+
+    private ByteBuffer getChunkFor(int size) throws IOException {
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.remaining() < size) {
+            chunk = newChunk(Math.max(size, chunkSize));
+            chunks.add(chunk);
+        }
+        return chunk;
+    }
+
+    private ByteBuffer newChunk(int size) throws IOException {
+        if (directory == null) {
+            return ByteBuffer.allocateDirect(size);
+        }
+        File file = File.createTempFile("features", ".chunk", directory);
+        file.deleteOnExit();
+        files.add(file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(size);
+            // the mapping stays valid after the channel is closed
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (addresses.capacity() >= capacity * 8) {
+            return;
+        }
+        int newCapacity = (int) Math.min(Integer.MAX_VALUE / 32, (long) capacity * 2);
+        if (newCapacity < capacity) {
+            throw new IllegalStateException("Cannot grow the storage past " + newCapacity);
+        }
+        addresses = grow(addresses, newCapacity * 8);
+        envelopes = grow(envelopes, newCapacity * 4 * 8);
+    }
+
+    private ByteBuffer grow(ByteBuffer buffer, int size) {
+        ByteBuffer grown = allocate(size);
+        ByteBuffer source = buffer.duplicate();
+        source.clear();
+        grown.put(source);
+        grown.clear();
+        // not returned to the NIOUtilities cache, it would be handed over to unrelated code, and
+        // not cleaned either, the GC releases it once no reader uses it anymore
+        return grown;
+    }
+
+    /**
+     * Returns a read only view of the encoded feature with the given id, positioned after the
+     * record length
+     */
+    ByteBuffer getRecord(int id) throws IOException {
+        lock.readLock().lock();
+        try {
+            checkDisposed();
+            if (id < 0 || id >= count) {
+                throw new IndexOutOfBoundsException("Invalid feature id " + id);
+            }
+            long address = addresses.getLong(id * 8);
+            ByteBuffer record = chunks.get((int) (address >>> 32)).asReadOnlyBuffer();
+            int offset = (int) address;
+            int length = record.getInt(offset);
+            record.limit(offset + 4 + length);
+            record.position(offset + 4);
+            return record;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the features whose envelope intersects the search area, in insertion
+     * order
+     */
+    int[] query(Envelope area) throws IOException {
+        return getIndex().search(area);
+    }
+
+    /**
+     * Returns the spatial index, rebuilding it if features have been added since the last call
+     */
+    PackedHilbertRTree getIndex() throws IOException {
+        lock.readLock().lock();
+        try {
+            checkDisposed();
+            PackedHilbertRTree current = index;
+            if (current != null && current.size() == count) {
+                return current;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // take the write lock so that no feature gets added while building
+        lock.writeLock().lock();
+        try {
+            checkDisposed();
+            if (index == null || index.size() != count) {
+                // the previous index might still be in use by a search, leave it to the GC
+                ByteBuffer source = envelopes.duplicate().order(envelopes.order());
+                source.clear();
+                index = PackedHilbertRTree.build(source.asDoubleBuffer(), count);
+            }
+            return index;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int getCount() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Envelope getBounds() {
+        lock.readLock().lock();
+        try {
+            return new Envelope(bounds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void checkDisposed() throws IOException {
+        if (disposed) {
+            throw new IOException("Storage for " + schema.getTypeName() + " has been disposed");
+        }
+    }
+
+    /**
+     * Releases all the memory and files used by the storage. Must not be called while feature
+     * readers are still open.
+     */
+    void dispose() {
+        lock.writeLock().lock();
+        try {
+            if (disposed) {
+                return;
+            }
+            disposed = true;
+            if (directory != null) {
+                // unmap so that the files can be deleted, direct buffers are left to the GC
+                for (ByteBuffer chunk : chunks) {
+                    NIOUtilities.clean(chunk);
+                }
+            }
+            chunks.clear();
+            for (File file : files) {
+                if (!file.delete()) {
+                    LOGGER.log(Level.FINE, "Could not delete chunk file " + file);
+                }
+            }
+            files.clear();
+            // a search might still be running on the index outside of the lock, just drop the
+            // references and let the GC release the memory once it's done
+            addresses = null;
+            envelopes = null;
+            index = null;
+            count = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.offheap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * A static, packed R-tree whose leaves are sorted along a Hilbert curve. The whole tree lives in a
+ * single {@link ByteBuffer}, which can be a direct buffer (off the Java heap) or a memory mapped
+ * file, and can be saved to and reopened from a channel without any parsing.
+ *
+ * <p>The tree is immutable, it needs to be rebuilt to include new items. Items are identified by
+ * their integer position in the array of bounds used to build the tree. Items with inverted
+ * bounds (e.g., minX = +Infinity, maxX = -Infinity) are accepted, but never returned by searches.
+ *
+ * <p>Buffer layout, little endian:
+ *
+ * <ul>
+ *   <li>header: magic number, version, node size, number of items (4 ints)
+ *   <li>node boxes: minX, minY, maxX, maxY for each node, leaves first, root last
+ *   <li>node indexes: item id for leaves, position of the first child for the other nodes
+ * </ul>
+ */
+public class PackedHilbertRTree {
+
+    /** Default number of children per node */
+    public static final int DEFAULT_NODE_SIZE = 16;
+
+    static final int MAGIC = 0x47544852; // GTHR
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 16;
+
+    /** Max value of the Hilbert curve coordinates */
+    static final int HILBERT_MAX = (1 << 16) - 1;
+
+    final ByteBuffer buffer;
+
+    final int nodeSize;
+
+    final int numItems;
+
+    final int numNodes;
+
+    /** Exclusive end node of each level, leaves first */
+    final int[] levelBounds;
+
+    final DoubleBuffer boxes;
+
+    final IntBuffer indexes;
+
+    private PackedHilbertRTree(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("The buffer does not contain a packed R-tree");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException(
+                    "Unsupported packed R-tree version " + buffer.getInt(4));
+        }
+        this.nodeSize = buffer.getInt(8);
+        this.numItems = buffer.getInt(12);
+        this.levelBounds = computeLevelBounds(numItems, nodeSize);
+        this.numNodes = levelBounds.length == 0 ? 0 : levelBounds[levelBounds.length - 1];
+        this.boxes = slice(buffer, HEADER_SIZE, numNodes * 4 * 8).asDoubleBuffer();
+        this.indexes = slice(buffer, HEADER_SIZE + numNodes * 4 * 8, numNodes * 4).asIntBuffer();
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(position);
+        dup.limit(position + length);
+        return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int[] computeLevelBounds(int numItems, int nodeSize) {
+        if (numItems == 0) {
+            return new int[0];
+        }
+        int[] bounds = new int[8];
+        int levels = 0;
+        int n = numItems;
+        int numNodes = n;
+        bounds[levels++] = numNodes;
+        do {
+            n = (n + nodeSize - 1) / nodeSize;
+            numNodes += n;
+            if (levels == bounds.length) {
+                bounds = Arrays.copyOf(bounds, levels * 2);
+            }
+            bounds[levels++] = numNodes;
+        } while (n != 1);
+        return Arrays.copyOf(bounds, levels);
+    }
+
+    /**
+     * Returns the number of bytes needed to store a tree with the given number of items
+     *
+     * @param numItems
+     * @param nodeSize
+     * @return
+     */
+    public static long getBufferSize(int numItems, int nodeSize) {
+        int[] bounds = computeLevelBounds(numItems, nodeSize);
+        long numNodes = bounds.length == 0 ? 0 : bounds[bounds.length - 1];
+        return HEADER_SIZE + numNodes * (4 * 8 + 4);
+    }
+
+    /**
+     * Builds a new tree in a direct buffer, using the {@link #DEFAULT_NODE_SIZE}
+     *
+     * @param bounds the item bounds, as minX, minY, maxX, maxY quadruplets
+     * @param numItems the number of items to index
+     * @return
+     */
+    public static PackedHilbertRTree build(DoubleBuffer bounds, int numItems) {
+        long size = getBufferSize(numItems, DEFAULT_NODE_SIZE);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many items for a single packed R-tree");
+        }
+        ByteBuffer target = ByteBuffer.allocateDirect((int) size);
+        return build(bounds, numItems, DEFAULT_NODE_SIZE, target);
+    }
+
+    /**
+     * Builds a new tree in the provided buffer, which must have at least {@link
+     * #getBufferSize(int, int)} bytes available
+     *
+     * @param bounds the item bounds, as minX, minY, maxX, maxY quadruplets
+     * @param numItems the number of items to index
+     * @param nodeSize the number of children per node
+     * @param target the buffer receiving the tree
+     * @return
+     */
+    public static PackedHilbertRTree build(
+            DoubleBuffer bounds, int numItems, int nodeSize, ByteBuffer target) {
+        if (nodeSize < 2) {
+            throw new IllegalArgumentException("Node size must be at least 2");
+        }
+        target.order(ByteOrder.LITTLE_ENDIAN);
+        target.putInt(0, MAGIC);
+        target.putInt(4, VERSION);
+        target.putInt(8, nodeSize);
+        target.putInt(12, numItems);
+        PackedHilbertRTree tree = new PackedHilbertRTree(target);
+        if (numItems == 0) {
+            return tree;
+        }
+
+        // compute the extent of all items, to map their centers on the Hilbert curve
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < numItems; i++) {
+            if (isEmpty(bounds, i)) {
+                continue;
+            }
+            minX = Math.min(minX, bounds.get(i * 4));
+            minY = Math.min(minY, bounds.get(i * 4 + 1));
+            maxX = Math.max(maxX, bounds.get(i * 4 + 2));
+            maxY = Math.max(maxY, bounds.get(i * 4 + 3));
+        }
+        double width = maxX - minX;
+        double height = maxY - minY;
+
+        // sort the items by Hilbert value, packing value and item id in a single long
+        long[] keys = new long[numItems];
+        for (int i = 0; i < numItems; i++) {
+            if (isEmpty(bounds, i)) {
+                // empty items go at the end, they are never matched anyways
+                keys[i] = (0x7FFFFFFFL << 32) | i;
+                continue;
+            }
+            double cx = (bounds.get(i * 4) + bounds.get(i * 4 + 2)) / 2;
+            double cy = (bounds.get(i * 4 + 1) + bounds.get(i * 4 + 3)) / 2;
+            int hx = width > 0 ? (int) Math.floor(HILBERT_MAX * (cx - minX) / width) : 0;
+            int hy = height > 0 ? (int) Math.floor(HILBERT_MAX * (cy - minY) / height) : 0;
+            long hilbert = hilbert(hx, hy) & 0xFFFFFFFFL;
+            keys[i] = ((hilbert >>> 1) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        // leaves
+        DoubleBuffer boxes = tree.boxes;
+        IntBuffer indexes = tree.indexes;
+        for (int i = 0; i < numItems; i++) {
+            int item = (int) keys[i];
+            for (int j = 0; j < 4; j++) {
+                boxes.put(i * 4 + j, bounds.get(item * 4 + j));
+            }
+            indexes.put(i, item);
+        }
+
+        // upper levels, each node covering up to nodeSize consecutive nodes of the level below
+        int node = numItems;
+        int levelStart = 0;
+        for (int level = 0; level < tree.levelBounds.length - 1; level++) {
+            int levelEnd = tree.levelBounds[level];
+            for (int child = levelStart; child < levelEnd; node++) {
+                double nMinX = Double.POSITIVE_INFINITY;
+                double nMinY = Double.POSITIVE_INFINITY;
+                double nMaxX = Double.NEGATIVE_INFINITY;
+                double nMaxY = Double.NEGATIVE_INFINITY;
+                indexes.put(node, child);
+                for (int end = Math.min(child + nodeSize, levelEnd); child < end; child++) {
+                    nMinX = Math.min(nMinX, boxes.get(child * 4));
+                    nMinY = Math.min(nMinY, boxes.get(child * 4 + 1));
+                    nMaxX = Math.max(nMaxX, boxes.get(child * 4 + 2));
+                    nMaxY = Math.max(nMaxY, boxes.get(child * 4 + 3));
+                }
+                boxes.put(node * 4, nMinX);
+                boxes.put(node * 4 + 1, nMinY);
+                boxes.put(node * 4 + 2, nMaxX);
+                boxes.put(node * 4 + 3, nMaxY);
+            }
+            levelStart = levelEnd;
+        }
+
+        return tree;
+    }
+
+    private static boolean isEmpty(DoubleBuffer bounds, int item) {
+        return !(bounds.get(item * 4) <= bounds.get(item * 4 + 2))
+                || !(bounds.get(item * 4 + 1) <= bounds.get(item * 4 + 3));
+    }
+
+    /**
+     * Wraps a buffer containing a tree, as built by {@link #build(DoubleBuffer, int, int,
+     * ByteBuffer)} or written by {@link #write(WritableByteChannel)}. Typically used to open a tree
+     * saved in a memory mapped file.
+     *
+     * @param buffer
+     * @return
+     */
+    public static PackedHilbertRTree wrap(ByteBuffer buffer) {
+        return new PackedHilbertRTree(buffer);
+    }
+
+    /**
+     * Visits the ids of the items whose bounds intersect the provided envelope. The ids are not
+     * visited in any specific order.
+     *
+     * @param envelope the search area
+     * @param visitor the item id consumer
+     */
+    public void search(Envelope envelope, IntConsumer visitor) {
+        search(
+                envelope.getMinX(),
+                envelope.getMinY(),
+                envelope.getMaxX(),
+                envelope.getMaxY(),
+                visitor);
+    }
+
+    /**
+     * Visits the ids of the items whose bounds intersect the provided area. The ids are not visited
+     * in any specific order.
+     */
+    public void search(
+            double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+        if (numNodes == 0) {
+            return;
+        }
+        // stack of node/level pairs to visit, starting from the root
+        int[] stack = new int[16];
+        int top = 0;
+        int node = numNodes - 1;
+        int level = levelBounds.length - 1;
+        while (true) {
+            int end = Math.min(node + nodeSize, levelBounds[level]);
+            for (int pos = node; pos < end; pos++) {
+                double nMinX = boxes.get(pos * 4);
+                double nMaxX = boxes.get(pos * 4 + 2);
+                if (maxX < nMinX
+                        || maxY < boxes.get(pos * 4 + 1)
+                        || minX > nMaxX
+                        || minY > boxes.get(pos * 4 + 3)
+                        || nMinX > nMaxX) {
+                    continue;
+                }
+                int index = indexes.get(pos);
+                if (pos < numItems) {
+                    visitor.accept(index);
+                } else {
+                    if (top + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = index;
+                    stack[top++] = level - 1;
+                }
+            }
+            if (top == 0) {
+                break;
+            }
+            level = stack[--top];
+            node = stack[--top];
+        }
+    }
+
+    /**
+     * Returns the ids of the items whose bounds intersect the provided envelope, sorted in
+     * ascending order
+     */
+    public int[] search(Envelope envelope) {
+        IdCollector collector = new IdCollector();
+        search(envelope, collector);
+        return collector.toSortedArray();
+    }
+
+    /** Returns the bounds of all the items in the tree, or an empty envelope if there are none */
+    public Envelope getBounds() {
+        int root = numNodes - 1;
+        if (numNodes == 0 || boxes.get(root * 4) > boxes.get(root * 4 + 2)) {
+            return new Envelope();
+        }
+        return new Envelope(
+                boxes.get(root * 4),
+                boxes.get(root * 4 + 2),
+                boxes.get(root * 4 + 1),
+                boxes.get(root * 4 + 3));
+    }
+
+    /** The number of items in the tree */
+    public int size() {
+        return numItems;
+    }
+
+    /** The buffer backing the tree */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Writes the tree to the provided channel, it can later be read back with {@link
+     * #wrap(ByteBuffer)}
+     *
+     * @param channel
+     * @throws IOException
+     */
+    public void write(WritableByteChannel channel) throws IOException {
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(0);
+        dup.limit((int) getBufferSize(numItems, nodeSize));
+        while (dup.hasRemaining()) {
+            channel.write(dup);
+        }
+    }
+
+    /**
+     * Computes the position of a point on a Hilbert curve of order 16, using the algorithm from
+     * http://threadlocalmutex.com/?p=126
+     *
+     * @param x the x coordinate, between 0 and 2^16 - 1
+     * @param y the y coordinate, between 0 and 2^16 - 1
+     * @return the position along the curve, to be treated as an unsigned integer
+     */
+    static int hilbert(int x, int y) {
+        int a = x ^ y;
+        int b = 0xFFFF ^ a;
+        int c = 0xFFFF ^ (x | y);
+        int d = x & (y ^ 0xFFFF);
+
+        int A = a | (b >>> 1);
+        int B = (a >>> 1) ^ a;
+        int C = ((c >>> 1) ^ (b & (d >>> 1))) ^ c;
+        int D = ((a & (c >>> 1)) ^ (d >>> 1)) ^ d;
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ((a & (a >>> 2)) ^ (b & (b >>> 2)));
+        B = ((a & (b >>> 2)) ^ (b & ((a ^ b) >>> 2)));
+        C ^= ((a & (c >>> 2)) ^ (b & (d >>> 2)));
+        D ^= ((b & (c >>> 2)) ^ ((a ^ b) & (d >>> 2)));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ((a & (a >>> 4)) ^ (b & (b >>> 4)));
+        B = ((a & (b >>> 4)) ^ (b & ((a ^ b) >>> 4)));
+        C ^= ((a & (c >>> 4)) ^ (b & (d >>> 4)));
+        D ^= ((b & (c >>> 4)) ^ ((a ^ b) & (d >>> 4)));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        C ^= ((a & (c >>> 8)) ^ (b & (d >>> 8)));
+        D ^= ((b & (c >>> 8)) ^ ((a ^ b) & (d >>> 8)));
+
+        a = C ^ (C >>> 1);
+        b = D ^ (D >>> 1);
+
+        int i0 = x ^ y;
+        int i1 = b | (0xFFFF ^ (i0 | a));
+
+        i0 = interleave(i0);
+        i1 = interleave(i1);
+
+        return (i1 << 1) | i0;
+    }
+
+    private static int interleave(int value) {
+        value = (value | (value << 8)) & 0x00FF00FF;
+        value = (value | (value << 4)) & 0x0F0F0F0F;
+        value = (value | (value << 2)) & 0x33333333;
+        value = (value | (value << 1)) & 0x55555555;
+        return value;
+    }
+
+    /** Collects item ids in a growable primitive array */
+    static class IdCollector implements IntConsumer {
+        int[] ids = new int[64];
+
+        int size;
+
+        @Override
+        public void accept(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        int[] toSortedArray() {
+            int[] result = Arrays.copyOf(ids, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
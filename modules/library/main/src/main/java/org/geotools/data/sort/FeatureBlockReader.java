@@ -16,12 +16,21 @@
  */
 package org.geotools.data.sort;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
 
 /**
- * Reads the features stored in the specified block of a {@link RandomAccessFile}
+ * Reads the features stored in a compressed run file written by {@link
+ * MergeSortDumper#storeToFile(File, SimpleFeatureType, java.util.List)}
  *
  * @author Andrea Aime - GeoSolutions
  */
@@ -29,25 +38,58 @@ class FeatureBlockReader {
 
     SimpleFeature curr;
 
-    long offset;
-
     int count;
 
-    SimpleFeatureIO io;
+    File file;
 
-    public FeatureBlockReader(SimpleFeatureIO io, long start, int count) {
-        this.offset = start;
-        this.count = count;
-        this.io = io;
-    }
+    DataInputStream input;
+
+    Inflater inflater;
+
+    SimpleFeatureType schema;
 
-    public SimpleFeature feature() throws IOException {
-        if (curr == null && count > 0) {
-            curr = readNextFeature();
+    SimpleFeatureBuilder builder;
+
+    /**
+     * Opens the run file and reads its first feature
+     *
+     * @param file The run file, deleted when the reader is closed
+     * @param schema The schema of the stored features
+     * @throws IOException
+     */
+    public FeatureBlockReader(File file, SimpleFeatureType schema) throws IOException {
+        this.file = file;
+        this.schema = schema;
+        this.builder = new SimpleFeatureBuilder(schema);
+        this.inflater = new Inflater();
+        this.input =
+                new DataInputStream(
+                        new BufferedInputStream(
+                                new InflaterInputStream(
+                                        new FileInputStream(file),
+                                        inflater,
+                                        MergeSortDumper.READ_BUFFER_SIZE),
+                                MergeSortDumper.READ_BUFFER_SIZE));
+        try {
+            this.count = input.readInt();
+            this.curr = readNextFeature();
+        } catch (IOException e) {
+            input.close();
+            inflater.end();
+            throw e;
         }
+    }
+
+    /** Returns the current feature, or null if the run is exhausted */
+    public SimpleFeature feature() {
         return curr;
     }
 
+    /** Returns the number of features left in the run, including the current one */
+    public int size() {
+        return curr == null ? 0 : count + 1;
+    }
+
     public SimpleFeature next() throws IOException {
         curr = readNextFeature();
         return curr;
@@ -58,17 +100,25 @@ class FeatureBlockReader {
             return null;
         }
 
-        // move to the next feature offset
-        io.seek(offset);
-
         // read the feature
-        SimpleFeature sf = io.read();
-
-        // update the offset for the next feature
-        offset = io.getOffset();
+        String fid = input.readUTF();
+        for (AttributeDescriptor ad : schema.getAttributeDescriptors()) {
+            builder.add(SimpleFeatureIO.readAttribute(input, ad));
+        }
         count--;
 
         // return the feature
-        return sf;
+        return builder.buildFeature(fid);
+    }
+
+    /** Closes the run and deletes its file */
+    public void close() throws IOException {
+        try {
+            input.close();
+        } finally {
+            // not owned by the stream, needs to be released explicitly
+            inflater.end();
+            file.delete();
+        }
     }
 }
@@ -0,0 +1,175 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.sort;
+
+import java.util.Comparator;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.simple.SimpleFeature;
+
+/**
+ * Compares two features based on the position of their geometry along a Hilbert space filling
+ * curve. Sorting on this comparator keeps features that are close in space close in the output,
+ * which makes it a good sort key for spatially clustered storage and tiled processing.
+ *
+ * <p>The key is computed from the center of the geometry envelope. When world bounds are available
+ * the center is scaled on a 2<sup>32</sup> x 2<sup>32</sup> grid covering them, otherwise the
+ * ordinates are mapped to their order preserving float bit patterns, which requires no bounds at
+ * the cost of a less uniform cell distribution. Null and empty geometries are sorted first, like
+ * null values in {@link PropertyComparator}.
+ *
+ * @since 22
+ */
+public class HilbertComparator implements Comparator<SimpleFeature> {
+
+    static final long MAX_ORDINAL = 0xFFFFFFFFL;
+
+    String propertyName;
+
+    Envelope bounds;
+
+    boolean ascending;
+
+    /**
+     * Builds a new comparator
+     *
+     * @param propertyName The geometry property name to be used
+     * @param bounds The area covered by the curve, or null to use the bounds free float mapping
+     * @param ascending If true the comparator will force an ascending order (descending otherwise)
+     */
+    public HilbertComparator(String propertyName, Envelope bounds, boolean ascending) {
+        this.propertyName = propertyName;
+        if (bounds != null && !bounds.isNull() && bounds.getWidth() > 0 && bounds.getHeight() > 0) {
+            this.bounds = bounds;
+        }
+        this.ascending = ascending;
+    }
+
+    public int compare(SimpleFeature f1, SimpleFeature f2) {
+        Geometry g1 = (Geometry) f1.getAttribute(propertyName);
+        Geometry g2 = (Geometry) f2.getAttribute(propertyName);
+        boolean empty1 = g1 == null || g1.isEmpty();
+        boolean empty2 = g2 == null || g2.isEmpty();
+
+        int result;
+        if (empty1) {
+            result = empty2 ? 0 : -1;
+        } else if (empty2) {
+            result = 1;
+        } else {
+            result = Long.compareUnsigned(getKey(g1), getKey(g2));
+        }
+        return ascending ? result : result * -1;
+    }
+
+    /**
+     * Returns the position of the geometry along the curve, to be compared as an unsigned value
+     *
+     * @param geometry A non empty geometry
+     * @return
+     */
+    long getKey(Geometry geometry) {
+        Envelope envelope = geometry.getEnvelopeInternal();
+        double x = (envelope.getMinX() + envelope.getMaxX()) / 2;
+        double y = (envelope.getMinY() + envelope.getMaxY()) / 2;
+        if (bounds != null) {
+            return hilbert(
+                    scale(x, bounds.getMinX(), bounds.getWidth()),
+                    scale(y, bounds.getMinY(), bounds.getHeight()));
+        } else {
+            return hilbert(sortableBits(x), sortableBits(y));
+        }
+    }
+
+    private static long scale(double value, double min, double span) {
+        double ordinal = (value - min) / span * MAX_ORDINAL;
+        if (!(ordinal > 0)) {
+            // also catches NaN
+            return 0;
+        } else if (ordinal >= MAX_ORDINAL) {
+            return MAX_ORDINAL;
+        }
+        return (long) ordinal;
+    }
+
+    /**
+     * Maps a value to the bits of its float representation, flipped so that the unsigned order of
+     * the result matches the numeric order of the value
+     */
+    private static long sortableBits(double value) {
+        int bits = Float.floatToIntBits((float) value);
+        bits ^= (bits >> 31) | 0x80000000;
+        return bits & MAX_ORDINAL;
+    }
+
+    /**
+     * Computes the Hilbert index of a cell in a 2<sup>32</sup> x 2<sup>32</sup> grid. This is the
+     * same branch free algorithm used by the off heap {@code PackedHilbertRTree}, extended by one
+     * step to handle 32 bits per ordinate.
+     *
+     * @param x The cell column, between 0 and 2<sup>32</sup> - 1
+     * @param y The cell row, between 0 and 2<sup>32</sup> - 1
+     * @return The curve index, to be compared as an unsigned value
+     */
+    static long hilbert(long x, long y) {
+        long a = x ^ y;
+        long b = MAX_ORDINAL ^ a;
+        long c = MAX_ORDINAL ^ (x | y);
+        long d = x & (y ^ MAX_ORDINAL);
+
+        long A = a | (b >>> 1);
+        long B = (a >>> 1) ^ a;
+        long C = ((c >>> 1) ^ (b & (d >>> 1))) ^ c;
+        long D = ((a & (c >>> 1)) ^ (d >>> 1)) ^ d;
+
+        for (int shift = 2; shift <= 8; shift <<= 1) {
+            a = A;
+            b = B;
+            c = C;
+            d = D;
+            A = ((a & (a >>> shift)) ^ (b & (b >>> shift)));
+            B = ((a & (b >>> shift)) ^ (b & ((a ^ b) >>> shift)));
+            C ^= ((a & (c >>> shift)) ^ (b & (d >>> shift)));
+            D ^= ((b & (c >>> shift)) ^ ((a ^ b) & (d >>> shift)));
+        }
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        C ^= ((a & (c >>> 16)) ^ (b & (d >>> 16)));
+        D ^= ((b & (c >>> 16)) ^ ((a ^ b) & (d >>> 16)));
+
+        a = C ^ (C >>> 1);
+        b = D ^ (D >>> 1);
+
+        long i0 = x ^ y;
+        long i1 = b | (MAX_ORDINAL ^ (i0 | a));
+
+        return (interleave(i1) << 1) | interleave(i0);
+    }
+
+    private static long interleave(long value) {
+        value &= MAX_ORDINAL;
+        value = (value | (value << 16)) & 0x0000FFFF0000FFFFL;
+        value = (value | (value << 8)) & 0x00FF00FF00FF00FFL;
+        value = (value | (value << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        value = (value | (value << 2)) & 0x3333333333333333L;
+        value = (value | (value << 1)) & 0x5555555555555555L;
+        return value;
+    }
+}
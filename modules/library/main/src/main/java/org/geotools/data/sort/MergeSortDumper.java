@@ -16,14 +16,27 @@
  */
 package org.geotools.data.sort;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import org.geotools.data.Query;
 import org.geotools.data.collection.ListFeatureCollection;
 import org.geotools.data.simple.DelegateSimpleFeatureReader;
@@ -38,6 +51,27 @@ import org.opengis.filter.sort.SortBy;
 
 class MergeSortDumper {
 
+    /**
+     * System property controlling how many threads sort and write the runs of a disk based sort,
+     * defaults to the number of processors, up to 4
+     */
+    static final String SORT_THREADS_KEY = "org.geotools.sort.threads";
+
+    /**
+     * System property controlling how many run files are merged at once, runs exceeding it are
+     * merged in multiple passes. Defaults to 64
+     */
+    static final String MERGE_FILES_KEY = "org.geotools.sort.mergeFiles";
+
+    /** Size of the buffers used to write the run files */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Size of the buffers used to read the run files, kept small as all the runs of a merge are
+     * open at the same time
+     */
+    static final int READ_BUFFER_SIZE = 8 * 1024;
+
     static final boolean canSort(SimpleFeatureType schema, SortBy[] sortBy) {
         if (sortBy == SortBy.UNSORTED) {
             return true;
@@ -61,7 +95,7 @@ class MergeSortDumper {
                 }
                 Class<?> binding = ad.getType().getBinding();
                 if (!Comparable.class.isAssignableFrom(binding)
-                        || Geometry.class.isAssignableFrom(binding)) {
+                        && !Geometry.class.isAssignableFrom(binding)) {
                     return false;
                 }
             }
@@ -97,12 +131,24 @@ class MergeSortDumper {
         return maxFeatures;
     }
 
+    /** Returns the number of threads used to generate the sorted runs */
+    static int getSortThreads() {
+        int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+        return Math.max(1, Integer.getInteger(SORT_THREADS_KEY, threads));
+    }
+
+    /** Returns the maximum number of run files merged at the same time */
+    static int getMergeFiles() {
+        return Math.max(2, Integer.getInteger(MERGE_FILES_KEY, 64));
+    }
+
     static SimpleFeatureReader getDelegateReader(
             SimpleFeatureReader reader, SortBy[] sortBy, int maxFeatures) throws IOException {
         if (maxFeatures < 0) {
             maxFeatures = getMaxFeatures(Query.ALL);
         }
-        Comparator<SimpleFeature> comparator = SortedFeatureReader.getComparator(sortBy);
+        SimpleFeatureType schema = reader.getFeatureType();
+        Comparator<SimpleFeature> comparator = SortedFeatureReader.getComparator(sortBy, schema);
 
         // easy case, no sorting needed
         if (comparator == null) {
@@ -110,7 +156,6 @@ class MergeSortDumper {
         }
 
         // double check
-        SimpleFeatureType schema = reader.getFeatureType();
         if (!canSort(schema, sortBy)) {
             throw new IllegalArgumentException(
                     "The specified reader cannot be sorted, either the "
@@ -120,43 +165,40 @@ class MergeSortDumper {
                             + Arrays.toString(sortBy));
         }
 
-        int count = 0;
-        File file = null;
-        SimpleFeatureIO io = null;
+        // once the features exceed the memory limit they are sorted and written to disk in
+        // parallel, up to one block per thread is in flight while the next one is being read.
+        // Blocks are sized so that the blocks in flight, plus the one being read, stay within
+        // the limit
+        int threads = getSortThreads();
+        int blockSize = Math.max(1, maxFeatures / (threads + 1));
+        ExecutorService executor = null;
+        Deque<Future<Void>> pending = new ArrayDeque<>();
+        List<File> runs = new ArrayList<>();
         List<SimpleFeature> features = new ArrayList<SimpleFeature>();
-        List<FeatureBlockReader> readers = new ArrayList<FeatureBlockReader>();
-        boolean cleanFile = true;
+        boolean cleanFiles = true;
         try {
             // read and store into files as necessary
             while (reader.hasNext()) {
-                SimpleFeature f = reader.next();
-                features.add(f);
-                count++;
+                features.add(reader.next());
 
-                if (count > maxFeatures) {
-                    Collections.sort(features, comparator);
-                    if (io == null) {
-                        file = File.createTempFile("sorted", ".features");
-                        file.delete();
-                        io = new SimpleFeatureIO(file, schema);
+                if (executor == null) {
+                    if (features.size() > maxFeatures) {
+                        // does not fit in memory, write out what we have before reading more
+                        executor = Executors.newFixedThreadPool(threads);
+                        awaitRun(submitRun(executor, schema, features, comparator, runs));
+                        features = new ArrayList<SimpleFeature>();
+                    }
+                } else if (features.size() >= blockSize) {
+                    if (pending.size() >= threads) {
+                        awaitRun(pending.removeFirst());
                     }
-                    FeatureBlockReader fbr = storeToFile(io, features);
-                    readers.add(fbr);
-                    count = 0;
-                    features.clear();
+                    pending.add(submitRun(executor, schema, features, comparator, runs));
+                    features = new ArrayList<SimpleFeature>();
                 }
             }
-            // if we got to file storing, store residual features to file too
-            if (count > 0 && io != null) {
-                Collections.sort(features, comparator);
-                file = File.createTempFile("sorted", ".features");
-                file.delete();
-                FeatureBlockReader fbr = storeToFile(io, features);
-                readers.add(fbr);
-            }
 
             // return the appropriate reader
-            if (io == null) {
+            if (executor == null) {
                 // simple case, we managed to keep everything in memory, sort and return a
                 // reader based on the collection contents
                 Collections.sort(features, comparator);
@@ -164,15 +206,33 @@ class MergeSortDumper {
                 SimpleFeatureIterator fi = new ListFeatureCollection(schema, features).features();
                 return new DelegateSimpleFeatureReader(schema, fi);
             } else {
+                // if we got to file storing, store residual features to file too
+                if (!features.isEmpty()) {
+                    pending.add(submitRun(executor, schema, features, comparator, runs));
+                }
+                while (!pending.isEmpty()) {
+                    awaitRun(pending.removeFirst());
+                }
+
+                // reduce the number of runs open at the same time
+                int mergeFiles = getMergeFiles();
+                while (runs.size() > mergeFiles) {
+                    mergeRuns(runs, mergeFiles, schema, comparator);
+                }
+
                 // go merge-sort
-                cleanFile = false;
-                return new MergeSortReader(schema, io, readers, comparator);
+                List<FeatureBlockReader> readers = openRuns(runs, schema);
+                cleanFiles = false;
+                return new MergeSortReader(schema, readers, comparator);
             }
-
         } finally {
-            if (cleanFile && io != null) {
-                io.close(true);
-                file.delete();
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            if (cleanFiles) {
+                for (File run : runs) {
+                    run.delete();
+                }
             }
 
             reader.close();
@@ -180,21 +240,178 @@ class MergeSortDumper {
     }
 
     /**
-     * Writes the feature attributes to a binary file
+     * Schedules the sorting and writing of a block of features. The run file is created right
+     * away and added to the provided list, so that the list follows the order of the blocks and
+     * the file can be cleaned up even if the write fails.
+     */
+    private static Future<Void> submitRun(
+            ExecutorService executor,
+            SimpleFeatureType schema,
+            List<SimpleFeature> features,
+            Comparator<SimpleFeature> comparator,
+            List<File> runs)
+            throws IOException {
+        File file = File.createTempFile("sorted", ".features");
+        runs.add(file);
+        return executor.submit(
+                () -> {
+                    Collections.sort(features, comparator);
+                    storeToFile(file, schema, features);
+                    return null;
+                });
+    }
+
+    /** Opens a reader on each run */
+    private static List<FeatureBlockReader> openRuns(List<File> runs, SimpleFeatureType schema)
+            throws IOException {
+        List<FeatureBlockReader> readers = new ArrayList<FeatureBlockReader>();
+        try {
+            for (File run : runs) {
+                readers.add(new FeatureBlockReader(run, schema));
+            }
+        } catch (IOException e) {
+            for (FeatureBlockReader fbr : readers) {
+                fbr.close();
+            }
+            throw e;
+        }
+        return readers;
+    }
+
+    /**
+     * Performs a merge pass, merging groups of consecutive runs into a single run, so that the
+     * order of the blocks is preserved, and the sort stays stable. The list of runs is updated in
+     * place, the merged runs are deleted.
+     */
+    static void mergeRuns(
+            List<File> runs,
+            int mergeFiles,
+            SimpleFeatureType schema,
+            Comparator<SimpleFeature> comparator)
+            throws IOException {
+        List<File> merged = new ArrayList<>();
+        try {
+            for (int i = 0; i < runs.size(); i += mergeFiles) {
+                List<File> group = runs.subList(i, Math.min(runs.size(), i + mergeFiles));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                File file = File.createTempFile("sorted", ".features");
+                merged.add(file);
+                List<FeatureBlockReader> readers = openRuns(group, schema);
+                int count = 0;
+                for (FeatureBlockReader fbr : readers) {
+                    count += fbr.size();
+                }
+                try (MergeSortReader mr = new MergeSortReader(schema, readers, comparator)) {
+                    storeToFile(file, schema, count, new FeatureReaderIterator(mr));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // runs not yet merged are cleaned up by the caller, remove the partial output
+            for (File file : merged) {
+                if (!runs.contains(file)) {
+                    file.delete();
+                }
+            }
+            throw e;
+        }
+        runs.clear();
+        runs.addAll(merged);
+    }
+
+    /** Adapts a reader to the iterator interface expected by the run writer */
+    private static class FeatureReaderIterator implements Iterator<SimpleFeature> {
+
+        SimpleFeatureReader reader;
+
+        FeatureReaderIterator(SimpleFeatureReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return reader.hasNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public SimpleFeature next() {
+            try {
+                return reader.next();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void awaitRun(Future<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sorting features", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Problem sorting features", cause);
+        }
+    }
+
+    /**
+     * Writes the feature attributes to a compressed binary file, readable by {@link
+     * FeatureBlockReader}
      *
+     * @param file
+     * @param schema
      * @param features
-     * @return
      * @throws IOException
      */
-    static FeatureBlockReader storeToFile(SimpleFeatureIO io, List<SimpleFeature> features)
+    static void storeToFile(File file, SimpleFeatureType schema, List<SimpleFeature> features)
             throws IOException {
-        long start = io.getOffset();
+        storeToFile(file, schema, features.size(), features.iterator());
+    }
 
-        // write each attribute in the random access file
-        for (SimpleFeature sf : features) {
-            io.write(sf);
+    /**
+     * Writes the features to a compressed binary file, readable by {@link FeatureBlockReader}
+     *
+     * @param file
+     * @param schema
+     * @param count The number of features returned by the iterator
+     * @param features
+     * @throws IOException
+     */
+    static void storeToFile(
+            File file, SimpleFeatureType schema, int count, Iterator<SimpleFeature> features)
+            throws IOException {
+        // favour speed over size, the run is read back only once
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out =
+                new DataOutputStream(
+                        new BufferedOutputStream(
+                                new DeflaterOutputStream(
+                                        new FileOutputStream(file), deflater, BUFFER_SIZE),
+                                BUFFER_SIZE))) {
+            List<AttributeDescriptor> attributes = schema.getAttributeDescriptors();
+            out.writeInt(count);
+            while (features.hasNext()) {
+                SimpleFeature sf = features.next();
+                out.writeUTF(sf.getID());
+                for (AttributeDescriptor ad : attributes) {
+                    Object value = sf.getAttribute(ad.getLocalName());
+                    SimpleFeatureIO.writeAttribute(out, ad, value);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            deflater.end();
         }
-
-        return new FeatureBlockReader(io, start, features.size());
     }
 }
@@ -17,17 +17,17 @@
 package org.geotools.data.sort;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.Comparator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import org.geotools.data.simple.SimpleFeatureReader;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 
 /**
- * Reads from a list of {@link FeatureBlockReader} backed by a {@link RandomAccessFile} and performs
- * the classic merge-sort algorithm
+ * Reads from a list of sorted {@link FeatureBlockReader} and performs the classic merge-sort
+ * algorithm, using a priority queue to pick the next feature
  *
  * @author Andrea Aime - GeoSolutions
  */
@@ -35,7 +35,7 @@ class MergeSortReader implements SimpleFeatureReader {
 
     List<FeatureBlockReader> readers;
 
-    SimpleFeatureIO io;
+    PriorityQueue<Integer> queue;
 
     SimpleFeatureType schema;
 
@@ -43,13 +43,27 @@ class MergeSortReader implements SimpleFeatureReader {
 
     public MergeSortReader(
             SimpleFeatureType schema,
-            SimpleFeatureIO io,
             List<FeatureBlockReader> readers,
             Comparator<SimpleFeature> comparator) {
         this.schema = schema;
         this.comparator = comparator;
         this.readers = readers;
-        this.io = io;
+        // the queue holds the indexes of the readers, ties are resolved on the reader order,
+        // which is the order of the blocks in the input, so that the sort is stable
+        this.queue =
+                new PriorityQueue<>(
+                        Math.max(1, readers.size()),
+                        (i1, i2) -> {
+                            SimpleFeature f1 = readers.get(i1).feature();
+                            SimpleFeature f2 = readers.get(i2).feature();
+                            int result = comparator.compare(f1, f2);
+                            return result != 0 ? result : Integer.compare(i1, i2);
+                        });
+        for (int i = 0; i < readers.size(); i++) {
+            if (readers.get(i).feature() != null) {
+                queue.add(i);
+            }
+        }
     }
 
     public SimpleFeatureType getFeatureType() {
@@ -58,25 +72,16 @@ class MergeSortReader implements SimpleFeatureReader {
 
     public SimpleFeature next()
             throws IOException, IllegalArgumentException, NoSuchElementException {
-        if (readers.size() == 0) {
+        Integer selected = queue.poll();
+        if (selected == null) {
             throw new NoSuchElementException();
         }
 
-        // find the smallest feature
-        int selected = 0;
-        for (int i = 1; i < readers.size(); i++) {
-            SimpleFeature sf = readers.get(selected).feature();
-            SimpleFeature cf = readers.get(i).feature();
-            if (comparator.compare(sf, cf) > 0) {
-                selected = i;
-            }
-        }
-
         // move on the reader of the selected feature
         FeatureBlockReader reader = readers.get(selected);
         SimpleFeature sf = reader.feature();
-        if (reader.next() == null) {
-            readers.remove(selected);
+        if (reader.next() != null) {
+            queue.add(selected);
         }
 
         // return the selected feature
@@ -84,10 +89,25 @@ class MergeSortReader implements SimpleFeatureReader {
     }
 
     public boolean hasNext() throws IOException {
-        return readers.size() > 0;
+        return !queue.isEmpty();
     }
 
     public void close() throws IOException {
-        io.close(true);
+        queue.clear();
+        IOException error = null;
+        for (FeatureBlockReader reader : readers) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
     }
 }
@@ -18,6 +18,8 @@ package org.geotools.data.sort;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -81,6 +83,20 @@ public class SimpleFeatureIO {
     }
 
     void writeAttribute(AttributeDescriptor ad, Object value) throws IOException {
+        writeAttribute(raf, ad, value);
+    }
+
+    /**
+     * Writes a single attribute value to the provided output, in a form that can be read back by
+     * {@link #readAttribute(DataInput, AttributeDescriptor)}
+     *
+     * @param raf the output
+     * @param ad the attribute descriptor of the value
+     * @param value the value, may be null
+     * @throws IOException
+     */
+    public static void writeAttribute(DataOutput raf, AttributeDescriptor ad, Object value)
+            throws IOException {
         if (value == null) {
             // null marker
             raf.writeBoolean(true);
@@ -154,7 +170,7 @@ public class SimpleFeatureIO {
         }
     }
 
-    private boolean isBigString(AttributeDescriptor ad) {
+    private static boolean isBigString(AttributeDescriptor ad) {
         return ad.getUserData() != null
                 && ad.getUserData().containsKey(BIG_STRING)
                 && ad.getUserData().get(BIG_STRING) instanceof Boolean
@@ -188,6 +204,19 @@ public class SimpleFeatureIO {
      * @throws IOException
      */
     Object readAttribute(AttributeDescriptor ad) throws IOException {
+        return readAttribute(raf, ad);
+    }
+
+    /**
+     * Reads back a single attribute value written by {@link #writeAttribute(DataOutput,
+     * AttributeDescriptor, Object)}
+     *
+     * @param raf the input
+     * @param ad the attribute descriptor of the value
+     * @return the value, or null
+     * @throws IOException
+     */
+    public static Object readAttribute(DataInput raf, AttributeDescriptor ad) throws IOException {
         // See the comments in {@link MergeSortDumper#writeAttribute(RandomAccessFile,
         // AttributeDescriptor, Object)} to get an insight on why the method is built like this
         boolean isNull = raf.readBoolean();
@@ -234,22 +263,22 @@ public class SimpleFeatureIO {
                 WKBReader reader = new WKBReader();
                 int length = raf.readInt();
                 byte[] buffer = new byte[length];
-                raf.read(buffer);
+                raf.readFully(buffer);
                 try {
                     return reader.read(buffer);
                 } catch (ParseException e) {
                     throw new IOException("Failed to parse the geometry WKB", e);
                 }
             } else {
-                return readObject();
+                return readObject(raf);
             }
         }
     }
 
-    private Object readObject() throws IOException {
+    private static Object readObject(DataInput raf) throws IOException {
         int length = raf.readInt();
         byte[] buffer = new byte[length];
-        raf.read(buffer);
+        raf.readFully(buffer);
         ByteArrayInputStream bis = new ByteArrayInputStream(buffer);
         ObjectInputStream ois = new ObjectInputStream(bis);
         try {
@@ -315,7 +344,7 @@ public class SimpleFeatureIO {
         return "SimpleFeatureIO [schema=" + schema + ", file=" + file + "]";
     }
 
-    private Collection<String> split(String value, int charSize) {
+    private static Collection<String> split(String value, int charSize) {
         List<String> strings = new ArrayList<String>();
         int index = 0;
         while (index < value.length()) {
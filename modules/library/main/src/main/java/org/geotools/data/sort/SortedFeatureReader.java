@@ -24,9 +24,13 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import org.geotools.data.Query;
 import org.geotools.data.simple.SimpleFeatureReader;
+import org.geotools.referencing.CRS;
 import org.geotools.util.factory.Hints;
+import org.locationtech.jts.geom.Envelope;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.GeometryDescriptor;
 import org.opengis.filter.sort.SortBy;
 import org.opengis.filter.sort.SortOrder;
 
@@ -43,7 +47,8 @@ public class SortedFeatureReader implements SimpleFeatureReader {
 
     /**
      * Checks if the schema and the sortBy are suitable for merge/sort. All attributes need to be
-     * {@link Serializable}, all sorting attributes need to be {@link Comparable}
+     * {@link Serializable}, all sorting attributes need to be {@link Comparable} or geometries,
+     * the latter are sorted along a Hilbert curve (see {@link HilbertComparator})
      *
      * @param schema
      * @param sortBy
@@ -111,6 +116,20 @@ public class SortedFeatureReader implements SimpleFeatureReader {
      * @return
      */
     public static Comparator<SimpleFeature> getComparator(SortBy[] sortBy) {
+        return getComparator(sortBy, null);
+    }
+
+    /**
+     * Builds a comparator that can be used to sort SimpleFeature instances in memory. Sort
+     * properties that are geometries in the provided schema are sorted along a Hilbert curve
+     * covering the domain of validity of their CRS.
+     *
+     * @param sortBy
+     * @param schema The schema of the features to be sorted, or null if not known
+     * @return
+     */
+    public static Comparator<SimpleFeature> getComparator(
+            SortBy[] sortBy, SimpleFeatureType schema) {
         // handle the easy cases, no sorting or natural sorting
         if (sortBy == SortBy.UNSORTED || sortBy == null) {
             return null;
@@ -126,7 +145,13 @@ public class SortedFeatureReader implements SimpleFeatureReader {
             } else {
                 String name = sb.getPropertyName().getPropertyName();
                 boolean ascending = sb.getSortOrder() == SortOrder.ASCENDING;
-                comparators.add(new PropertyComparator(name, ascending));
+                AttributeDescriptor ad = schema != null ? schema.getDescriptor(name) : null;
+                if (ad instanceof GeometryDescriptor) {
+                    Envelope bounds = getCurveBounds((GeometryDescriptor) ad);
+                    comparators.add(new HilbertComparator(name, bounds, ascending));
+                } else {
+                    comparators.add(new PropertyComparator(name, ascending));
+                }
             }
         }
 
@@ -137,4 +162,21 @@ public class SortedFeatureReader implements SimpleFeatureReader {
             return new CompositeComparator(comparators);
         }
     }
+
+    /** Returns the domain of validity of the geometry CRS, or null if not available */
+    private static Envelope getCurveBounds(GeometryDescriptor descriptor) {
+        if (descriptor.getCoordinateReferenceSystem() == null) {
+            return null;
+        }
+        org.opengis.geometry.Envelope envelope =
+                CRS.getEnvelope(descriptor.getCoordinateReferenceSystem());
+        if (envelope == null || envelope.getDimension() < 2) {
+            return null;
+        }
+        return new Envelope(
+                envelope.getMinimum(0),
+                envelope.getMaximum(0),
+                envelope.getMinimum(1),
+                envelope.getMaximum(1));
+    }
 }
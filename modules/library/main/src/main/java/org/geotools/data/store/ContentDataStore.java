@@ -21,6 +21,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import org.geotools.data.DataAccess;
 import org.geotools.data.DataStore;
@@ -136,6 +141,12 @@ public abstract class ContentDataStore implements DataStore {
     /** factory used to create the datastore */
     protected DataStoreFactorySpi dataStoreFactory;
 
+    /** number of threads used for parallel visits, by default visits are sequential */
+    protected int visitThreads = 1;
+
+    /** executor running the parallel visits, created on first use */
+    private ThreadPoolExecutor visitExecutor;
+
     public ContentDataStore() {
         // get a concurrent map so that we can do reads in parallel with writes (writes vs writes
         // are actually synchronized to prevent double work, see getEntry()).
@@ -231,6 +242,56 @@ public abstract class ContentDataStore implements DataStore {
         this.namespaceURI = namespaceURI;
     }
 
+    /**
+     * The number of threads used to visit the features in parallel, for the feature sources able
+     * to partition their data (see {@link ContentFeatureSource#visitInParallel})
+     */
+    public int getVisitThreads() {
+        return visitThreads;
+    }
+
+    /**
+     * Sets the number of threads used to visit the features in parallel. Values lower than 2, the
+     * default, disable parallel visits.
+     *
+     * @param visitThreads
+     */
+    public synchronized void setVisitThreads(int visitThreads) {
+        this.visitThreads = visitThreads;
+        if (visitExecutor != null && visitExecutor.getMaximumPoolSize() != visitThreads) {
+            // visits in progress complete on the old executor
+            visitExecutor.shutdown();
+            visitExecutor = null;
+        }
+    }
+
+    /**
+     * Returns the executor running the parallel visits of the feature sources of this store, with
+     * {@link #getVisitThreads()} threads that are released when idle. It is shared by all the
+     * visits, and shut down by {@link #dispose()}.
+     */
+    protected synchronized ExecutorService getVisitExecutor() {
+        if (visitExecutor == null) {
+            int threads = Math.max(1, visitThreads);
+            AtomicInteger count = new AtomicInteger();
+            visitExecutor =
+                    new ThreadPoolExecutor(
+                            threads,
+                            threads,
+                            60,
+                            TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(),
+                            r -> {
+                                Thread thread =
+                                        new Thread(r, "ContentVisitor-" + count.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            visitExecutor.allowCoreThreadTimeOut(true);
+        }
+        return visitExecutor;
+    }
+
     /** The logger for the datastore. */
     public Logger getLogger() {
         return LOGGER;
@@ -438,6 +499,12 @@ public abstract class ContentDataStore implements DataStore {
             entry.dispose();
         }
         entries.clear();
+        synchronized (this) {
+            if (visitExecutor != null) {
+                visitExecutor.shutdownNow();
+                visitExecutor = null;
+            }
+        }
     }
 
     /** Returns the entry for a specified name, or <code>null</code> if no such entry exists. */
@@ -28,6 +28,10 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.geotools.data.DataUtilities;
@@ -44,6 +48,8 @@ import org.geotools.data.InProcessLockingManager;
 import org.geotools.data.MaxFeatureReader;
 import org.geotools.data.Query;
 import org.geotools.data.QueryCapabilities;
+import org.geotools.data.QueryInstrumentation;
+import org.geotools.data.QueryStatistics;
 import org.geotools.data.ReTypeFeatureReader;
 import org.geotools.data.ResourceInfo;
 import org.geotools.data.Transaction;
@@ -56,6 +62,7 @@ import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.feature.FeatureCollection;
 import org.geotools.feature.SchemaException;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.feature.visitor.MergeableFeatureVisitor;
 import org.geotools.filter.function.Collection_AverageFunction;
 import org.geotools.filter.function.Collection_BoundsFunction;
 import org.geotools.filter.function.Collection_MaxFunction;
@@ -567,6 +574,32 @@ public abstract class ContentFeatureSource implements SimpleFeatureSource {
     /** Returns a reader for the features specified by a query. */
     public final FeatureReader<SimpleFeatureType, SimpleFeature> getReader(Query query)
             throws IOException {
+        QueryStatistics statistics = QueryInstrumentation.start(entry.getTypeName(), query);
+        if (statistics == null) {
+            return buildReader(query, null);
+        }
+
+        // make the statistics available to the readers wrapping the native one
+        QueryStatistics previous = QueryInstrumentation.setCurrent(statistics);
+        try {
+            FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                    buildReader(query, statistics);
+            if (statistics.getPreFilter() == null) {
+                Filter filter = query.getFilter() != null ? query.getFilter() : Filter.INCLUDE;
+                if (canFilter()) {
+                    statistics.setFilters(filter, Filter.INCLUDE);
+                } else {
+                    statistics.setFilters(Filter.INCLUDE, filter);
+                }
+            }
+            return new InstrumentedFeatureReader(reader, statistics);
+        } finally {
+            QueryInstrumentation.setCurrent(previous);
+        }
+    }
+
+    private FeatureReader<SimpleFeatureType, SimpleFeature> buildReader(
+            Query query, QueryStatistics statistics) throws IOException {
         query = joinQuery(query);
         query = resolvePropertyNames(query);
 
@@ -596,19 +629,30 @@ public abstract class ContentFeatureSource implements SimpleFeatureSource {
                     new ArrayList<>(Arrays.asList(query.getPropertyNames()));
             Set<String> sortProperties = getSortPropertyNames(query.getSortBy());
             if (requestedProperties.containsAll(sortProperties)) {
-                reader = getReaderInternal(query);
+                reader = openReader(query, statistics);
             } else {
                 // add the sort properties that we miss
                 Query loadingQuery = new Query(query);
                 sortProperties.removeAll(requestedProperties);
                 requestedProperties.addAll(sortProperties);
                 loadingQuery.setPropertyNames(requestedProperties);
-                reader = getReaderInternal(loadingQuery);
+                reader = openReader(loadingQuery, statistics);
             }
         } else {
-            reader = getReaderInternal(query);
+            reader = openReader(query, statistics);
         }
 
+        return decorateReader(reader, query, postRetypeRequired);
+    }
+
+    /**
+     * Applies on top of a native reader the wrappers handling what the subclass cannot do natively
+     */
+    private FeatureReader<SimpleFeatureType, SimpleFeature> decorateReader(
+            FeatureReader<SimpleFeatureType, SimpleFeature> reader,
+            Query query,
+            boolean postRetypeRequired)
+            throws IOException {
         //
         // apply wrappers based on subclass capabilities
         //
@@ -717,6 +761,20 @@ public abstract class ContentFeatureSource implements SimpleFeatureSource {
         return reader;
     }
 
+    /** Calls {@link #getReaderInternal(Query)}, recording the time it took in the statistics */
+    private FeatureReader<SimpleFeatureType, SimpleFeature> openReader(
+            Query query, QueryStatistics statistics) throws IOException {
+        if (statistics == null) {
+            return getReaderInternal(query);
+        }
+        long start = System.nanoTime();
+        try {
+            return getReaderInternal(query);
+        } finally {
+            statistics.addTime(QueryStatistics.Phase.EXECUTION, System.nanoTime() - start);
+        }
+    }
+
     /**
      * Returns all the properties used in the sortBy (excluding primary keys and the like, e.g.,
      * natural sorting)
@@ -778,6 +836,10 @@ public abstract class ContentFeatureSource implements SimpleFeatureSource {
             return;
         }
 
+        if (visitInParallel(query, visitor)) {
+            return;
+        }
+
         // subclass could not handle, resort to manually walkign through
         FeatureReader<SimpleFeatureType, SimpleFeature> reader = getReader(query);
         try {
@@ -827,6 +889,118 @@ public abstract class ContentFeatureSource implements SimpleFeatureSource {
         return false;
     }
 
+    /**
+     * Visits the features in parallel, when the visitor is a {@link MergeableFeatureVisitor} and
+     * the subclass can partition the data via {@link #getReaderPartitionsInternal(Query, int)}.
+     * Each partition is read on its own thread by a split copy of the visitor, the partial results
+     * are then merged back in the original visitor, in partition order.
+     *
+     * <p>Queries depending on the visit order (sorting, paging) and transactions other than {@link
+     * Transaction#AUTO_COMMIT} are visited sequentially. Parallel visits are enabled, and the
+     * number of threads controlled, by {@link ContentDataStore#setVisitThreads(int)}, the
+     * partitions run on the {@link ContentDataStore#getVisitExecutor() store executor}.
+     *
+     * @param query The query being made.
+     * @param visitor The visitor
+     * @return true if the visit was performed, false if it's not possible to run it in parallel
+     */
+    protected boolean visitInParallel(Query query, FeatureVisitor visitor) throws IOException {
+        int threads = getDataStore().getVisitThreads();
+        if (threads < 2
+                || !(visitor instanceof MergeableFeatureVisitor)
+                || (transaction != null && transaction != Transaction.AUTO_COMMIT)) {
+            return false;
+        }
+
+        // anything that depends on the visit order is out of the picture
+        Query q = resolvePropertyNames(joinQuery(query));
+        if ((q.getSortBy() != null && q.getSortBy().length > 0)
+                || !q.isMaxFeaturesUnlimited()
+                || (q.getStartIndex() != null && q.getStartIndex() > 0)
+                || !q.getJoins().isEmpty()) {
+            return false;
+        }
+
+        MergeableFeatureVisitor mergeable = (MergeableFeatureVisitor) visitor;
+        if (mergeable.split() == null) {
+            return false;
+        }
+        List<Callable<FeatureReader<SimpleFeatureType, SimpleFeature>>> partitions =
+                getReaderPartitionsInternal(q, threads);
+        if (partitions == null) {
+            return false;
+        }
+
+        List<MergeableFeatureVisitor> copies = new ArrayList<>(partitions.size());
+        List<Callable<Void>> tasks = new ArrayList<>(partitions.size());
+        for (Callable<FeatureReader<SimpleFeatureType, SimpleFeature>> partition : partitions) {
+            MergeableFeatureVisitor copy = mergeable.split();
+            copies.add(copy);
+            tasks.add(
+                    () -> {
+                        FeatureReader<SimpleFeatureType, SimpleFeature> reader = partition.call();
+                        try {
+                            reader = decorateReader(reader, q, false);
+                            while (reader.hasNext()) {
+                                copy.visit(reader.next());
+                            }
+                        } finally {
+                            reader.close();
+                        }
+                        return null;
+                    });
+        }
+
+        List<Future<Void>> futures = new ArrayList<>(tasks.size());
+        try {
+            ExecutorService executor = getDataStore().getVisitExecutor();
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while visiting " + getSchema().getTypeName(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Problem visiting " + getSchema().getTypeName(), cause);
+        } finally {
+            // stop the other partitions on failure, no-op if they are all done
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        for (MergeableFeatureVisitor copy : copies) {
+            mergeable.merge(copy);
+        }
+        return true;
+    }
+
+    /**
+     * Subclass method returning the partitions of the data matching the query, to be visited in
+     * parallel by {@link #visitInParallel(Query, FeatureVisitor)}.
+     *
+     * <p>Each partition opens a native reader, the same way {@link #getReaderInternal(Query)}
+     * would, but limited to a contiguous subset of the data (e.g., a range of records or keys).
+     * Together the partitions must return each feature exactly once, and should be listed in the
+     * natural order of the data. The readers are opened and closed on the visiting threads. The
+     * default implementation returns null, meaning the data cannot be partitioned.
+     *
+     * @param query The query being made, without sorting or paging
+     * @param partitions The desired number of partitions, a hint based on the available threads
+     * @return The partitions, or null if the data cannot be partitioned for this query
+     */
+    protected List<Callable<FeatureReader<SimpleFeatureType, SimpleFeature>>>
+            getReaderPartitionsInternal(Query query, int partitions) throws IOException {
+        return null;
+    }
+
     /**
      * Subclass method for returning a native reader from the datastore.
      * <p>
@@ -0,0 +1,92 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.store;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import org.geotools.data.DelegatingFeatureReader;
+import org.geotools.data.FeatureReader;
+import org.geotools.data.QueryInstrumentation;
+import org.geotools.data.QueryStatistics;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * Wraps the reader returned by {@link ContentFeatureSource#getReader(org.geotools.data.Query)},
+ * counting the features returned and the time spent iterating over them, and completing the
+ * {@link QueryStatistics} on close.
+ */
+class InstrumentedFeatureReader
+        implements DelegatingFeatureReader<SimpleFeatureType, SimpleFeature> {
+
+    final FeatureReader<SimpleFeatureType, SimpleFeature> delegate;
+
+    final QueryStatistics statistics;
+
+    boolean closed;
+
+    InstrumentedFeatureReader(
+            FeatureReader<SimpleFeatureType, SimpleFeature> delegate, QueryStatistics statistics) {
+        this.delegate = delegate;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public FeatureReader<SimpleFeatureType, SimpleFeature> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public SimpleFeatureType getFeatureType() {
+        return delegate.getFeatureType();
+    }
+
+    @Override
+    public SimpleFeature next()
+            throws IOException, IllegalArgumentException, NoSuchElementException {
+        long start = System.nanoTime();
+        try {
+            SimpleFeature feature = delegate.next();
+            statistics.incrementFeaturesReturned();
+            return feature;
+        } finally {
+            statistics.addIterationTime(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        long start = System.nanoTime();
+        try {
+            return delegate.hasNext();
+        } finally {
+            statistics.addIterationTime(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            delegate.close();
+        } finally {
+            if (!closed) {
+                closed = true;
+                QueryInstrumentation.complete(statistics);
+            }
+        }
+    }
+}
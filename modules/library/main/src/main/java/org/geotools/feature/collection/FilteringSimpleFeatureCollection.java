@@ -28,6 +28,7 @@ import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.data.simple.SimpleFeatureIterator;
 import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.feature.FeatureCollection;
+import org.geotools.filter.visitor.CompilingFilterVisitor;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.opengis.feature.FeatureVisitor;
 import org.opengis.feature.simple.SimpleFeature;
@@ -48,6 +49,8 @@ public class FilteringSimpleFeatureCollection extends DecoratingSimpleFeatureCol
     SimpleFeatureCollection delegate;
     /** the filter */
     Filter filter;
+    /** the filter compiled against the schema, used for in memory evaluation */
+    volatile Filter compiledFilter;
 
     public FilteringSimpleFeatureCollection(
             FeatureCollection<SimpleFeatureType, SimpleFeature> delegate, Filter filter) {
@@ -61,7 +64,17 @@ public class FilteringSimpleFeatureCollection extends DecoratingSimpleFeatureCol
     }
 
     public SimpleFeatureIterator features() {
-        return new FilteringSimpleFeatureIterator(delegate.features(), filter);
+        return new FilteringSimpleFeatureIterator(delegate.features(), getCompiledFilter());
+    }
+
+    /** Returns the filter compiled for fast evaluation against the features of this collection */
+    Filter getCompiledFilter() {
+        Filter compiled = compiledFilter;
+        if (compiled == null) {
+            compiled = CompilingFilterVisitor.compile(filter, getSchema());
+            compiledFilter = compiled;
+        }
+        return compiled;
     }
 
     public void close(SimpleFeatureIterator close) {
@@ -129,7 +142,7 @@ public class FilteringSimpleFeatureCollection extends DecoratingSimpleFeatureCol
     }
 
     public boolean contains(Object o) {
-        return delegate.contains(o) && filter.evaluate(o);
+        return delegate.contains(o) && getCompiledFilter().evaluate(o);
     }
 
     public boolean containsAll(Collection<?> c) {
@@ -34,7 +34,8 @@ import org.opengis.filter.expression.Expression;
  * @author Cory Horner, Refractions
  * @since 2.2.M2
  */
-public class AverageVisitor implements FeatureCalc, FeatureAttributeVisitor {
+public class AverageVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, MergeableFeatureVisitor {
     private Expression expr;
 
     /**
@@ -157,6 +158,33 @@ public class AverageVisitor implements FeatureCalc, FeatureAttributeVisitor {
         return new AverageResult(strategy, isOptimized);
     }
 
+    @Override
+    public MergeableFeatureVisitor split() {
+        // an optimized result has no count and sum to merge with
+        if (isOptimized || getClass() != AverageVisitor.class) {
+            return null;
+        }
+        return new AverageVisitor(expr);
+    }
+
+    @Override
+    public void merge(MergeableFeatureVisitor partial) {
+        AverageVisitor other = (AverageVisitor) partial;
+        if (other.strategy == null) {
+            return;
+        }
+        if (strategy == null) {
+            strategy = other.strategy;
+        } else {
+            Number sum =
+                    CalcUtil.sum(
+                            new Number[] {
+                                (Number) strategy.getSum(), (Number) other.strategy.getSum()
+                            });
+            setValue(strategy.getCount() + other.strategy.getCount(), sum);
+        }
+    }
+
     public void setValue(Object newAverage) {
         reset();
 
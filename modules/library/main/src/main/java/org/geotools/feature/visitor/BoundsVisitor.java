@@ -25,7 +25,7 @@ import org.locationtech.jts.geom.Envelope;
  * @author Cory Horner, Refractions
  * @since 2.2.M2
  */
-public class BoundsVisitor implements FeatureCalc {
+public class BoundsVisitor implements FeatureCalc, MergeableFeatureVisitor {
     ReferencedEnvelope bounds = new ReferencedEnvelope();
 
     public void visit(org.opengis.feature.Feature feature) {
@@ -40,6 +40,19 @@ public class BoundsVisitor implements FeatureCalc {
         this.bounds = new ReferencedEnvelope();
     }
 
+    @Override
+    public MergeableFeatureVisitor split() {
+        return getClass() == BoundsVisitor.class ? new BoundsVisitor() : null;
+    }
+
+    @Override
+    public void merge(MergeableFeatureVisitor partial) {
+        ReferencedEnvelope other = ((BoundsVisitor) partial).bounds;
+        if (other != null && !other.isNull()) {
+            bounds.expandToInclude(other);
+        }
+    }
+
     public CalcResult getResult() {
         if (bounds == null || bounds.isEmpty()) {
             return CalcResult.NULL_RESULT;
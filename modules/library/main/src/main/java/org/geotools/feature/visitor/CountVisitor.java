@@ -26,7 +26,7 @@ import org.opengis.feature.simple.SimpleFeature;
  * @author Cory Horner, Refractions
  * @since 2.2.M2
  */
-public class CountVisitor implements FeatureCalc {
+public class CountVisitor implements FeatureCalc, MergeableFeatureVisitor {
     Integer count = null;
 
     public void init(SimpleFeatureCollection collection) {
@@ -59,6 +59,19 @@ public class CountVisitor implements FeatureCalc {
         this.count = null;
     }
 
+    @Override
+    public MergeableFeatureVisitor split() {
+        return getClass() == CountVisitor.class ? new CountVisitor() : null;
+    }
+
+    @Override
+    public void merge(MergeableFeatureVisitor partial) {
+        CountVisitor other = (CountVisitor) partial;
+        if (other.count != null) {
+            count = getCount() + other.count;
+        }
+    }
+
     public CalcResult getResult() {
         if (count == null) {
             return CalcResult.NULL_RESULT;
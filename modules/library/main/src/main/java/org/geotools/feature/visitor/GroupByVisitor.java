@@ -33,7 +33,8 @@ import org.opengis.filter.expression.Expression;
 import org.opengis.util.ProgressListener;
 
 /** Group features by one or several attributes and applies an aggregator visitor to each group. */
-public class GroupByVisitor implements FeatureCalc, FeatureAttributeVisitor {
+public class GroupByVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, MergeableFeatureVisitor {
 
     private final Aggregate aggregate;
     private final Expression expression;
@@ -103,6 +104,36 @@ public class GroupByVisitor implements FeatureCalc, FeatureAttributeVisitor {
         return groupByAttributes;
     }
 
+    /**
+     * Splits the visitor if the aggregate visitor can be split, the partial results are merged
+     * group by group
+     */
+    @Override
+    public MergeableFeatureVisitor split() {
+        if (wasOptimized()
+                || getClass() != GroupByVisitor.class
+                || !(visitorProtoType instanceof MergeableFeatureVisitor)
+                || ((MergeableFeatureVisitor) visitorProtoType).split() == null) {
+            return null;
+        }
+        return new GroupByVisitor(aggregate, expression, groupByAttributes, null);
+    }
+
+    @Override
+    public void merge(MergeableFeatureVisitor partial) {
+        Map<List<Object>, FeatureCalc> indexes = inMemoryGroupBy.groupByIndexes;
+        GroupByVisitor other = (GroupByVisitor) partial;
+        for (Map.Entry<List<Object>, FeatureCalc> entry :
+                other.inMemoryGroupBy.groupByIndexes.entrySet()) {
+            FeatureCalc calc = indexes.get(entry.getKey());
+            if (calc == null) {
+                indexes.put(entry.getKey(), entry.getValue());
+            } else {
+                ((MergeableFeatureVisitor) calc).merge((MergeableFeatureVisitor) entry.getValue());
+            }
+        }
+    }
+
     /**
      * Methods that allow optimizations to directly set the group by visitor result instead of
      * computing it visiting all the features. Aggregate visitor results are wrapped with the
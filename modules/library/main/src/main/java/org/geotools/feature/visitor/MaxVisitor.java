@@ -32,7 +32,8 @@ import org.opengis.filter.expression.Expression;
  * @author Cory Horner, Refractions Research Inc.
  * @since 2.2.M2
  */
-public class MaxVisitor implements FeatureCalc, FeatureAttributeVisitor {
+public class MaxVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, MergeableFeatureVisitor {
     private Expression expr;
     Comparable maxvalue;
     Comparable curvalue;
@@ -147,6 +148,21 @@ public class MaxVisitor implements FeatureCalc, FeatureAttributeVisitor {
         return new MaxResult(maxvalue);
     }
 
+    @Override
+    public MergeableFeatureVisitor split() {
+        return getClass() == MaxVisitor.class ? new MaxVisitor(expr) : null;
+    }
+
+    @Override
+    public void merge(MergeableFeatureVisitor partial) {
+        MaxVisitor other = (MaxVisitor) partial;
+        if (other.visited) {
+            setValue(getResult().merge(other.getResult()).getValue());
+        }
+        countNull += other.countNull;
+        countNaN += other.countNaN;
+    }
+
     /**
      * Overwrites the result stored by the visitor. This should only be used by optimizations which
      * will tell the visitor the answer rather than visiting all features.
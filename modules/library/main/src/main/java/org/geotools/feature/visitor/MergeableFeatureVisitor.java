@@ -0,0 +1,49 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.feature.visitor;
+
+import org.opengis.feature.FeatureVisitor;
+
+/**
+ * A visitor that can be split in independent copies, each one visiting a different subset of the
+ * features, possibly at the same time, whose partial results are then merged back in the original
+ * visitor.
+ *
+ * <p>Stores able to partition their data use this contract to run aggregations in parallel, see
+ * {@link org.geotools.data.store.ContentFeatureSource#visitInParallel}. The subsets are contiguous
+ * and their partial visitors are merged in the same order as the subsets, so visitors depending on
+ * the encounter order (e.g., an order preserving {@link UniqueVisitor}) can still be merged exactly.
+ *
+ * @since 22
+ */
+public interface MergeableFeatureVisitor extends FeatureVisitor {
+
+    /**
+     * Returns a new visitor with the same configuration as this one and no state, that will visit
+     * a subset of the features, or null if the visitor cannot be split in its current
+     * configuration (e.g., it has paging limits, or holds a result set by an optimization).
+     */
+    MergeableFeatureVisitor split();
+
+    /**
+     * Merges in this visitor the state of a visitor returned by {@link #split()}, once the latter
+     * has completed its visit
+     *
+     * @param partial A visitor created by {@link #split()} on this visitor
+     */
+    void merge(MergeableFeatureVisitor partial);
+}
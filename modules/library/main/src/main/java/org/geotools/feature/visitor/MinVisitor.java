@@ -32,7 +32,8 @@ import org.opengis.filter.expression.Expression;
  * @author Cory Horner, Refractions
  * @since 2.2.M2
  */
-public class MinVisitor implements FeatureCalc, FeatureAttributeVisitor {
+public class MinVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, MergeableFeatureVisitor {
     private Expression expr;
     Comparable minvalue;
     Comparable curvalue;
@@ -118,6 +119,21 @@ public class MinVisitor implements FeatureCalc, FeatureAttributeVisitor {
         return new MinResult(minvalue);
     }
 
+    @Override
+    public MergeableFeatureVisitor split() {
+        return getClass() == MinVisitor.class ? new MinVisitor(expr) : null;
+    }
+
+    @Override
+    public void merge(MergeableFeatureVisitor partial) {
+        MinVisitor other = (MinVisitor) partial;
+        if (other.visited) {
+            setValue(getResult().merge(other.getResult()).getValue());
+        }
+        countNull += other.countNull;
+        countNaN += other.countNaN;
+    }
+
     public Expression getExpression() {
         return expr;
     }
@@ -31,7 +31,7 @@ import org.opengis.filter.expression.Expression;
  *
  * @author Cory Horner, Refractions Research Inc.
  */
-public class QuantileListVisitor implements FeatureCalc {
+public class QuantileListVisitor implements FeatureCalc, MergeableFeatureVisitor {
     private Expression expr;
     private int count = 0;
     private int bins;
@@ -113,6 +113,22 @@ public class QuantileListVisitor implements FeatureCalc {
         items.add(value);
     }
 
+    @Override
+    public MergeableFeatureVisitor split() {
+        return getClass() == QuantileListVisitor.class
+                ? new QuantileListVisitor(expr, bins)
+                : null;
+    }
+
+    @Override
+    public void merge(MergeableFeatureVisitor partial) {
+        QuantileListVisitor other = (QuantileListVisitor) partial;
+        items.addAll(other.items);
+        count += other.count;
+        countNull += other.countNull;
+        countNaN += other.countNaN;
+    }
+
     public void reset(int bins) {
         this.bins = bins;
         this.count = 0;
@@ -40,7 +40,8 @@ import org.opengis.filter.expression.Expression;
  * @author Cory Horner, Refractions Research Inc.
  * @author Andrea Aime, GeoSolutions
  */
-public class StandardDeviationVisitor implements FeatureCalc, FeatureAttributeVisitor {
+public class StandardDeviationVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, MergeableFeatureVisitor {
     public static class Result extends AbstractCalcResult {
         final Double deviation;
 
@@ -132,6 +133,32 @@ public class StandardDeviationVisitor implements FeatureCalc, FeatureAttributeVi
         m2 = m2 + delta * (x - mean); // This expression uses the new value of mean
     }
 
+    @Override
+    public MergeableFeatureVisitor split() {
+        return getClass() == StandardDeviationVisitor.class
+                ? new StandardDeviationVisitor(expr)
+                : null;
+    }
+
+    /**
+     * Merges the partial mean and squared distances using the parallel variant of the on line
+     * algorithm (Chan et al.)
+     */
+    @Override
+    public void merge(MergeableFeatureVisitor partial) {
+        StandardDeviationVisitor other = (StandardDeviationVisitor) partial;
+        countNull += other.countNull;
+        countNaN += other.countNaN;
+        if (other.count == 0) {
+            return;
+        }
+        int total = count + other.count;
+        double delta = other.mean - mean;
+        mean = mean + delta * other.count / total;
+        m2 = m2 + other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+    }
+
     public void reset() {
         this.count = 0;
         this.countNull = 0;
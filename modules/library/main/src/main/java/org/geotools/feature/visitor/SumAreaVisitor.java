@@ -33,8 +33,17 @@ public class SumAreaVisitor extends SumVisitor {
 
     static FilterFactory factory = CommonFactoryFinder.getFilterFactory(null);
 
+    /** The geometry expression whose area is summed, before wrapping in the area function */
+    private final Expression geometry;
+
     public SumAreaVisitor(Expression expr) throws IllegalFilterException {
         super(factory.function("area2", expr));
+        this.geometry = expr;
+    }
+
+    @Override
+    public MergeableFeatureVisitor split() {
+        return getClass() == SumAreaVisitor.class ? new SumAreaVisitor(geometry) : null;
     }
 
     @Override
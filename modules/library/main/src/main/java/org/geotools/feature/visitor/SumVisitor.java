@@ -36,7 +36,8 @@ import org.opengis.filter.expression.Expression;
  * @author Cory Horner, Refractions
  * @since 2.2.M2
  */
-public class SumVisitor implements FeatureCalc, FeatureAttributeVisitor {
+public class SumVisitor
+        implements FeatureCalc, FeatureAttributeVisitor, MergeableFeatureVisitor {
     private Expression expr;
 
     SumStrategy strategy;
@@ -135,6 +136,24 @@ public class SumVisitor implements FeatureCalc, FeatureAttributeVisitor {
         return new SumResult(strategy);
     }
 
+    @Override
+    public MergeableFeatureVisitor split() {
+        return getClass() == SumVisitor.class ? new SumVisitor(expr) : null;
+    }
+
+    @Override
+    public void merge(MergeableFeatureVisitor partial) {
+        SumVisitor other = (SumVisitor) partial;
+        if (other.strategy == null || other.strategy.getResult() == null) {
+            return;
+        }
+        if (strategy == null || strategy.getResult() == null) {
+            strategy = other.strategy;
+        } else {
+            setValue(getResult().merge(other.getResult()).getValue());
+        }
+    }
+
     protected interface SumStrategy {
         public void add(Object value);
 
@@ -39,7 +39,11 @@ import org.opengis.filter.expression.Expression;
  * @author Cory Horner, Refractions
  * @since 2.2.M2
  */
-public class UniqueVisitor implements FeatureCalc, FeatureAttributeVisitor, LimitingVisitor {
+public class UniqueVisitor
+        implements FeatureCalc,
+                FeatureAttributeVisitor,
+                LimitingVisitor,
+                MergeableFeatureVisitor {
     private Expression expr;
     Set set = new HashSet();
     Set skipped = new HashSet();
@@ -146,6 +150,23 @@ public class UniqueVisitor implements FeatureCalc, FeatureAttributeVisitor, Limi
         return UniqueResult.createNewSet(collection, preserveOrder);
     }
 
+    @Override
+    public MergeableFeatureVisitor split() {
+        // paging depends on the values found in the previous subsets
+        if (hasLimits() || getClass() != UniqueVisitor.class) {
+            return null;
+        }
+        UniqueVisitor copy = new UniqueVisitor(expr);
+        copy.setPreserveOrder(preserveOrder);
+        return copy;
+    }
+
+    @Override
+    public void merge(MergeableFeatureVisitor partial) {
+        // subsets are merged in order, so the encounter order is preserved too
+        set.addAll(((UniqueVisitor) partial).set);
+    }
+
     public void reset() {
         /** Reset the unique and current minimum for the features in the collection */
         this.set = createNewSet(Collections.EMPTY_LIST);
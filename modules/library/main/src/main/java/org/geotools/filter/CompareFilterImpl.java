@@ -131,6 +131,9 @@ public abstract class CompareFilterImpl extends BinaryComparisonAbstract {
                 }
             }
             return leftObj.compareTo(rightObj);
+        } else if (isIntegral(leftObj) && isIntegral(rightObj)) {
+            // both integral, compare exactly, longs above 2^53 have no exact double representation
+            return Long.compare(((Number) leftObj).longValue(), ((Number) rightObj).longValue());
         } else {
             // both numbers, make double
             double left = ((Number) leftObj).doubleValue();
@@ -139,6 +142,13 @@ public abstract class CompareFilterImpl extends BinaryComparisonAbstract {
         }
     }
 
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long
+                || value instanceof Integer
+                || value instanceof Short
+                || value instanceof Byte;
+    }
+
     /**
      * Returns a string representation of this filter.
      *
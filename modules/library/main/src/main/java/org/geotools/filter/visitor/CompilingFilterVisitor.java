@@ -0,0 +1,650 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.filter.visitor;
+
+import java.util.Collection;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.filter.AttributeExpressionImpl;
+import org.geotools.filter.BinaryComparisonAbstract;
+import org.geotools.filter.Filters;
+import org.geotools.filter.function.EnvFunction;
+import org.geotools.util.Converters;
+import org.geotools.util.logging.Logging;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterVisitor;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.PropertyIsNotEqualTo;
+import org.opengis.filter.expression.Add;
+import org.opengis.filter.expression.BinaryExpression;
+import org.opengis.filter.expression.Divide;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.Multiply;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.expression.Subtract;
+
+/**
+ * Prepares a filter or expression for repeated evaluation against the simple features of a given
+ * type, trading a one time compilation for cheaper evaluations:
+ *
+ * <ul>
+ *   <li>property names are resolved to attribute indexes up front, skipping the property accessor
+ *       lookups on each evaluation
+ *   <li>math expressions on constant operands are folded into literals, and literal operands are
+ *       converted to numbers once
+ *   <li>comparisons between a numeric attribute and a numeric literal are performed on primitive
+ *       doubles, equality comparisons against a literal skip the value alignment when the
+ *       attribute value is of the same class as the literal
+ * </ul>
+ *
+ * The compiled filter evaluates exactly as the original one, features of a different type, or
+ * values the compiled form does not handle, are evaluated using the generic code paths. The
+ * compiled filter is still a regular filter that can be visited, but it's meant for in memory
+ * evaluation only, use the original one to build queries.
+ *
+ * @since 22
+ */
+public class CompilingFilterVisitor extends DuplicatingFilterVisitor {
+
+    static final Logger LOGGER = Logging.getLogger(CompilingFilterVisitor.class);
+
+    /** The type of the features the filter will be evaluated against */
+    final SimpleFeatureType schema;
+
+    public CompilingFilterVisitor(SimpleFeatureType schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * Compiles the filter for evaluation against features of the given type. Returns the filter
+     * itself if the type is not a simple one, or the filter cannot be compiled.
+     */
+    public static Filter compile(Filter filter, Object featureType) {
+        if (filter == null
+                || filter == Filter.INCLUDE
+                || filter == Filter.EXCLUDE
+                || !(featureType instanceof SimpleFeatureType)) {
+            return filter;
+        }
+        try {
+            Filter simplified = (Filter) filter.accept(new ConstantFolder(), null);
+            CompilingFilterVisitor visitor =
+                    new CompilingFilterVisitor((SimpleFeatureType) featureType);
+            return (Filter) simplified.accept(visitor, null);
+        } catch (RuntimeException e) {
+            // custom filter implementations might not support duplication, it's just an
+            // optimization, evaluate the original filter then
+            LOGGER.log(Level.FINE, "Could not compile filter " + filter, e);
+            return filter;
+        }
+    }
+
+    /**
+     * Compiles the expression for evaluation against features of the given type. Returns the
+     * expression itself if the type is not a simple one, or the expression cannot be compiled.
+     */
+    public static Expression compile(Expression expression, Object featureType) {
+        if (expression == null
+                || expression instanceof Literal
+                || !(featureType instanceof SimpleFeatureType)) {
+            return expression;
+        }
+        try {
+            Expression simplified =
+                    (Expression) expression.accept(new ConstantFolder(), null);
+            CompilingFilterVisitor visitor =
+                    new CompilingFilterVisitor((SimpleFeatureType) featureType);
+            return (Expression) simplified.accept(visitor, null);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, "Could not compile expression " + expression, e);
+            return expression;
+        }
+    }
+
+    @Override
+    public Object visit(PropertyName expression, Object extraData) {
+        String name = expression.getPropertyName();
+        if (isPlainName(name)) {
+            int index = schema.indexOf(name);
+            if (index >= 0) {
+                return new IndexedPropertyName(name, schema, index);
+            }
+        }
+        return super.visit(expression, extraData);
+    }
+
+    /** Returns true if the name is a plain attribute name, not a xpath, a prefixed name or an id */
+    private boolean isPlainName(String name) {
+        if (name == null || name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '/' || c == ':' || c == '@' || c == '[' || c == '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Object visit(Add expression, Object extraData) {
+        return fold((Expression) super.visit(numeric(expression), extraData));
+    }
+
+    @Override
+    public Object visit(Subtract expression, Object extraData) {
+        return fold((Expression) super.visit(numeric(expression), extraData));
+    }
+
+    @Override
+    public Object visit(Multiply expression, Object extraData) {
+        return fold((Expression) super.visit(numeric(expression), extraData));
+    }
+
+    @Override
+    public Object visit(Divide expression, Object extraData) {
+        return fold((Expression) super.visit(numeric(expression), extraData));
+    }
+
+    /**
+     * Converts the literal operands of a math expression to numbers, as the expression would do on
+     * each evaluation
+     */
+    private BinaryExpression numeric(BinaryExpression expression) {
+        Expression e1 = numeric(expression.getExpression1());
+        Expression e2 = numeric(expression.getExpression2());
+        if (e1 == expression.getExpression1() && e2 == expression.getExpression2()) {
+            return expression;
+        }
+        if (expression instanceof Add) {
+            return ff.add(e1, e2);
+        } else if (expression instanceof Subtract) {
+            return ff.subtract(e1, e2);
+        } else if (expression instanceof Multiply) {
+            return ff.multiply(e1, e2);
+        } else {
+            return ff.divide(e1, e2);
+        }
+    }
+
+    private Expression numeric(Expression expression) {
+        if (expression instanceof Literal) {
+            Object value = ((Literal) expression).getValue();
+            if (value != null && !(value instanceof Number)) {
+                try {
+                    return ff.literal(Filters.number(value));
+                } catch (IllegalArgumentException e) {
+                    // will fail on evaluation too, leave it alone
+                }
+            }
+        }
+        return expression;
+    }
+
+    /** Replaces a math expression working on literals with its result */
+    private Expression fold(Expression expression) {
+        BinaryExpression math = (BinaryExpression) expression;
+        if (math.getExpression1() instanceof Literal && math.getExpression2() instanceof Literal) {
+            try {
+                return ff.literal(math.evaluate(null));
+            } catch (RuntimeException e) {
+                // will fail on evaluation too, leave it alone
+            }
+        }
+        return expression;
+    }
+
+    @Override
+    public Object visit(PropertyIsEqualTo filter, Object extraData) {
+        PropertyIsEqualTo copy = (PropertyIsEqualTo) super.visit(filter, extraData);
+        LiteralOperand operand = literalOperand(copy);
+        if (operand != null) {
+            return new CompiledEqualTo(copy, operand);
+        }
+        return copy;
+    }
+
+    @Override
+    public Object visit(PropertyIsNotEqualTo filter, Object extraData) {
+        PropertyIsNotEqualTo copy = (PropertyIsNotEqualTo) super.visit(filter, extraData);
+        LiteralOperand operand = literalOperand(copy);
+        if (operand != null) {
+            return new CompiledNotEqualTo(copy, operand);
+        }
+        return copy;
+    }
+
+    @Override
+    public Object visit(PropertyIsGreaterThan filter, Object extraData) {
+        PropertyIsGreaterThan copy = (PropertyIsGreaterThan) super.visit(filter, extraData);
+        LiteralOperand operand = numericOperand(copy);
+        if (operand != null) {
+            return new CompiledGreaterThan(copy, operand);
+        }
+        return copy;
+    }
+
+    @Override
+    public Object visit(PropertyIsGreaterThanOrEqualTo filter, Object extraData) {
+        PropertyIsGreaterThanOrEqualTo copy =
+                (PropertyIsGreaterThanOrEqualTo) super.visit(filter, extraData);
+        LiteralOperand operand = numericOperand(copy);
+        if (operand != null) {
+            return new CompiledGreaterThanOrEqualTo(copy, operand);
+        }
+        return copy;
+    }
+
+    @Override
+    public Object visit(PropertyIsLessThan filter, Object extraData) {
+        PropertyIsLessThan copy = (PropertyIsLessThan) super.visit(filter, extraData);
+        LiteralOperand operand = numericOperand(copy);
+        if (operand != null) {
+            return new CompiledLessThan(copy, operand);
+        }
+        return copy;
+    }
+
+    @Override
+    public Object visit(PropertyIsLessThanOrEqualTo filter, Object extraData) {
+        PropertyIsLessThanOrEqualTo copy =
+                (PropertyIsLessThanOrEqualTo) super.visit(filter, extraData);
+        LiteralOperand operand = numericOperand(copy);
+        if (operand != null) {
+            return new CompiledLessThanOrEqualTo(copy, operand);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the attribute and literal compared by the filter, if it compares an indexed attribute
+     * with a non null, single valued literal
+     */
+    private LiteralOperand literalOperand(BinaryComparisonOperator filter) {
+        Expression e1 = filter.getExpression1();
+        Expression e2 = filter.getExpression2();
+        if (e1 instanceof IndexedPropertyName && e2 instanceof Literal) {
+            return literalOperand((IndexedPropertyName) e1, (Literal) e2, true);
+        } else if (e2 instanceof IndexedPropertyName && e1 instanceof Literal) {
+            return literalOperand((IndexedPropertyName) e2, (Literal) e1, false);
+        }
+        return null;
+    }
+
+    private LiteralOperand literalOperand(
+            IndexedPropertyName property, Literal literal, boolean propertyFirst) {
+        Object value = literal.getValue();
+        if (value == null || value instanceof Collection) {
+            return null;
+        }
+        return new LiteralOperand(property, value, propertyFirst);
+    }
+
+    /**
+     * Returns the attribute and literal compared by the filter, if it compares an indexed attribute
+     * with a literal, and both are numbers whose comparison is either a plain double comparison, or
+     * an exact integral one
+     */
+    private LiteralOperand numericOperand(BinaryComparisonOperator filter) {
+        LiteralOperand operand = literalOperand(filter);
+        if (operand == null) {
+            return null;
+        }
+        Class<?> literalType = operand.value.getClass();
+        Class<?> attributeType =
+                schema.getDescriptor(operand.property.index).getType().getBinding();
+        if ((isDoubleComparable(literalType) && isDoubleComparable(attributeType))
+                || (isIntegral(literalType) && isIntegral(attributeType))) {
+            return operand;
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if comparing a value of this class with any other such value in a filter
+     * boils down to comparing their double values. Floats and big numbers are excluded, they are
+     * converted differently when aligning the values, and so are longs, which are not exactly
+     * represented as doubles above 2^53
+     */
+    static boolean isDoubleComparable(Class<?> type) {
+        return type == Double.class
+                || type == Integer.class
+                || type == Short.class
+                || type == Byte.class;
+    }
+
+    /**
+     * Returns true if values of this class are compared exactly as longs with any other such value
+     * in a filter
+     */
+    static boolean isIntegral(Class<?> type) {
+        return type == Long.class
+                || type == Integer.class
+                || type == Short.class
+                || type == Byte.class;
+    }
+
+    /**
+     * Simplifies the filter and folds constant functions, but leaves alone the environment
+     * variables, the compiled filter might be evaluated in a thread other than the one compiling it
+     */
+    static final class ConstantFolder extends SimplifyingFilterVisitor {
+
+        @Override
+        protected boolean isVolatileFunction(org.opengis.filter.expression.Function function) {
+            return function instanceof EnvFunction || super.isVolatileFunction(function);
+        }
+    }
+
+    /**
+     * A property name bound to an attribute index. Features of the compiled type, or of any type
+     * having the same attribute at the same index, are accessed by index, others go through the
+     * property accessors as usual.
+     */
+    static final class IndexedPropertyName extends AttributeExpressionImpl {
+
+        final SimpleFeatureType featureType;
+
+        final int index;
+
+        /** The last type, other than the compiled one, found to have the attribute at index */
+        volatile SimpleFeatureType lastType;
+
+        IndexedPropertyName(String name, SimpleFeatureType featureType, int index) {
+            super(name);
+            this.featureType = featureType;
+            this.index = index;
+        }
+
+        /** Returns true if the object is a feature whose attribute can be read by index */
+        boolean isIndexed(Object object) {
+            if (!(object instanceof SimpleFeature)) {
+                return false;
+            }
+            SimpleFeatureType type = ((SimpleFeature) object).getFeatureType();
+            if (type == featureType || type == lastType) {
+                return true;
+            }
+            if (index < type.getAttributeCount()
+                    && getPropertyName().equals(type.getDescriptor(index).getLocalName())) {
+                lastType = type;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T evaluate(Object obj, Class<T> target) {
+            if (isIndexed(obj)) {
+                Object value = ((SimpleFeature) obj).getAttribute(index);
+                if (target == null) {
+                    return (T) value;
+                }
+                return Converters.convert(value, target);
+            }
+            return super.evaluate(obj, target);
+        }
+    }
+
+    /** An indexed attribute compared with a literal */
+    static final class LiteralOperand {
+
+        final IndexedPropertyName property;
+
+        final Object value;
+
+        final Class<?> valueClass;
+
+        final double number;
+
+        final boolean integral;
+
+        /** True if the property is the first expression of the comparison */
+        final boolean propertyFirst;
+
+        LiteralOperand(IndexedPropertyName property, Object value, boolean propertyFirst) {
+            this.property = property;
+            this.value = value;
+            this.valueClass = value.getClass();
+            this.number = value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+            this.integral = isIntegral(valueClass);
+            this.propertyFirst = propertyFirst;
+        }
+    }
+
+    /**
+     * Base class for compiled comparisons, evaluates the fast path when the attribute value is
+     * suitable, delegates to the original comparison otherwise
+     */
+    abstract static class CompiledComparison extends BinaryComparisonAbstract {
+
+        final BinaryComparisonOperator delegate;
+
+        final LiteralOperand operand;
+
+        CompiledComparison(BinaryComparisonOperator delegate, LiteralOperand operand) {
+            super(delegate.getExpression1(), delegate.getExpression2(), delegate.isMatchingCase());
+            this.delegate = delegate;
+            this.operand = operand;
+        }
+
+        @Override
+        public MatchAction getMatchAction() {
+            return delegate.getMatchAction();
+        }
+
+        @Override
+        public boolean evaluate(Object object) {
+            if (operand.property.isIndexed(object)) {
+                Object value = ((SimpleFeature) object).getAttribute(operand.property.index);
+                int result = evaluateValue(value);
+                if (result >= 0) {
+                    return result == 1;
+                }
+            }
+            return delegate.evaluate(object);
+        }
+
+        /**
+         * Evaluates the comparison against the attribute value
+         *
+         * @return 1 if the comparison is satisfied, 0 if not, -1 if the value cannot be handled by
+         *     the compiled comparison
+         */
+        abstract int evaluateValue(Object value);
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    /** Equality fast path, for values of the same class as the literal */
+    abstract static class CompiledEquality extends CompiledComparison {
+
+        CompiledEquality(BinaryComparisonOperator delegate, LiteralOperand operand) {
+            super(delegate, operand);
+        }
+
+        /** @return 1 if equal, 0 if not, -1 if the values need to be aligned first */
+        int equal(Object value) {
+            if (value == null) {
+                return 0;
+            }
+            if (value.getClass() != operand.valueClass) {
+                return -1;
+            }
+            if (!isMatchingCase() && value instanceof String) {
+                return ((String) value).equalsIgnoreCase((String) operand.value) ? 1 : 0;
+            }
+            return value.equals(operand.value) ? 1 : 0;
+        }
+    }
+
+    static final class CompiledEqualTo extends CompiledEquality implements PropertyIsEqualTo {
+
+        CompiledEqualTo(PropertyIsEqualTo delegate, LiteralOperand operand) {
+            super(delegate, operand);
+        }
+
+        @Override
+        int evaluateValue(Object value) {
+            return equal(value);
+        }
+
+        public Object accept(FilterVisitor visitor, Object extraData) {
+            return visitor.visit(this, extraData);
+        }
+    }
+
+    static final class CompiledNotEqualTo extends CompiledEquality
+            implements PropertyIsNotEqualTo {
+
+        CompiledNotEqualTo(PropertyIsNotEqualTo delegate, LiteralOperand operand) {
+            super(delegate, operand);
+        }
+
+        @Override
+        int evaluateValue(Object value) {
+            int equal = equal(value);
+            return equal < 0 ? -1 : 1 - equal;
+        }
+
+        public Object accept(FilterVisitor visitor, Object extraData) {
+            return visitor.visit(this, extraData);
+        }
+    }
+
+    /** Ordering fast path, for numeric values compared as doubles, or exactly as longs */
+    abstract static class CompiledOrdering extends CompiledComparison {
+
+        CompiledOrdering(BinaryComparisonOperator delegate, LiteralOperand operand) {
+            super(delegate, operand);
+        }
+
+        @Override
+        int evaluateValue(Object value) {
+            if (value == null) {
+                // null values never satisfy an ordering comparison
+                return 0;
+            }
+            int comparison;
+            Class<?> type = value.getClass();
+            if (operand.integral && isIntegral(type)) {
+                // same exact comparison as CompareFilterImpl
+                long v = ((Number) value).longValue();
+                long literal = ((Number) operand.value).longValue();
+                comparison =
+                        operand.propertyFirst ? Long.compare(v, literal) : Long.compare(literal, v);
+            } else if (isDoubleComparable(operand.valueClass) && isDoubleComparable(type)) {
+                double v = ((Number) value).doubleValue();
+                // same lax comparison as CompareFilterImpl
+                comparison =
+                        operand.propertyFirst
+                                ? compare(v, operand.number)
+                                : compare(operand.number, v);
+            } else {
+                return -1;
+            }
+            return test(comparison) ? 1 : 0;
+        }
+
+        private int compare(double left, double right) {
+            return left > right ? 1 : (left == right ? 0 : -1);
+        }
+
+        abstract boolean test(int comparison);
+    }
+
+    static final class CompiledGreaterThan extends CompiledOrdering
+            implements PropertyIsGreaterThan {
+
+        CompiledGreaterThan(PropertyIsGreaterThan delegate, LiteralOperand operand) {
+            super(delegate, operand);
+        }
+
+        @Override
+        boolean test(int comparison) {
+            return comparison > 0;
+        }
+
+        public Object accept(FilterVisitor visitor, Object extraData) {
+            return visitor.visit(this, extraData);
+        }
+    }
+
+    static final class CompiledGreaterThanOrEqualTo extends CompiledOrdering
+            implements PropertyIsGreaterThanOrEqualTo {
+
+        CompiledGreaterThanOrEqualTo(
+                PropertyIsGreaterThanOrEqualTo delegate, LiteralOperand operand) {
+            super(delegate, operand);
+        }
+
+        @Override
+        boolean test(int comparison) {
+            return comparison >= 0;
+        }
+
+        public Object accept(FilterVisitor visitor, Object extraData) {
+            return visitor.visit(this, extraData);
+        }
+    }
+
+    static final class CompiledLessThan extends CompiledOrdering implements PropertyIsLessThan {
+
+        CompiledLessThan(PropertyIsLessThan delegate, LiteralOperand operand) {
+            super(delegate, operand);
+        }
+
+        @Override
+        boolean test(int comparison) {
+            return comparison < 0;
+        }
+
+        public Object accept(FilterVisitor visitor, Object extraData) {
+            return visitor.visit(this, extraData);
+        }
+    }
+
+    static final class CompiledLessThanOrEqualTo extends CompiledOrdering
+            implements PropertyIsLessThanOrEqualTo {
+
+        CompiledLessThanOrEqualTo(PropertyIsLessThanOrEqualTo delegate, LiteralOperand operand) {
+            super(delegate, operand);
+        }
+
+        @Override
+        boolean test(int comparison) {
+            return comparison <= 0;
+        }
+
+        public Object accept(FilterVisitor visitor, Object extraData) {
+            return visitor.visit(this, extraData);
+        }
+    }
+}
@@ -16,10 +16,10 @@
  */
 package org.geotools.geometry.jts;
 
-import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.CoordinateSequence;
 import org.locationtech.jts.geom.CoordinateSequenceFactory;
 import org.locationtech.jts.geom.impl.CoordinateArraySequenceFactory;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
 import org.opengis.geometry.MismatchedDimensionException;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
@@ -32,6 +32,11 @@ import org.opengis.referencing.operation.TransformException;
  * <p>This transformer support {@linkplain MathTransform math transform} with up to 3 source or
  * target dimensions. This transformer is not thread-safe.
  *
+ * <p>Packed sequences ({@link PackedCoordinateSequence.Double} and {@link LiteCoordinateSequence})
+ * whose dimensions match the transform ones are transformed with a single call to the math
+ * transform, directly from the source ordinate array to the target one. Other sequences are copied
+ * in blocks to a reusable buffer, which is transformed as a whole.
+ *
  * @since 2.1
  * @version $Id$
  * @author Andrea Aime
@@ -44,8 +49,9 @@ public class DefaultCoordinateSequenceTransformer implements CoordinateSequenceT
      * to transform is greater than the buffer capacity, then the buffer will be flushed to the
      * destination array before to continue. We avoid to create a buffer as large than the number of
      * point to transforms, because it would consume a large amount of memory for big geometries.
+     * The buffer is still large enough to amortize the cost of each call to the transform chain.
      */
-    private final transient double[] buffer = new double[96];
+    private final transient double[] buffer = new double[1536];
 
     /** The coordinate sequence factory to use. */
     private final CoordinateSequenceFactory csFactory;
@@ -66,11 +72,9 @@ public class DefaultCoordinateSequenceTransformer implements CoordinateSequenceT
         final int sourceDim = transform.getSourceDimensions();
         final int targetDim = transform.getTargetDimensions();
         final int size = sequence.size();
-        final Coordinate[] tcs = new Coordinate[size];
-        final int bufferCapacity = buffer.length / Math.max(sourceDim, targetDim);
-        int remainingBeforeFlush = Math.min(bufferCapacity, size);
-        int ib = 0; // Index in the buffer array.
-        int it = 0; // Index in the target sequence.
+        if (sourceDim > 3 && size > 0) {
+            throw new MismatchedDimensionException();
+        }
 
         // create a target CS so that the dimensions not contemplated in the source CS
         // are copied over (think Z or M with a 2d CRS)
@@ -78,67 +82,81 @@ public class DefaultCoordinateSequenceTransformer implements CoordinateSequenceT
         CoordinateSequence result =
                 JTS.createCS(csFactory, sequence.size(), targetCSDim, sequence.getMeasures());
 
-        for (int i = 0; i < size; i++) {
-            switch (sourceDim) {
-                default:
-                    throw new MismatchedDimensionException();
+        // packed sequences can be transformed in one shot, without intermediate copies
+        if (sequence.getDimension() == sourceDim && result.getDimension() == targetDim) {
+            double[] source = getPackedOrdinates(sequence);
+            double[] target = getPackedOrdinates(result);
+            if (source != null && target != null) {
+                transform.transform(source, 0, target, 0, size);
+                return result;
+            }
+        }
+
+        final int bufferCapacity = buffer.length / Math.max(sourceDim, targetDim);
+        int it = 0; // Index in the target sequence.
+        for (int start = 0; start < size; start += bufferCapacity) {
+            final int n = Math.min(bufferCapacity, size - start);
 
-                case 3:
-                    buffer[ib + 2] = sequence.getOrdinate(i, 2); // Fall through
+            // copy a block of coordinates in the buffer
+            int ib = 0; // Index in the buffer array.
+            for (int i = start; i < start + n; i++) {
+                switch (sourceDim) {
+                    case 3:
+                        buffer[ib + 2] = sequence.getOrdinate(i, 2); // Fall through
 
-                case 2:
-                    buffer[ib + 1] = sequence.getY(i); // Fall through
+                    case 2:
+                        buffer[ib + 1] = sequence.getY(i); // Fall through
 
-                case 1:
-                    buffer[ib] = sequence.getX(i); // Fall through
+                    case 1:
+                        buffer[ib] = sequence.getX(i); // Fall through
 
-                case 0:
-                    break;
+                    default:
+                        break;
+                }
+                ib += sourceDim;
             }
 
-            ib += sourceDim;
-
-            if (--remainingBeforeFlush == 0) {
-                /*
-                 * The buffer is full, or we just copied the last coordinates.
-                 * Transform the coordinates and flush to the destination array.
-                 */
-                assert (ib % sourceDim) == 0;
-
-                final int n = ib / sourceDim;
-                transform.transform(buffer, 0, buffer, 0, n);
-                ib = 0;
-
-                for (int j = 0; j < n; j++) {
-                    // final Coordinate t;
-
-                    // copy the transformed portion
-                    int oi = 0;
-                    for (; oi < targetDim; oi++) {
-                        result.setOrdinate(it, oi, buffer[ib++]);
-                    }
-                    // copy over the non transformed portion
-                    for (; oi < targetCSDim; oi++) {
-                        result.setOrdinate(
-                                it, oi, sequence.getOrdinate(it, oi + (targetDim - sourceDim)));
-                    }
-                    // force to NaN eventual extra ordinates the sequence has (some are fixed size,
-                    // wont'
-                    // care about us trying to tell them a size). This works around a bug in the
-                    // default
-                    // JTS coordinate sequence implementation
-                    for (; oi < result.getDimension(); oi++) {
-                        result.setOrdinate(it, oi, Double.NaN);
-                    }
-                    it++;
+            // transform the coordinates and flush to the destination sequence
+            transform.transform(buffer, 0, buffer, 0, n);
+            ib = 0;
+            for (int j = 0; j < n; j++) {
+                // copy the transformed portion
+                int oi = 0;
+                for (; oi < targetDim; oi++) {
+                    result.setOrdinate(it, oi, buffer[ib++]);
+                }
+                // copy over the non transformed portion
+                for (; oi < targetCSDim; oi++) {
+                    result.setOrdinate(
+                            it, oi, sequence.getOrdinate(it, oi + (sourceDim - targetDim)));
                 }
-                assert ib == (n * targetDim);
-                ib = 0;
-                remainingBeforeFlush = Math.min(bufferCapacity, size - (i + 1));
+                // force to NaN eventual extra ordinates the sequence has (some are fixed size,
+                // wont'
+                // care about us trying to tell them a size). This works around a bug in the
+                // default
+                // JTS coordinate sequence implementation
+                for (; oi < result.getDimension(); oi++) {
+                    result.setOrdinate(it, oi, Double.NaN);
+                }
+                it++;
             }
+            assert ib == (n * targetDim);
         }
-        assert it == tcs.length : tcs.length - it;
+        assert it == size : size - it;
 
         return result;
     }
+
+    /**
+     * Returns the packed ordinate array backing the sequence, or null if the sequence is not
+     * packed
+     */
+    static double[] getPackedOrdinates(CoordinateSequence sequence) {
+        if (sequence instanceof LiteCoordinateSequence) {
+            return ((LiteCoordinateSequence) sequence).getArray();
+        } else if (sequence instanceof PackedCoordinateSequence.Double) {
+            return ((PackedCoordinateSequence.Double) sequence).getRawCoordinates();
+        }
+        return null;
+    }
 }
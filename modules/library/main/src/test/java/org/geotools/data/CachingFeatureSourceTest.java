@@ -0,0 +1,230 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotools.data.memory.MemoryDataStore;
+import org.geotools.data.memory.MemoryFeatureStore;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.geotools.data.store.ContentEntry;
+import org.geotools.data.store.ContentFeatureSource;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+public class CachingFeatureSourceTest {
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    static final GeometryFactory GF = new GeometryFactory();
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    SimpleFeatureType schema;
+
+    SimpleFeatureStore store;
+
+    /** Number of times the original store has been read */
+    AtomicInteger reads = new AtomicInteger();
+
+    @Before
+    public void setup() throws Exception {
+        schema = DataUtilities.createType("points", "geom:Point,id:Integer,name:String");
+        MemoryDataStore data =
+                new MemoryDataStore() {
+                    @Override
+                    protected ContentFeatureSource createFeatureSource(
+                            ContentEntry entry, Query query) {
+                        return new MemoryFeatureStore(entry, query) {
+                            @Override
+                            protected FeatureReader<SimpleFeatureType, SimpleFeature>
+                                    getReaderInternal(Query query) throws IOException {
+                                reads.incrementAndGet();
+                                return super.getReaderInternal(query);
+                            }
+                        };
+                    }
+                };
+        // a 20x20 grid of points
+        for (int i = 0; i < 400; i++) {
+            data.addFeature(feature(i, i % 20, i / 20));
+        }
+        store = (SimpleFeatureStore) data.getFeatureSource("points");
+    }
+
+    private SimpleFeature feature(int id, double x, double y) {
+        return SimpleFeatureBuilder.build(
+                schema,
+                new Object[] {GF.createPoint(new Coordinate(x, y)), id, "name" + id},
+                "points." + id);
+    }
+
+    private Filter bbox(double minX, double minY, double maxX, double maxY) {
+        return FF.bbox("geom", minX, minY, maxX, maxY, null);
+    }
+
+    private Set<Integer> ids(SimpleFeatureCollection fc) {
+        Set<Integer> ids = new HashSet<>();
+        try (SimpleFeatureIterator it = fc.features()) {
+            while (it.hasNext()) {
+                ids.add((Integer) it.next().getAttribute("id"));
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    public void testRepeatedQuery() throws Exception {
+        CachingFeatureSource caching = new CachingFeatureSource(store);
+        Set<Integer> expected = ids(store.getFeatures(bbox(1.5, 1.5, 3.5, 2.5)));
+        reads.set(0);
+
+        assertEquals(expected, ids(caching.getFeatures(bbox(1.5, 1.5, 3.5, 2.5))));
+        assertEquals(1, reads.get());
+        assertEquals(expected, ids(caching.getFeatures(bbox(1.5, 1.5, 3.5, 2.5))));
+        assertEquals(1, reads.get());
+        Query query = new Query("points", bbox(1.5, 1.5, 3.5, 2.5));
+        assertEquals(expected.size(), caching.getCount(query));
+
+        QueryCache.Statistics stats = caching.getCache().getStatistics();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getMemoryEntries());
+        assertTrue(stats.getMemoryBytes() > 0);
+    }
+
+    @Test
+    public void testPartialReadNotCached() throws Exception {
+        CachingFeatureSource caching = new CachingFeatureSource(store);
+        try (SimpleFeatureIterator it = caching.getFeatures().features()) {
+            it.next();
+        }
+        assertEquals(0, caching.getCache().getStatistics().getMemoryEntries());
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        CachingFeatureSource caching = new CachingFeatureSource(store);
+        Filter left = bbox(-0.5, -0.5, 4.5, 4.5);
+        Filter right = bbox(10.5, 10.5, 14.5, 14.5);
+        assertEquals(25, ids(caching.getFeatures(left)).size());
+        assertEquals(16, ids(caching.getFeatures(right)).size());
+        reads.set(0);
+
+        // adding on the left side only invalidates the left side results
+        store.addFeatures(DataUtilities.collection(feature(1000, 2.2, 2.2)));
+        assertEquals(16, ids(caching.getFeatures(right)).size());
+        assertEquals(0, reads.get());
+        assertTrue(ids(caching.getFeatures(left)).contains(1000));
+        assertEquals(1, reads.get());
+
+        // modifications invalidate everything
+        store.modifyFeatures("name", "changed", FF.id(FF.featureId("points.1000")));
+        assertEquals(16, ids(caching.getFeatures(right)).size());
+        assertEquals(2, reads.get());
+        assertTrue(caching.getCache().getStatistics().getInvalidations() >= 2);
+
+        // once disposed, the results are gone
+        caching.dispose();
+        assertEquals(0, caching.getCache().getStatistics().getMemoryEntries());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        QueryCache cache = new QueryCache(4000);
+        CachingFeatureSource caching = new CachingFeatureSource(store, cache);
+        for (int i = 0; i < 18; i++) {
+            // 4 points each
+            Filter filter = bbox(i - 0.5, i - 0.5, i + 1.5, i + 1.5);
+            assertEquals(4, ids(caching.getFeatures(filter)).size());
+        }
+        QueryCache.Statistics stats = cache.getStatistics();
+        assertTrue(stats.getEvictions() > 0);
+        assertTrue(stats.getMemoryBytes() <= 4000);
+
+        // the whole dataset is too big for this cache
+        assertEquals(400, ids(caching.getFeatures()).size());
+        assertTrue(cache.getStatistics().getMemoryBytes() <= 4000);
+    }
+
+    @Test
+    public void testSpillToDisk() throws Exception {
+        QueryCache cache = new QueryCache(1500, folder.getRoot(), 1024 * 1024);
+        CachingFeatureSource caching = new CachingFeatureSource(store, cache);
+        Filter first = bbox(0.5, 0.5, 1.5, 1.5);
+        Set<Integer> expected = ids(caching.getFeatures(first));
+        for (int i = 2; i < 10; i++) {
+            ids(caching.getFeatures(bbox(i + 0.5, i + 0.5, i + 1.5, i + 1.5)));
+        }
+        QueryCache.Statistics stats = cache.getStatistics();
+        assertTrue(stats.getSpills() > 0);
+        assertTrue(stats.getDiskEntries() > 0);
+
+        // counts of spilled results are still answered without reading
+        reads.set(0);
+        assertEquals(expected.size(), caching.getCount(new Query("points", first)));
+        assertEquals(0, reads.get());
+        assertEquals(expected, ids(caching.getFeatures(first)));
+        assertEquals(0, reads.get());
+        assertEquals(1, cache.getStatistics().getDiskHits());
+
+        cache.clear();
+        assertEquals(0, folder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void testTileSize() throws Exception {
+        CachingFeatureSource caching = new CachingFeatureSource(store);
+        caching.setTileSize(10);
+        Filter first = bbox(1.5, 1.5, 3.5, 2.5);
+        Filter second = bbox(2.5, 2.5, 4.5, 4.5);
+        Filter filtered = FF.and(second, FF.greater(FF.property("id"), FF.literal(63)));
+        Set<Integer> expectedFirst = ids(store.getFeatures(first));
+        Set<Integer> expectedSecond = ids(store.getFeatures(second));
+        Set<Integer> expectedFiltered = ids(store.getFeatures(filtered));
+        reads.set(0);
+
+        assertEquals(expectedFirst, ids(caching.getFeatures(first)));
+        assertEquals(expectedSecond, ids(caching.getFeatures(second)));
+        // both fall in the same tile, loaded once
+        assertEquals(1, reads.get());
+
+        // property selection, the cached results have the attributes needed for filtering
+        Query query = new Query("points", filtered, new String[] {"name"});
+        SimpleFeatureCollection fc = caching.getFeatures(query);
+        assertEquals(1, fc.getSchema().getAttributeCount());
+        assertEquals(expectedFiltered.size(), fc.size());
+        assertEquals(2, reads.get());
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.geotools.data.QueryStatistics.Phase;
+import org.geotools.data.memory.MemoryDataStore;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.referencing.CRS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+
+public class QueryInstrumentationTest {
+
+    static final FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    MemoryDataStore store;
+
+    List<QueryStatistics> collected = new ArrayList<>();
+
+    QueryListener listener = collected::add;
+
+    @Before
+    public void setUp() throws Exception {
+        SimpleFeatureType type =
+                DataUtilities.createType("test", "geom:Point:srid=4326,value:Integer");
+        GeometryFactory gf = new GeometryFactory();
+        store = new MemoryDataStore();
+        for (int i = 0; i < 10; i++) {
+            store.addFeature(
+                    SimpleFeatureBuilder.build(
+                            type,
+                            new Object[] {gf.createPoint(new Coordinate(i, i)), i},
+                            "test." + i));
+        }
+        QueryInstrumentation.addListener(listener);
+    }
+
+    @After
+    public void tearDown() {
+        QueryInstrumentation.removeListener(listener);
+    }
+
+    @Test
+    public void testFilteredQuery() throws Exception {
+        Filter filter = FF.greater(FF.property("value"), FF.literal(5));
+        Query query = new Query("test", filter);
+        query.setCoordinateSystemReproject(CRS.decode("EPSG:3857", true));
+        int count = 0;
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                store.getFeatureReader(query, Transaction.AUTO_COMMIT)) {
+            while (reader.hasNext()) {
+                reader.next();
+                count++;
+            }
+            assertTrue(collected.isEmpty());
+        }
+        assertEquals(4, count);
+        assertNull(QueryInstrumentation.getCurrent());
+
+        assertEquals(1, collected.size());
+        QueryStatistics stats = collected.get(0);
+        assertTrue(stats.isCompleted());
+        assertEquals("test", stats.getTypeName());
+        assertEquals(10, stats.getFeaturesRead());
+        assertEquals(4, stats.getFeaturesReturned());
+        assertEquals(6, stats.getFeaturesRejected());
+        // the memory store cannot filter, everything is evaluated in memory
+        assertEquals(Filter.INCLUDE, stats.getPreFilter());
+        assertEquals(filter, stats.getPostFilter());
+        assertEquals(0, stats.getPushdownRatio(), 0d);
+        assertTrue(stats.getTime(Phase.FILTERING, TimeUnit.NANOSECONDS) > 0);
+        assertTrue(stats.getTime(Phase.REPROJECTION, TimeUnit.NANOSECONDS) > 0);
+        assertTrue(
+                stats.getTotalTime(TimeUnit.NANOSECONDS)
+                        >= stats.getTime(Phase.EXECUTION, TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        QueryInstrumentation.removeListener(listener);
+        assertFalse(QueryInstrumentation.isEnabled());
+        try (FeatureReader<SimpleFeatureType, SimpleFeature> reader =
+                store.getFeatureReader(new Query("test"), Transaction.AUTO_COMMIT)) {
+            while (reader.hasNext()) {
+                reader.next();
+            }
+        }
+        assertTrue(collected.isEmpty());
+    }
+
+    @Test
+    public void testFailingListener() throws Exception {
+        QueryListener failing =
+                s -> {
+                    throw new RuntimeException("Failing on purpose");
+                };
+        QueryInstrumentation.addListener(failing);
+        try {
+            store.getFeatureReader(new Query("test"), Transaction.AUTO_COMMIT).close();
+        } finally {
+            QueryInstrumentation.removeListener(failing);
+        }
+        assertEquals(1, collected.size());
+        assertEquals(0, collected.get(0).getFeaturesRead());
+    }
+}
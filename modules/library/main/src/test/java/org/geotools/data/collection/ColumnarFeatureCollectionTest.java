@@ -0,0 +1,286 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.feature.IllegalAttributeException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+public class ColumnarFeatureCollectionTest {
+
+    static final GeometryFactory GF = new GeometryFactory();
+
+    SimpleFeatureType type;
+
+    List<SimpleFeature> features;
+
+    @Before
+    public void setUp() throws Exception {
+        SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        tb.setName("columnar");
+        tb.setCRS(DefaultGeographicCRS.WGS84);
+        tb.add("geom", Point.class);
+        tb.add("line", LineString.class);
+        tb.add("i", Integer.class);
+        tb.add("s", Short.class);
+        tb.add("l", Long.class);
+        tb.add("d", Double.class);
+        tb.add("f", Float.class);
+        tb.add("b", Boolean.class);
+        tb.add("name", String.class);
+        tb.add("date", Date.class);
+        type = tb.buildFeatureType();
+
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(type);
+        features = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            boolean nulls = i % 7 == 0;
+            fb.add(nulls ? null : GF.createPoint(new Coordinate(i, -i)));
+            fb.add(
+                    nulls
+                            ? null
+                            : GF.createLineString(
+                                    new Coordinate[] {
+                                        new Coordinate(i, 0), new Coordinate(0, i, i)
+                                    }));
+            fb.add(nulls ? null : i);
+            fb.add(nulls ? null : (short) -i);
+            fb.add(nulls ? null : Long.MAX_VALUE - i);
+            fb.add(nulls ? null : i / 3d);
+            fb.add(nulls ? null : i / 4f);
+            fb.add(nulls ? null : i % 2 == 0);
+            fb.add(nulls ? null : "name" + (i % 5));
+            fb.add(nulls ? null : new Date(i * 1000L));
+            features.add(fb.buildFeature("columnar." + i));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ColumnarFeatureCollection collection = new ColumnarFeatureCollection(type);
+        collection.addAll(features);
+        assertEquals(features.size(), collection.size());
+
+        int i = 0;
+        try (SimpleFeatureIterator it = collection.features()) {
+            while (it.hasNext()) {
+                SimpleFeature expected = features.get(i++);
+                SimpleFeature actual = it.next();
+                assertEquals(expected.getID(), actual.getID());
+                for (int a = 0; a < type.getAttributeCount(); a++) {
+                    Object value = expected.getAttribute(a);
+                    Object actualValue = actual.getAttribute(a);
+                    if (value instanceof Geometry) {
+                        assertTrue(((Geometry) value).equalsExact((Geometry) actualValue));
+                    } else {
+                        assertEquals(value, actualValue);
+                    }
+                }
+                assertEquals(actual, expected);
+            }
+        }
+        assertEquals(features.size(), i);
+
+        ReferencedEnvelope expected = new ListFeatureCollection(type, features).getBounds();
+        assertEquals(expected, collection.getBounds());
+    }
+
+    @Test
+    public void testCopyConstructor() throws Exception {
+        ColumnarFeatureCollection collection =
+                new ColumnarFeatureCollection(new ListFeatureCollection(type, features));
+        assertEquals(features.size(), collection.size());
+        assertEquals(collection.list.get(10), features.get(10));
+    }
+
+    @Test
+    public void testPackedStorage() throws Exception {
+        ColumnarFeatureList list = new ColumnarFeatureList(type);
+        list.addAll(features);
+
+        LineString line = (LineString) list.get(1).getAttribute("line");
+        assertTrue(
+                line.getFactory().getCoordinateSequenceFactory()
+                        instanceof PackedCoordinateSequenceFactory);
+        assertEquals(1, line.getCoordinateN(1).z, 0d);
+
+        // point with z switches on the z ordinate storage
+        SimpleFeature feature = list.get(1);
+        feature.setAttribute("geom", GF.createPoint(new Coordinate(1, 2, 3)));
+        Point point = (Point) feature.getAttribute("geom");
+        assertEquals(3, point.getCoordinate().z, 0d);
+        assertTrue(Double.isNaN(((Point) list.get(2).getAttribute("geom")).getCoordinate().z));
+
+        // dictionary encoding
+        ColumnarFeatureList.StringColumn names = (ColumnarFeatureList.StringColumn) list.columns[8];
+        assertEquals(5, names.dictionary.size());
+    }
+
+    @Test
+    public void testIdentifiers() throws Exception {
+        ColumnarFeatureList list = new ColumnarFeatureList(type);
+        String[] ids = {
+            "columnar.1", "columnar.02", "other.3", "nodigits", "columnar.12345678901234567890"
+        };
+        for (String id : ids) {
+            list.add(SimpleFeatureBuilder.build(type, new Object[0], id));
+        }
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], list.get(i).getID());
+        }
+        assertEquals("columnar.", list.ids.prefix);
+        assertTrue(list.ids.textual.get(1));
+        assertTrue(!list.ids.textual.get(0));
+    }
+
+    @Test
+    public void testSetAttribute() throws Exception {
+        ColumnarFeatureList list = new ColumnarFeatureList(type);
+        list.addAll(features);
+
+        SimpleFeature feature = list.get(3);
+        feature.setAttribute("d", "2.5");
+        assertEquals(2.5, list.get(3).getAttribute("d"));
+        feature.setAttribute("i", null);
+        assertNull(list.get(3).getAttribute("i"));
+        try {
+            feature.setAttribute("i", "abc");
+            fail("Should not be able to store a non numeric value");
+        } catch (IllegalAttributeException e) {
+            // fine
+        }
+        feature.getUserData().put("key", "value");
+        assertEquals("value", list.get(3).getUserData().get("key"));
+        assertTrue(list.get(4).getUserData().isEmpty());
+    }
+
+    @Test
+    public void testUserData() throws Exception {
+        ColumnarFeatureList list = new ColumnarFeatureList(type);
+        list.addAll(features);
+
+        // reading and copying features does not allocate user data
+        SimpleFeatureBuilder.copy(list.get(2));
+        assertTrue(list.get(2).getUserData().isEmpty());
+        assertNull(list.userData);
+
+        // setting a feature replaces its user data instead of merging it
+        list.get(2).getUserData().put("old", "value");
+        SimpleFeature replacement = SimpleFeatureBuilder.copy(features.get(2));
+        replacement.getUserData().put("new", "value");
+        list.set(2, replacement);
+        assertNull(list.get(2).getUserData().get("old"));
+        assertEquals("value", list.get(2).getUserData().get("new"));
+
+        // storing a row onto itself keeps its user data
+        list.set(2, list.get(2));
+        assertEquals("value", list.get(2).getUserData().get("new"));
+
+        list.get(2).getUserData().clear();
+        assertNull(list.userData[2]);
+    }
+
+    @Test
+    public void testFeatureMap() throws Exception {
+        ColumnarFeatureMap map = new ColumnarFeatureMap(type);
+        for (SimpleFeature feature : features) {
+            map.put(feature.getID(), feature);
+        }
+        assertEquals(features.size(), map.size());
+        List<SimpleFeature> values = new ArrayList<>(map.values());
+        for (int i = 0; i < features.size(); i++) {
+            assertEquals(values.get(i), features.get(i));
+        }
+        assertEquals(map.get("columnar.10"), features.get(10));
+        assertNull(map.get("columnar.100"));
+
+        // replacing keeps the position, removing leaves the other rows in place
+        SimpleFeature replacement = SimpleFeatureBuilder.copy(features.get(10));
+        replacement.setAttribute("i", 1000);
+        assertEquals(10, map.put(replacement.getID(), replacement).getAttribute("i"));
+        assertEquals(map.remove("columnar.20"), features.get(20));
+        assertFalse(map.containsKey("columnar.20"));
+        assertEquals(features.size() - 1, map.size());
+        assertEquals(features.size(), map.list.size());
+        values = new ArrayList<>(map.values());
+        assertEquals(1000, values.get(10).getAttribute("i"));
+        assertEquals(values.get(20), features.get(21));
+
+        // removal while iterating
+        Iterator<SimpleFeature> it = map.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().getAttribute("i") != null) {
+                it.remove();
+            }
+        }
+        assertEquals(8, map.size());
+        assertTrue(map.containsKey("columnar.7"));
+        assertFalse(map.containsKey("columnar.8"));
+
+        try {
+            map.put("other", features.get(0));
+            fail("Features must be stored under their identifier");
+        } catch (IllegalArgumentException e) {
+            // fine
+        }
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.list.size());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        ColumnarFeatureList list = new ColumnarFeatureList(type);
+        list.addAll(features);
+
+        SimpleFeature removed = list.remove(5);
+        assertEquals(features.get(5), removed);
+        assertEquals(features.size() - 1, list.size());
+        for (int i = 5; i < list.size(); i++) {
+            assertEquals(list.get(i), features.get(i + 1));
+        }
+
+        list.clear();
+        assertEquals(0, list.size());
+        list.add(features.get(0));
+        assertEquals(list.get(0), features.get(0));
+    }
+}
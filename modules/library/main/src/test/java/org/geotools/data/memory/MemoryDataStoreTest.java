@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import org.geotools.data.DataStore;
 import org.geotools.data.DataTestCase;
@@ -46,6 +47,7 @@ import org.geotools.data.simple.SimpleFeatureStore;
 import org.geotools.data.store.ContentFeatureStore;
 import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureImpl;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
 import org.geotools.geometry.jts.GeometryCoordinateSequenceTransformer;
 import org.geotools.geometry.jts.ReferencedEnvelope;
@@ -1499,6 +1501,29 @@ public class MemoryDataStoreTest extends DataTestCase {
         assertEquals(2, mds.entry("road").getMemory().size());
     }
 
+    public void testColumnarStorage() throws IOException {
+        MemoryDataStore mds = new MemoryDataStore();
+        mds.setColumnar(true);
+        mds.addFeatures(roadFeatures);
+
+        Map<String, SimpleFeature> memory = mds.entry("road").getMemory();
+        assertEquals(roadFeatures.length, memory.size());
+        for (SimpleFeature road : roadFeatures) {
+            SimpleFeature stored = memory.get(road.getID());
+            assertFalse(stored instanceof SimpleFeatureImpl);
+            assertEquals(stored, road);
+        }
+
+        SimpleFeatureStore road = (SimpleFeatureStore) mds.getFeatureSource("road");
+        road.modifyFeatures(roadType.getDescriptor("name").getName(), "changed", rd1Filter);
+        assertEquals("changed", memory.get("road.rd1").getAttribute("name"));
+        assertEquals("changed", road.getFeatures(rd1Filter).features().next().getAttribute("name"));
+
+        road.removeFeatures(rd1Filter);
+        road.addFeatures(DataUtilities.collection(new SimpleFeature[] {newRoad}));
+        assertEquals(roadFeatures.length, road.getCount(Query.ALL));
+    }
+
     public void testCallingAddFeaturesWithArrayTwiceAndExtentInitialCollection()
             throws IOException {
         MemoryDataStore mds = new MemoryDataStore();
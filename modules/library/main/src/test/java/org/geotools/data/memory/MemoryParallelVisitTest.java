@@ -0,0 +1,230 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.memory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.Query;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.visitor.Aggregate;
+import org.geotools.feature.visitor.AverageVisitor;
+import org.geotools.feature.visitor.BoundsVisitor;
+import org.geotools.feature.visitor.CountVisitor;
+import org.geotools.feature.visitor.FeatureCalc;
+import org.geotools.feature.visitor.GroupByVisitor;
+import org.geotools.feature.visitor.GroupByVisitorBuilder;
+import org.geotools.feature.visitor.MaxVisitor;
+import org.geotools.feature.visitor.MedianVisitor;
+import org.geotools.feature.visitor.MergeableFeatureVisitor;
+import org.geotools.feature.visitor.MinVisitor;
+import org.geotools.feature.visitor.QuantileListVisitor;
+import org.geotools.feature.visitor.StandardDeviationVisitor;
+import org.geotools.feature.visitor.SumVisitor;
+import org.geotools.feature.visitor.UniqueVisitor;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.Feature;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+
+public class MemoryParallelVisitTest {
+
+    static final FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    MemoryDataStore store;
+
+    MemoryFeatureStore source;
+
+    Filter filter = FF.greater(FF.property("value"), FF.literal(100));
+
+    @Before
+    public void setUp() throws Exception {
+        SimpleFeatureType type =
+                DataUtilities.createType("test", "geom:Point:srid=4326,value:Integer,cat:String");
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(type);
+        GeometryFactory gf = new GeometryFactory();
+        List<SimpleFeature> features = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            fb.add(gf.createPoint(new Coordinate(i % 360 - 180, i % 180 - 90)));
+            fb.add((i * 7919) % 1000);
+            fb.add("c" + (i % 7));
+            features.add(fb.buildFeature("test." + i));
+        }
+        store = new MemoryDataStore();
+        store.addFeatures(features);
+        store.setVisitThreads(4);
+        source = (MemoryFeatureStore) store.getFeatureSource("test");
+        // split the 1000 features in 4 segments
+        source.delegate.minPartitionSize = 100;
+    }
+
+    @Test
+    public void testVisitorsMatchSequentialVisit() throws Exception {
+        assertSameResult(new CountVisitor(), new CountVisitor());
+        assertSameResult(
+                new SumVisitor(FF.property("value")), new SumVisitor(FF.property("value")));
+        assertSameResult(
+                new AverageVisitor(FF.property("value")), new AverageVisitor(FF.property("value")));
+        assertSameResult(new MaxVisitor("value"), new MaxVisitor("value"));
+        assertSameResult(new MinVisitor("value"), new MinVisitor("value"));
+
+        BoundsVisitor parallelBounds = new BoundsVisitor();
+        BoundsVisitor sequentialBounds = new BoundsVisitor();
+        visit(parallelBounds, sequentialBounds);
+        Envelope expectedBounds = new Envelope(sequentialBounds.getBounds());
+        assertEquals(expectedBounds, new Envelope(parallelBounds.getBounds()));
+
+        QuantileListVisitor parallelQuantiles = new QuantileListVisitor(FF.property("value"), 5);
+        QuantileListVisitor sequentialQuantiles = new QuantileListVisitor(FF.property("value"), 5);
+        visit(parallelQuantiles, sequentialQuantiles);
+        assertArrayEquals(
+                (Object[]) sequentialQuantiles.getResult().getValue(),
+                (Object[]) parallelQuantiles.getResult().getValue());
+
+        StandardDeviationVisitor parallelDeviation =
+                new StandardDeviationVisitor(FF.property("value"));
+        StandardDeviationVisitor sequentialDeviation =
+                new StandardDeviationVisitor(FF.property("value"));
+        visit(parallelDeviation, sequentialDeviation);
+        assertEquals(
+                sequentialDeviation.getResult().toDouble(),
+                parallelDeviation.getResult().toDouble(),
+                1e-9);
+        assertEquals(sequentialDeviation.getMean(), parallelDeviation.getMean(), 1e-9);
+
+        UniqueVisitor parallelUnique = new UniqueVisitor("cat");
+        parallelUnique.setPreserveOrder(true);
+        UniqueVisitor sequentialUnique = new UniqueVisitor("cat");
+        sequentialUnique.setPreserveOrder(true);
+        visit(parallelUnique, sequentialUnique);
+        assertArrayEquals(
+                sequentialUnique.getUnique().toArray(), parallelUnique.getUnique().toArray());
+
+        GroupByVisitor parallelGroupBy = groupBy(Aggregate.STD_DEV);
+        GroupByVisitor sequentialGroupBy = groupBy(Aggregate.STD_DEV);
+        visit(parallelGroupBy, sequentialGroupBy);
+        Map<?, ?> expected = sequentialGroupBy.getResult().toMap();
+        Map<?, ?> actual = parallelGroupBy.getResult().toMap();
+        assertEquals(7, actual.size());
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Object key : expected.keySet()) {
+            assertEquals((Double) expected.get(key), (Double) actual.get(key), 1e-9);
+        }
+
+        // the median cannot be merged, falls back on a sequential visit
+        assertNull(groupBy(Aggregate.MEDIAN).split());
+        assertFalse(new MedianVisitor("value") instanceof MergeableFeatureVisitor);
+    }
+
+    GroupByVisitor groupBy(Aggregate aggregate) throws Exception {
+        SimpleFeatureType schema = source.getSchema();
+        return new GroupByVisitorBuilder()
+                .withAggregateAttribute("value", schema)
+                .withAggregateVisitor(aggregate)
+                .withGroupByAttribute("cat", schema)
+                .build();
+    }
+
+    @Test
+    public void testPartitionsVisitedOnOtherThreads() throws Exception {
+        ThreadVisitor visitor = new ThreadVisitor();
+        source.getFeatures(new Query("test", filter)).accepts(visitor, null);
+        assertEquals(4, visitor.threads.size());
+        assertFalse(visitor.threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void testSequentialFallback() throws Exception {
+        // not enough features for two partitions
+        source.delegate.minPartitionSize = 1000;
+        ThreadVisitor visitor = new ThreadVisitor();
+        source.getFeatures().accepts(visitor, null);
+        assertEquals(1, visitor.threads.size());
+        assertTrue(visitor.threads.contains(Thread.currentThread().getName()));
+
+        // paging depends on the visit order
+        source.delegate.minPartitionSize = 100;
+        visitor = new ThreadVisitor();
+        Query query = new Query("test");
+        query.setMaxFeatures(500);
+        source.getFeatures(query).accepts(visitor, null);
+        assertEquals(1, visitor.threads.size());
+
+        // visitors with limits or optimized results cannot be split
+        UniqueVisitor unique = new UniqueVisitor("cat");
+        unique.setMaxFeatures(2);
+        assertNull(unique.split());
+        AverageVisitor average = new AverageVisitor(FF.property("value"));
+        average.setValue(10d);
+        assertNull(average.split());
+        assertNotNull(new AverageVisitor(FF.property("value")).split());
+    }
+
+    void assertSameResult(FeatureCalc parallel, FeatureCalc sequential) throws Exception {
+        visit(parallel, sequential);
+        assertEquals(sequential.getResult().getValue(), parallel.getResult().getValue());
+    }
+
+    void visit(FeatureCalc parallel, FeatureCalc sequential) throws Exception {
+        Query query = new Query("test", filter);
+        SimpleFeatureCollection features = source.getFeatures(query);
+        features.accepts(parallel, null);
+        // plain iteration, no parallelism involved
+        DataUtilities.visit(features, sequential, null);
+    }
+
+    /** Records the names of the threads used to visit the features */
+    static class ThreadVisitor implements MergeableFeatureVisitor {
+
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void visit(Feature feature) {
+            threads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public MergeableFeatureVisitor split() {
+            ThreadVisitor copy = new ThreadVisitor();
+            copy.threads = threads;
+            return copy;
+        }
+
+        @Override
+        public void merge(MergeableFeatureVisitor partial) {
+            // shared set, nothing to do
+        }
+    }
+}
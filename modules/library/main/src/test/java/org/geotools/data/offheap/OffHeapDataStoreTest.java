@@ -0,0 +1,198 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.offheap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.Query;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.simple.SimpleFeatureSource;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.DefaultFeatureCollection;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+public class OffHeapDataStoreTest {
+
+    static final int FEATURES = 1000;
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    SimpleFeatureType schema;
+
+    DefaultFeatureCollection features;
+
+    OffHeapDataStore store;
+
+    @Before
+    public void setup() throws IOException {
+        SimpleFeatureTypeBuilder typeBuilder = new SimpleFeatureTypeBuilder();
+        typeBuilder.setName("points");
+        typeBuilder.setCRS(DefaultGeographicCRS.WGS84);
+        typeBuilder.add("geom", Point.class);
+        typeBuilder.add("id", Integer.class);
+        typeBuilder.add("name", String.class);
+        schema = typeBuilder.buildFeatureType();
+
+        GeometryFactory gf = new GeometryFactory();
+        SimpleFeatureBuilder builder = new SimpleFeatureBuilder(schema);
+        features = new DefaultFeatureCollection(null, schema);
+        for (int i = 0; i < FEATURES; i++) {
+            // a 40x25 grid of points
+            builder.add(gf.createPoint(new Coordinate(i % 40, i / 40)));
+            builder.add(i);
+            // leave some null values around
+            builder.add(i % 10 == 0 ? null : "name" + i);
+            features.add(builder.buildFeature("points." + i));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.dispose();
+        }
+    }
+
+    @Test
+    public void testDirectBuffers() throws Exception {
+        store = new OffHeapDataStore();
+        store.addFeatures(features);
+        assertContents();
+    }
+
+    @Test
+    public void testMemoryMapped() throws Exception {
+        File directory = folder.newFolder("offheap");
+        // small chunks to force the use of many files
+        store = new OffHeapDataStore(directory, 4096);
+        store.addFeatures(features);
+        assertTrue(directory.listFiles().length > 1);
+        assertContents();
+
+        store.dispose();
+        store = null;
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        store = new OffHeapDataStore(null, 4096);
+        store.addFeatures(DataUtilities.reader(features.toArray(new SimpleFeature[0])));
+        SimpleFeatureSource fs = store.getFeatureSource("points");
+        assertEquals(FEATURES, fs.getCount(Query.ALL));
+        // the index gets rebuilt to include the new features
+        assertEquals(4, fs.getFeatures(FF.bbox("geom", 0, 0, 1, 1, null)).size());
+
+        store.addFeatures(features);
+        assertEquals(FEATURES * 2, fs.getCount(Query.ALL));
+        assertEquals(8, fs.getFeatures(FF.bbox("geom", 0, 0, 1, 1, null)).size());
+    }
+
+    @Test
+    public void testRemoveSchema() throws Exception {
+        store = new OffHeapDataStore();
+        store.addFeatures(features);
+        assertEquals(1, store.getTypeNames().length);
+        store.removeSchema("points");
+        assertEquals(0, store.getTypeNames().length);
+    }
+
+    private void assertContents() throws IOException {
+        assertEquals(1, store.getTypeNames().length);
+        SimpleFeatureSource fs = store.getFeatureSource("points");
+        assertEquals(schema, fs.getSchema());
+        assertEquals(FEATURES, fs.getCount(Query.ALL));
+        assertEquals(
+                new ReferencedEnvelope(0, 39, 0, 24, DefaultGeographicCRS.WGS84),
+                fs.getBounds());
+
+        // full scan returns features in insertion order
+        SimpleFeature[] expectedFeatures = features.toArray(new SimpleFeature[FEATURES]);
+        int i = 0;
+        try (SimpleFeatureIterator it = fs.getFeatures().features()) {
+            while (it.hasNext()) {
+                SimpleFeature feature = it.next();
+                SimpleFeature expected = expectedFeatures[i];
+                assertEquals(expected.getID(), feature.getID());
+                assertEquals(expected.getAttributes(), feature.getAttributes());
+                i++;
+            }
+        }
+        assertEquals(FEATURES, i);
+
+        // bbox query, served by the index
+        Filter bbox = FF.bbox("geom", 9.5, 9.5, 12.5, 11.5, null);
+        assertIds(fs.getFeatures(bbox), 410, 411, 412, 450, 451, 452);
+
+        // bbox combined with an attribute filter, evaluated after the index lookup
+        Filter and = FF.and(bbox, FF.greater(FF.property("id"), FF.literal(420)));
+        assertIds(fs.getFeatures(and), 450, 451, 452);
+
+        // attribute only filter
+        Filter nullName = FF.isNull(FF.property("name"));
+        SimpleFeatureCollection nulls = fs.getFeatures(nullName);
+        assertEquals(FEATURES / 10, nulls.size());
+
+        // bbox outside of the data
+        assertTrue(fs.getFeatures(FF.bbox("geom", 100, 100, 101, 101, null)).isEmpty());
+    }
+
+    private void assertIds(SimpleFeatureCollection fc, int... ids) {
+        Set<Object> expected = new HashSet<>();
+        for (int id : ids) {
+            expected.add(id);
+        }
+        Set<Object> actual = new HashSet<>();
+        try (SimpleFeatureIterator it = fc.features()) {
+            while (it.hasNext()) {
+                SimpleFeature feature = it.next();
+                assertFalse(actual.contains(feature.getAttribute("id")));
+                if (((Integer) feature.getAttribute("id")) % 10 == 0) {
+                    assertNull(feature.getAttribute("name"));
+                }
+                actual.add(feature.getAttribute("id"));
+            }
+        }
+        assertEquals(expected, actual);
+    }
+}
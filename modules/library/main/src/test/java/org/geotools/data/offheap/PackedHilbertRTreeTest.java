@@ -0,0 +1,118 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.offheap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+
+public class PackedHilbertRTreeTest {
+
+    @Test
+    public void testEmpty() {
+        PackedHilbertRTree tree = PackedHilbertRTree.build(DoubleBuffer.allocate(0), 0);
+        assertEquals(0, tree.size());
+        assertTrue(tree.getBounds().isNull());
+        assertEquals(0, tree.search(new Envelope(-10, 10, -10, 10)).length);
+    }
+
+    @Test
+    public void testSearchAgainstBruteForce() {
+        Random random = new Random(42);
+        for (int numItems : new int[] {1, 15, 16, 17, 256, 257, 10000}) {
+            DoubleBuffer bounds = randomBounds(random, numItems);
+            PackedHilbertRTree tree = PackedHilbertRTree.build(bounds, numItems);
+            assertEquals(numItems, tree.size());
+            for (int i = 0; i < 50; i++) {
+                double x = random.nextDouble() * 100;
+                double y = random.nextDouble() * 100;
+                Envelope area = new Envelope(x, x + 10, y, y + 10);
+                assertArrayEquals(bruteForce(bounds, numItems, area), tree.search(area));
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyItems() {
+        DoubleBuffer bounds = DoubleBuffer.allocate(3 * 4);
+        bounds.put(new double[] {0, 0, 1, 1});
+        double inf = Double.POSITIVE_INFINITY;
+        bounds.put(new double[] {inf, inf, -inf, -inf});
+        bounds.put(new double[] {2, 2, 3, 3});
+        PackedHilbertRTree tree = PackedHilbertRTree.build(bounds, 3);
+        assertEquals(new Envelope(0, 3, 0, 3), tree.getBounds());
+        assertArrayEquals(new int[] {0, 2}, tree.search(new Envelope(-inf, inf, -inf, inf)));
+    }
+
+    @Test
+    public void testWriteAndWrap() throws Exception {
+        Random random = new Random(42);
+        DoubleBuffer bounds = randomBounds(random, 1000);
+        PackedHilbertRTree tree = PackedHilbertRTree.build(bounds, 1000);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        tree.write(Channels.newChannel(bos));
+        assertEquals(PackedHilbertRTree.getBufferSize(1000, 16), bos.size());
+
+        PackedHilbertRTree wrapped = PackedHilbertRTree.wrap(ByteBuffer.wrap(bos.toByteArray()));
+        assertEquals(tree.size(), wrapped.size());
+        assertEquals(tree.getBounds(), wrapped.getBounds());
+        Envelope area = new Envelope(20, 40, 20, 40);
+        assertArrayEquals(tree.search(area), wrapped.search(area));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrapInvalid() {
+        PackedHilbertRTree.wrap(ByteBuffer.allocate(64));
+    }
+
+    private DoubleBuffer randomBounds(Random random, int numItems) {
+        DoubleBuffer bounds = DoubleBuffer.allocate(numItems * 4);
+        for (int i = 0; i < numItems; i++) {
+            double x = random.nextDouble() * 100;
+            double y = random.nextDouble() * 100;
+            bounds.put(x).put(y).put(x + random.nextDouble()).put(y + random.nextDouble());
+        }
+        return bounds;
+    }
+
+    private int[] bruteForce(DoubleBuffer bounds, int numItems, Envelope area) {
+        int[] result = new int[numItems];
+        int size = 0;
+        for (int i = 0; i < numItems; i++) {
+            Envelope item =
+                    new Envelope(
+                            bounds.get(i * 4),
+                            bounds.get(i * 4 + 2),
+                            bounds.get(i * 4 + 1),
+                            bounds.get(i * 4 + 3));
+            if (item.intersects(area)) {
+                result[size++] = i;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
@@ -2,9 +2,11 @@ package org.geotools.data.sort;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.NoSuchElementException;
 import org.geotools.data.simple.DelegateSimpleFeatureReader;
@@ -48,6 +50,8 @@ public class SortedReaderTest {
 
     private SortBy[] dateAsc;
 
+    private SortBy[] geomAsc;
+
     @Before
     public void setup() throws IOException {
         SimpleFeatureTypeBuilder typeBuilder = new SimpleFeatureTypeBuilder();
@@ -120,6 +124,7 @@ public class SortedReaderTest {
         dateAsc = new SortBy[] {ff.sort("date", SortOrder.ASCENDING)};
         fidAsc = new SortBy[] {SortBy.NATURAL_ORDER};
         nullAsc = new SortBy[] {ff.sort("null", SortOrder.ASCENDING)};
+        geomAsc = new SortBy[] {ff.sort("defaultGeom", SortOrder.ASCENDING)};
     }
 
     @After
@@ -133,6 +138,7 @@ public class SortedReaderTest {
         assertTrue(SortedFeatureReader.canSort(schema, peopleDesc));
         assertTrue(SortedFeatureReader.canSort(schema, fidAsc));
         assertFalse(SortedFeatureReader.canSort(schema, nullAsc));
+        assertTrue(SortedFeatureReader.canSort(schema, geomAsc));
     }
 
     @Test
@@ -263,6 +269,78 @@ public class SortedReaderTest {
         }
     }
 
+    @Test
+    public void testFileSortGeometry() throws IOException {
+        // make it so that we are going to hit the disk with several runs
+        Comparator<SimpleFeature> comparator = SortedFeatureReader.getComparator(geomAsc, schema);
+        assertTrue(comparator instanceof HilbertComparator);
+        SimpleFeatureReader sr = null;
+        try {
+            sr = new SortedFeatureReader(fr, geomAsc, 30);
+            SimpleFeature prev = null;
+            int count = 0;
+            while (sr.hasNext()) {
+                SimpleFeature f = sr.next();
+                if (prev != null) {
+                    assertTrue(comparator.compare(prev, f) <= 0);
+                } else {
+                    // null geometries go first
+                    assertNull(f.getDefaultGeometry());
+                }
+                prev = f;
+                count++;
+            }
+            assertEquals(fc.size(), count);
+        } finally {
+            if (sr != null) {
+                sr.close();
+            }
+        }
+    }
+
+    @Test
+    public void testFileSortMultipleMergePasses() throws IOException {
+        // only two runs merged at a time, forces several merge passes
+        System.setProperty(MergeSortDumper.MERGE_FILES_KEY, "2");
+        SimpleFeatureReader sr = null;
+        try {
+            sr = new SortedFeatureReader(fr, peopleAsc, 10);
+            assertSortedOnPeopleAsc(sr);
+        } finally {
+            System.clearProperty(MergeSortDumper.MERGE_FILES_KEY);
+            if (sr != null) {
+                sr.close();
+            }
+        }
+    }
+
+    @Test
+    public void testFileSortSingleThread() throws IOException {
+        System.setProperty(MergeSortDumper.SORT_THREADS_KEY, "1");
+        SimpleFeatureReader sr = null;
+        try {
+            sr = new SortedFeatureReader(fr, peopleAsc, 7);
+            assertSortedOnPeopleAsc(sr);
+        } finally {
+            System.clearProperty(MergeSortDumper.SORT_THREADS_KEY);
+            if (sr != null) {
+                sr.close();
+            }
+        }
+    }
+
+    @Test
+    public void testHilbertCurve() {
+        long max = HilbertComparator.MAX_ORDINAL;
+        assertEquals(0, HilbertComparator.hilbert(0, 0));
+        // the curve visits the quadrants counter clockwise from the lower left one
+        assertEquals(1, HilbertComparator.hilbert(0, max) >>> 62);
+        assertEquals(2, HilbertComparator.hilbert(max, max) >>> 62);
+        assertEquals(3, HilbertComparator.hilbert(max, 0) >>> 62);
+        // and ends in the lower right corner
+        assertEquals(-1L, HilbertComparator.hilbert(max, 0));
+    }
+
     private void assertSortedOnPeopleAsc(SimpleFeatureReader fr)
             throws IllegalArgumentException, NoSuchElementException, IOException {
         double prev = -1;
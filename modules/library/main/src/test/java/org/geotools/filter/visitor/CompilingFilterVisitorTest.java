@@ -0,0 +1,183 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.filter.visitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.geotools.data.DataUtilities;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.filter.visitor.CompilingFilterVisitor.CompiledComparison;
+import org.geotools.filter.visitor.CompilingFilterVisitor.IndexedPropertyName;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+
+public class CompilingFilterVisitorTest {
+
+    FilterFactory ff = CommonFactoryFinder.getFilterFactory();
+
+    SimpleFeatureType ft;
+
+    List<SimpleFeature> features;
+
+    @Before
+    public void setup() throws Exception {
+        ft =
+                DataUtilities.createType(
+                        "test",
+                        "i:java.lang.Integer,l:java.lang.Long,d:java.lang.Double,f:java.lang.Float,label:String");
+        features = new ArrayList<>();
+        features.add(DataUtilities.createFeature(ft, "f1=10|100|1.5|1.5|abc"));
+        features.add(DataUtilities.createFeature(ft, "f2=20|200|2.5|2.5|ABC"));
+        features.add(DataUtilities.createFeature(ft, "f3=30|300|-0.0|3.5|def"));
+        features.add(DataUtilities.createFeature(ft, "f4=<null>|<null>|<null>|<null>|<null>"));
+    }
+
+    /** Checks the compiled filter evaluates like the original one on all test features */
+    private Filter assertCompiled(Filter filter) {
+        Filter compiled = CompilingFilterVisitor.compile(filter, ft);
+        for (SimpleFeature f : features) {
+            assertEquals(filter + " on " + f.getID(), filter.evaluate(f), compiled.evaluate(f));
+        }
+        return compiled;
+    }
+
+    @Test
+    public void testIndexedProperty() {
+        Expression compiled = CompilingFilterVisitor.compile(ff.property("d"), ft);
+        assertTrue(compiled instanceof IndexedPropertyName);
+        assertEquals(2, ((IndexedPropertyName) compiled).index);
+        assertEquals(Double.valueOf(1.5), compiled.evaluate(features.get(0)));
+        assertEquals("1.5", compiled.evaluate(features.get(0), String.class));
+        // not an attribute of the type, left alone
+        Expression missing = CompilingFilterVisitor.compile(ff.property("missing"), ft);
+        assertEquals(ff.property("missing"), missing);
+    }
+
+    @Test
+    public void testNumericComparisons() {
+        for (String attribute : new String[] {"i", "l", "d"}) {
+            for (Object value : new Object[] {20, 200L, 2.5d, 0d}) {
+                Expression p = ff.property(attribute);
+                Expression v = ff.literal(value);
+                assertCompiled(ff.greater(p, v));
+                assertCompiled(ff.greaterOrEqual(p, v));
+                assertCompiled(ff.less(p, v));
+                assertCompiled(ff.lessOrEqual(p, v));
+                assertCompiled(ff.greater(v, p));
+                assertCompiled(ff.lessOrEqual(v, p));
+                assertCompiled(ff.equals(p, v));
+                assertCompiled(ff.notEqual(p, v));
+            }
+        }
+    }
+
+    @Test
+    public void testLargeLongs() throws Exception {
+        // 2^53 + 1 has no exact double representation
+        SimpleFeature large = DataUtilities.createFeature(ft, "f5=0|0|0|0|x");
+        large.setAttribute("l", 9007199254740993L);
+        features.add(large);
+        Filter compiled =
+                assertCompiled(ff.greater(ff.property("l"), ff.literal(9007199254740992L)));
+        assertTrue(compiled instanceof CompiledComparison);
+        assertTrue(compiled.evaluate(large));
+        compiled = assertCompiled(ff.less(ff.literal(9007199254740992L), ff.property("l")));
+        assertTrue(compiled.evaluate(large));
+        compiled = assertCompiled(ff.lessOrEqual(ff.property("l"), ff.literal(9007199254740992L)));
+        assertTrue(!compiled.evaluate(large));
+    }
+
+    @Test
+    public void testCompiledComparison() {
+        Filter compiled = assertCompiled(ff.greater(ff.property("i"), ff.literal(15)));
+        assertTrue(compiled instanceof CompiledComparison);
+        assertTrue(compiled instanceof PropertyIsGreaterThan);
+        // floats are aligned differently, not compiled
+        compiled = assertCompiled(ff.greater(ff.property("f"), ff.literal(2)));
+        assertTrue(!(compiled instanceof CompiledComparison));
+    }
+
+    @Test
+    public void testMixedTypes() {
+        assertCompiled(ff.greater(ff.property("i"), ff.literal("15")));
+        assertCompiled(ff.equals(ff.property("i"), ff.literal("10")));
+        assertCompiled(ff.equals(ff.property("label"), ff.literal(10)));
+        assertCompiled(ff.equals(ff.property("f"), ff.literal(1.5)));
+        assertCompiled(ff.less(ff.property("label"), ff.literal("b")));
+    }
+
+    @Test
+    public void testStringEquality() {
+        assertCompiled(ff.equal(ff.property("label"), ff.literal("abc"), true));
+        assertCompiled(ff.equal(ff.property("label"), ff.literal("abc"), false));
+        assertCompiled(ff.notEqual(ff.property("label"), ff.literal("abc"), true));
+        assertCompiled(ff.notEqual(ff.property("label"), ff.literal("abc"), false));
+    }
+
+    @Test
+    public void testLogicAndMath() {
+        assertCompiled(
+                ff.and(
+                        ff.greater(ff.property("i"), ff.literal(10)),
+                        ff.not(ff.equals(ff.property("label"), ff.literal("def")))));
+        assertCompiled(
+                ff.or(
+                        ff.less(ff.add(ff.property("d"), ff.literal("1")), ff.literal(3)),
+                        ff.isNull(ff.property("l"))));
+        assertCompiled(ff.between(ff.property("l"), ff.literal(100), ff.literal(250)));
+    }
+
+    @Test
+    public void testConstantFolding() {
+        Expression compiled =
+                CompilingFilterVisitor.compile(
+                        ff.multiply(ff.add(ff.literal(1), ff.literal("2")), ff.literal(10)), ft);
+        assertTrue(compiled instanceof Literal);
+        assertEquals(30d, ((Number) compiled.evaluate(null)).doubleValue(), 0d);
+    }
+
+    @Test
+    public void testOtherTypes() throws Exception {
+        Filter filter = ff.less(ff.property("i"), ff.literal(25));
+        Filter compiled = CompilingFilterVisitor.compile(filter, ft);
+        // same attribute at the same index
+        SimpleFeatureType same = DataUtilities.createType("other", "i:java.lang.Integer,x:String");
+        assertTrue(compiled.evaluate(DataUtilities.createFeature(same, "o1=20|x")));
+        // attribute at a different index
+        SimpleFeatureType moved = DataUtilities.createType("other", "x:String,i:java.lang.Integer");
+        assertTrue(compiled.evaluate(DataUtilities.createFeature(moved, "o1=x|20")));
+        assertTrue(!compiled.evaluate(DataUtilities.createFeature(moved, "o1=x|30")));
+    }
+
+    @Test
+    public void testNotCompiled() {
+        assertSame(Filter.INCLUDE, CompilingFilterVisitor.compile(Filter.INCLUDE, ft));
+        Filter filter = ff.equals(ff.property("i"), ff.literal(10));
+        assertSame(filter, CompilingFilterVisitor.compile(filter, null));
+    }
+}
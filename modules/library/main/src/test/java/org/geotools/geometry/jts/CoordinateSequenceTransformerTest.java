@@ -31,6 +31,8 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.CoordinateSequence;
 import org.locationtech.jts.geom.CoordinateSequenceFactory;
 import org.locationtech.jts.geom.DefaultCoordinateSequenceFactory;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
@@ -125,6 +127,44 @@ public class CoordinateSequenceTransformerTest {
         assertEquals(reference.getOrdinate(0, 1), transformed.getOrdinate(0, 1), 0.0);
     }
 
+    @Test
+    public void testPackedSequences() throws Exception {
+        CoordinateReferenceSystem sourceCrs = CRS.parseWKT(JTSTest.UTM_ZONE_10N);
+        MathTransform tx = CRS.findMathTransform(sourceCrs, DefaultGeographicCRS.WGS84, true);
+        final Random random = new Random(546757437746704345L);
+        // larger than the transformer buffer
+        final Coordinate[] source = new Coordinate[2000];
+        for (int i = 0; i < source.length; i++) {
+            source[i] =
+                    new Coordinate(
+                            400000 + 200000 * random.nextDouble(),
+                            4000000 + 1000000 * random.nextDouble());
+        }
+        CoordinateSequence reference = transform(csFactory.create(source), tx);
+
+        // 2D packed sequences, transformed directly on their ordinate arrays
+        CoordinateSequence[] sequences = {
+            new PackedCoordinateSequence.Double(source, 2), new LiteCoordinateSequence(source)
+        };
+        CoordinateSequenceFactory[] factories = {
+            PackedCoordinateSequenceFactory.DOUBLE_FACTORY, new LiteCoordinateSequenceFactory()
+        };
+        for (int f = 0; f < factories.length; f++) {
+            CoordinateSequence packed = sequences[f];
+            CoordinateSequenceFactory factory = factories[f];
+            DefaultCoordinateSequenceTransformer cst =
+                    new DefaultCoordinateSequenceTransformer(factory);
+            CoordinateSequence transformed = cst.transform(packed, tx);
+            assertEquals(reference.size(), transformed.size());
+            for (int i = 0; i < reference.size(); i++) {
+                assertEquals(reference.getX(i), transformed.getX(i), 0.0);
+                assertEquals(reference.getY(i), transformed.getY(i), 0.0);
+            }
+            // the source has not been touched
+            assertEquals(source[0].x, packed.getX(0), 0.0);
+        }
+    }
+
     /** The following is basically a copy-and-paste of a previous implementation by Andrea Aime. */
     private CoordinateSequence transform(final CoordinateSequence cs, final MathTransform transform)
             throws TransformException {
@@ -19,15 +19,14 @@
  */
 package org.geotools.referencing.factory;
 
-import java.lang.ref.Reference;
-import java.lang.ref.WeakReference;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import javax.measure.Unit;
@@ -60,16 +59,19 @@ import org.opengis.util.InternationalString;
  *
  * <p>Objects are cached by strong references, up to the amount of objects specified at construction
  * time. If a greater amount of objects are cached, the oldest ones will be retained through a
- * {@linkplain WeakReference weak reference} instead of a strong one. This means that this buffered
- * factory will continue to returns them as long as they are in use somewhere else in the Java
- * virtual machine, but will be discarted (and recreated on the fly if needed) otherwise.
+ * {@linkplain java.lang.ref.WeakReference weak reference} instead of a strong one. This means that
+ * this buffered factory will continue to returns them as long as they are in use somewhere else in
+ * the Java virtual machine, but will be discarted (and recreated on the fly if needed) otherwise.
+ *
+ * <p>Cached objects are returned without locking. Objects for different codes are created in
+ * parallel, while concurrent requests for the same code wait for a single creation.
  *
  * @since 2.1
  * @version $Id$
  * @author Martin Desruisseaux (IRD)
  */
 public class BufferedAuthorityFactory extends AbstractAuthorityFactory implements BufferedFactory {
-    /** The default value for {@link #maxStrongReferences}. */
+    /** The default maximum number of objects to keep by strong reference. */
     static final int DEFAULT_MAX = 20;
 
     /**
@@ -84,14 +86,14 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
     volatile AbstractAuthorityFactory backingStore;
 
     /** The pool of cached objects. */
-    private final LinkedHashMap<Object, Object> pool =
-            new LinkedHashMap<Object, Object>(32, 0.75f, true);
+    private final ConcurrentReferencingObjectCache pool;
 
     /**
-     * The maximum number of objects to keep by strong reference. If a greater amount of objects are
-     * created, then the strong references for the oldest ones are replaced by weak references.
+     * Held for reading while the backing store is creating an object, and for writing while it is
+     * disposed. Object creations do not synchronize on this factory, so this lock is what prevents
+     * the backing store from being disposed while in use.
      */
-    private final int maxStrongReferences;
+    final ReadWriteLock backingStoreLock = new ReentrantReadWriteLock();
 
     /** The pool of objects identified by {@link #find}. */
     private final Map<IdentifiedObject, IdentifiedObject> findPool =
@@ -131,7 +133,7 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
             factory = ((BufferedAuthorityFactory) factory).backingStore;
         }
         this.backingStore = factory;
-        this.maxStrongReferences = maxStrongReferences;
+        this.pool = new ConcurrentReferencingObjectCache(maxStrongReferences);
         completeHints();
     }
 
@@ -147,7 +149,7 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      */
     BufferedAuthorityFactory(final int priority, final int maxStrongReferences) {
         super(priority);
-        this.maxStrongReferences = maxStrongReferences;
+        this.pool = new ConcurrentReferencingObjectCache(maxStrongReferences);
         // completeHints() will be invoked by DeferredAuthorityFactory.getBackingStore()
     }
 
@@ -331,17 +333,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized IdentifiedObject createObject(final String code) throws FactoryException {
-        final IdentifiedObject object;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof IdentifiedObject) {
-            object = (IdentifiedObject) cached;
-        } else {
-            object = getBackingStore().createObject(code);
-        }
-        put(key, object);
-        return object;
+    public IdentifiedObject createObject(final String code) throws FactoryException {
+        return get(code, IdentifiedObject.class, factory -> factory.createObject(code));
     }
 
     /**
@@ -350,17 +343,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized Datum createDatum(final String code) throws FactoryException {
-        final Datum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof Datum) {
-            datum = (Datum) cached;
-        } else {
-            datum = getBackingStore().createDatum(code);
-        }
-        put(key, datum);
-        return datum;
+    public Datum createDatum(final String code) throws FactoryException {
+        return get(code, Datum.class, factory -> factory.createDatum(code));
     }
 
     /**
@@ -369,18 +353,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized EngineeringDatum createEngineeringDatum(final String code)
-            throws FactoryException {
-        final EngineeringDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof EngineeringDatum) {
-            datum = (EngineeringDatum) cached;
-        } else {
-            datum = getBackingStore().createEngineeringDatum(code);
-        }
-        put(key, datum);
-        return datum;
+    public EngineeringDatum createEngineeringDatum(final String code) throws FactoryException {
+        return get(code, EngineeringDatum.class, factory -> factory.createEngineeringDatum(code));
     }
 
     /**
@@ -389,17 +363,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized ImageDatum createImageDatum(final String code) throws FactoryException {
-        final ImageDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof ImageDatum) {
-            datum = (ImageDatum) cached;
-        } else {
-            datum = getBackingStore().createImageDatum(code);
-        }
-        put(key, datum);
-        return datum;
+    public ImageDatum createImageDatum(final String code) throws FactoryException {
+        return get(code, ImageDatum.class, factory -> factory.createImageDatum(code));
     }
 
     /**
@@ -408,18 +373,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized VerticalDatum createVerticalDatum(final String code)
-            throws FactoryException {
-        final VerticalDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof VerticalDatum) {
-            datum = (VerticalDatum) cached;
-        } else {
-            datum = getBackingStore().createVerticalDatum(code);
-        }
-        put(key, datum);
-        return datum;
+    public VerticalDatum createVerticalDatum(final String code) throws FactoryException {
+        return get(code, VerticalDatum.class, factory -> factory.createVerticalDatum(code));
     }
 
     /**
@@ -428,18 +383,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized TemporalDatum createTemporalDatum(final String code)
-            throws FactoryException {
-        final TemporalDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof TemporalDatum) {
-            datum = (TemporalDatum) cached;
-        } else {
-            datum = getBackingStore().createTemporalDatum(code);
-        }
-        put(key, datum);
-        return datum;
+    public TemporalDatum createTemporalDatum(final String code) throws FactoryException {
+        return get(code, TemporalDatum.class, factory -> factory.createTemporalDatum(code));
     }
 
     /**
@@ -448,18 +393,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized GeodeticDatum createGeodeticDatum(final String code)
-            throws FactoryException {
-        final GeodeticDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof GeodeticDatum) {
-            datum = (GeodeticDatum) cached;
-        } else {
-            datum = getBackingStore().createGeodeticDatum(code);
-        }
-        put(key, datum);
-        return datum;
+    public GeodeticDatum createGeodeticDatum(final String code) throws FactoryException {
+        return get(code, GeodeticDatum.class, factory -> factory.createGeodeticDatum(code));
     }
 
     /**
@@ -468,17 +403,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized Ellipsoid createEllipsoid(final String code) throws FactoryException {
-        final Ellipsoid ellipsoid;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof Ellipsoid) {
-            ellipsoid = (Ellipsoid) cached;
-        } else {
-            ellipsoid = getBackingStore().createEllipsoid(code);
-        }
-        put(key, ellipsoid);
-        return ellipsoid;
+    public Ellipsoid createEllipsoid(final String code) throws FactoryException {
+        return get(code, Ellipsoid.class, factory -> factory.createEllipsoid(code));
     }
 
     /**
@@ -487,18 +413,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized PrimeMeridian createPrimeMeridian(final String code)
-            throws FactoryException {
-        final PrimeMeridian meridian;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof PrimeMeridian) {
-            meridian = (PrimeMeridian) cached;
-        } else {
-            meridian = getBackingStore().createPrimeMeridian(code);
-        }
-        put(key, meridian);
-        return meridian;
+    public PrimeMeridian createPrimeMeridian(final String code) throws FactoryException {
+        return get(code, PrimeMeridian.class, factory -> factory.createPrimeMeridian(code));
     }
 
     /**
@@ -507,17 +423,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized Extent createExtent(final String code) throws FactoryException {
-        final Extent extent;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof Extent) {
-            extent = (Extent) cached;
-        } else {
-            extent = getBackingStore().createExtent(code);
-        }
-        put(key, extent);
-        return extent;
+    public Extent createExtent(final String code) throws FactoryException {
+        return get(code, Extent.class, factory -> factory.createExtent(code));
     }
 
     /**
@@ -526,18 +433,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CoordinateSystem createCoordinateSystem(final String code)
-            throws FactoryException {
-        final CoordinateSystem cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CoordinateSystem) {
-            cs = (CoordinateSystem) cached;
-        } else {
-            cs = getBackingStore().createCoordinateSystem(code);
-        }
-        put(key, cs);
-        return cs;
+    public CoordinateSystem createCoordinateSystem(final String code) throws FactoryException {
+        return get(code, CoordinateSystem.class, factory -> factory.createCoordinateSystem(code));
     }
 
     /**
@@ -546,17 +443,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CartesianCS createCartesianCS(final String code) throws FactoryException {
-        final CartesianCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CartesianCS) {
-            cs = (CartesianCS) cached;
-        } else {
-            cs = getBackingStore().createCartesianCS(code);
-        }
-        put(key, cs);
-        return cs;
+    public CartesianCS createCartesianCS(final String code) throws FactoryException {
+        return get(code, CartesianCS.class, factory -> factory.createCartesianCS(code));
     }
 
     /**
@@ -565,17 +453,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized PolarCS createPolarCS(final String code) throws FactoryException {
-        final PolarCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof PolarCS) {
-            cs = (PolarCS) cached;
-        } else {
-            cs = getBackingStore().createPolarCS(code);
-        }
-        put(key, cs);
-        return cs;
+    public PolarCS createPolarCS(final String code) throws FactoryException {
+        return get(code, PolarCS.class, factory -> factory.createPolarCS(code));
     }
 
     /**
@@ -584,18 +463,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CylindricalCS createCylindricalCS(final String code)
-            throws FactoryException {
-        final CylindricalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CylindricalCS) {
-            cs = (CylindricalCS) cached;
-        } else {
-            cs = getBackingStore().createCylindricalCS(code);
-        }
-        put(key, cs);
-        return cs;
+    public CylindricalCS createCylindricalCS(final String code) throws FactoryException {
+        return get(code, CylindricalCS.class, factory -> factory.createCylindricalCS(code));
     }
 
     /**
@@ -604,17 +473,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized SphericalCS createSphericalCS(final String code) throws FactoryException {
-        final SphericalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof SphericalCS) {
-            cs = (SphericalCS) cached;
-        } else {
-            cs = getBackingStore().createSphericalCS(code);
-        }
-        put(key, cs);
-        return cs;
+    public SphericalCS createSphericalCS(final String code) throws FactoryException {
+        return get(code, SphericalCS.class, factory -> factory.createSphericalCS(code));
     }
 
     /**
@@ -623,18 +483,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized EllipsoidalCS createEllipsoidalCS(final String code)
-            throws FactoryException {
-        final EllipsoidalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof EllipsoidalCS) {
-            cs = (EllipsoidalCS) cached;
-        } else {
-            cs = getBackingStore().createEllipsoidalCS(code);
-        }
-        put(key, cs);
-        return cs;
+    public EllipsoidalCS createEllipsoidalCS(final String code) throws FactoryException {
+        return get(code, EllipsoidalCS.class, factory -> factory.createEllipsoidalCS(code));
     }
 
     /**
@@ -643,17 +493,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized VerticalCS createVerticalCS(final String code) throws FactoryException {
-        final VerticalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof VerticalCS) {
-            cs = (VerticalCS) cached;
-        } else {
-            cs = getBackingStore().createVerticalCS(code);
-        }
-        put(key, cs);
-        return cs;
+    public VerticalCS createVerticalCS(final String code) throws FactoryException {
+        return get(code, VerticalCS.class, factory -> factory.createVerticalCS(code));
     }
 
     /**
@@ -662,17 +503,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized TimeCS createTimeCS(final String code) throws FactoryException {
-        final TimeCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof TimeCS) {
-            cs = (TimeCS) cached;
-        } else {
-            cs = getBackingStore().createTimeCS(code);
-        }
-        put(key, cs);
-        return cs;
+    public TimeCS createTimeCS(final String code) throws FactoryException {
+        return get(code, TimeCS.class, factory -> factory.createTimeCS(code));
     }
 
     /**
@@ -681,18 +513,12 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CoordinateSystemAxis createCoordinateSystemAxis(final String code)
+    public CoordinateSystemAxis createCoordinateSystemAxis(final String code)
             throws FactoryException {
-        final CoordinateSystemAxis axis;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CoordinateSystemAxis) {
-            axis = (CoordinateSystemAxis) cached;
-        } else {
-            axis = getBackingStore().createCoordinateSystemAxis(code);
-        }
-        put(key, axis);
-        return axis;
+        return get(
+                code,
+                CoordinateSystemAxis.class,
+                factory -> factory.createCoordinateSystemAxis(code));
     }
 
     /**
@@ -701,17 +527,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized Unit<?> createUnit(final String code) throws FactoryException {
-        final Unit<?> unit;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof Unit) {
-            unit = (Unit) cached;
-        } else {
-            unit = getBackingStore().createUnit(code);
-        }
-        put(key, unit);
-        return unit;
+    public Unit<?> createUnit(final String code) throws FactoryException {
+        return get(code, Unit.class, factory -> factory.createUnit(code));
     }
 
     /**
@@ -720,18 +537,12 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CoordinateReferenceSystem createCoordinateReferenceSystem(final String code)
+    public CoordinateReferenceSystem createCoordinateReferenceSystem(final String code)
             throws FactoryException {
-        final CoordinateReferenceSystem crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CoordinateReferenceSystem) {
-            crs = (CoordinateReferenceSystem) cached;
-        } else {
-            crs = getBackingStore().createCoordinateReferenceSystem(code);
-        }
-        put(key, crs);
-        return crs;
+        return get(
+                code,
+                CoordinateReferenceSystem.class,
+                factory -> factory.createCoordinateReferenceSystem(code));
     }
 
     /**
@@ -740,17 +551,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized CompoundCRS createCompoundCRS(final String code) throws FactoryException {
-        final CompoundCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CompoundCRS) {
-            crs = (CompoundCRS) cached;
-        } else {
-            crs = getBackingStore().createCompoundCRS(code);
-        }
-        put(key, crs);
-        return crs;
+    public CompoundCRS createCompoundCRS(final String code) throws FactoryException {
+        return get(code, CompoundCRS.class, factory -> factory.createCompoundCRS(code));
     }
 
     /**
@@ -759,17 +561,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized DerivedCRS createDerivedCRS(final String code) throws FactoryException {
-        final DerivedCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof DerivedCRS) {
-            crs = (DerivedCRS) cached;
-        } else {
-            crs = getBackingStore().createDerivedCRS(code);
-        }
-        put(key, crs);
-        return crs;
+    public DerivedCRS createDerivedCRS(final String code) throws FactoryException {
+        return get(code, DerivedCRS.class, factory -> factory.createDerivedCRS(code));
     }
 
     /**
@@ -778,18 +571,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized EngineeringCRS createEngineeringCRS(final String code)
-            throws FactoryException {
-        final EngineeringCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof EngineeringCRS) {
-            crs = (EngineeringCRS) cached;
-        } else {
-            crs = getBackingStore().createEngineeringCRS(code);
-        }
-        put(key, crs);
-        return crs;
+    public EngineeringCRS createEngineeringCRS(final String code) throws FactoryException {
+        return get(code, EngineeringCRS.class, factory -> factory.createEngineeringCRS(code));
     }
 
     /**
@@ -798,18 +581,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized GeographicCRS createGeographicCRS(final String code)
-            throws FactoryException {
-        final GeographicCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof GeographicCRS) {
-            crs = (GeographicCRS) cached;
-        } else {
-            crs = getBackingStore().createGeographicCRS(code);
-        }
-        put(key, crs);
-        return crs;
+    public GeographicCRS createGeographicCRS(final String code) throws FactoryException {
+        return get(code, GeographicCRS.class, factory -> factory.createGeographicCRS(code));
     }
 
     /**
@@ -818,18 +591,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized GeocentricCRS createGeocentricCRS(final String code)
-            throws FactoryException {
-        final GeocentricCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof GeocentricCRS) {
-            crs = (GeocentricCRS) cached;
-        } else {
-            crs = getBackingStore().createGeocentricCRS(code);
-        }
-        put(key, crs);
-        return crs;
+    public GeocentricCRS createGeocentricCRS(final String code) throws FactoryException {
+        return get(code, GeocentricCRS.class, factory -> factory.createGeocentricCRS(code));
     }
 
     /**
@@ -838,17 +601,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized ImageCRS createImageCRS(final String code) throws FactoryException {
-        final ImageCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof ImageCRS) {
-            crs = (ImageCRS) cached;
-        } else {
-            crs = getBackingStore().createImageCRS(code);
-        }
-        put(key, crs);
-        return crs;
+    public ImageCRS createImageCRS(final String code) throws FactoryException {
+        return get(code, ImageCRS.class, factory -> factory.createImageCRS(code));
     }
 
     /**
@@ -857,17 +611,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized ProjectedCRS createProjectedCRS(final String code) throws FactoryException {
-        final ProjectedCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof ProjectedCRS) {
-            crs = (ProjectedCRS) cached;
-        } else {
-            crs = getBackingStore().createProjectedCRS(code);
-        }
-        put(key, crs);
-        return crs;
+    public ProjectedCRS createProjectedCRS(final String code) throws FactoryException {
+        return get(code, ProjectedCRS.class, factory -> factory.createProjectedCRS(code));
     }
 
     /**
@@ -876,17 +621,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized TemporalCRS createTemporalCRS(final String code) throws FactoryException {
-        final TemporalCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof TemporalCRS) {
-            crs = (TemporalCRS) cached;
-        } else {
-            crs = getBackingStore().createTemporalCRS(code);
-        }
-        put(key, crs);
-        return crs;
+    public TemporalCRS createTemporalCRS(final String code) throws FactoryException {
+        return get(code, TemporalCRS.class, factory -> factory.createTemporalCRS(code));
     }
 
     /**
@@ -895,17 +631,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if the object creation failed.
      */
     @Override
-    public synchronized VerticalCRS createVerticalCRS(final String code) throws FactoryException {
-        final VerticalCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof VerticalCRS) {
-            crs = (VerticalCRS) cached;
-        } else {
-            crs = getBackingStore().createVerticalCRS(code);
-        }
-        put(key, crs);
-        return crs;
+    public VerticalCRS createVerticalCRS(final String code) throws FactoryException {
+        return get(code, VerticalCRS.class, factory -> factory.createVerticalCRS(code));
     }
 
     /**
@@ -915,18 +642,12 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @since 2.2
      */
     @Override
-    public synchronized ParameterDescriptor createParameterDescriptor(final String code)
+    public ParameterDescriptor createParameterDescriptor(final String code)
             throws FactoryException {
-        final ParameterDescriptor parameter;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof ParameterDescriptor) {
-            parameter = (ParameterDescriptor) cached;
-        } else {
-            parameter = getBackingStore().createParameterDescriptor(code);
-        }
-        put(key, parameter);
-        return parameter;
+        return get(
+                code,
+                ParameterDescriptor.class,
+                factory -> factory.createParameterDescriptor(code));
     }
 
     /**
@@ -936,18 +657,8 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @since 2.2
      */
     @Override
-    public synchronized OperationMethod createOperationMethod(final String code)
-            throws FactoryException {
-        final OperationMethod method;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof OperationMethod) {
-            method = (OperationMethod) cached;
-        } else {
-            method = getBackingStore().createOperationMethod(code);
-        }
-        put(key, method);
-        return method;
+    public OperationMethod createOperationMethod(final String code) throws FactoryException {
+        return get(code, OperationMethod.class, factory -> factory.createOperationMethod(code));
     }
 
     /**
@@ -957,18 +668,12 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @since 2.2
      */
     @Override
-    public synchronized CoordinateOperation createCoordinateOperation(final String code)
+    public CoordinateOperation createCoordinateOperation(final String code)
             throws FactoryException {
-        final CoordinateOperation operation;
-        final String key = trimAuthority(code);
-        final Object cached = get(key);
-        if (cached instanceof CoordinateOperation) {
-            operation = (CoordinateOperation) cached;
-        } else {
-            operation = getBackingStore().createCoordinateOperation(code);
-        }
-        put(key, operation);
-        return operation;
+        return get(
+                code,
+                CoordinateOperation.class,
+                factory -> factory.createCoordinateOperation(code));
     }
 
     /**
@@ -978,22 +683,38 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @since 2.2
      */
     @Override
-    public synchronized Set<CoordinateOperation> createFromCoordinateReferenceSystemCodes(
+    @SuppressWarnings("unchecked")
+    public Set<CoordinateOperation> createFromCoordinateReferenceSystemCodes(
             final String sourceCRS, final String targetCRS) throws FactoryException {
-        final Set<CoordinateOperation> operations;
         final CodePair key = new CodePair(trimAuthority(sourceCRS), trimAuthority(targetCRS));
-        final Object cached = get(key);
-        if (cached instanceof Set) {
-            operations = (Set<CoordinateOperation>) cached;
-        } else {
-            operations =
-                    Collections.unmodifiableSet(
-                            getBackingStore()
-                                    .createFromCoordinateReferenceSystemCodes(
-                                            sourceCRS, targetCRS));
+        final Request<Set<CoordinateOperation>> request =
+                factory -> factory.createFromCoordinateReferenceSystemCodes(sourceCRS, targetCRS);
+        return pool.get(key, Set.class, () -> Collections.unmodifiableSet(create(request)));
+    }
+
+    /**
+     * Returns the object cached for the given code if it is an instance of the given type, or
+     * creates it using the backing store otherwise.
+     */
+    private <T> T get(final String code, final Class<T> type, final Request<? extends T> request)
+            throws FactoryException {
+        return pool.get(trimAuthority(code), type, () -> create(request));
+    }
+
+    /** Executes the given request on the backing store, which can not be disposed meanwhile. */
+    private <T> T create(final Request<T> request) throws FactoryException {
+        final Lock lock = backingStoreLock.readLock();
+        lock.lock();
+        try {
+            return request.create(getBackingStore());
+        } finally {
+            lock.unlock();
         }
-        put(key, operations);
-        return operations;
+    }
+
+    /** A request for the creation of an object by the backing store. */
+    private interface Request<T> {
+        T create(AbstractAuthorityFactory backingStore) throws FactoryException;
     }
 
     /**
@@ -1040,7 +761,7 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @since 2.4
      */
     @Override
-    public synchronized IdentifiedObjectFinder getIdentifiedObjectFinder(
+    public IdentifiedObjectFinder getIdentifiedObjectFinder(
             final Class<? extends IdentifiedObject> type) throws FactoryException {
         return new Finder(getBackingStore().getIdentifiedObjectFinder(type));
     }
@@ -1115,57 +836,23 @@ public class BufferedAuthorityFactory extends AbstractAuthorityFactory implement
      * @throws FactoryException if an error occured while disposing the factory.
      */
     @Override
-    public synchronized void dispose() throws FactoryException {
-        if (backingStore != null) {
-            backingStore.dispose();
-            backingStore = null;
-        }
-        pool.clear();
-        findPool.clear();
-        super.dispose();
-    }
-
-    /**
-     * Returns an object from the pool for the specified code. If the object was retained as a
-     * {@linkplain Reference weak reference}, the {@link Reference#get referent} is returned.
-     *
-     * @todo Consider logging a message here to the finer or finest level.
-     */
-    private Object get(final Object key) {
-        assert Thread.holdsLock(this);
-        Object object = pool.get(key);
-        if (object instanceof Reference) {
-            object = ((Reference<?>) object).get();
-        }
-        return object;
-    }
-
-    /**
-     * Put an element in the pool. This method is invoked everytime a {@code createFoo(...)} method
-     * is invoked, even if an object was already in the pool for the given code, for the following
-     * reasons: 1) Replaces weak reference by strong reference (if applicable) and 2) Alters the
-     * linked hash set order, so that this object is declared as the last one used.
-     */
-    private void put(final Object key, final Object object) {
-        assert Thread.holdsLock(this);
-        pool.put(key, object);
-        int toReplace = pool.size() - maxStrongReferences;
-        if (toReplace > 0) {
-            for (final Iterator<Map.Entry<Object, Object>> it = pool.entrySet().iterator();
-                    it.hasNext(); ) {
-                final Map.Entry<Object, Object> entry = it.next();
-                final Object value = entry.getValue();
-                if (value instanceof Reference) {
-                    if (((Reference) value).get() == null) {
-                        it.remove();
-                    }
-                    continue;
+    public void dispose() throws FactoryException {
+        final Lock lock = backingStoreLock.writeLock();
+        lock.lock();
+        try {
+            synchronized (this) {
+                if (backingStore != null) {
+                    backingStore.dispose();
+                    backingStore = null;
                 }
-                entry.setValue(new WeakReference<Object>(value));
-                if (--toReplace == 0) {
-                    break;
+                pool.clear();
+                synchronized (findPool) {
+                    findPool.clear();
                 }
+                super.dispose();
             }
+        } finally {
+            lock.unlock();
         }
     }
 }
@@ -0,0 +1,276 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.opengis.referencing.FactoryException;
+
+/**
+ * The cache used by {@link ThreadedAuthorityFactory} and {@link BufferedAuthorityFactory}. It
+ * replaces the factory wide lock formerly used by those classes with the following scheme:
+ *
+ * <ul>
+ *   <li>Objects already created are fetched from a {@link ConcurrentHashMap} without locking.
+ *   <li>Objects for different codes are created concurrently, each by the thread that requested
+ *       it first.
+ *   <li>Threads requesting a code which is already being created wait for that creation to
+ *       complete and share its result (or its failure) instead of querying the backing store again.
+ * </ul>
+ *
+ * Objects are cached by strong references, up to the amount of objects specified at construction
+ * time. If a greater amount of objects are cached, the oldest ones will be retained through a
+ * {@linkplain WeakReference weak reference} instead of a strong one, and promoted back to a strong
+ * reference the next time they are requested.
+ *
+ * <p>A thread which is already creating an object never waits for a creation made by another
+ * thread, but creates the requested object itself. Creating an object often requires creating its
+ * dependencies through the same factories (e.g. the datum of a CRS), and waiting there could
+ * deadlock with a thread creating those objects in the opposite order.
+ *
+ * @since 22
+ */
+final class ConcurrentReferencingObjectCache {
+    /** Creates the object to cache for a given key. */
+    interface Creator<T> {
+        T create() throws FactoryException;
+    }
+
+    /** Set to a non-null value while the current thread is creating an object in any cache. */
+    private static final ThreadLocal<Boolean> CREATING = new ThreadLocal<>();
+
+    /**
+     * The cached objects. Values are either the referencing objects themselves, or {@link
+     * WeakReference} to them.
+     */
+    private final ConcurrentMap<Object, Object> pool = new ConcurrentHashMap<>();
+
+    /** The creations in progress, by key. */
+    private final ConcurrentMap<Object, Creation> creations = new ConcurrentHashMap<>();
+
+    /** The keys of the objects retained by strong references, oldest first. */
+    private final Queue<Object> strongKeys = new ConcurrentLinkedQueue<>();
+
+    /** The number of objects retained by strong references. */
+    private final AtomicInteger strongCount = new AtomicInteger();
+
+    /** The queue of weak references cleared by the garbage collector. */
+    private final ReferenceQueue<Object> cleared = new ReferenceQueue<>();
+
+    /**
+     * The maximum number of objects to keep by strong reference. If a greater amount of objects are
+     * created, then the strong references for the oldest ones are replaced by weak references.
+     */
+    private final int maxStrongReferences;
+
+    /**
+     * Creates a new cache which will hold the specified amount of object by strong references. Any
+     * additional object will be help by weak references.
+     */
+    ConcurrentReferencingObjectCache(final int maxStrongReferences) {
+        this.maxStrongReferences = maxStrongReferences;
+    }
+
+    /**
+     * Returns the object cached for the given key if it is an instance of the given type, or
+     * creates it otherwise.
+     *
+     * @param key The key, usually the authority code.
+     * @param type The expected type of the object.
+     * @param creator The function to invoke if the object needs to be created.
+     * @return The cached or created object.
+     * @throws FactoryException if the object creation failed.
+     */
+    <T> T get(final Object key, final Class<T> type, final Creator<? extends T> creator)
+            throws FactoryException {
+        Object value = peek(key);
+        if (type.isInstance(value)) {
+            return type.cast(value);
+        }
+        if (CREATING.get() != null) {
+            return create(key, type, creator);
+        }
+        final Creation creation = new Creation();
+        final Creation running = creations.putIfAbsent(key, creation);
+        if (running != null) {
+            value = running.await();
+            if (type.isInstance(value)) {
+                return type.cast(value);
+            }
+            // An object of an other type has been created for the same code.
+            CREATING.set(Boolean.TRUE);
+            try {
+                return create(key, type, creator);
+            } finally {
+                CREATING.remove();
+            }
+        }
+        CREATING.set(Boolean.TRUE);
+        try {
+            // Check again, the object may have been created since the first check.
+            value = peek(key);
+            final T result = type.isInstance(value) ? type.cast(value) : create(key, type, creator);
+            creation.complete(result, null);
+            return result;
+        } catch (FactoryException | RuntimeException | Error e) {
+            creation.complete(null, e);
+            throw e;
+        } finally {
+            CREATING.remove();
+            creations.remove(key, creation);
+        }
+    }
+
+    /**
+     * Creates an object and puts it in the pool. If an object of the expected type has been cached
+     * meanwhile by an other thread, that object is returned instead so that all callers share the
+     * same instance.
+     */
+    private <T> T create(final Object key, final Class<T> type, final Creator<? extends T> creator)
+            throws FactoryException {
+        final T created = creator.create();
+        if (created == null) {
+            return null;
+        }
+        final Object cached = peek(key);
+        if (type.isInstance(cached)) {
+            return type.cast(cached);
+        }
+        put(key, created);
+        return created;
+    }
+
+    /**
+     * Returns an object from the pool for the specified key, or {@code null} if none. If the object
+     * was retained as a {@linkplain Reference weak reference}, it is retained by a strong reference
+     * again.
+     */
+    Object peek(final Object key) {
+        final Object value = pool.get(key);
+        if (value instanceof Reference) {
+            final Object referent = ((Reference<?>) value).get();
+            if (referent == null) {
+                pool.remove(key, value);
+            } else if (pool.replace(key, value, referent)) {
+                addStrong(key);
+            }
+            return referent;
+        }
+        return value;
+    }
+
+    /** Puts an element in the pool. */
+    void put(final Object key, final Object object) {
+        final Object previous = pool.put(key, object);
+        if (previous == null || previous instanceof Reference) {
+            addStrong(key);
+        }
+    }
+
+    /**
+     * Registers a new strong reference, and replaces the oldest ones by weak references if there is
+     * more than {@link #maxStrongReferences} of them.
+     */
+    private void addStrong(final Object key) {
+        strongKeys.add(key);
+        int toReplace = strongCount.incrementAndGet() - maxStrongReferences;
+        while (toReplace-- > 0) {
+            final Object oldest = strongKeys.poll();
+            if (oldest == null) {
+                break;
+            }
+            final Object value = pool.get(oldest);
+            if (value != null
+                    && !(value instanceof Reference)
+                    && pool.replace(oldest, value, new Entry(oldest, value, cleared))) {
+                strongCount.decrementAndGet();
+            }
+        }
+        Reference<?> ref;
+        while ((ref = cleared.poll()) != null) {
+            pool.remove(((Entry) ref).key, ref);
+        }
+    }
+
+    /** Removes all entries from this cache. */
+    void clear() {
+        pool.clear();
+        strongKeys.clear();
+        strongCount.set(0);
+    }
+
+    /** A weak reference to a cached object, remembering its key for removal once cleared. */
+    private static final class Entry extends WeakReference<Object> {
+        final Object key;
+
+        Entry(final Object key, final Object value, final ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+
+    /** An object creation in progress, on which other threads requesting the same key wait. */
+    private static final class Creation {
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        /** The created object. Written before {@link #done} is released. */
+        private Object value;
+
+        /** The creation failure, or {@code null}. Written before {@link #done} is released. */
+        private Throwable failure;
+
+        void complete(final Object value, final Throwable failure) {
+            this.value = value;
+            this.failure = failure;
+            done.countDown();
+        }
+
+        /** Waits for the creation to complete, and returns its result or rethrows its failure. */
+        Object await() throws FactoryException {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        done.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure instanceof FactoryException) {
+                throw (FactoryException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            return value;
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.geotools.referencing.factory;
 
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.locks.Lock;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import org.geotools.metadata.i18n.ErrorKeys;
@@ -182,10 +183,12 @@ public abstract class DeferredAuthorityFactory extends BufferedAuthorityFactory
      * disposes the backing store regardeless of {@link #canDisposeBackingStore} value.
      */
     @Override
-    public synchronized void dispose() throws FactoryException {
-        if (disposer != null) {
-            disposer.cancel();
-            disposer = null;
+    public void dispose() throws FactoryException {
+        synchronized (this) {
+            if (disposer != null) {
+                disposer.cancel();
+                disposer = null;
+            }
         }
         super.dispose();
     }
@@ -230,16 +233,26 @@ public abstract class DeferredAuthorityFactory extends BufferedAuthorityFactory
                     used = false;
                     return;
                 }
-                if (cancel()) {
-                    disposer = null;
-                    if (backingStore != null) {
-                        disposeBackingStore();
+                // Objects are created without synchronizing on the factory. Do not wait for
+                // creations in progress: try again at the next run instead.
+                final Lock lock = backingStoreLock.writeLock();
+                if (!lock.tryLock()) {
+                    return;
+                }
+                try {
+                    if (cancel()) {
+                        disposer = null;
+                        if (backingStore != null) {
+                            disposeBackingStore();
+                        }
+                        // Needed in order to lets GC do its job.
+                        hints.remove(Hints.DATUM_AUTHORITY_FACTORY);
+                        hints.remove(Hints.CS_AUTHORITY_FACTORY);
+                        hints.remove(Hints.CRS_AUTHORITY_FACTORY);
+                        hints.remove(Hints.COORDINATE_OPERATION_AUTHORITY_FACTORY);
                     }
-                    // Needed in order to lets GC do its job.
-                    hints.remove(Hints.DATUM_AUTHORITY_FACTORY);
-                    hints.remove(Hints.CS_AUTHORITY_FACTORY);
-                    hints.remove(Hints.CRS_AUTHORITY_FACTORY);
-                    hints.remove(Hints.COORDINATE_OPERATION_AUTHORITY_FACTORY);
+                } finally {
+                    lock.unlock();
                 }
             }
         }
@@ -25,6 +25,9 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import javax.measure.Unit;
@@ -60,6 +63,9 @@ import org.opengis.util.InternationalString;
  * this buffered factory will continue to returns them as long as they are in use somewhere else in
  * the Java virtual machine, but will be discarted (and recreated on the fly if needed) otherwise.
  *
+ * <p>Cached objects are returned without locking. Objects for different codes are created in
+ * parallel, while concurrent requests for the same code wait for a single creation.
+ *
  * @since 2.4
  * @version $Id$
  * @author Martin Desruisseaux (IRD)
@@ -77,10 +83,17 @@ public class ThreadedAuthorityFactory extends AbstractAuthorityFactory implement
      * @see #getBackingStore
      * @see DeferredAuthorityFactory#createBackingStore
      */
-    AbstractAuthorityFactory backingStore;
+    volatile AbstractAuthorityFactory backingStore;
 
     /** The cache for referencing objects. */
-    private final OldReferencingObjectCache objectCache;
+    private final ConcurrentReferencingObjectCache objectCache;
+
+    /**
+     * Held for reading while the backing store is creating an object, and for writing while it is
+     * disposed. Object creations do not synchronize on this factory, so this lock is what prevents
+     * the backing store from being disposed while in use.
+     */
+    final ReadWriteLock backingStoreLock = new ReentrantReadWriteLock();
 
     /** The pool of objects identified by {@link find}. */
     private final Map<IdentifiedObject, IdentifiedObject> findPool =
@@ -120,7 +133,7 @@ public class ThreadedAuthorityFactory extends AbstractAuthorityFactory implement
             factory = ((ThreadedAuthorityFactory) factory).backingStore;
         }
         this.backingStore = factory;
-        this.objectCache = new OldReferencingObjectCache(maxStrongReferences);
+        this.objectCache = new ConcurrentReferencingObjectCache(maxStrongReferences);
         completeHints();
     }
 
@@ -136,7 +149,7 @@ public class ThreadedAuthorityFactory extends AbstractAuthorityFactory implement
      */
     ThreadedAuthorityFactory(final int priority, final int maxStrongReferences) {
         super(priority);
-        this.objectCache = new OldReferencingObjectCache(maxStrongReferences);
+        this.objectCache = new ConcurrentReferencingObjectCache(maxStrongReferences);
         // completeHints() will be invoked by DeferredAuthorityFactory.getBackingStore()
     }
 
@@ -315,533 +328,252 @@ public class ThreadedAuthorityFactory extends AbstractAuthorityFactory implement
 
     /** Returns an arbitrary object from a code. */
     @Override
-    public synchronized IdentifiedObject createObject(final String code) throws FactoryException {
-        final IdentifiedObject object;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof IdentifiedObject) {
-            object = (IdentifiedObject) cached;
-        } else {
-            object = getBackingStore().createObject(code);
-        }
-        objectCache.put(key, object);
-        return object;
+    public IdentifiedObject createObject(final String code) throws FactoryException {
+        return get(code, IdentifiedObject.class, factory -> factory.createObject(code));
     }
 
     /** Returns an arbitrary datum from a code. */
     @Override
-    public synchronized Datum createDatum(final String code) throws FactoryException {
-        final Datum datum;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof Datum) {
-            datum = (Datum) cached;
-        } else {
-            datum = getBackingStore().createDatum(code);
-        }
-        objectCache.put(key, datum);
-        return datum;
+    public Datum createDatum(final String code) throws FactoryException {
+        return get(code, Datum.class, factory -> factory.createDatum(code));
     }
 
     /** Returns an engineering datum from a code. */
     @Override
-    public synchronized EngineeringDatum createEngineeringDatum(final String code)
-            throws FactoryException {
-        final EngineeringDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof EngineeringDatum) {
-            datum = (EngineeringDatum) cached;
-        } else {
-            datum = getBackingStore().createEngineeringDatum(code);
-        }
-        objectCache.put(key, datum);
-        return datum;
+    public EngineeringDatum createEngineeringDatum(final String code) throws FactoryException {
+        return get(code, EngineeringDatum.class, factory -> factory.createEngineeringDatum(code));
     }
 
     /** Returns an image datum from a code. */
     @Override
-    public synchronized ImageDatum createImageDatum(final String code) throws FactoryException {
-        final ImageDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof ImageDatum) {
-            datum = (ImageDatum) cached;
-        } else {
-            datum = getBackingStore().createImageDatum(code);
-        }
-        objectCache.put(key, datum);
-        return datum;
+    public ImageDatum createImageDatum(final String code) throws FactoryException {
+        return get(code, ImageDatum.class, factory -> factory.createImageDatum(code));
     }
 
     /** Returns a vertical datum from a code. */
     @Override
-    public synchronized VerticalDatum createVerticalDatum(final String code)
-            throws FactoryException {
-        final VerticalDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof VerticalDatum) {
-            datum = (VerticalDatum) cached;
-        } else {
-            datum = getBackingStore().createVerticalDatum(code);
-        }
-        objectCache.put(key, datum);
-        return datum;
+    public VerticalDatum createVerticalDatum(final String code) throws FactoryException {
+        return get(code, VerticalDatum.class, factory -> factory.createVerticalDatum(code));
     }
 
     /** Returns a temporal datum from a code. */
     @Override
-    public synchronized TemporalDatum createTemporalDatum(final String code)
-            throws FactoryException {
-        final TemporalDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof TemporalDatum) {
-            datum = (TemporalDatum) cached;
-        } else {
-            datum = getBackingStore().createTemporalDatum(code);
-        }
-        objectCache.put(key, datum);
-        return datum;
+    public TemporalDatum createTemporalDatum(final String code) throws FactoryException {
+        return get(code, TemporalDatum.class, factory -> factory.createTemporalDatum(code));
     }
 
     /** Returns a geodetic datum from a code. */
     @Override
-    public synchronized GeodeticDatum createGeodeticDatum(final String code)
-            throws FactoryException {
-        final GeodeticDatum datum;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof GeodeticDatum) {
-            datum = (GeodeticDatum) cached;
-        } else {
-            datum = getBackingStore().createGeodeticDatum(code);
-        }
-        objectCache.put(key, datum);
-        return datum;
+    public GeodeticDatum createGeodeticDatum(final String code) throws FactoryException {
+        return get(code, GeodeticDatum.class, factory -> factory.createGeodeticDatum(code));
     }
 
     /** Returns an ellipsoid from a code. */
     @Override
-    public synchronized Ellipsoid createEllipsoid(final String code) throws FactoryException {
-        final Ellipsoid ellipsoid;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof Ellipsoid) {
-            ellipsoid = (Ellipsoid) cached;
-        } else {
-            ellipsoid = getBackingStore().createEllipsoid(code);
-        }
-        objectCache.put(key, ellipsoid);
-        return ellipsoid;
+    public Ellipsoid createEllipsoid(final String code) throws FactoryException {
+        return get(code, Ellipsoid.class, factory -> factory.createEllipsoid(code));
     }
 
     /** Returns a prime meridian from a code. */
     @Override
-    public synchronized PrimeMeridian createPrimeMeridian(final String code)
-            throws FactoryException {
-        final PrimeMeridian meridian;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof PrimeMeridian) {
-            meridian = (PrimeMeridian) cached;
-        } else {
-            meridian = getBackingStore().createPrimeMeridian(code);
-        }
-        objectCache.put(key, meridian);
-        return meridian;
+    public PrimeMeridian createPrimeMeridian(final String code) throws FactoryException {
+        return get(code, PrimeMeridian.class, factory -> factory.createPrimeMeridian(code));
     }
 
     /** Returns an extent (usually an area of validity) from a code. */
     @Override
-    public synchronized Extent createExtent(final String code) throws FactoryException {
-        final Extent extent;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof Extent) {
-            extent = (Extent) cached;
-        } else {
-            extent = getBackingStore().createExtent(code);
-        }
-        objectCache.put(key, extent);
-        return extent;
+    public Extent createExtent(final String code) throws FactoryException {
+        return get(code, Extent.class, factory -> factory.createExtent(code));
     }
 
     /** Returns an arbitrary coordinate system from a code. */
     @Override
-    public synchronized CoordinateSystem createCoordinateSystem(final String code)
-            throws FactoryException {
-        final CoordinateSystem cs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof CoordinateSystem) {
-            cs = (CoordinateSystem) cached;
-        } else {
-            cs = getBackingStore().createCoordinateSystem(code);
-        }
-        objectCache.put(key, cs);
-        return cs;
+    public CoordinateSystem createCoordinateSystem(final String code) throws FactoryException {
+        return get(code, CoordinateSystem.class, factory -> factory.createCoordinateSystem(code));
     }
 
     /** Returns a cartesian coordinate system from a code. */
     @Override
-    public synchronized CartesianCS createCartesianCS(final String code) throws FactoryException {
-        final CartesianCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof CartesianCS) {
-            cs = (CartesianCS) cached;
-        } else {
-            cs = getBackingStore().createCartesianCS(code);
-        }
-        objectCache.put(key, cs);
-        return cs;
+    public CartesianCS createCartesianCS(final String code) throws FactoryException {
+        return get(code, CartesianCS.class, factory -> factory.createCartesianCS(code));
     }
 
     /** Returns a polar coordinate system from a code. */
     @Override
-    public synchronized PolarCS createPolarCS(final String code) throws FactoryException {
-        final PolarCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof PolarCS) {
-            cs = (PolarCS) cached;
-        } else {
-            cs = getBackingStore().createPolarCS(code);
-        }
-        objectCache.put(key, cs);
-        return cs;
+    public PolarCS createPolarCS(final String code) throws FactoryException {
+        return get(code, PolarCS.class, factory -> factory.createPolarCS(code));
     }
 
     /** Returns a cylindrical coordinate system from a code. */
     @Override
-    public synchronized CylindricalCS createCylindricalCS(final String code)
-            throws FactoryException {
-        final CylindricalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof CylindricalCS) {
-            cs = (CylindricalCS) cached;
-        } else {
-            cs = getBackingStore().createCylindricalCS(code);
-        }
-        objectCache.put(key, cs);
-        return cs;
+    public CylindricalCS createCylindricalCS(final String code) throws FactoryException {
+        return get(code, CylindricalCS.class, factory -> factory.createCylindricalCS(code));
     }
 
     /** Returns a spherical coordinate system from a code. */
     @Override
-    public synchronized SphericalCS createSphericalCS(final String code) throws FactoryException {
-        final SphericalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof SphericalCS) {
-            cs = (SphericalCS) cached;
-        } else {
-            cs = getBackingStore().createSphericalCS(code);
-        }
-        objectCache.put(key, cs);
-        return cs;
+    public SphericalCS createSphericalCS(final String code) throws FactoryException {
+        return get(code, SphericalCS.class, factory -> factory.createSphericalCS(code));
     }
 
     /** Returns an ellipsoidal coordinate system from a code. */
     @Override
-    public synchronized EllipsoidalCS createEllipsoidalCS(final String code)
-            throws FactoryException {
-        final EllipsoidalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof EllipsoidalCS) {
-            cs = (EllipsoidalCS) cached;
-        } else {
-            cs = getBackingStore().createEllipsoidalCS(code);
-        }
-        objectCache.put(key, cs);
-        return cs;
+    public EllipsoidalCS createEllipsoidalCS(final String code) throws FactoryException {
+        return get(code, EllipsoidalCS.class, factory -> factory.createEllipsoidalCS(code));
     }
 
     /** Returns a vertical coordinate system from a code. */
     @Override
-    public synchronized VerticalCS createVerticalCS(final String code) throws FactoryException {
-        final VerticalCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof VerticalCS) {
-            cs = (VerticalCS) cached;
-        } else {
-            cs = getBackingStore().createVerticalCS(code);
-        }
-        objectCache.put(key, cs);
-        return cs;
+    public VerticalCS createVerticalCS(final String code) throws FactoryException {
+        return get(code, VerticalCS.class, factory -> factory.createVerticalCS(code));
     }
 
     /** Returns a temporal coordinate system from a code. */
     @Override
-    public synchronized TimeCS createTimeCS(final String code) throws FactoryException {
-        final TimeCS cs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof TimeCS) {
-            cs = (TimeCS) cached;
-        } else {
-            cs = getBackingStore().createTimeCS(code);
-        }
-        objectCache.put(key, cs);
-        return cs;
+    public TimeCS createTimeCS(final String code) throws FactoryException {
+        return get(code, TimeCS.class, factory -> factory.createTimeCS(code));
     }
 
     /** Returns a coordinate system axis from a code. */
     @Override
-    public synchronized CoordinateSystemAxis createCoordinateSystemAxis(final String code)
+    public CoordinateSystemAxis createCoordinateSystemAxis(final String code)
             throws FactoryException {
-        final CoordinateSystemAxis axis;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof CoordinateSystemAxis) {
-            axis = (CoordinateSystemAxis) cached;
-        } else {
-            axis = getBackingStore().createCoordinateSystemAxis(code);
-        }
-        objectCache.put(key, axis);
-        return axis;
+        return get(
+                code,
+                CoordinateSystemAxis.class,
+                factory -> factory.createCoordinateSystemAxis(code));
     }
 
     /** Returns an unit from a code. */
     @Override
-    public synchronized Unit<?> createUnit(final String code) throws FactoryException {
-        final Unit<?> unit;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof Unit) {
-            unit = (Unit) cached;
-        } else {
-            unit = getBackingStore().createUnit(code);
-        }
-        objectCache.put(key, unit);
-        return unit;
+    public Unit<?> createUnit(final String code) throws FactoryException {
+        return get(code, Unit.class, factory -> factory.createUnit(code));
     }
 
     /** Returns an arbitrary coordinate reference system from a code. */
     @Override
-    public synchronized CoordinateReferenceSystem createCoordinateReferenceSystem(final String code)
+    public CoordinateReferenceSystem createCoordinateReferenceSystem(final String code)
             throws FactoryException {
-        final CoordinateReferenceSystem crs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof CoordinateReferenceSystem) {
-            crs = (CoordinateReferenceSystem) cached;
-        } else {
-            crs = getBackingStore().createCoordinateReferenceSystem(code);
-        }
-        objectCache.put(key, crs);
-        return crs;
+        return get(
+                code,
+                CoordinateReferenceSystem.class,
+                factory -> factory.createCoordinateReferenceSystem(code));
     }
 
     /** Returns a 3D coordinate reference system from a code. */
     @Override
-    public synchronized CompoundCRS createCompoundCRS(final String code) throws FactoryException {
-        final CompoundCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof CompoundCRS) {
-            crs = (CompoundCRS) cached;
-        } else {
-            crs = getBackingStore().createCompoundCRS(code);
-        }
-        objectCache.put(key, crs);
-        return crs;
+    public CompoundCRS createCompoundCRS(final String code) throws FactoryException {
+        return get(code, CompoundCRS.class, factory -> factory.createCompoundCRS(code));
     }
 
     /** Returns a derived coordinate reference system from a code. */
     @Override
-    public synchronized DerivedCRS createDerivedCRS(final String code) throws FactoryException {
-        final DerivedCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof DerivedCRS) {
-            crs = (DerivedCRS) cached;
-        } else {
-            crs = getBackingStore().createDerivedCRS(code);
-        }
-        objectCache.put(key, crs);
-        return crs;
+    public DerivedCRS createDerivedCRS(final String code) throws FactoryException {
+        return get(code, DerivedCRS.class, factory -> factory.createDerivedCRS(code));
     }
 
     /** Returns an engineering coordinate reference system from a code. */
     @Override
-    public synchronized EngineeringCRS createEngineeringCRS(final String code)
-            throws FactoryException {
-        final EngineeringCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof EngineeringCRS) {
-            crs = (EngineeringCRS) cached;
-        } else {
-            crs = getBackingStore().createEngineeringCRS(code);
-        }
-        objectCache.put(key, crs);
-        return crs;
+    public EngineeringCRS createEngineeringCRS(final String code) throws FactoryException {
+        return get(code, EngineeringCRS.class, factory -> factory.createEngineeringCRS(code));
     }
 
     /** Returns a geographic coordinate reference system from a code. */
     @Override
-    public synchronized GeographicCRS createGeographicCRS(final String code)
-            throws FactoryException {
-        final GeographicCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof GeographicCRS) {
-            crs = (GeographicCRS) cached;
-        } else {
-            crs = getBackingStore().createGeographicCRS(code);
-        }
-        objectCache.put(key, crs);
-        return crs;
+    public GeographicCRS createGeographicCRS(final String code) throws FactoryException {
+        return get(code, GeographicCRS.class, factory -> factory.createGeographicCRS(code));
     }
 
     /** Returns a geocentric coordinate reference system from a code. */
     @Override
-    public synchronized GeocentricCRS createGeocentricCRS(final String code)
-            throws FactoryException {
-        final GeocentricCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof GeocentricCRS) {
-            crs = (GeocentricCRS) cached;
-        } else {
-            crs = getBackingStore().createGeocentricCRS(code);
-        }
-        objectCache.put(key, crs);
-        return crs;
+    public GeocentricCRS createGeocentricCRS(final String code) throws FactoryException {
+        return get(code, GeocentricCRS.class, factory -> factory.createGeocentricCRS(code));
     }
 
     /** Returns an image coordinate reference system from a code. */
     @Override
-    public synchronized ImageCRS createImageCRS(final String code) throws FactoryException {
-        final ImageCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof ImageCRS) {
-            crs = (ImageCRS) cached;
-        } else {
-            crs = getBackingStore().createImageCRS(code);
-        }
-        objectCache.put(key, crs);
-        return crs;
+    public ImageCRS createImageCRS(final String code) throws FactoryException {
+        return get(code, ImageCRS.class, factory -> factory.createImageCRS(code));
     }
 
     /** Returns a projected coordinate reference system from a code. */
     @Override
-    public synchronized ProjectedCRS createProjectedCRS(final String code) throws FactoryException {
-        final ProjectedCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof ProjectedCRS) {
-            crs = (ProjectedCRS) cached;
-        } else {
-            crs = getBackingStore().createProjectedCRS(code);
-        }
-        objectCache.put(key, crs);
-        return crs;
+    public ProjectedCRS createProjectedCRS(final String code) throws FactoryException {
+        return get(code, ProjectedCRS.class, factory -> factory.createProjectedCRS(code));
     }
 
     /** Returns a temporal coordinate reference system from a code. */
     @Override
-    public synchronized TemporalCRS createTemporalCRS(final String code) throws FactoryException {
-        final TemporalCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof TemporalCRS) {
-            crs = (TemporalCRS) cached;
-        } else {
-            crs = getBackingStore().createTemporalCRS(code);
-        }
-        objectCache.put(key, crs);
-        return crs;
+    public TemporalCRS createTemporalCRS(final String code) throws FactoryException {
+        return get(code, TemporalCRS.class, factory -> factory.createTemporalCRS(code));
     }
 
     /** Returns a vertical coordinate reference system from a code. */
     @Override
-    public synchronized VerticalCRS createVerticalCRS(final String code) throws FactoryException {
-        final VerticalCRS crs;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof VerticalCRS) {
-            crs = (VerticalCRS) cached;
-        } else {
-            crs = getBackingStore().createVerticalCRS(code);
-        }
-        objectCache.put(key, crs);
-        return crs;
+    public VerticalCRS createVerticalCRS(final String code) throws FactoryException {
+        return get(code, VerticalCRS.class, factory -> factory.createVerticalCRS(code));
     }
 
     /** Returns a parameter descriptor from a code. */
     @Override
-    public synchronized ParameterDescriptor createParameterDescriptor(final String code)
+    public ParameterDescriptor createParameterDescriptor(final String code)
             throws FactoryException {
-        final ParameterDescriptor parameter;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof ParameterDescriptor) {
-            parameter = (ParameterDescriptor) cached;
-        } else {
-            parameter = getBackingStore().createParameterDescriptor(code);
-        }
-        objectCache.put(key, parameter);
-        return parameter;
+        return get(
+                code,
+                ParameterDescriptor.class,
+                factory -> factory.createParameterDescriptor(code));
     }
 
     /** Returns an operation method from a code. */
     @Override
-    public synchronized OperationMethod createOperationMethod(final String code)
-            throws FactoryException {
-        final OperationMethod method;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof OperationMethod) {
-            method = (OperationMethod) cached;
-        } else {
-            method = getBackingStore().createOperationMethod(code);
-        }
-        objectCache.put(key, method);
-        return method;
+    public OperationMethod createOperationMethod(final String code) throws FactoryException {
+        return get(code, OperationMethod.class, factory -> factory.createOperationMethod(code));
     }
 
     /** Returns an operation from a single operation code. */
     @Override
-    public synchronized CoordinateOperation createCoordinateOperation(final String code)
+    public CoordinateOperation createCoordinateOperation(final String code)
             throws FactoryException {
-        final CoordinateOperation operation;
-        final String key = trimAuthority(code);
-        final Object cached = objectCache.get(key);
-        if (cached instanceof CoordinateOperation) {
-            operation = (CoordinateOperation) cached;
-        } else {
-            operation = getBackingStore().createCoordinateOperation(code);
-        }
-        objectCache.put(key, operation);
-        return operation;
+        return get(
+                code,
+                CoordinateOperation.class,
+                factory -> factory.createCoordinateOperation(code));
     }
 
     /** Returns an operation from coordinate reference system codes. */
     @Override
-    public synchronized Set<CoordinateOperation> createFromCoordinateReferenceSystemCodes(
+    @SuppressWarnings("unchecked")
+    public Set<CoordinateOperation> createFromCoordinateReferenceSystemCodes(
             final String sourceCode, final String targetCode) throws FactoryException {
-        final Set<CoordinateOperation> operations;
         final CodePair key = new CodePair(trimAuthority(sourceCode), trimAuthority(targetCode));
-        final Object cached = objectCache.get(key);
-        if (cached instanceof CoordinateOperation) {
-            operations = (Set<CoordinateOperation>) cached;
-        } else {
-            operations =
-                    Collections.unmodifiableSet(
-                            getBackingStore()
-                                    .createFromCoordinateReferenceSystemCodes(
-                                            sourceCode, targetCode));
+        final Request<Set<CoordinateOperation>> request =
+                factory -> factory.createFromCoordinateReferenceSystemCodes(sourceCode, targetCode);
+        return objectCache.get(key, Set.class, () -> Collections.unmodifiableSet(create(request)));
+    }
+
+    /**
+     * Returns the object cached for the given code if it is an instance of the given type, or
+     * creates it using the backing store otherwise.
+     */
+    private <T> T get(final String code, final Class<T> type, final Request<? extends T> request)
+            throws FactoryException {
+        return objectCache.get(trimAuthority(code), type, () -> create(request));
+    }
+
+    /** Executes the given request on the backing store, which can not be disposed meanwhile. */
+    private <T> T create(final Request<T> request) throws FactoryException {
+        final Lock lock = backingStoreLock.readLock();
+        lock.lock();
+        try {
+            return request.create(getBackingStore());
+        } finally {
+            lock.unlock();
         }
-        objectCache.put(key, operations);
-        return operations;
+    }
+
+    /** A request for the creation of an object by the backing store. */
+    private interface Request<T> {
+        T create(AbstractAuthorityFactory backingStore) throws FactoryException;
     }
 
     /**
@@ -885,7 +617,7 @@ public class ThreadedAuthorityFactory extends AbstractAuthorityFactory implement
      * implementation delegates lookup to the underlying backing store and caches the result.
      */
     @Override
-    public synchronized IdentifiedObjectFinder getIdentifiedObjectFinder(
+    public IdentifiedObjectFinder getIdentifiedObjectFinder(
             final Class<? extends IdentifiedObject> type) throws FactoryException {
         return new Finder(getBackingStore().getIdentifiedObjectFinder(type));
     }
@@ -956,12 +688,20 @@ public class ThreadedAuthorityFactory extends AbstractAuthorityFactory implement
 
     /** Releases resources immediately instead of waiting for the garbage collector. */
     @Override
-    public synchronized void dispose() throws FactoryException {
-        if (backingStore != null) {
-            backingStore.dispose();
-            backingStore = null;
+    public void dispose() throws FactoryException {
+        final Lock lock = backingStoreLock.writeLock();
+        lock.lock();
+        try {
+            synchronized (this) {
+                if (backingStore != null) {
+                    backingStore.dispose();
+                    backingStore = null;
+                }
+                objectCache.clear();
+                super.dispose();
+            }
+        } finally {
+            lock.unlock();
         }
-        objectCache.clear();
-        super.dispose();
     }
 }
@@ -481,8 +481,10 @@ public class ThreadedEpsgFactory extends DeferredAuthorityFactory
     }
 
     @Override
-    public synchronized void dispose() throws FactoryException {
+    public void dispose() throws FactoryException {
         super.dispose();
-        datasource = null;
+        synchronized (this) {
+            datasource = null;
+        }
     }
 }
@@ -19,6 +19,7 @@ package org.geotools.referencing.operation.transform;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import org.geotools.geometry.GeneralDirectPosition;
 import org.geotools.metadata.i18n.ErrorKeys;
 import org.geotools.metadata.i18n.Errors;
@@ -54,12 +55,22 @@ public class ConcatenatedTransform extends AbstractMathTransform implements Seri
     private static final double EPSILON = 1E-10;
 
     /**
-     * Maximum length of temporary {@double[]} arrays to be created, used for performing
-     * transformations in batch. A value of 256 will consumes 2 kilobytes of memory. It is better to
-     * avoid too high values since allocating and initializing the array elements to zero have a
-     * cost.
+     * Length of temporary {@code double[]} arrays, used for performing transformations in batch. A
+     * value of 1536 will consumes 12 kilobytes of memory per thread. The arrays are reused (see
+     * {@link #TEMPORARY_ARRAYS}), so larger blocks only reduce the number of calls to the steps.
      */
-    private static final int TEMPORARY_ARRAY_LENGTH = 256;
+    private static final int TEMPORARY_ARRAY_LENGTH = 1536;
+
+    /** Maximum number of temporary arrays kept around by each thread. */
+    private static final int TEMPORARY_ARRAY_POOL_SIZE = 4;
+
+    /**
+     * Temporary arrays reused among calls, per thread. This is a stack rather than a single array
+     * since the steps of a concatenated transform can be concatenated transforms themselves, each
+     * needing its own array.
+     */
+    private static final ThreadLocal<ArrayDeque<double[]>> TEMPORARY_ARRAYS =
+            ThreadLocal.withInitial(ArrayDeque::new);
 
     /** The first math transform. */
     public final MathTransform transform1;
@@ -431,18 +442,22 @@ public class ConcatenatedTransform extends AbstractMathTransform implements Seri
             numTmp = Math.max(1, TEMPORARY_ARRAY_LENGTH / intermDim);
             length = numTmp * intermDim;
         }
-        final double[] tmp = new double[length];
+        final double[] tmp = acquireTemporaryArray();
         final int sourceDim = getSourceDimensions();
-        do {
-            if (numTmp > numPts) {
-                numTmp = numPts;
-            }
-            transform1.transform(srcPts, srcOff, tmp, 0, numTmp);
-            transform2.transform(tmp, 0, dstPts, dstOff, numTmp);
-            srcOff += numTmp * sourceDim;
-            dstOff += numTmp * targetDim;
-            numPts -= numTmp;
-        } while (numPts != 0);
+        try {
+            do {
+                if (numTmp > numPts) {
+                    numTmp = numPts;
+                }
+                transform1.transform(srcPts, srcOff, tmp, 0, numTmp);
+                transform2.transform(tmp, 0, dstPts, dstOff, numTmp);
+                srcOff += numTmp * sourceDim;
+                dstOff += numTmp * targetDim;
+                numPts -= numTmp;
+            } while (numPts != 0);
+        } finally {
+            releaseTemporaryArray(tmp);
+        }
     }
 
     /**
@@ -470,23 +485,44 @@ public class ConcatenatedTransform extends AbstractMathTransform implements Seri
             numTmp = Math.max(1, TEMPORARY_ARRAY_LENGTH / dimension);
             length = numTmp * dimension;
         }
-        final double[] tmp = new double[length];
-        do {
-            if (numTmp > numPts) {
-                numTmp = numPts;
-            }
-            length = numTmp * sourceDim;
-            for (int i = 0; i < length; i++) {
-                tmp[i] = srcPts[srcOff++];
-            }
-            transform1.transform(tmp, 0, tmp, 0, numTmp);
-            transform2.transform(tmp, 0, tmp, 0, numTmp);
-            length = numTmp * targetDim;
-            for (int i = 0; i < length; i++) {
-                dstPts[dstOff++] = (float) tmp[i];
-            }
-            numPts -= numTmp;
-        } while (numPts != 0);
+        final double[] tmp = acquireTemporaryArray();
+        try {
+            do {
+                if (numTmp > numPts) {
+                    numTmp = numPts;
+                }
+                length = numTmp * sourceDim;
+                for (int i = 0; i < length; i++) {
+                    tmp[i] = srcPts[srcOff++];
+                }
+                transform1.transform(tmp, 0, tmp, 0, numTmp);
+                transform2.transform(tmp, 0, tmp, 0, numTmp);
+                length = numTmp * targetDim;
+                for (int i = 0; i < length; i++) {
+                    dstPts[dstOff++] = (float) tmp[i];
+                }
+                numPts -= numTmp;
+            } while (numPts != 0);
+        } finally {
+            releaseTemporaryArray(tmp);
+        }
+    }
+
+    /**
+     * Returns a temporary array of length {@link #TEMPORARY_ARRAY_LENGTH}, to be released with
+     * {@link #releaseTemporaryArray(double[])} once done.
+     */
+    private static double[] acquireTemporaryArray() {
+        final double[] array = TEMPORARY_ARRAYS.get().pollFirst();
+        return (array != null) ? array : new double[TEMPORARY_ARRAY_LENGTH];
+    }
+
+    /** Gives back an array obtained from {@link #acquireTemporaryArray()}. */
+    private static void releaseTemporaryArray(final double[] array) {
+        final ArrayDeque<double[]> pool = TEMPORARY_ARRAYS.get();
+        if (pool.size() < TEMPORARY_ARRAY_POOL_SIZE) {
+            pool.addFirst(array);
+        }
     }
 
     /** Creates the inverse transform of this object. */
@@ -0,0 +1,170 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.NoSuchAuthorityCodeException;
+
+/** Tests the {@link ConcurrentReferencingObjectCache} class. */
+public final class ConcurrentReferencingObjectCacheTest {
+
+    private static final int THREADS = 8;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Runs the given task concurrently in all threads, and returns the results. */
+    private <T> List<Future<T>> runConcurrently(final Callable<T> task) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<T>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(
+                    executor.submit(
+                            () -> {
+                                start.await();
+                                return task.call();
+                            }));
+        }
+        start.countDown();
+        return results;
+    }
+
+    /** Gives time to the other threads to request the object being created. */
+    private static void pause() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Concurrent requests for the same code must share a single creation. */
+    @Test
+    public void testSingleCreation() throws Exception {
+        final ConcurrentReferencingObjectCache cache = new ConcurrentReferencingObjectCache(20);
+        final AtomicInteger creations = new AtomicInteger();
+        final List<Future<String>> results =
+                runConcurrently(
+                        () ->
+                                cache.get(
+                                        "4326",
+                                        String.class,
+                                        () -> {
+                                            creations.incrementAndGet();
+                                            pause();
+                                            return new String("WGS 84");
+                                        }));
+        final String first = results.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<String> result : results) {
+            assertSame(first, result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, creations.get());
+        assertSame(first, cache.get("4326", String.class, () -> "other"));
+    }
+
+    /** A failed creation is reported to all waiting threads, and not cached. */
+    @Test
+    public void testFailure() throws Exception {
+        final ConcurrentReferencingObjectCache cache = new ConcurrentReferencingObjectCache(20);
+        final AtomicInteger creations = new AtomicInteger();
+        final List<Future<String>> results =
+                runConcurrently(
+                        () ->
+                                cache.get(
+                                        "9999",
+                                        String.class,
+                                        () -> {
+                                            creations.incrementAndGet();
+                                            pause();
+                                            throw new NoSuchAuthorityCodeException(
+                                                    "Unknown", "EPSG", "9999");
+                                        }));
+        for (Future<String> result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                fail("Expected a failure");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof NoSuchAuthorityCodeException);
+            }
+        }
+        assertEquals(1, creations.get());
+        assertEquals("found", cache.get("9999", String.class, () -> "found"));
+    }
+
+    /** Objects needed during the creation of an other object can be created and cached. */
+    @Test
+    public void testNestedCreation() throws Exception {
+        final ConcurrentReferencingObjectCache cache = new ConcurrentReferencingObjectCache(20);
+        final String crs =
+                cache.get(
+                        "32632",
+                        String.class,
+                        () -> {
+                            String datum = cache.get("6326", String.class, () -> "WGS84");
+                            // Same code, other type: must not wait for itself.
+                            Integer code = cache.get("32632", Integer.class, () -> 32632);
+                            return "UTM 32N / " + datum + " / " + code;
+                        });
+        assertEquals("UTM 32N / WGS84 / 32632", crs);
+        assertEquals("WGS84", cache.peek("6326"));
+        assertSame(crs, cache.peek("32632"));
+    }
+
+    /** An object of an other type cached for the same code is replaced. */
+    @Test
+    public void testOtherType() throws FactoryException {
+        final ConcurrentReferencingObjectCache cache = new ConcurrentReferencingObjectCache(20);
+        assertEquals(Integer.valueOf(4326), cache.get("4326", Integer.class, () -> 4326));
+        assertEquals("WGS 84", cache.get("4326", String.class, () -> "WGS 84"));
+        assertEquals("WGS 84", cache.peek("4326"));
+    }
+
+    /** Objects beyond the strong references limit remain available while in use. */
+    @Test
+    public void testWeakReferences() throws FactoryException {
+        final ConcurrentReferencingObjectCache cache = new ConcurrentReferencingObjectCache(2);
+        final List<String> values = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final String value = new String("crs" + i);
+            values.add(value);
+            assertSame(value, cache.get(i, String.class, () -> value));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertSame(values.get(i), cache.get(i, String.class, () -> "recreated"));
+        }
+        cache.clear();
+        assertNull(cache.peek(0));
+    }
+}
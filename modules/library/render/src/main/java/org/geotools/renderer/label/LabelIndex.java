@@ -17,20 +17,51 @@
 package org.geotools.renderer.label;
 
 import java.awt.geom.Rectangle2D;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
-import org.locationtech.jts.geom.Envelope;
-import org.locationtech.jts.index.quadtree.Quadtree;
 
 /**
  * Stores label items and helps in finding the interferering ones, either by pure overlap or within
- * a certain distance from the specified bounds
+ * a certain distance from the specified bounds.
+ *
+ * <p>Labels are tested for conflicts many times per label, so the index is organized to avoid any
+ * allocation while querying: the rectangles are packed in a primitive array and bucketed in a
+ * sparse grid of fixed size cells (labels are in screen space, so the cell size is expressed in
+ * pixels), the queries stop at the first overlap found.
  *
  * @author Andrea Aime
  */
 public class LabelIndex {
 
-    Quadtree index = new Quadtree();
+    /** Size of the grid cells, in pixels */
+    static final double CELL_SIZE = 64;
+
+    /**
+     * Rectangles spanning more cells than this are kept in a separate list checked on each query,
+     * and queries spanning more cells than this scan all rectangles
+     */
+    static final int MAX_CELLS = 64;
+
+    /** Ordinates beyond this value cannot be safely mapped to integer cell coordinates */
+    static final double MAX_ORDINATE = CELL_SIZE * (1 << 30);
+
+    /** The rectangles, as minx, miny, maxx, maxy sequences */
+    double[] rectangles = new double[4 * 64];
+
+    int count;
+
+    /** The rectangles too large to be put in the grid cells */
+    int[] large = new int[16];
+
+    int largeCount;
+
+    /** Open addressing hash table of the non empty cells, keyed by cell coordinates */
+    long[] cellKeys = new long[256];
+
+    /** The rectangles in each cell, the first element is the number of rectangles in the cell */
+    int[][] cells = new int[256][];
+
+    int cellCount;
 
     /**
      * Returns true if there is any label in the index within the specified distance from the
@@ -41,20 +72,46 @@ public class LabelIndex {
      * @param distance
      * @return
      */
-    @SuppressWarnings("unchecked")
     public boolean labelsWithinDistance(Rectangle2D bounds, double distance) {
-        if (distance < 0) return false;
-
-        Envelope e = toEnvelope(bounds);
-        e.expandBy(distance);
-        List<InterferenceItem> results = index.query(e);
-        if (results.size() == 0) return false;
-        for (Iterator<InterferenceItem> it = results.iterator(); it.hasNext(); ) {
-            InterferenceItem item = it.next();
-            if (item.env.intersects(e)) {
+        if (distance < 0 || count == 0) return false;
+
+        double minx = bounds.getMinX() - distance;
+        double miny = bounds.getMinY() - distance;
+        double maxx = bounds.getMaxX() + distance;
+        double maxy = bounds.getMaxY() + distance;
+
+        long cellsSpanned = cellsSpanned(minx, miny, maxx, maxy);
+        if (cellsSpanned > MAX_CELLS || cellsSpanned > count) {
+            // cheaper to go through all the rectangles
+            for (int i = 0; i < count; i++) {
+                if (intersects(i, minx, miny, maxx, maxy)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        for (int i = 0; i < largeCount; i++) {
+            if (intersects(large[i], minx, miny, maxx, maxy)) {
                 return true;
             }
         }
+        int cminx = cell(minx);
+        int cmaxx = cell(maxx);
+        int cminy = cell(miny);
+        int cmaxy = cell(maxy);
+        for (int cx = cminx; cx <= cmaxx; cx++) {
+            for (int cy = cminy; cy <= cmaxy; cy++) {
+                int[] cell = cells[slot(cx, cy)];
+                if (cell != null) {
+                    for (int i = 1; i <= cell[0]; i++) {
+                        if (intersects(cell[i], minx, miny, maxx, maxy)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
         return false;
     }
 
@@ -65,48 +122,131 @@ public class LabelIndex {
      * @param bounds
      */
     public void addLabel(LabelCacheItem item, Rectangle2D bounds) {
-        Envelope e = toEnvelope(bounds);
-        index.insert(e, new InterferenceItem(e, item));
+        add(bounds);
     }
 
     /**
-     * Turns the specified Java2D rectangle into a JTS envelope
+     * Reserve the area indicated by these Geometry.
      *
-     * @param bounds
-     * @return
+     * @param reserved
      */
-    private Envelope toEnvelope(Rectangle2D bounds) {
-        return new Envelope(bounds.getMinX(), bounds.getMaxX(), bounds.getMinY(), bounds.getMaxY());
+    public void reserveArea(List<Rectangle2D> reserved) {
+        for (Rectangle2D area : reserved) {
+            add(area);
+        }
     }
 
-    /**
-     * Simple structure stored into the quadtree (keeping the item around helps in debugging)
-     *
-     * @author Andrea Aime
-     */
-    static class InterferenceItem {
-        Envelope env;
+    private void add(Rectangle2D bounds) {
+        double minx = bounds.getMinX();
+        double miny = bounds.getMinY();
+        double maxx = bounds.getMaxX();
+        double maxy = bounds.getMaxY();
 
-        LabelCacheItem item;
+        int idx = count++;
+        if (rectangles.length < count * 4) {
+            rectangles = Arrays.copyOf(rectangles, rectangles.length * 2);
+        }
+        int offset = idx * 4;
+        rectangles[offset] = minx;
+        rectangles[offset + 1] = miny;
+        rectangles[offset + 2] = maxx;
+        rectangles[offset + 3] = maxy;
 
-        public InterferenceItem(Envelope env, LabelCacheItem item) {
-            super();
-            this.env = env;
-            this.item = item;
+        if (cellsSpanned(minx, miny, maxx, maxy) > MAX_CELLS) {
+            if (largeCount == large.length) {
+                large = Arrays.copyOf(large, large.length * 2);
+            }
+            large[largeCount++] = idx;
+            return;
+        }
+
+        int cmaxx = cell(maxx);
+        int cmaxy = cell(maxy);
+        for (int cx = cell(minx); cx <= cmaxx; cx++) {
+            for (int cy = cell(miny); cy <= cmaxy; cy++) {
+                addToCell(cx, cy, idx);
+            }
+        }
+    }
+
+    private void addToCell(int cx, int cy, int idx) {
+        int slot = slot(cx, cy);
+        int[] cell = cells[slot];
+        if (cell == null) {
+            // keep the table at most half full, so that probe sequences stay short
+            if ((cellCount + 1) * 2 > cells.length) {
+                rehash();
+                slot = slot(cx, cy);
+            }
+            cellKeys[slot] = key(cx, cy);
+            cell = new int[5];
+            cells[slot] = cell;
+            cellCount++;
+        } else if (cell[0] == cell.length - 1) {
+            cell = Arrays.copyOf(cell, cell.length * 2);
+            cells[slot] = cell;
         }
+        cell[++cell[0]] = idx;
+    }
+
+    private void rehash() {
+        long[] oldKeys = cellKeys;
+        int[][] oldCells = cells;
+        cellKeys = new long[oldKeys.length * 2];
+        cells = new int[oldCells.length * 2][];
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldCells[i] != null) {
+                int slot = probe(oldKeys[i]);
+                cellKeys[slot] = oldKeys[i];
+                cells[slot] = oldCells[i];
+            }
+        }
+    }
+
+    /** Returns the slot of the cell, or the empty slot where it would be stored */
+    private int slot(int cx, int cy) {
+        return probe(key(cx, cy));
+    }
+
+    private int probe(long key) {
+        int mask = cells.length - 1;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (cells[slot] != null && cellKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private static int cell(double ordinate) {
+        return (int) Math.floor(ordinate / CELL_SIZE);
     }
 
     /**
-     * Reserve the area indicated by these Geometry.
-     *
-     * @param reserved
+     * Number of cells spanned by the rectangle, or Long.MAX_VALUE if the rectangle is not finite or
+     * too far away from the origin to be mapped to integer cell coordinates
      */
-    public void reserveArea(List<Rectangle2D> reserved) {
-        for (Rectangle2D area : reserved) {
-            Envelope env = toEnvelope(area);
-
-            InterferenceItem item = new InterferenceItem(env, null);
-            index.insert(env, item);
+    private static long cellsSpanned(double minx, double miny, double maxx, double maxy) {
+        if (!(Math.abs(minx) < MAX_ORDINATE
+                && Math.abs(miny) < MAX_ORDINATE
+                && Math.abs(maxx) < MAX_ORDINATE
+                && Math.abs(maxy) < MAX_ORDINATE)) {
+            return Long.MAX_VALUE;
         }
+        long w = cell(maxx) - cell(minx) + 1;
+        long h = cell(maxy) - cell(miny) + 1;
+        return w * h;
+    }
+
+    private boolean intersects(int idx, double minx, double miny, double maxx, double maxy) {
+        int offset = idx * 4;
+        return !(rectangles[offset] > maxx
+                || rectangles[offset + 2] < minx
+                || rectangles[offset + 1] > maxy
+                || rectangles[offset + 3] < miny);
     }
 }
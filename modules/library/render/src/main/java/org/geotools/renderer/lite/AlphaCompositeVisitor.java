@@ -35,6 +35,9 @@ class AlphaCompositeVisitor extends AbstractStyleVisitor {
 
     boolean alphaComposite = false;
 
+    /** Set to true if any kind of composite, alpha or blending, is used in the style */
+    boolean composite = false;
+
     @Override
     public void visit(FeatureTypeStyle fts) {
         super.visit(fts);
@@ -53,6 +56,9 @@ class AlphaCompositeVisitor extends AbstractStyleVisitor {
     private void checkAlphaComposite(Map<String, String> options) {
         if (options != null) {
             Composite composite = SLDStyleFactory.getComposite(options);
+            if (composite != null) {
+                this.composite = true;
+            }
             if (composite instanceof AlphaComposite) {
                 alphaComposite = true;
             }
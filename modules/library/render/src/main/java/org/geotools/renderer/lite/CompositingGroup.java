@@ -154,6 +154,22 @@ class CompositingGroup {
         return false;
     }
 
+    /**
+     * Returns true if compositing, either alpha or blending, is used anywhere in the layer style
+     *
+     * @param layer
+     * @return
+     */
+    static boolean hasCompositing(Layer layer) {
+        Style style = layer.getStyle();
+        if (style == null) {
+            return false;
+        }
+        AlphaCompositeVisitor visitor = new AlphaCompositeVisitor();
+        style.accept(visitor);
+        return visitor.composite;
+    }
+
     private static List<Style> splitOnCompositingBase(Style style) {
         List<Style> styles = new ArrayList<>();
         List<FeatureTypeStyle> featureTypeStyles = new ArrayList<>();
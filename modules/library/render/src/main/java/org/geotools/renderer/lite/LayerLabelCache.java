@@ -0,0 +1,113 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.renderer.lite;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import org.geotools.geometry.jts.LiteShape2;
+import org.geotools.styling.TextSymbolizer;
+import org.geotools.util.NumberRange;
+import org.opengis.feature.Feature;
+
+/**
+ * Label cache handed to the renderers painting a single layer when {@link
+ * StreamingRenderer#PARALLEL_LAYERS_KEY} is enabled. All labels end up in the label cache of the
+ * parent renderer, under the layer id the parent assigned, while the cache life cycle ({@link
+ * #start()}, {@link #end(Graphics2D, Rectangle)}, {@link #stop()}, {@link #clear()}) stays under
+ * the control of the parent renderer.
+ *
+ * <p>The delegate is shared among several threads, so it should be thread safe (e.g., a {@link
+ * SynchronizedLabelCache}).
+ */
+class LayerLabelCache implements LabelCache {
+
+    LabelCache delegate;
+
+    String layerId;
+
+    LayerLabelCache(LabelCache delegate, String layerId) {
+        this.delegate = delegate;
+        this.layerId = layerId;
+    }
+
+    @Override
+    public void start() {
+        // managed by the parent renderer
+    }
+
+    @Override
+    public void startLayer(String layerId) {
+        delegate.startLayer(this.layerId);
+    }
+
+    @Override
+    public void put(
+            String layerId,
+            TextSymbolizer symbolizer,
+            Feature feature,
+            LiteShape2 shape,
+            NumberRange<Double> scaleRange) {
+        delegate.put(this.layerId, symbolizer, feature, shape, scaleRange);
+    }
+
+    @Override
+    public void put(Rectangle2D area) {
+        delegate.put(area);
+    }
+
+    @Override
+    public void endLayer(String layerId, Graphics2D graphics, Rectangle displayArea) {
+        delegate.endLayer(this.layerId, graphics, displayArea);
+    }
+
+    @Override
+    public void end(Graphics2D graphics, Rectangle displayArea) {
+        // labels are painted by the parent renderer, once all layers are done
+    }
+
+    @Override
+    public void stop() {
+        // managed by the parent renderer
+    }
+
+    @Override
+    public void clear() {
+        // managed by the parent renderer
+    }
+
+    @Override
+    public void clear(String layerId) {
+        delegate.clear(this.layerId);
+    }
+
+    @Override
+    public void disableLayer(String layerId) {
+        delegate.disableLayer(this.layerId);
+    }
+
+    @Override
+    public void enableLayer(String layerId) {
+        delegate.enableLayer(this.layerId);
+    }
+
+    @Override
+    public List orderedLabels() {
+        return delegate.orderedLabels();
+    }
+}
@@ -18,11 +18,22 @@ package org.geotools.renderer.lite;
 
 import java.awt.Composite;
 import java.awt.Graphics2D;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.geotools.data.util.ScreenMap;
+import org.geotools.filter.visitor.BindingFilterVisitor;
+import org.geotools.filter.visitor.CompilingFilterVisitor;
 import org.geotools.map.Layer;
 import org.geotools.renderer.crs.ProjectionHandler;
 import org.geotools.styling.Rule;
+import org.geotools.util.logging.Logging;
+import org.opengis.feature.Feature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.FeatureType;
+import org.opengis.filter.Filter;
 import org.opengis.filter.expression.Expression;
 import org.opengis.filter.sort.SortBy;
 
@@ -51,6 +62,8 @@ import org.opengis.filter.sort.SortBy;
  */
 final class LiteFeatureTypeStyle {
 
+    static final Logger LOGGER = Logging.getLogger(LiteFeatureTypeStyle.class);
+
     public Layer layer;
 
     public Rule[] ruleList;
@@ -86,6 +99,18 @@ final class LiteFeatureTypeStyle {
     /** The meta buffer for the current layer */
     int metaBuffer;
 
+    /**
+     * Filters the data source is known to enforce on the features it returns, rules using them
+     * can skip their evaluation
+     */
+    Set<Filter> enforcedFilters = Collections.emptySet();
+
+    /** The rule filters, compiled against the type of the first rendered feature */
+    Filter[] ruleFilters;
+
+    /** The index used to look up the rules applying to a feature, if any */
+    RuleIndex ruleIndex;
+
     /**
      * use this for only the 1st FTS. We don't actually create an image for it -- we just use the
      * graphics. WATCH OUT FOR THIS. NOTE: image=null in this case
@@ -107,4 +132,49 @@ final class LiteFeatureTypeStyle {
         this.elseRules = (Rule[]) elseRuleList.toArray(new Rule[elseRuleList.size()]);
         this.transformation = transformation;
     }
+
+    /**
+     * Returns the filters of the rules in {@link #ruleList}, compiled for fast evaluation against
+     * features of the given type. The filters are compiled on first access, as the rules can be
+     * modified while setting up the rendering.
+     */
+    Filter[] getRuleFilters(FeatureType featureType) {
+        if (ruleFilters == null) {
+            Filter[] filters = new Filter[ruleList.length];
+            for (int i = 0; i < ruleList.length; i++) {
+                filters[i] = compileRuleFilter(ruleList[i].getFilter(), featureType);
+            }
+            ruleIndex = RuleIndex.build(filters);
+            ruleFilters = filters;
+        }
+        return ruleFilters;
+    }
+
+    private Filter compileRuleFilter(Filter filter, FeatureType featureType) {
+        if (filter == null) {
+            return null;
+        } else if (enforcedFilters.contains(filter)) {
+            // the data source already checked it
+            return Filter.INCLUDE;
+        } else if (!(featureType instanceof SimpleFeatureType)) {
+            return filter;
+        }
+        try {
+            // bind literals to the attribute types, so that the values can be looked up in the
+            // rule index and compared without conversions
+            Filter bound = (Filter) filter.accept(new BindingFilterVisitor(featureType), null);
+            return CompilingFilterVisitor.compile(bound, featureType);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, "Could not compile rule filter " + filter, e);
+            return filter;
+        }
+    }
+
+    /**
+     * Returns the indexes of the rules that might apply to the feature, in rule order, or null if
+     * all rules need to be evaluated. Must be called after {@link #getRuleFilters(FeatureType)}
+     */
+    int[] getRuleCandidates(Feature feature) {
+        return ruleIndex == null ? null : ruleIndex.getCandidates(feature);
+    }
 }
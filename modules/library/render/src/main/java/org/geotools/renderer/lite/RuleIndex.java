@@ -0,0 +1,412 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.renderer.lite;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+
+/**
+ * Finds the rules that might apply to a feature without evaluating all the rule filters, for styles
+ * whose rules discriminate on the same attribute, such as thematic maps with one rule per value, or
+ * one rule per class of a numeric attribute.
+ *
+ * <p>The index picks the attribute used by most rules, and indexes either the rules comparing it
+ * for equality with a literal, in a hash map, or the rules selecting a range of numeric values,
+ * as a sorted list of intervals. The other rules are always returned as candidates. The candidates
+ * are a superset of the matching rules, sorted in rule order, their filters still need to be
+ * evaluated. Values that cannot be looked up in the index, e.g. because they are not of the same
+ * class as the literals in the filters, make all rules candidates.
+ */
+final class RuleIndex {
+
+    /** Minimum number of rules on the same attribute that makes the index worth using */
+    static final int MIN_INDEXED_RULES = 5;
+
+    /** The attribute the rules are indexed on */
+    final Expression property;
+
+    /** The class of the literals the attribute is compared with */
+    final Class<?> valueClass;
+
+    /** All rules, used when the value cannot be looked up */
+    final int[] allRules;
+
+    /** The rules that are not indexed, always candidates */
+    final int[] otherRules;
+
+    /** The equality index, from literal value to candidate rules */
+    final Map<Object, int[]> equalities;
+
+    /** The sorted range boundaries */
+    final double[] boundaries;
+
+    /**
+     * The candidates for each region of the range index, the boundaries themselves at odd
+     * positions, the intervals between them at even ones
+     */
+    final int[][] regions;
+
+    private RuleIndex(
+            Expression property,
+            Class<?> valueClass,
+            int[] allRules,
+            int[] otherRules,
+            Map<Object, int[]> equalities,
+            double[] boundaries,
+            int[][] regions) {
+        this.property = property;
+        this.valueClass = valueClass;
+        this.allRules = allRules;
+        this.otherRules = otherRules;
+        this.equalities = equalities;
+        this.boundaries = boundaries;
+        this.regions = regions;
+    }
+
+    /**
+     * Builds an index for the given rule filters, or returns null if there are not enough rules
+     * sharing an indexable attribute
+     *
+     * @param filters The rule filters, a null filter matches all features
+     */
+    static RuleIndex build(Filter[] filters) {
+        if (filters.length < MIN_INDEXED_RULES) {
+            return null;
+        }
+
+        // classify the rules by attribute and kind of condition
+        Map<String, List<Condition>> equalities = new LinkedHashMap<>();
+        Map<String, List<Condition>> ranges = new LinkedHashMap<>();
+        for (int i = 0; i < filters.length; i++) {
+            Condition condition = Condition.parse(i, filters[i]);
+            if (condition != null) {
+                Map<String, List<Condition>> target =
+                        condition.value != null ? equalities : ranges;
+                target.computeIfAbsent(condition.name, k -> new ArrayList<>()).add(condition);
+            }
+        }
+
+        // pick the largest group of rules sharing the same attribute and literal class
+        List<Condition> best = null;
+        List<List<Condition>> groups = groups(equalities);
+        groups.addAll(groups(ranges));
+        for (List<Condition> group : groups) {
+            if (group.size() >= MIN_INDEXED_RULES && (best == null || group.size() > best.size())) {
+                best = group;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        int[] allRules = new int[filters.length];
+        for (int i = 0; i < allRules.length; i++) {
+            allRules[i] = i;
+        }
+        boolean[] indexed = new boolean[filters.length];
+        for (Condition c : best) {
+            indexed[c.rule] = true;
+        }
+        int[] otherRules = new int[filters.length - best.size()];
+        for (int i = 0, j = 0; i < filters.length; i++) {
+            if (!indexed[i]) {
+                otherRules[j++] = i;
+            }
+        }
+
+        Condition first = best.get(0);
+        if (first.value != null) {
+            Map<Object, List<Integer>> rulesByValue = new HashMap<>();
+            for (Condition c : best) {
+                rulesByValue.computeIfAbsent(c.value, k -> new ArrayList<>()).add(c.rule);
+            }
+            Map<Object, int[]> lookup = new HashMap<>();
+            for (Map.Entry<Object, List<Integer>> entry : rulesByValue.entrySet()) {
+                lookup.put(entry.getKey(), merge(otherRules, entry.getValue()));
+            }
+            return new RuleIndex(
+                    first.property, first.valueClass, allRules, otherRules, lookup, null, null);
+        } else {
+            double[] boundaries =
+                    best.stream()
+                            .flatMapToDouble(c -> Arrays.stream(new double[] {c.min, c.max}))
+                            .filter(d -> !Double.isInfinite(d))
+                            .sorted()
+                            .distinct()
+                            .toArray();
+            int[][] regions = new int[boundaries.length * 2 + 1][];
+            for (int r = 0; r < regions.length; r++) {
+                // regions at odd positions are the boundaries, the even ones the open intervals
+                double low = r == 0 ? Double.NEGATIVE_INFINITY : boundaries[(r - 1) / 2];
+                double high =
+                        r == regions.length - 1 ? Double.POSITIVE_INFINITY : boundaries[r / 2];
+                List<Integer> rules = new ArrayList<>();
+                for (Condition c : best) {
+                    boolean overlaps =
+                            r % 2 == 1 ? c.min <= low && low <= c.max : c.min < high && c.max > low;
+                    if (overlaps) {
+                        rules.add(c.rule);
+                    }
+                }
+                regions[r] = merge(otherRules, rules);
+            }
+            return new RuleIndex(
+                    first.property,
+                    first.valueClass,
+                    allRules,
+                    otherRules,
+                    null,
+                    boundaries,
+                    regions);
+        }
+    }
+
+    /** Splits the conditions further by literal class, each group can be indexed on its own */
+    private static List<List<Condition>> groups(Map<String, List<Condition>> byName) {
+        List<List<Condition>> result = new ArrayList<>();
+        for (List<Condition> conditions : byName.values()) {
+            Map<Class<?>, List<Condition>> byClass = new LinkedHashMap<>();
+            for (Condition c : conditions) {
+                byClass.computeIfAbsent(c.valueClass, k -> new ArrayList<>()).add(c);
+            }
+            result.addAll(byClass.values());
+        }
+        return result;
+    }
+
+    /** Merges the sorted rule indexes in a single sorted array */
+    private static int[] merge(int[] rules, List<Integer> others) {
+        int[] result = new int[rules.length + others.size()];
+        System.arraycopy(rules, 0, result, 0, rules.length);
+        for (int i = 0; i < others.size(); i++) {
+            result[rules.length + i] = others.get(i);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns the indexes of the rules that might apply to the feature, in rule order
+     *
+     * @param feature The feature being rendered
+     */
+    int[] getCandidates(Object feature) {
+        Object value = property.evaluate(feature);
+        if (value == null) {
+            // null values never satisfy equality or range comparisons with non null literals
+            return otherRules;
+        }
+        if (value.getClass() != valueClass) {
+            return allRules;
+        }
+        if (equalities != null) {
+            int[] rules = equalities.get(value);
+            return rules != null ? rules : otherRules;
+        } else {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d)) {
+                return allRules;
+            }
+            int idx = Arrays.binarySearch(boundaries, d);
+            return regions[idx >= 0 ? idx * 2 + 1 : (-idx - 1) * 2];
+        }
+    }
+
+    /**
+     * A rule filter that compares an attribute with a literal value, or restricts it to an interval
+     * of numeric values. Interval bounds are always considered inclusive, as the index only needs
+     * to find a superset of the matching rules.
+     */
+    static final class Condition {
+
+        final int rule;
+
+        final String name;
+
+        final Expression property;
+
+        final Class<?> valueClass;
+
+        /** The literal for equality conditions, null for ranges */
+        Object value;
+
+        double min = Double.NEGATIVE_INFINITY;
+
+        double max = Double.POSITIVE_INFINITY;
+
+        Condition(int rule, PropertyName property, Class<?> valueClass) {
+            this.rule = rule;
+            this.name = property.getPropertyName();
+            this.property = property;
+            this.valueClass = valueClass;
+        }
+
+        static Condition parse(int rule, Filter filter) {
+            if (filter instanceof PropertyIsEqualTo) {
+                PropertyIsEqualTo equal = (PropertyIsEqualTo) filter;
+                PropertyName property = getProperty(equal);
+                Object value = getLiteral(equal);
+                if (property == null
+                        || !isHashable(value)
+                        || (value instanceof String && !equal.isMatchingCase())) {
+                    return null;
+                }
+                Condition condition = new Condition(rule, property, value.getClass());
+                condition.value = value;
+                return condition;
+            } else if (filter instanceof PropertyIsBetween) {
+                PropertyIsBetween between = (PropertyIsBetween) filter;
+                if (!(between.getExpression() instanceof PropertyName)) {
+                    return null;
+                }
+                Number min = getNumber(between.getLowerBoundary());
+                Number max = getNumber(between.getUpperBoundary());
+                if (min == null || max == null || min.getClass() != max.getClass()) {
+                    return null;
+                }
+                PropertyName property = (PropertyName) between.getExpression();
+                Condition condition = new Condition(rule, property, min.getClass());
+                condition.min = min.doubleValue();
+                condition.max = max.doubleValue();
+                return condition;
+            } else if (filter instanceof And) {
+                // a range expressed as a pair of comparisons
+                Condition condition = null;
+                for (Filter child : ((And) filter).getChildren()) {
+                    Condition c = parse(rule, child);
+                    if (c == null || c.value != null) {
+                        // cannot use the other conditions to widen the range, skip it
+                        continue;
+                    } else if (condition == null) {
+                        condition = c;
+                    } else if (condition.name.equals(c.name)
+                            && condition.valueClass == c.valueClass) {
+                        condition.min = Math.max(condition.min, c.min);
+                        condition.max = Math.min(condition.max, c.max);
+                    }
+                }
+                return condition;
+            } else if (filter instanceof BinaryComparisonOperator) {
+                return parseComparison(rule, (BinaryComparisonOperator) filter);
+            }
+            return null;
+        }
+
+        private static Condition parseComparison(int rule, BinaryComparisonOperator filter) {
+            boolean greater =
+                    filter instanceof PropertyIsGreaterThan
+                            || filter instanceof PropertyIsGreaterThanOrEqualTo;
+            boolean less =
+                    filter instanceof PropertyIsLessThan
+                            || filter instanceof PropertyIsLessThanOrEqualTo;
+            PropertyName property = getProperty(filter);
+            if (!(greater || less) || property == null) {
+                return null;
+            }
+            Number value = getNumber(getLiteralExpression(filter));
+            if (value == null) {
+                return null;
+            }
+            // flip the comparison if the literal comes first
+            if (filter.getExpression1() instanceof Literal) {
+                greater = !greater;
+            }
+            Condition condition = new Condition(rule, property, value.getClass());
+            if (greater) {
+                condition.min = value.doubleValue();
+            } else {
+                condition.max = value.doubleValue();
+            }
+            return condition;
+        }
+
+        private static PropertyName getProperty(BinaryComparisonOperator filter) {
+            Expression e1 = filter.getExpression1();
+            Expression e2 = filter.getExpression2();
+            if (e1 instanceof PropertyName && e2 instanceof Literal) {
+                return (PropertyName) e1;
+            } else if (e2 instanceof PropertyName && e1 instanceof Literal) {
+                return (PropertyName) e2;
+            }
+            return null;
+        }
+
+        private static Expression getLiteralExpression(BinaryComparisonOperator filter) {
+            return filter.getExpression1() instanceof Literal
+                    ? filter.getExpression1()
+                    : filter.getExpression2();
+        }
+
+        private static Object getLiteral(BinaryComparisonOperator filter) {
+            return ((Literal) getLiteralExpression(filter)).getValue();
+        }
+
+        /**
+         * Returns true if the value class equality matches the filter one, and has a consistent
+         * hash code
+         */
+        private static boolean isHashable(Object value) {
+            return value instanceof String
+                    || value instanceof Boolean
+                    || value instanceof Character
+                    || (value instanceof Number && isFinalNumber(value.getClass()));
+        }
+
+        private static boolean isFinalNumber(Class<?> c) {
+            return c == Integer.class
+                    || c == Long.class
+                    || c == Double.class
+                    || c == Float.class
+                    || c == Short.class
+                    || c == Byte.class
+                    || c == BigInteger.class
+                    || c == BigDecimal.class;
+        }
+
+        /** Returns the literal number, as long as it's finite */
+        private static Number getNumber(Expression expression) {
+            if (!(expression instanceof Literal)) {
+                return null;
+            }
+            Object value = ((Literal) expression).getValue();
+            if (value instanceof Number
+                    && isFinalNumber(value.getClass())
+                    && Double.isFinite(((Number) value).doubleValue())) {
+                return (Number) value;
+            }
+            return null;
+        }
+    }
+}
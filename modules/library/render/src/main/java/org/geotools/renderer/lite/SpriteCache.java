@@ -0,0 +1,274 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.renderer.lite;
+
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A process wide cache of pre-rendered point symbols, allowing to paint a symbol used by many
+ * features with a single image copy, instead of filling and stroking its shape each time. The
+ * cache is bounded by the total number of pixels of the sprites it holds, the least recently used
+ * sprites are evicted first.
+ */
+final class SpriteCache {
+
+    /** The maximum number of pixels held by the shared cache */
+    static final int MAX_PIXELS =
+            Integer.getInteger("org.geotools.renderer.lite.spriteCachePixels", 4 * 1024 * 1024);
+
+    /** The shared cache */
+    static final SpriteCache INSTANCE = new SpriteCache(MAX_PIXELS);
+
+    /** A pre-rendered symbol, along with the position of the symbol anchor in the image */
+    static final class Sprite {
+
+        final BufferedImage image;
+
+        final int originX;
+
+        final int originY;
+
+        Sprite(BufferedImage image, int originX, int originY) {
+            this.image = image;
+            this.originX = originX;
+            this.originY = originY;
+        }
+
+        int getPixels() {
+            return image.getWidth() * image.getHeight();
+        }
+    }
+
+    /**
+     * The outline of a mark shape, compared by value, so that equal shapes built for different
+     * styles or requests share their sprites. It holds no reference to the shape itself.
+     */
+    static final class ShapeDescriptor {
+
+        final int windingRule;
+
+        final byte[] types;
+
+        final double[] coords;
+
+        final int hashCode;
+
+        ShapeDescriptor(Shape shape) {
+            PathIterator it = shape.getPathIterator(null);
+            byte[] types = new byte[16];
+            double[] coords = new double[96];
+            double[] segment = new double[6];
+            int count = 0;
+            int ordinates = 0;
+            for (; !it.isDone(); it.next()) {
+                int type = it.currentSegment(segment);
+                if (count == types.length) {
+                    types = Arrays.copyOf(types, count * 2);
+                }
+                if (ordinates + 6 > coords.length) {
+                    coords = Arrays.copyOf(coords, coords.length * 2);
+                }
+                types[count++] = (byte) type;
+                int length = getOrdinates(type);
+                System.arraycopy(segment, 0, coords, ordinates, length);
+                ordinates += length;
+            }
+            this.windingRule = it.getWindingRule();
+            this.types = Arrays.copyOf(types, count);
+            this.coords = Arrays.copyOf(coords, ordinates);
+            this.hashCode =
+                    31 * (31 * windingRule + Arrays.hashCode(this.types))
+                            + Arrays.hashCode(this.coords);
+        }
+
+        private static int getOrdinates(int segmentType) {
+            switch (segmentType) {
+                case PathIterator.SEG_MOVETO:
+                case PathIterator.SEG_LINETO:
+                    return 2;
+                case PathIterator.SEG_QUADTO:
+                    return 4;
+                case PathIterator.SEG_CUBICTO:
+                    return 6;
+                default:
+                    return 0;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ShapeDescriptor)) {
+                return false;
+            }
+            ShapeDescriptor other = (ShapeDescriptor) obj;
+            return windingRule == other.windingRule
+                    && Arrays.equals(types, other.types)
+                    && Arrays.equals(coords, other.coords);
+        }
+    }
+
+    /**
+     * A weak reference to a symbol without value equality (e.g., an icon), compared by identity.
+     * Holding symbols weakly avoids pinning heavyweight ones (e.g., SVG documents) in the cache,
+     * the sprites of collected symbols are evicted.
+     */
+    static final class SymbolReference extends WeakReference<Object> {
+
+        final Key key;
+
+        final int hashCode;
+
+        SymbolReference(Object symbol, Key key) {
+            super(symbol, QUEUE);
+            this.key = key;
+            this.hashCode = System.identityHashCode(symbol);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SymbolReference)) {
+                return false;
+            }
+            Object symbol = get();
+            return symbol != null && symbol == ((SymbolReference) obj).get();
+        }
+    }
+
+    /** The queue of the collected symbols */
+    static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+
+    /**
+     * Identifies a sprite. Symbols with value equality (see {@link ShapeDescriptor}) are compared
+     * by value, the other ones are held weakly and compared by identity. All the other parameters
+     * affecting the rendering are compared by value.
+     */
+    static final class Key {
+
+        final Object symbol;
+
+        final Object[] parameters;
+
+        final int hashCode;
+
+        Key(Object symbol, Object... parameters) {
+            this.symbol =
+                    symbol instanceof ShapeDescriptor ? symbol : new SymbolReference(symbol, this);
+            this.parameters = parameters;
+            this.hashCode = 31 * this.symbol.hashCode() + Arrays.hashCode(parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return symbol.equals(other.symbol) && Arrays.equals(parameters, other.parameters);
+        }
+    }
+
+    final int maxPixels;
+
+    final LinkedHashMap<Key, Sprite> sprites = new LinkedHashMap<>(64, 0.75f, true);
+
+    /** The descriptors of the mark shapes, weakly keyed so that the shapes can be collected */
+    final Map<Shape, ShapeDescriptor> shapes = new WeakHashMap<>();
+
+    int pixels;
+
+    SpriteCache(int maxPixels) {
+        this.maxPixels = maxPixels;
+    }
+
+    /** Returns the value descriptor of the mark shape, to be used as a sprite symbol */
+    synchronized ShapeDescriptor getShapeDescriptor(Shape shape) {
+        ShapeDescriptor descriptor = shapes.get(shape);
+        if (descriptor == null) {
+            descriptor = new ShapeDescriptor(shape);
+            shapes.put(shape, descriptor);
+        }
+        return descriptor;
+    }
+
+    /** Returns the cached sprite, or null if not found */
+    synchronized Sprite get(Key key) {
+        return sprites.get(key);
+    }
+
+    /** Caches the sprite, evicting the least recently used ones if the cache grows too large */
+    synchronized void put(Key key, Sprite sprite) {
+        expungeCollectedSymbols();
+        if (sprite.getPixels() > maxPixels) {
+            return;
+        }
+        Sprite previous = sprites.put(key, sprite);
+        if (previous != null) {
+            pixels -= previous.getPixels();
+        }
+        pixels += sprite.getPixels();
+        Iterator<Map.Entry<Key, Sprite>> it = sprites.entrySet().iterator();
+        while (pixels > maxPixels && it.hasNext()) {
+            Map.Entry<Key, Sprite> eldest = it.next();
+            pixels -= eldest.getValue().getPixels();
+            it.remove();
+        }
+    }
+
+    /** Removes the sprites whose symbol has been garbage collected */
+    private void expungeCollectedSymbols() {
+        Reference<?> reference;
+        while ((reference = QUEUE.poll()) != null) {
+            // the key equals only itself once its symbol is gone
+            Sprite sprite = sprites.remove(((SymbolReference) reference).key);
+            if (sprite != null) {
+                pixels -= sprite.getPixels();
+            }
+        }
+    }
+
+    /** Removes all the cached sprites */
+    synchronized void clear() {
+        sprites.clear();
+        shapes.clear();
+        pixels = 0;
+    }
+}
@@ -38,6 +38,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -46,9 +48,11 @@ import java.util.Set;
 import java.util.Spliterator;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.logging.Level;
@@ -141,6 +145,7 @@ import org.opengis.feature.type.FeatureType;
 import org.opengis.feature.type.GeometryDescriptor;
 import org.opengis.feature.type.Name;
 import org.opengis.feature.type.PropertyDescriptor;
+import org.opengis.filter.And;
 import org.opengis.filter.Filter;
 import org.opengis.filter.FilterFactory2;
 import org.opengis.filter.expression.Expression;
@@ -345,6 +350,22 @@ public class StreamingRenderer implements GTRenderer {
      */
     public static final String OPTIMIZE_FTS_RENDERING_KEY = "optimizeFTSRendering";
 
+    /**
+     * Boolean flag enabling parallel rendering of the layers (disabled by default).
+     *
+     * <p>When enabled each layer of a compositing group is loaded and painted at the same time as
+     * the others, into its own memory back buffer (as big as the image being rendered), and the
+     * back buffers are then merged in z-order. Labels are still collected in the shared label cache
+     * and painted at the end. The layers are run in the thread pool set with {@link
+     * #setThreadPool(ExecutorService)}, or in a local pool sized after the number of available
+     * processors otherwise.
+     *
+     * <p>Compositing groups using alpha compositing or color blending, or containing z-ordered
+     * layer groups, are rendered sequentially, as their layers need to be painted on top of each
+     * other.
+     */
+    public static final String PARALLEL_LAYERS_KEY = "parallelLayers";
+
     /**
      * Enables advanced reprojection handling. Geometries will be sliced to fit into the area of
      * definition of the rendering projection.
@@ -403,6 +424,9 @@ public class StreamingRenderer implements GTRenderer {
 
     private PainterThread painterThread;
 
+    /** The renderers painting the single layers, when {@link #PARALLEL_LAYERS_KEY} is enabled */
+    private List<StreamingRenderer> layerRenderers = new CopyOnWriteArrayList<>();
+
     /**
      * Creates a new instance of LiteRenderer without a context. Use it only to gain access to
      * utility methods of this class or if you want to render random feature collections instead of
@@ -411,7 +435,9 @@ public class StreamingRenderer implements GTRenderer {
     public StreamingRenderer() {}
 
     /**
-     * Sets a thread pool to be used in parallel rendering
+     * Sets a thread pool to be used in parallel rendering. When {@link #PARALLEL_LAYERS_KEY} is
+     * enabled the pool is also used to paint the layers, in that case it must be able to run more
+     * than one task at a time.
      *
      * @param threadPool
      */
@@ -516,6 +542,12 @@ public class StreamingRenderer implements GTRenderer {
                     e);
         }
 
+        for (StreamingRenderer layerRenderer : layerRenderers) {
+            if (layerRenderer.painterThread != null) {
+                layerRenderer.stopRendering();
+            }
+        }
+
         labelCache.stop();
     }
 
@@ -686,6 +718,9 @@ public class StreamingRenderer implements GTRenderer {
             worldToScreen = RendererUtilities.worldToScreenTransform(mapArea, paintArea);
             if (worldToScreen == null) return;
         }
+        // the layer renderers will redo the setup below on their own
+        final ReferencedEnvelope requestedMapArea = mapArea;
+        final AffineTransform requestedWorldToScreen = worldToScreen;
 
         CoordinateReferenceSystem mapCRS = mapArea.getCoordinateReferenceSystem();
         if (CRS.getAxisOrder(mapCRS) == CRS.AxisOrder.NORTH_EAST) {
@@ -794,6 +829,17 @@ public class StreamingRenderer implements GTRenderer {
             localPool = true;
         }
         Future painterFuture = localThreadPool.submit(painterThread);
+        ExecutorService layersThreadPool = null;
+        boolean localLayersPool = false;
+        if (isParallelLayersRenderingEnabled()) {
+            if (threadPool != null && !isSingleThreaded(threadPool)) {
+                layersThreadPool = threadPool;
+            } else {
+                layersThreadPool =
+                        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+                localLayersPool = true;
+            }
+        }
         List<CompositingGroup> compositingGroups = null;
         try {
             if (mapContent == null) {
@@ -827,46 +873,60 @@ public class StreamingRenderer implements GTRenderer {
                                     LabelRenderingMode.valueOf(getTextRenderingMethod()));
                 }
 
-                for (Layer layer : currentMapContent.layers()) {
-                    layerCounter++;
-                    String layerId = String.valueOf(layerCounter);
-                    if (!layer.isVisible()) {
-                        // Only render layer when layer is visible
-                        continue;
-                    }
-
+                if (layersThreadPool != null && canPaintInParallel(currentMapContent)) {
+                    layerCounter =
+                            paintLayersInParallel(
+                                    compositingGroup,
+                                    layerCounter,
+                                    layersThreadPool,
+                                    paintArea,
+                                    requestedMapArea,
+                                    requestedWorldToScreen);
                     if (renderingStopRequested) {
                         return;
                     }
-
-                    labelCache.startLayer(layerId);
-                    if (layer instanceof DirectLayer) {
-                        RenderingRequest request =
-                                new RenderDirectLayerRequest(
-                                        compositingGraphic, (DirectLayer) layer);
-                        try {
-                            requests.put(request);
-                        } catch (InterruptedException e) {
-                            fireErrorEvent(e);
+                } else {
+                    for (Layer layer : currentMapContent.layers()) {
+                        layerCounter++;
+                        String layerId = String.valueOf(layerCounter);
+                        if (!layer.isVisible()) {
+                            // Only render layer when layer is visible
+                            continue;
                         }
-                    } else if (layer instanceof ZGroupLayer) {
-                        try {
-                            ZGroupLayer zGroup = (ZGroupLayer) layer;
-                            zGroup.drawFeatures(compositingGraphic, this, layerId);
-                        } catch (Throwable t) {
-                            fireErrorEvent(t);
+
+                        if (renderingStopRequested) {
+                            return;
                         }
-                    } else {
-                        try {
-                            // extract the feature type stylers from the style object
-                            // and process them
-                            processStylers(compositingGraphic, layer, layerId);
-                        } catch (Throwable t) {
-                            fireErrorEvent(t);
+
+                        labelCache.startLayer(layerId);
+                        if (layer instanceof DirectLayer) {
+                            RenderingRequest request =
+                                    new RenderDirectLayerRequest(
+                                            compositingGraphic, (DirectLayer) layer);
+                            try {
+                                requests.put(request);
+                            } catch (InterruptedException e) {
+                                fireErrorEvent(e);
+                            }
+                        } else if (layer instanceof ZGroupLayer) {
+                            try {
+                                ZGroupLayer zGroup = (ZGroupLayer) layer;
+                                zGroup.drawFeatures(compositingGraphic, this, layerId);
+                            } catch (Throwable t) {
+                                fireErrorEvent(t);
+                            }
+                        } else {
+                            try {
+                                // extract the feature type stylers from the style object
+                                // and process them
+                                processStylers(compositingGraphic, layer, layerId);
+                            } catch (Throwable t) {
+                                fireErrorEvent(t);
+                            }
                         }
-                    }
 
-                    labelCache.endLayer(layerId, graphics, screenSize);
+                        labelCache.endLayer(layerId, graphics, screenSize);
+                    }
                 }
 
                 // have we been painting on a back buffer? If so, merge on the main graphic
@@ -905,6 +965,9 @@ public class StreamingRenderer implements GTRenderer {
                     if (localPool) {
                         localThreadPool.shutdown();
                     }
+                    if (localLayersPool) {
+                        layersThreadPool.shutdown();
+                    }
                 }
             }
         }
@@ -942,6 +1005,141 @@ public class StreamingRenderer implements GTRenderer {
         return new RenderingBlockingQueue(10000);
     }
 
+    /**
+     * Returns true if the pool cannot run more than one task at a time. The painter thread is
+     * already using it, submitting the layers to it as well would deadlock the rendering.
+     */
+    private boolean isSingleThreaded(ExecutorService pool) {
+        return pool instanceof ThreadPoolExecutor
+                && ((ThreadPoolExecutor) pool).getMaximumPoolSize() < 2;
+    }
+
+    /**
+     * Checks if the layers of a compositing group can be painted independently of each other, that
+     * is, there are at least two of them and none needs to be composited with the ones below it
+     */
+    private boolean canPaintInParallel(MapContent groupContent) {
+        if (concatTransforms) {
+            return false;
+        }
+        int visibleLayers = 0;
+        for (Layer layer : groupContent.layers()) {
+            if (!layer.isVisible()) {
+                continue;
+            }
+            if (layer instanceof ZGroupLayer || CompositingGroup.hasCompositing(layer)) {
+                return false;
+            }
+            visibleLayers++;
+        }
+        return visibleLayers > 1;
+    }
+
+    /**
+     * Paints the layers of a compositing group in parallel, each one with its own renderer and back
+     * buffer, and then queues the merge of the back buffers into the group graphics, in z-order.
+     *
+     * @return the updated layer counter
+     */
+    private int paintLayersInParallel(
+            CompositingGroup compositingGroup,
+            int layerCounter,
+            ExecutorService pool,
+            Rectangle paintArea,
+            ReferencedEnvelope mapArea,
+            AffineTransform worldToScreen) {
+        Graphics2D compositingGraphic = compositingGroup.graphics;
+        // the layer back buffers are created from the group one, initialize it in this thread
+        if (compositingGraphic instanceof DelayedBackbufferGraphic) {
+            ((DelayedBackbufferGraphic) compositingGraphic).init();
+        }
+        LabelCache sharedLabelCache = new SynchronizedLabelCache(labelCache);
+
+        List<CompositingGroup> layerGroups = new ArrayList<>();
+        List<Future<?>> layerFutures = new ArrayList<>();
+        try {
+            for (Layer layer : compositingGroup.mapContent.layers()) {
+                layerCounter++;
+                if (!layer.isVisible()) {
+                    continue;
+                }
+                String layerId = String.valueOf(layerCounter);
+
+                DelayedBackbufferGraphic layerGraphic =
+                        new DelayedBackbufferGraphic(compositingGraphic, paintArea);
+                layerGraphic.init();
+                MapContent layerContent = new MapContent();
+                layerContent.addLayer(layer);
+                StreamingRenderer layerRenderer =
+                        createLayerRenderer(new LayerLabelCache(sharedLabelCache, layerId));
+                layerRenderer.setMapContent(layerContent);
+                layerRenderers.add(layerRenderer);
+
+                layerGroups.add(new CompositingGroup(layerGraphic, layerContent, null));
+                layerFutures.add(
+                        pool.submit(
+                                () ->
+                                        layerRenderer.paint(
+                                                layerGraphic, paintArea, mapArea, worldToScreen)));
+            }
+
+            // merge back in z-order, as soon as each layer is done
+            for (int i = 0; i < layerFutures.size(); i++) {
+                try {
+                    layerFutures.get(i).get();
+                    if (!renderingStopRequested) {
+                        requests.put(
+                                new MargeCompositingGroupRequest(
+                                        compositingGraphic, layerGroups.get(i)));
+                    }
+                } catch (ExecutionException e) {
+                    fireErrorEvent(e.getCause());
+                } catch (InterruptedException e) {
+                    fireErrorEvent(e);
+                }
+            }
+        } finally {
+            for (Future<?> future : layerFutures) {
+                future.cancel(true);
+            }
+            for (CompositingGroup layerGroup : layerGroups) {
+                // the layers are owned by the map content being rendered, don't dispose them
+                MapContent layerContent = layerGroup.getMapContent();
+                for (Layer layer : layerContent.layers()) {
+                    layerContent.removeLayer(layer);
+                }
+                layerContent.dispose();
+            }
+            layerRenderers.clear();
+        }
+
+        return layerCounter;
+    }
+
+    /**
+     * Builds a renderer painting a single layer on behalf of this one, sharing its configuration
+     * but using the provided label cache
+     */
+    private StreamingRenderer createLayerRenderer(LabelCache layerLabelCache) {
+        StreamingRenderer renderer = new StreamingRenderer();
+        if (java2dHints != null) {
+            renderer.setJava2DHints(java2dHints);
+        }
+        Map<Object, Object> hints = new HashMap<>();
+        if (rendererHints != null) {
+            hints.putAll(rendererHints);
+        }
+        hints.remove(PARALLEL_LAYERS_KEY);
+        hints.put(LABEL_CACHE_KEY, layerLabelCache);
+        renderer.setRendererHints(hints);
+        renderer.setGeneralizationDistance(generalizationDistance);
+        renderer.setInteractive(interactive);
+        for (RenderListener listener : renderListeners) {
+            renderer.addRenderListener(listener);
+        }
+        return renderer;
+    }
+
     /**
      * Extends the provided {@link Envelope} in order to add the number of pixels specified by
      * <code>buffer</code> in every direction.
@@ -1500,6 +1698,17 @@ public class StreamingRenderer implements GTRenderer {
         return Boolean.TRUE.equals(result);
     }
 
+    /**
+     * Checks if parallel layer rendering is enabled, or not. See {@link #PARALLEL_LAYERS_KEY}
+     * description for a full explanation.
+     */
+    private boolean isParallelLayersRenderingEnabled() {
+        if (rendererHints == null) return false;
+        Object result = rendererHints.get(PARALLEL_LAYERS_KEY);
+        if (result == null) return false;
+        return Boolean.TRUE.equals(result);
+    }
+
     /**
      * Checks if the advanced projection handling is enabled
      *
@@ -2148,8 +2357,16 @@ public class StreamingRenderer implements GTRenderer {
                 mixed.setSortBy(definitionQuery.getSortBy());
             }
             checkAttributeExistence(featureSource.getSchema(), mixed);
-            features = featureSource.getFeatures(mixed);
-            features = RendererUtilities.fixFeatureCollectionReferencing(features, sourceCrs);
+            FeatureCollection sourceFeatures = featureSource.getFeatures(mixed);
+            features = RendererUtilities.fixFeatureCollectionReferencing(sourceFeatures, sourceCrs);
+            if (features == sourceFeatures) {
+                // the features are the ones selected by the query, rules whose filter is
+                // part of it do not need to evaluate it again
+                Set<Filter> enforced = getEnforcedFilters(mixed.getFilter());
+                for (LiteFeatureTypeStyle fts : featureTypeStyles) {
+                    fts.enforcedFilters = enforced;
+                }
+            }
         }
 
         // HACK HACK HACK
@@ -2168,6 +2385,27 @@ public class StreamingRenderer implements GTRenderer {
         return features;
     }
 
+    /**
+     * Returns the filters that must be satisfied by all the features matching the given filter,
+     * that is, the filter itself and the children of its top level "and" filters
+     */
+    Set<Filter> getEnforcedFilters(Filter filter) {
+        Set<Filter> result = new HashSet<>();
+        if (filter != null && filter != Filter.INCLUDE) {
+            collectEnforcedFilters(filter, result);
+        }
+        return result;
+    }
+
+    private void collectEnforcedFilters(Filter filter, Set<Filter> result) {
+        result.add(filter);
+        if (filter instanceof And) {
+            for (Filter child : ((And) filter).getChildren()) {
+                collectEnforcedFilters(child, result);
+            }
+        }
+    }
+
     /**
      * Classify a List of LiteFeatureTypeStyle objects by Transformation.
      *
@@ -2620,15 +2858,18 @@ public class StreamingRenderer implements GTRenderer {
             boolean doElse = true;
             Rule[] elseRuleList = fts.elseRules;
             Rule[] ruleList = fts.ruleList;
+            Filter[] ruleFilters = fts.getRuleFilters(rf.feature.getType());
+            int[] candidates = fts.getRuleCandidates(rf.feature);
             Rule r;
             Filter filter;
             Graphics2D graphics = fts.graphics;
-            // applicable rules
-            final int length = ruleList.length;
+            // applicable rules, either all or the ones the rule index found
+            final int length = candidates == null ? ruleList.length : candidates.length;
             int paintCommands = 0;
             for (int t = 0; t < length; t++) {
-                r = ruleList[t];
-                filter = r.getFilter();
+                int idx = candidates == null ? t : candidates[t];
+                r = ruleList[idx];
+                filter = ruleFilters[idx];
 
                 if (filter == null || filter.evaluate(rf.feature)) {
                     doElse = false;
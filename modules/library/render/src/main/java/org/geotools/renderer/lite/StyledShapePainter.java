@@ -18,6 +18,7 @@ package org.geotools.renderer.lite;
 
 import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
+import java.awt.Color;
 import java.awt.Composite;
 import java.awt.Graphics2D;
 import java.awt.Paint;
@@ -40,6 +41,7 @@ import org.geotools.geometry.jts.Decimator;
 import org.geotools.geometry.jts.LiteShape2;
 import org.geotools.image.io.ImageIOExt;
 import org.geotools.referencing.operation.transform.AffineTransform2D;
+import org.geotools.renderer.lite.SpriteCache.Sprite;
 import org.geotools.renderer.style.GraphicStyle2D;
 import org.geotools.renderer.style.IconStyle2D;
 import org.geotools.renderer.style.LineStyle2D;
@@ -87,6 +89,21 @@ public class StyledShapePainter {
                     System.getProperty(
                             "org.geotools.renderer.lite.optimizeVectorHatchFills", "true"));
 
+    /**
+     * Whether marks and icons should be painted by copying pre-rendered sprites, when the graphics
+     * transform is a pure translation (off by default, sprites are positioned with a quarter of
+     * pixel precision, and rotated with a one degree precision)
+     */
+    public static boolean USE_SPRITES =
+            Boolean.parseBoolean(
+                    System.getProperty("org.geotools.renderer.lite.useSprites", "false"));
+
+    /** The sub-pixel positions a sprite is rendered at, on each axis */
+    static final int SPRITE_SUBPIXELS = 4;
+
+    /** The maximum size of a symbol painted using sprites */
+    static final int MAX_SPRITE_SIZE = 128;
+
     /**
      * the label cache, used to populate the label cache with reserved areas for labeling obstacles
      */
@@ -154,12 +171,23 @@ public class StyledShapePainter {
                 float[] coords = new float[2];
                 PathIterator citer = getPathIterator(shape);
                 AffineTransform at = new AffineTransform(temp);
+                boolean sprites = canUseSprites(graphics) && canUseSprites(icoStyle);
                 while (!(citer.isDone())) {
                     if (citer.currentSegment(coords) != PathIterator.SEG_MOVETO) {
                         at.setTransform(temp);
 
                         double x = coords[0] + dx;
                         double y = coords[1] + dy;
+                        if (sprites) {
+                            paintSprite(graphics, getIconSprite(graphics, icoStyle, x, y), x, y);
+                            if (isLabelObstacle) {
+                                labelCache.put(
+                                        new Rectangle2D.Double(
+                                                x, y, icon.getIconWidth(), icon.getIconHeight()));
+                            }
+                            citer.next();
+                            continue;
+                        }
                         at.translate(x, y);
                         at.rotate(icoStyle.getRotation());
                         at.translate(
@@ -189,8 +217,22 @@ public class StyledShapePainter {
             MarkStyle2D ms2d = (MarkStyle2D) style;
 
             Shape transformedShape;
+            boolean sprites = canUseSprites(graphics) && canUseSprites(ms2d);
             while (!(citer.isDone())) {
                 if (citer.currentSegment(coords) != PathIterator.SEG_MOVETO) {
+                    if (sprites) {
+                        paintSprite(
+                                graphics,
+                                getMarkSprite(graphics, ms2d, coords[0], coords[1]),
+                                coords[0],
+                                coords[1]);
+                        if (isLabelObstacle) {
+                            transformedShape = ms2d.getTransformedShape(coords[0], coords[1]);
+                            labelCache.put(transformedShape.getBounds2D());
+                        }
+                        citer.next();
+                        continue;
+                    }
                     transformedShape = ms2d.getTransformedShape(coords[0], coords[1]);
                     if (transformedShape != null) {
                         if (ms2d.getFill() != null) {
@@ -298,6 +340,214 @@ public class StyledShapePainter {
         }
     }
 
+    /**
+     * Checks if the graphics transform allows painting sprites, that is, if it's a translation by
+     * an integer number of pixels
+     */
+    private boolean canUseSprites(Graphics2D graphics) {
+        if (!USE_SPRITES) {
+            return false;
+        }
+        AffineTransform at = graphics.getTransform();
+        return (at.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0
+                && at.getTranslateX() == Math.rint(at.getTranslateX())
+                && at.getTranslateY() == Math.rint(at.getTranslateY());
+    }
+
+    /** Checks if the mark is small and uses plain colors and source over compositing */
+    private boolean canUseSprites(MarkStyle2D ms2d) {
+        if (ms2d.getShape() == null || ms2d.getSize() > MAX_SPRITE_SIZE) {
+            return false;
+        }
+        if (ms2d.getFill() != null
+                && (!(ms2d.getFill() instanceof Color)
+                        || !isSourceOver(ms2d.getFillComposite()))) {
+            return false;
+        }
+        if (ms2d.getContour() != null) {
+            if (!(ms2d.getContour() instanceof Color)
+                    || !isSourceOver(ms2d.getContourComposite())
+                    || !(ms2d.getStroke() instanceof BasicStroke)) {
+                return false;
+            }
+            BasicStroke stroke = (BasicStroke) ms2d.getStroke();
+            if (ms2d.getSize() + stroke.getLineWidth() > MAX_SPRITE_SIZE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Checks if the icon is small and uses source over compositing */
+    private boolean canUseSprites(IconStyle2D icoStyle) {
+        Icon icon = icoStyle.getIcon();
+        return icon.getIconWidth() <= MAX_SPRITE_SIZE
+                && icon.getIconHeight() <= MAX_SPRITE_SIZE
+                && isSourceOver(icoStyle.getComposite());
+    }
+
+    private boolean isSourceOver(Composite composite) {
+        return composite instanceof AlphaComposite
+                && ((AlphaComposite) composite).getRule() == AlphaComposite.SRC_OVER;
+    }
+
+    /** Returns the sub-pixel bucket of the coordinate, once translated in device space */
+    private int getSubpixel(double ordinate, double translate) {
+        double device = ordinate + translate;
+        return (int) ((device - Math.floor(device)) * SPRITE_SUBPIXELS);
+    }
+
+    /** Returns the rotation, rounded to the nearest degree */
+    private float getRotationBucket(float rotation) {
+        return (float) Math.toRadians(Math.rint(Math.toDegrees(rotation)));
+    }
+
+    /** Returns the sprite for the mark painted at the given position, creating it if needed */
+    private Sprite getMarkSprite(Graphics2D graphics, MarkStyle2D ms2d, float x, float y) {
+        AffineTransform at = graphics.getTransform();
+        int sx = getSubpixel(x, at.getTranslateX());
+        int sy = getSubpixel(y, at.getTranslateY());
+        float rotation = getRotationBucket(ms2d.getRotation());
+        SpriteCache.Key key =
+                new SpriteCache.Key(
+                        SpriteCache.INSTANCE.getShapeDescriptor(ms2d.getShape()),
+                        ms2d.getSize(),
+                        rotation,
+                        ms2d.getDisplacementX(),
+                        ms2d.getDisplacementY(),
+                        ms2d.getAnchorPointX(),
+                        ms2d.getAnchorPointY(),
+                        MarkStyle2D.isMaxMarkSizeEnabled(),
+                        ms2d.getFill(),
+                        ms2d.getFillComposite(),
+                        ms2d.getContour(),
+                        ms2d.getContourComposite(),
+                        ms2d.getContour() != null ? ms2d.getStroke() : null,
+                        graphics.getRenderingHint(RenderingHints.KEY_ANTIALIASING),
+                        graphics.getRenderingHint(RenderingHints.KEY_STROKE_CONTROL),
+                        sx,
+                        sy);
+        Sprite sprite = SpriteCache.INSTANCE.get(key);
+        if (sprite == null) {
+            Shape shape =
+                    ms2d.getTransformedShape(
+                            (float) sx / SPRITE_SUBPIXELS,
+                            (float) sy / SPRITE_SUBPIXELS,
+                            0,
+                            rotation);
+            Rectangle2D bounds = shape.getBounds2D();
+            if (ms2d.getContour() != null) {
+                bounds.add(ms2d.getStroke().createStrokedShape(shape).getBounds2D());
+            }
+            BufferedImage image = createSpriteImage(graphics, bounds);
+            Graphics2D g = createSpriteGraphics(graphics, image, bounds);
+            try {
+                if (ms2d.getFill() != null) {
+                    g.setPaint(ms2d.getFill());
+                    g.setComposite(ms2d.getFillComposite());
+                    g.fill(shape);
+                }
+                if (ms2d.getContour() != null) {
+                    g.setPaint(ms2d.getContour());
+                    g.setStroke(ms2d.getStroke());
+                    g.setComposite(ms2d.getContourComposite());
+                    g.draw(shape);
+                }
+            } finally {
+                g.dispose();
+            }
+            sprite = createSprite(image, bounds);
+            SpriteCache.INSTANCE.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    /** Returns the sprite for the icon painted at the given position, creating it if needed */
+    private Sprite getIconSprite(Graphics2D graphics, IconStyle2D icoStyle, double x, double y) {
+        AffineTransform at = graphics.getTransform();
+        int sx = getSubpixel(x, at.getTranslateX());
+        int sy = getSubpixel(y, at.getTranslateY());
+        float rotation = getRotationBucket(icoStyle.getRotation());
+        Icon icon = icoStyle.getIcon();
+        SpriteCache.Key key =
+                new SpriteCache.Key(
+                        icon,
+                        rotation,
+                        icoStyle.getAnchorPointX(),
+                        icoStyle.getAnchorPointY(),
+                        icoStyle.getComposite(),
+                        graphics.getRenderingHint(RenderingHints.KEY_ANTIALIASING),
+                        graphics.getRenderingHint(RenderingHints.KEY_INTERPOLATION),
+                        sx,
+                        sy);
+        Sprite sprite = SpriteCache.INSTANCE.get(key);
+        if (sprite == null) {
+            // same transformation as the vector painting, with the sub-pixel offset as origin
+            AffineTransform iconAT = new AffineTransform();
+            iconAT.translate((double) sx / SPRITE_SUBPIXELS, (double) sy / SPRITE_SUBPIXELS);
+            iconAT.rotate(rotation);
+            iconAT.translate(
+                    -(icon.getIconWidth() * icoStyle.getAnchorPointX()),
+                    (icon.getIconHeight() * (icoStyle.getAnchorPointY() - 1)));
+            Rectangle2D bounds =
+                    iconAT.createTransformedShape(
+                                    new Rectangle2D.Double(
+                                            0, 0, icon.getIconWidth(), icon.getIconHeight()))
+                            .getBounds2D();
+            BufferedImage image = createSpriteImage(graphics, bounds);
+            Graphics2D g = createSpriteGraphics(graphics, image, bounds);
+            try {
+                g.transform(iconAT);
+                g.setComposite(icoStyle.getComposite());
+                icon.paintIcon(null, g, 0, 0);
+            } finally {
+                g.dispose();
+            }
+            sprite = createSprite(image, bounds);
+            SpriteCache.INSTANCE.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    /** Creates an image large enough to contain the bounds, with one pixel of margin */
+    private BufferedImage createSpriteImage(Graphics2D graphics, Rectangle2D bounds) {
+        int minX = (int) Math.floor(bounds.getMinX()) - 1;
+        int minY = (int) Math.floor(bounds.getMinY()) - 1;
+        int width = Math.max((int) Math.ceil(bounds.getMaxX()) + 1 - minX, 1);
+        int height = Math.max((int) Math.ceil(bounds.getMaxY()) + 1 - minY, 1);
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    /**
+     * Creates a graphics painting on the sprite image, with the same rendering hints as the target
+     * graphics, and the symbol anchor at the sprite origin
+     */
+    private Graphics2D createSpriteGraphics(
+            Graphics2D graphics, BufferedImage image, Rectangle2D bounds) {
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHints(graphics.getRenderingHints());
+        g.translate(-(Math.floor(bounds.getMinX()) - 1), -(Math.floor(bounds.getMinY()) - 1));
+        return g;
+    }
+
+    private Sprite createSprite(BufferedImage image, Rectangle2D bounds) {
+        int originX = -((int) Math.floor(bounds.getMinX()) - 1);
+        int originY = -((int) Math.floor(bounds.getMinY()) - 1);
+        return new Sprite(image, originX, originY);
+    }
+
+    /** Copies the sprite so that its origin falls on the pixel containing the given position */
+    private void paintSprite(Graphics2D graphics, Sprite sprite, double x, double y) {
+        AffineTransform at = graphics.getTransform();
+        // the transform is an integer translation, snap to the device pixel grid
+        double tx = at.getTranslateX();
+        double ty = at.getTranslateY();
+        int px = (int) (Math.floor(x + tx) - tx);
+        int py = (int) (Math.floor(y + ty) - ty);
+        graphics.setComposite(AlphaComposite.SrcOver);
+        graphics.drawImage(sprite.image, px - sprite.originX, py - sprite.originY, null);
+    }
+
     /**
      * Checks if the fill can simply be omitted because it's not going to be visible anyways. It
      * takes a style that has a solid outline and a width or height that's less than the stroke
@@ -0,0 +1,99 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.renderer.label;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class LabelIndexTest {
+
+    @Test
+    public void testOverlap() {
+        LabelIndex index = new LabelIndex();
+        assertFalse(index.labelsWithinDistance(new Rectangle2D.Double(0, 0, 10, 10), 0));
+
+        index.addLabel(null, new Rectangle2D.Double(100, 100, 50, 10));
+        assertTrue(index.labelsWithinDistance(new Rectangle2D.Double(90, 95, 20, 10), 0));
+        // touching counts as overlapping
+        assertTrue(index.labelsWithinDistance(new Rectangle2D.Double(150, 100, 10, 10), 0));
+        assertFalse(index.labelsWithinDistance(new Rectangle2D.Double(160, 100, 10, 10), 0));
+        // negative distances disable the check
+        assertFalse(index.labelsWithinDistance(new Rectangle2D.Double(100, 100, 10, 10), -1));
+    }
+
+    @Test
+    public void testDistance() {
+        LabelIndex index = new LabelIndex();
+        index.addLabel(null, new Rectangle2D.Double(100, 100, 50, 10));
+        Rectangle2D nearby = new Rectangle2D.Double(160, 100, 10, 10);
+        assertFalse(index.labelsWithinDistance(nearby, 5));
+        assertTrue(index.labelsWithinDistance(nearby, 10));
+    }
+
+    @Test
+    public void testLargeAreas() {
+        LabelIndex index = new LabelIndex();
+        // spans many grid cells
+        index.reserveArea(
+                Collections.singletonList(
+                        (Rectangle2D) new Rectangle2D.Double(-5000, -5000, 10000, 10000)));
+        assertTrue(index.labelsWithinDistance(new Rectangle2D.Double(3000, 3000, 10, 10), 0));
+        assertFalse(index.labelsWithinDistance(new Rectangle2D.Double(6000, 6000, 10, 10), 0));
+        // far away from the origin
+        index.addLabel(null, new Rectangle2D.Double(1e15, 1e15, 10, 10));
+        assertTrue(index.labelsWithinDistance(new Rectangle2D.Double(1e15, 1e15, 1, 1), 0));
+    }
+
+    @Test
+    public void testRandomAgainstBruteForce() {
+        Random random = new Random(0);
+        LabelIndex index = new LabelIndex();
+        List<Rectangle2D> labels = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Rectangle2D bounds =
+                    new Rectangle2D.Double(
+                            random.nextDouble() * 2000,
+                            random.nextDouble() * 2000,
+                            random.nextDouble() * 100,
+                            random.nextDouble() * 20);
+            double distance = random.nextDouble() * 10;
+            boolean expected = false;
+            for (Rectangle2D label : labels) {
+                if (label.getMinX() <= bounds.getMaxX() + distance
+                        && label.getMaxX() >= bounds.getMinX() - distance
+                        && label.getMinY() <= bounds.getMaxY() + distance
+                        && label.getMaxY() >= bounds.getMinY() - distance) {
+                    expected = true;
+                    break;
+                }
+            }
+            assertEquals(expected, index.labelsWithinDistance(bounds, distance));
+            if (!expected) {
+                index.addLabel(null, bounds);
+                labels.add(bounds);
+            }
+        }
+    }
+}
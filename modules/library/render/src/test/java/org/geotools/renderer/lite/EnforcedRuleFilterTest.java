@@ -0,0 +1,236 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.renderer.lite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import org.geotools.data.Query;
+import org.geotools.data.collection.CollectionFeatureSource;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureSource;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.map.FeatureLayer;
+import org.geotools.map.MapContent;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.geotools.styling.Rule;
+import org.geotools.styling.Style;
+import org.geotools.styling.StyleBuilder;
+import org.geotools.styling.Symbolizer;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.filter.MultiValuedFilter.MatchAction;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Checks the rule filters already enforced by the data source are not evaluated again, and that
+ * the rule index selects the same rules as a full scan of the rule list
+ */
+public class EnforcedRuleFilterTest {
+
+    static final ReferencedEnvelope BOUNDS =
+            new ReferencedEnvelope(0, 10, 0, 10, DefaultGeographicCRS.WGS84);
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    StyleBuilder sb = new StyleBuilder();
+
+    SimpleFeatureType type;
+
+    SimpleFeatureCollection features;
+
+    @Before
+    public void setUp() throws Exception {
+        type = createType(DefaultGeographicCRS.WGS84);
+        features = createFeatures(type, 2);
+    }
+
+    SimpleFeatureType createType(CoordinateReferenceSystem crs) {
+        SimpleFeatureTypeBuilder builder = new SimpleFeatureTypeBuilder();
+        builder.setName("points");
+        builder.add("geom", Point.class, crs);
+        builder.add("cat", String.class);
+        return builder.buildFeatureType();
+    }
+
+    /** Ten points on a diagonal, with categories c0, c1, ... cycling over the given count */
+    SimpleFeatureCollection createFeatures(SimpleFeatureType type, int categories) {
+        GeometryFactory gf = new GeometryFactory();
+        ListFeatureCollection result = new ListFeatureCollection(type);
+        for (int i = 0; i < 10; i++) {
+            Point p = gf.createPoint(new Coordinate(i + 0.5, i + 0.5));
+            String cat = "c" + (i % categories);
+            result.add(SimpleFeatureBuilder.build(type, new Object[] {p, cat}, "points." + i));
+        }
+        return result;
+    }
+
+    /**
+     * A source that returns all its features whatever the query, so that the rule filters
+     * replaced by {@link Filter#INCLUDE} show up as extra features painted
+     */
+    SimpleFeatureSource unfilteredSource(SimpleFeatureCollection fc, SimpleFeatureType schema) {
+        return new CollectionFeatureSource(fc) {
+            @Override
+            public SimpleFeatureType getSchema() {
+                return schema;
+            }
+
+            @Override
+            public SimpleFeatureCollection getFeatures(Query query) {
+                return fc;
+            }
+        };
+    }
+
+    Filter cat(String value) {
+        return FF.equals(FF.property("cat"), FF.literal(value));
+    }
+
+    Rule rule(Filter filter, Color color, int size) {
+        Symbolizer symbolizer =
+                sb.createPointSymbolizer(
+                        sb.createGraphic(null, sb.createMark("square", color), null, 1, size, 0));
+        Rule rule = sb.createRule(symbolizer);
+        rule.setFilter(filter);
+        return rule;
+    }
+
+    Style style(Rule... rules) {
+        Style style = sb.createStyle();
+        style.featureTypeStyles().add(sb.createFeatureTypeStyle(null, rules));
+        return style;
+    }
+
+    /** Renders the layer, returning the image, and the number of features painted in counter */
+    BufferedImage render(FeatureLayer layer, CountingRenderListener counter) {
+        MapContent mc = new MapContent();
+        mc.addLayer(layer);
+        StreamingRenderer sr = new StreamingRenderer();
+        sr.setMapContent(mc);
+        sr.addRenderListener(counter);
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_4BYTE_ABGR);
+        Graphics2D graphics = image.createGraphics();
+        sr.paint(graphics, new Rectangle(100, 100), BOUNDS);
+        graphics.dispose();
+        mc.dispose();
+        assertEquals(0, counter.errors);
+        return image;
+    }
+
+    @Test
+    public void testSingleRuleEnforced() throws Exception {
+        // the only rule filter is sent to the source, which is trusted to apply it
+        Style style = style(rule(cat("c0"), Color.RED, 5));
+        FeatureLayer layer = new FeatureLayer(unfilteredSource(features, type), style);
+
+        CountingRenderListener counter = new CountingRenderListener();
+        render(layer, counter);
+        assertEquals(10, counter.features);
+    }
+
+    @Test
+    public void testDefinitionQueryEnforced() throws Exception {
+        // the rule matching the definition query is enforced, the other one is not
+        Style style = style(rule(cat("c0"), Color.RED, 5), rule(cat("c1"), Color.BLUE, 5));
+        FeatureLayer layer = new FeatureLayer(unfilteredSource(features, type), style);
+        layer.setQuery(new Query("points", cat("c0")));
+
+        CountingRenderListener counter = new CountingRenderListener();
+        render(layer, counter);
+        // ten features painted by the first rule, five by the second
+        assertEquals(15, counter.features);
+    }
+
+    @Test
+    public void testRewrappedNotEnforced() throws Exception {
+        // the source advertises a CRS its features do not have, the renderer re-wraps them
+        // and cannot assume the rule filters were applied
+        SimpleFeatureCollection noCrs = createFeatures(createType(null), 2);
+        Style style = style(rule(cat("c0"), Color.RED, 5));
+        FeatureLayer layer = new FeatureLayer(unfilteredSource(noCrs, type), style);
+
+        CountingRenderListener counter = new CountingRenderListener();
+        render(layer, counter);
+        assertEquals(5, counter.features);
+    }
+
+    @Test
+    public void testRuleIndexSameImage() throws Exception {
+        // case sensitive equalities on the same attribute get indexed, the case insensitive
+        // ones do not, but match the same features given the values used
+        BufferedImage indexed = render(indexableStyle(true));
+        BufferedImage scanned = render(indexableStyle(false));
+
+        int painted = 0;
+        for (int x = 0; x < indexed.getWidth(); x++) {
+            for (int y = 0; y < indexed.getHeight(); y++) {
+                assertEquals("Pixel " + x + "," + y, scanned.getRGB(x, y), indexed.getRGB(x, y));
+                if (indexed.getRGB(x, y) != 0) {
+                    painted++;
+                }
+            }
+        }
+        assertTrue(painted > 0);
+    }
+
+    private BufferedImage render(Style style) {
+        // the rule filters are not sent to the source because of the else rule
+        SimpleFeatureSource source = new CollectionFeatureSource(createFeatures(type, 7));
+        CountingRenderListener counter = new CountingRenderListener();
+        BufferedImage image = render(new FeatureLayer(source, style), counter);
+        // every feature is painted, either by a rule or by the else rule
+        assertEquals(10, counter.features);
+        return image;
+    }
+
+    private Style indexableStyle(boolean matchCase) {
+        Color[] colors = {Color.RED, Color.GREEN, Color.BLUE, Color.ORANGE, Color.CYAN};
+        Rule[] rules = new Rule[8];
+        for (int i = 0; i < 5; i++) {
+            Filter filter =
+                    FF.equal(FF.property("cat"), FF.literal("c" + i), matchCase, MatchAction.ANY);
+            rules[i] = rule(filter, colors[i], 8);
+        }
+        // a second rule on an indexed value, painted on top of the first one
+        rules[5] =
+                rule(
+                        FF.equal(FF.property("cat"), FF.literal("c1"), matchCase, MatchAction.ANY),
+                        Color.BLACK,
+                        4);
+        // a rule that cannot be indexed, always a candidate
+        rules[6] = rule(FF.like(FF.property("cat"), "c6*"), Color.MAGENTA, 2);
+        // an else rule, painting the features no other rule matched, that is, the c5 one
+        rules[7] = rule(null, Color.YELLOW, 6);
+        rules[7].setElseFilter(true);
+        return style(rules);
+    }
+}
@@ -6,6 +6,7 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.Collections;
 import org.geotools.coverage.grid.GridCoverage2D;
 import org.geotools.coverage.grid.GridCoverageFactory;
 import org.geotools.data.property.PropertyDataStore;
@@ -13,6 +14,7 @@ import org.geotools.data.simple.SimpleFeatureSource;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.map.FeatureLayer;
 import org.geotools.map.GridCoverageLayer;
+import org.geotools.map.Layer;
 import org.geotools.map.MapContent;
 import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.geotools.styling.Style;
@@ -22,43 +24,106 @@ import org.junit.Test;
 
 public class MultiLayerTest {
 
+    static final ReferencedEnvelope BOUNDS =
+            new ReferencedEnvelope(0, 10, 0, 10, DefaultGeographicCRS.WGS84);
+
     @Test
     public void testRasterOpacity() throws Exception {
+        MapContent mc = new MapContent();
+        mc.addLayer(buildingsLayer());
+        mc.addLayer(redRasterLayer());
+
+        StreamingRenderer renderer = new StreamingRenderer();
+        renderer.setMapContent(mc);
+        BufferedImage img = RendererBaseTest.renderImage(renderer, BOUNDS, null);
+        mc.dispose();
+
+        // check the red image fully covered the vector (GEOT-3812)
+        assertRedPixel(img, 100, 100);
+    }
+
+    @Test
+    public void testRasterOpacityParallel() throws Exception {
+        MapContent mc = new MapContent();
+        mc.addLayer(buildingsLayer());
+        mc.addLayer(redRasterLayer());
+
+        StreamingRenderer renderer = new StreamingRenderer();
+        renderer.setRendererHints(
+                Collections.singletonMap(StreamingRenderer.PARALLEL_LAYERS_KEY, true));
+        renderer.setMapContent(mc);
+        BufferedImage img = RendererBaseTest.renderImage(renderer, BOUNDS, null);
+        mc.dispose();
+
+        // the layers have been painted in parallel, but still merged in z-order
+        assertRedPixel(img, 100, 100);
+    }
+
+    @Test
+    public void testParallelSameAsSequential() throws Exception {
+        BufferedImage sequential = renderRasterAndBuildings(false);
+        BufferedImage parallel = renderRasterAndBuildings(true);
+
+        // allow for rounding differences, the parallel one goes through an extra back buffer
+        for (int x = 0; x < sequential.getWidth(); x++) {
+            for (int y = 0; y < sequential.getHeight(); y++) {
+                int expected = sequential.getRGB(x, y);
+                int actual = parallel.getRGB(x, y);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int e = (expected >> shift) & 0xFF;
+                    int a = (actual >> shift) & 0xFF;
+                    assertEquals(e, a, 2);
+                }
+            }
+        }
+    }
+
+    private BufferedImage renderRasterAndBuildings(boolean parallel) throws Exception {
+        MapContent mc = new MapContent();
+        mc.addLayer(redRasterLayer());
+        mc.addLayer(buildingsLayer());
+
+        StreamingRenderer renderer = new StreamingRenderer();
+        renderer.setRendererHints(
+                Collections.singletonMap(StreamingRenderer.PARALLEL_LAYERS_KEY, parallel));
+        renderer.setMapContent(mc);
+        BufferedImage img = RendererBaseTest.renderImage(renderer, BOUNDS, null);
+        mc.dispose();
+        return img;
+    }
+
+    private void assertRedPixel(BufferedImage img, int x, int y) {
+        int[] pixel = new int[4];
+        img.getData().getPixel(x, y, pixel);
+        assertEquals(255, pixel[0]);
+        assertEquals(0, pixel[1]);
+        assertEquals(0, pixel[2]);
+        assertEquals(255, pixel[3]);
+    }
+
+    private Layer buildingsLayer() throws Exception {
         // a polygon layer
         File property = new File(TestData.getResource(this, "buildings.properties").toURI());
         PropertyDataStore ds = new PropertyDataStore(property.getParentFile());
         SimpleFeatureSource fs = ds.getFeatureSource("buildings");
-        ReferencedEnvelope bounds =
-                new ReferencedEnvelope(0, 10, 0, 10, DefaultGeographicCRS.WGS84);
 
         StyleBuilder sb = new StyleBuilder();
         Style pst =
                 sb.createStyle(sb.createPolygonSymbolizer(null, sb.createFill(Color.GRAY, 0.5)));
+        return new FeatureLayer(fs, pst);
+    }
 
+    private Layer redRasterLayer() {
         // a raster layer
         BufferedImage bi = new BufferedImage(300, 300, BufferedImage.TYPE_4BYTE_ABGR);
         Graphics g = bi.getGraphics();
         g.setColor(Color.RED);
         g.fillRect(0, 0, 300, 300);
         g.dispose();
-        GridCoverage2D coverage = new GridCoverageFactory().create("test_red", bi, bounds);
+        GridCoverage2D coverage = new GridCoverageFactory().create("test_red", bi, BOUNDS);
 
+        StyleBuilder sb = new StyleBuilder();
         Style rst = sb.createStyle(sb.createRasterSymbolizer());
-
-        MapContent mc = new MapContent();
-        mc.addLayer(new FeatureLayer(fs, pst));
-        mc.addLayer(new GridCoverageLayer(coverage, rst));
-
-        StreamingRenderer renderer = new StreamingRenderer();
-        renderer.setMapContent(mc);
-        BufferedImage img = RendererBaseTest.renderImage(renderer, bounds, null);
-
-        // check the red image fully covered the vector (GEOT-3812)
-        int[] pixel = new int[4];
-        img.getData().getPixel(100, 100, pixel);
-        assertEquals(255, pixel[0]);
-        assertEquals(0, pixel[1]);
-        assertEquals(0, pixel[2]);
-        assertEquals(255, pixel[3]);
+        return new GridCoverageLayer(coverage, rst);
     }
 }
@@ -0,0 +1,142 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.renderer.lite;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.geotools.data.DataUtilities;
+import org.geotools.factory.CommonFactoryFinder;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+
+public class RuleIndexTest {
+
+    FilterFactory ff = CommonFactoryFinder.getFilterFactory();
+
+    SimpleFeatureType type;
+
+    List<SimpleFeature> features;
+
+    @Before
+    public void setup() throws Exception {
+        type = DataUtilities.createType("test", "code:String,value:java.lang.Integer");
+        features = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            features.add(DataUtilities.createFeature(type, "f" + i + "=c" + i + "|" + i * 5));
+        }
+        features.add(DataUtilities.createFeature(type, "fnull=<null>|<null>"));
+    }
+
+    /** Checks the candidates contain all the matching rules, in order, and returns them */
+    private int[] assertCandidates(RuleIndex index, Filter[] filters, SimpleFeature feature) {
+        int[] candidates = index.getCandidates(feature);
+        int[] sorted = candidates.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(sorted, candidates);
+        for (int i = 0; i < filters.length; i++) {
+            if (filters[i] == null || filters[i].evaluate(feature)) {
+                assertTrue(
+                        "Rule " + i + " missing for " + feature.getID(),
+                        Arrays.binarySearch(candidates, i) >= 0);
+            }
+        }
+        return candidates;
+    }
+
+    @Test
+    public void testTooFewRules() {
+        Filter[] filters = {
+            ff.equals(ff.property("code"), ff.literal("c1")),
+            ff.equals(ff.property("code"), ff.literal("c2"))
+        };
+        assertNull(RuleIndex.build(filters));
+    }
+
+    @Test
+    public void testEqualityIndex() {
+        Filter[] filters = new Filter[12];
+        for (int i = 0; i < 10; i++) {
+            filters[i] = ff.equals(ff.property("code"), ff.literal("c" + i));
+        }
+        filters[10] = ff.greater(ff.property("value"), ff.literal(50));
+        filters[11] = null;
+        RuleIndex index = RuleIndex.build(filters);
+        assertNotNull(index);
+        for (SimpleFeature f : features) {
+            assertCandidates(index, filters, f);
+        }
+        // exact lookup, plus the non indexed rules
+        assertArrayEquals(new int[] {3, 10, 11}, index.getCandidates(features.get(3)));
+        // not in the index
+        assertArrayEquals(new int[] {10, 11}, index.getCandidates(features.get(15)));
+    }
+
+    @Test
+    public void testCaseInsensitiveNotIndexed() {
+        Filter[] filters = new Filter[10];
+        for (int i = 0; i < 10; i++) {
+            filters[i] = ff.equal(ff.property("code"), ff.literal("C" + i), false);
+        }
+        assertNull(RuleIndex.build(filters));
+    }
+
+    @Test
+    public void testRangeIndex() {
+        Filter[] filters = new Filter[8];
+        for (int i = 0; i < 6; i++) {
+            filters[i] =
+                    ff.and(
+                            ff.greaterOrEqual(ff.property("value"), ff.literal(i * 15)),
+                            ff.less(ff.property("value"), ff.literal(i * 15 + 15)));
+        }
+        filters[6] = ff.between(ff.property("value"), ff.literal(0), ff.literal(10));
+        filters[7] = ff.lessOrEqual(ff.literal(80), ff.property("value"));
+        RuleIndex index = RuleIndex.build(filters);
+        assertNotNull(index);
+        for (SimpleFeature f : features) {
+            assertCandidates(index, filters, f);
+        }
+        // 20 falls in the second class only
+        assertArrayEquals(new int[] {1}, index.getCandidates(features.get(4)));
+        // nulls never match
+        assertEquals(0, index.getCandidates(features.get(features.size() - 1)).length);
+    }
+
+    @Test
+    public void testMixedClasses() throws Exception {
+        Filter[] filters = new Filter[6];
+        for (int i = 0; i < 6; i++) {
+            filters[i] = ff.equals(ff.property("value"), ff.literal(i * 5));
+        }
+        RuleIndex index = RuleIndex.build(filters);
+        // a value of a different class than the literals makes all rules candidates
+        SimpleFeatureType doubles = DataUtilities.createType("test", "value:java.lang.Double");
+        SimpleFeature feature = DataUtilities.createFeature(doubles, "f1=5.0");
+        assertEquals(6, assertCandidates(index, filters, feature).length);
+    }
+}
@@ -16,8 +16,13 @@
  */
 package org.geotools.renderer.lite;
 
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.WritableRaster;
 import java.net.URL;
@@ -28,6 +33,7 @@ import org.geotools.geometry.jts.Decimator;
 import org.geotools.geometry.jts.JTSFactoryFinder;
 import org.geotools.geometry.jts.LiteShape2;
 import org.geotools.referencing.operation.transform.ProjectiveTransform;
+import org.geotools.renderer.style.MarkStyle2D;
 import org.geotools.styling.ExternalGraphic;
 import org.geotools.styling.GraphicImpl;
 import org.geotools.styling.GraphicLegend;
@@ -164,6 +170,51 @@ public class StyledShapePainterTest extends TestCase {
         Assert.assertFalse(imagesIdentical(paintedImage, testImage));
     }
 
+    public void testMarkSprites() throws Exception {
+        MarkStyle2D ms2d = new MarkStyle2D();
+        ms2d.setShape(new Ellipse2D.Double(-0.5, -0.5, 1, 1));
+        ms2d.setSize(10);
+        ms2d.setFill(Color.RED);
+        ms2d.setFillComposite(AlphaComposite.SrcOver.derive(0.7f));
+        ms2d.setContour(Color.BLACK);
+        ms2d.setContourComposite(AlphaComposite.SrcOver);
+        ms2d.setStroke(new BasicStroke(1));
+        // sprites are positioned at quarter of pixel precision, use such coordinates
+        GeometryFactory gf = new GeometryFactory();
+        LiteShape2 shape =
+                new LiteShape2(
+                        gf.createMultiPointFromCoords(
+                                new Coordinate[] {
+                                    new Coordinate(20, 20),
+                                    new Coordinate(40.25, 20.5),
+                                    new Coordinate(60.75, 41.25),
+                                    new Coordinate(20.5, 60)
+                                }),
+                        null,
+                        null,
+                        false);
+
+        BufferedImage vector = paintMarks(shape, ms2d, false);
+        BufferedImage sprites = paintMarks(shape, ms2d, true);
+        assertTrue(imagesIdentical(vector, sprites));
+    }
+
+    private BufferedImage paintMarks(LiteShape2 shape, MarkStyle2D ms2d, boolean useSprites) {
+        boolean previous = StyledShapePainter.USE_SPRITES;
+        StyledShapePainter.USE_SPRITES = useSprites;
+        try {
+            BufferedImage image = new BufferedImage(80, 80, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setRenderingHint(
+                    RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            new StyledShapePainter().paint(graphics, shape, ms2d, 1);
+            graphics.dispose();
+            return image;
+        } finally {
+            StyledShapePainter.USE_SPRITES = previous;
+        }
+    }
+
     /** Determines whether two buffered images are identical. */
     private static boolean imagesIdentical(BufferedImage image1, BufferedImage image2) {
         final WritableRaster raster1 = image1.getRaster();
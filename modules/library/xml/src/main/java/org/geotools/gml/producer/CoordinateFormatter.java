@@ -39,6 +39,14 @@ public final class CoordinateFormatter {
      */
     private static final double DECIMAL_MAX = Math.pow(10, 7);
 
+    /**
+     * The max number of decimals for which ordinates are formatted straight into the target
+     * buffer. Below it a scaled ordinate in decimal notation has at most 15 significant digits,
+     * so it can be represented exactly as a long, and it prints the same as {@link
+     * Double#toString(double)} would
+     */
+    private static final int MAX_DIRECT_DECIMALS = 8;
+
     /** To be used for formatting numbers, uses US locale. */
     private final NumberFormat coordFormatter = NumberFormat.getInstance(Locale.US);
 
@@ -49,6 +57,9 @@ public final class CoordinateFormatter {
      */
     private final double scale;
 
+    /** The number of decimals as a power of ten, or 0 if it is too large for direct formatting */
+    private final long directScale;
+
     /** Whether we have to format in plain decimal numbers, or we can use scientific notation */
     private boolean forcedDecimal;
 
@@ -59,6 +70,8 @@ public final class CoordinateFormatter {
         coordFormatter.setMaximumFractionDigits(numDecimals);
         coordFormatter.setGroupingUsed(false);
         scale = Math.pow(10, numDecimals);
+        directScale =
+                numDecimals >= 0 && numDecimals <= MAX_DIRECT_DECIMALS ? (long) scale : 0;
     }
 
     /**
@@ -109,6 +122,9 @@ public final class CoordinateFormatter {
         String formatted;
         if ((Math.abs(x) >= DECIMAL_MIN && x < DECIMAL_MAX) || x == 0) {
             x = truncate(x);
+            if (directScale > 0 && Math.abs(x) < DECIMAL_MAX) {
+                return formatDirect(x, sb);
+            }
             long lx = (long) x;
             if (lx == x) {
                 formatted = lx + "";
@@ -127,6 +143,54 @@ public final class CoordinateFormatter {
         return sb.append(zeroPad(formatted));
     }
 
+    /**
+     * Appends a truncated ordinate in decimal notation, without allocating any intermediate
+     * string, matching the output of the string based formatting
+     */
+    private StringBuffer formatDirect(double x, StringBuffer sb) {
+        long units = Math.round(x * directScale);
+        if (units < 0) {
+            sb.append('-');
+            units = -units;
+        }
+        sb.append(units / directScale);
+        long fraction = units % directScale;
+        int decimals = 0;
+        if (fraction != 0) {
+            // strip the trailing zeros, then write the fraction with its leading zeros
+            decimals = numDigits(directScale) - 1;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                decimals--;
+            }
+            sb.append('.');
+            appendZeros(sb, decimals - numDigits(fraction));
+            sb.append(fraction);
+        }
+        if (padWithZeros) {
+            if (decimals == 0) {
+                sb.append('.');
+            }
+            appendZeros(sb, coordFormatter.getMaximumFractionDigits() - decimals);
+        }
+        return sb;
+    }
+
+    private static int numDigits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static void appendZeros(StringBuffer sb, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append('0');
+        }
+    }
+
     final double truncate(double x) {
         // scale the number multiplying it by the power of 10 of the desired decimals
         //  e.g. if we want 8 decimals: 3.123456786 * 10E8 = 312345678.6
@@ -45,4 +45,27 @@ public class CoordinateFormatterTest extends TestCase {
         assertEquals("21396814.0000", formatter.format(21396814));
         assertEquals("21396814.9691", formatter.format(21396814.96912));
     }
+
+    public void testFormatDirect() {
+        CoordinateFormatter formatter = new CoordinateFormatter(4);
+        assertEquals("0", formatter.format(0));
+        assertEquals("0", formatter.format(-0d));
+        assertEquals("12", formatter.format(12.00001));
+        assertEquals("-12.5", formatter.format(-12.5));
+        assertEquals("0.001", formatter.format(0.001));
+        assertEquals("-0.0012", formatter.format(-0.00123));
+        assertEquals("3.0506", formatter.format(3.05059));
+        assertEquals("9999999.9999", formatter.format(9999999.9999));
+        // same output as the string based formatting for large negative numbers
+        assertEquals("-1.23456785E7", formatter.format(-12345678.5));
+    }
+
+    public void testFormatDirectZeroPadded() {
+        CoordinateFormatter formatter = new CoordinateFormatter(3);
+        formatter.setPadWithZeros(true);
+        assertEquals("0.000", formatter.format(0));
+        assertEquals("-12.500", formatter.format(-12.5));
+        assertEquals("0.010", formatter.format(0.01));
+        assertEquals("7.000", formatter.format(7));
+    }
 }
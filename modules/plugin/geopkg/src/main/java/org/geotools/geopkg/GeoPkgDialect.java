@@ -38,8 +38,11 @@ import org.geotools.filter.FilterAttributeExtractor;
 import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
 import org.geotools.geometry.jts.Geometries;
 import org.geotools.geopkg.Entry.DataType;
+import org.geotools.geopkg.geom.EnvelopeType;
 import org.geotools.geopkg.geom.GeoPkgGeomReader;
 import org.geotools.geopkg.geom.GeoPkgGeomWriter;
+import org.geotools.geopkg.geom.GeometryHeader;
+import org.geotools.geopkg.geom.GeometryHeaderFlags;
 import org.geotools.jdbc.JDBCDataStore;
 import org.geotools.jdbc.PreparedFilterToSQL;
 import org.geotools.jdbc.PreparedStatementSQLDialect;
@@ -49,7 +52,14 @@ import org.geotools.referencing.CRS;
 import org.geotools.util.factory.Hints;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
 import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 import org.opengis.feature.type.GeometryDescriptor;
@@ -72,6 +82,29 @@ public class GeoPkgDialect extends PreparedStatementSQLDialect {
 
     protected GeoPkgGeomWriter.Configuration geomWriterConfig;
 
+    /**
+     * The geometry value last read by {@link #decodeGeometryValueEnvelope(GeometryDescriptor,
+     * ResultSet, int, Envelope, Connection)}, reused by the following read of the same result set
+     * column. Kept per thread, as the dialect is shared by all the readers of the store.
+     */
+    private final ThreadLocal<DecodedValue> decoded = ThreadLocal.withInitial(DecodedValue::new);
+
+    /** A geometry value, along with the result set and column it was read from */
+    static final class DecodedValue {
+
+        ResultSet rs;
+
+        int column;
+
+        byte[] bytes;
+
+        void set(ResultSet rs, int column, byte[] bytes) {
+            this.rs = rs;
+            this.column = column;
+            this.bytes = bytes;
+        }
+    }
+
     public GeoPkgDialect(JDBCDataStore dataStore, GeoPkgGeomWriter.Configuration writerConfig) {
         super(dataStore);
         this.geomWriterConfig = writerConfig;
@@ -148,7 +181,81 @@ public class GeoPkgDialect extends PreparedStatementSQLDialect {
             Connection cx,
             Hints hints)
             throws IOException, SQLException {
-        return geometry(descriptor.getType().getBinding(), rs.getBytes(column), factory, hints);
+        DecodedValue value = decoded.get();
+        byte[] bytes;
+        if (value.rs == rs && value.column == column) {
+            // already read while decoding the envelope
+            bytes = value.bytes;
+        } else {
+            bytes = rs.getBytes(column);
+        }
+        value.set(null, 0, null);
+        return geometry(descriptor.getType().getBinding(), bytes, factory, hints);
+    }
+
+    /**
+     * Reads the envelope from the geometry header. The value is kept and reused by a following
+     * {@link #decodeGeometryValue(GeometryDescriptor, ResultSet, int, GeometryFactory, Connection,
+     * Hints)} of the same column, which must then happen before the result set is moved to the
+     * next row.
+     */
+    @Override
+    public Class<? extends Geometry> decodeGeometryValueEnvelope(
+            GeometryDescriptor descriptor,
+            ResultSet rs,
+            int column,
+            Envelope envelope,
+            Connection cx)
+            throws IOException, SQLException {
+        DecodedValue value = decoded.get();
+        value.set(null, 0, null);
+        byte[] bytes = rs.getBytes(column);
+        if (bytes == null) {
+            return null;
+        }
+        // the envelope is available in the header, only the type needs to be peeked at
+        GeometryHeader header = new GeoPkgGeomReader(bytes).getHeader();
+        GeometryHeaderFlags flags = header.getFlags();
+        EnvelopeType envelopeType = flags.getEnvelopeIndicator();
+        if (flags.isEmpty() || envelopeType == null || envelopeType == EnvelopeType.NONE) {
+            return null;
+        }
+        Class<? extends Geometry> type = getWKBGeometryType(bytes, 8 + envelopeType.getLength());
+        if (type != null) {
+            envelope.init(header.getEnvelope());
+            value.set(rs, column, bytes);
+        }
+        return type;
+    }
+
+    /** Returns the type of the WKB geometry at the given offset, or null if not recognized */
+    static Class<? extends Geometry> getWKBGeometryType(byte[] bytes, int offset) {
+        if (bytes.length < offset + 5) {
+            return null;
+        }
+        int typeInt =
+                bytes[offset] == 1
+                        ? (bytes[offset + 1] & 0xff) | (bytes[offset + 2] & 0xff) << 8
+                        : (bytes[offset + 4] & 0xff) | (bytes[offset + 3] & 0xff) << 8;
+        // ISO WKB adds 1000, 2000, 3000 for Z, M and ZM geometries
+        switch (typeInt % 1000) {
+            case 1:
+                return Point.class;
+            case 2:
+                return LineString.class;
+            case 3:
+                return Polygon.class;
+            case 4:
+                return MultiPoint.class;
+            case 5:
+                return MultiLineString.class;
+            case 6:
+                return MultiPolygon.class;
+            case 7:
+                return GeometryCollection.class;
+            default:
+                return null;
+        }
     }
 
     @Override
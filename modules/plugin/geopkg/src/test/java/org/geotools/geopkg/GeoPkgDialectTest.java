@@ -0,0 +1,89 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.geopkg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotools.data.DataUtilities;
+import org.geotools.geopkg.geom.GeoPkgGeomWriter;
+import org.geotools.jdbc.JDBCDataStore;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.io.WKTReader;
+import org.opengis.feature.type.GeometryDescriptor;
+
+public class GeoPkgDialectTest {
+
+    /** A result set returning the same bytes for every column, counting the reads */
+    private ResultSet resultSet(byte[] bytes, AtomicInteger reads) {
+        return (ResultSet)
+                Proxy.newProxyInstance(
+                        getClass().getClassLoader(),
+                        new Class<?>[] {ResultSet.class},
+                        (proxy, method, args) -> {
+                            if ("getBytes".equals(method.getName())) {
+                                reads.incrementAndGet();
+                                return bytes;
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                        });
+    }
+
+    @Test
+    public void testEnvelopeBytesReused() throws Exception {
+        GeoPkgDialect dialect = new GeoPkgDialect(new JDBCDataStore());
+        GeometryDescriptor descriptor =
+                DataUtilities.createType("test", "geom:Polygon").getGeometryDescriptor();
+        Geometry polygon = new WKTReader().read("POLYGON((0 0, 2 0, 2 1, 0 1, 0 0))");
+        byte[] bytes = new GeoPkgGeomWriter().write(polygon);
+        AtomicInteger reads = new AtomicInteger();
+        ResultSet rs = resultSet(bytes, reads);
+        GeometryFactory factory = new GeometryFactory();
+
+        Envelope envelope = new Envelope();
+        assertEquals(
+                Polygon.class,
+                dialect.decodeGeometryValueEnvelope(descriptor, rs, 1, envelope, null));
+        assertEquals(polygon.getEnvelopeInternal(), envelope);
+        assertEquals(1, reads.get());
+
+        // the geometry is decoded from the bytes read for the envelope
+        Geometry read = dialect.decodeGeometryValue(descriptor, rs, 1, factory, null, null);
+        assertTrue(polygon.equalsExact(read));
+        assertEquals(1, reads.get());
+
+        // but only once, and only for the same column
+        dialect.decodeGeometryValue(descriptor, rs, 1, factory, null, null);
+        assertEquals(2, reads.get());
+        dialect.decodeGeometryValueEnvelope(descriptor, rs, 1, envelope, null);
+        dialect.decodeGeometryValue(descriptor, rs, 2, factory, null, null);
+        assertEquals(4, reads.get());
+
+        // null values
+        assertNull(
+                dialect.decodeGeometryValueEnvelope(
+                        descriptor, resultSet(null, reads), 1, envelope, null));
+    }
+}
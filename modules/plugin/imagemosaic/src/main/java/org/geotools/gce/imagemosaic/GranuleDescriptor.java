@@ -1021,6 +1021,17 @@ public class GranuleDescriptor {
         ImageInputStream inStream = null;
         ImageReader reader = null;
         boolean cleanupInFinally = request.getReadType() != ReadType.JAI_IMAGEREAD;
+        // direct reads are complete once the read returns, the reader can then be pooled, unless
+        // it has been customized for this request
+        final GranuleReaderPool pool = GranuleReaderPool.INSTANCE;
+        boolean poolable =
+                cleanupInFinally
+                        && pool.isEnabled()
+                        && (hints == null
+                                || (!hints.containsKey(Utils.AUXILIARY_FILES_PATH)
+                                        && !hints.containsKey(Utils.AUXILIARY_DATASTORE_PATH)));
+        boolean pooled = false;
+        boolean readCompleted = false;
         try {
             //
             // get info about the raster we have to read
@@ -1053,6 +1064,7 @@ public class GranuleDescriptor {
             URL granuleURLUpdated = granuleUrl;
             // If the file is external we must update the Granule elements
             if (isExternal) {
+                poolable = false;
                 granuleURLUpdated = ovrProvider.getOvrURL();
                 assert ovrProvider.getExternalOverviewInputStreamSpi() != null
                         : "no cachedStreamSPI available for external overview!";
@@ -1085,39 +1097,56 @@ public class GranuleDescriptor {
             } else {
                 ovrIndex = ovrProvider.getOverviewIndex(imageIndex);
 
-                // get a stream
-                assert cachedStreamSPI != null : "no cachedStreamSPI available!";
-                inStream =
-                        cachedStreamSPI.createInputStreamInstance(
-                                granuleUrl, ImageIO.getUseCache(), ImageIO.getCacheDirectory());
-                if (inStream == null) return null;
-
-                // get a reader and try to cache the relevant SPI
-                if (cachedReaderSPI == null) {
-                    reader = ImageIOExt.getImageioReader(inStream);
-                    if (reader != null) cachedReaderSPI = reader.getOriginatingProvider();
-                } else reader = cachedReaderSPI.createReaderInstance();
-                if (reader == null) {
-                    if (LOGGER.isLoggable(java.util.logging.Level.WARNING)) {
-                        LOGGER.warning(
-                                new StringBuilder("Unable to get s reader for granuleDescriptor ")
-                                        .append(this.toString())
-                                        .append(" with request ")
-                                        .append(request.toString())
-                                        .append(" Resulting in no granule loaded: Empty result")
-                                        .toString());
+                // reuse an open reader if possible
+                GranuleReaderPool.PooledReader pooledReader =
+                        poolable && cachedReaderSPI != null
+                                ? pool.borrow(granuleUrl, cachedReaderSPI)
+                                : null;
+                if (pooledReader != null) {
+                    inStream = pooledReader.stream;
+                    reader = pooledReader.reader;
+                    pooled = true;
+                } else {
+                    // get a stream
+                    assert cachedStreamSPI != null : "no cachedStreamSPI available!";
+                    inStream =
+                            cachedStreamSPI.createInputStreamInstance(
+                                    granuleUrl,
+                                    ImageIO.getUseCache(),
+                                    ImageIO.getCacheDirectory());
+                    if (inStream == null) return null;
+
+                    // get a reader and try to cache the relevant SPI
+                    if (cachedReaderSPI == null) {
+                        reader = ImageIOExt.getImageioReader(inStream);
+                        if (reader != null) cachedReaderSPI = reader.getOriginatingProvider();
+                    } else reader = cachedReaderSPI.createReaderInstance();
+                    if (reader == null) {
+                        if (LOGGER.isLoggable(java.util.logging.Level.WARNING)) {
+                            LOGGER.warning(
+                                    new StringBuilder(
+                                                    "Unable to get s reader for granuleDescriptor ")
+                                            .append(this.toString())
+                                            .append(" with request ")
+                                            .append(request.toString())
+                                            .append(" Resulting in no granule loaded: Empty result")
+                                            .toString());
+                        }
+                        return null;
                     }
-                    return null;
                 }
             }
-            // set input
-            customizeReaderInitialization(reader, hints);
-            reader.setInput(inStream);
+            // set input, pooled readers already have it
+            if (!pooled) {
+                customizeReaderInitialization(reader, hints);
+                reader.setInput(inStream);
+            }
 
             // check if the reader wants to be aware of the current request
             if (MethodUtils.getAccessibleMethod(
                             reader.getClass(), "setRasterLayerRequest", RasterLayerRequest.class)
                     != null) {
+                poolable = false;
                 try {
                     MethodUtils.invokeMethod(reader, "setRasterLayerRequest", request);
                 } catch (Exception exception) {
@@ -1225,6 +1254,7 @@ public class GranuleDescriptor {
                                         reader,
                                         hints,
                                         false);
+                readCompleted = true;
 
             } catch (Throwable e) {
                 if (LOGGER.isLoggable(java.util.logging.Level.FINE)) {
@@ -1540,13 +1570,18 @@ public class GranuleDescriptor {
             return null;
 
         } finally {
-            try {
-                if (cleanupInFinally && inStream != null) {
-                    inStream.close();
-                }
-            } finally {
-                if (cleanupInFinally && reader != null) {
-                    reader.dispose();
+            if (poolable && readCompleted) {
+                pool.release(
+                        request.rasterManager.getParentReader(), granuleUrl, reader, inStream);
+            } else {
+                try {
+                    if (cleanupInFinally && inStream != null) {
+                        inStream.close();
+                    }
+                } finally {
+                    if (cleanupInFinally && reader != null) {
+                        reader.dispose();
+                    }
                 }
             }
         }
@@ -0,0 +1,230 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageReader;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.stream.ImageInputStream;
+import org.geotools.util.URLs;
+import org.geotools.util.logging.Logging;
+
+/**
+ * A size bounded pool of open {@link ImageReader} instances, along with their input streams,
+ * shared among the requests. Reusing a reader whose input is already set avoids reopening the
+ * granule and parsing its headers again, which can be costly for remote or large granules.
+ *
+ * <p>Pairs are borrowed exclusively, only idle pairs are kept in the pool, and the least recently
+ * used ones are closed when the pool is full. The pool is disabled by default, its size can be set
+ * with the {@link #POOL_SIZE_KEY} system property.
+ *
+ * <p>Readers are released on behalf of an owner, the mosaic reader, which closes its idle readers
+ * with {@link #clear(Object)} when disposed. Readers of file granules are only reused as long as
+ * the file modification time did not change, so that replaced granules are read again.
+ *
+ * @since 22
+ */
+class GranuleReaderPool {
+
+    static final Logger LOGGER = Logging.getLogger(GranuleReaderPool.class);
+
+    /** System property controlling the max number of idle readers kept open */
+    static final String POOL_SIZE_KEY = "org.geotools.imagemosaic.readerPoolSize";
+
+    static final GranuleReaderPool INSTANCE =
+            new GranuleReaderPool(Integer.getInteger(POOL_SIZE_KEY, 0));
+
+    /** An open reader and the stream it reads from */
+    static final class PooledReader {
+
+        final String key;
+
+        final Object owner;
+
+        final long lastModified;
+
+        final ImageReader reader;
+
+        final ImageInputStream stream;
+
+        PooledReader(
+                String key,
+                Object owner,
+                long lastModified,
+                ImageReader reader,
+                ImageInputStream stream) {
+            this.key = key;
+            this.owner = owner;
+            this.lastModified = lastModified;
+            this.reader = reader;
+            this.stream = stream;
+        }
+
+        void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close granule stream", e);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private final int maxSize;
+
+    private final Map<String, Deque<PooledReader>> idle = new HashMap<>();
+
+    /** Idle readers, least recently used first */
+    private final LinkedHashSet<PooledReader> lru = new LinkedHashSet<>();
+
+    GranuleReaderPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    static String getKey(URL url, ImageReaderSpi spi) {
+        return spi.getClass().getName() + "|" + url.toExternalForm();
+    }
+
+    /** The modification time of file granules, 0 for other sources */
+    static long getLastModified(URL url) {
+        File file = URLs.urlToFile(url);
+        return file != null ? file.lastModified() : 0;
+    }
+
+    /** Returns an idle reader for the given granule, or null if there is none */
+    PooledReader borrow(URL url, ImageReaderSpi spi) {
+        String key = getKey(url, spi);
+        long lastModified = getLastModified(url);
+        PooledReader pooled;
+        List<PooledReader> stale = null;
+        synchronized (this) {
+            Deque<PooledReader> readers = idle.get(key);
+            if (readers == null) {
+                return null;
+            }
+            pooled = readers.pollLast();
+            lru.remove(pooled);
+            if (pooled.lastModified != lastModified) {
+                // the granule has been replaced, none of its idle readers is usable
+                stale = new ArrayList<>(readers);
+                stale.add(pooled);
+                lru.removeAll(readers);
+                readers.clear();
+                pooled = null;
+            }
+            if (readers.isEmpty()) {
+                idle.remove(key);
+            }
+        }
+        if (stale != null) {
+            stale.forEach(PooledReader::close);
+        }
+        return pooled;
+    }
+
+    /**
+     * Returns a reader to the pool, closing the least recently used ones if the pool is full
+     *
+     * @param owner the mosaic reader the granule belongs to
+     */
+    void release(Object owner, URL url, ImageReader reader, ImageInputStream stream) {
+        ImageReaderSpi spi = reader.getOriginatingProvider();
+        // a stream flushed by the reader cannot be read again from the start
+        boolean reusable = spi != null && stream.getFlushedPosition() == 0;
+        if (!isEnabled() || !reusable) {
+            new PooledReader(null, owner, 0, reader, stream).close();
+            return;
+        }
+        PooledReader pooled =
+                new PooledReader(getKey(url, spi), owner, getLastModified(url), reader, stream);
+        PooledReader evicted = null;
+        synchronized (this) {
+            idle.computeIfAbsent(pooled.key, k -> new ArrayDeque<>()).addLast(pooled);
+            lru.add(pooled);
+            if (lru.size() > maxSize) {
+                Iterator<PooledReader> it = lru.iterator();
+                evicted = it.next();
+                it.remove();
+                Deque<PooledReader> readers = idle.get(evicted.key);
+                readers.remove(evicted);
+                if (readers.isEmpty()) {
+                    idle.remove(evicted.key);
+                }
+            }
+        }
+        // close outside of the lock, it might take a while for remote streams
+        if (evicted != null) {
+            evicted.close();
+        }
+    }
+
+    /** Closes all the idle readers */
+    void clear() {
+        PooledReader[] readers;
+        synchronized (this) {
+            readers = lru.toArray(new PooledReader[lru.size()]);
+            lru.clear();
+            idle.clear();
+        }
+        for (PooledReader reader : readers) {
+            reader.close();
+        }
+    }
+
+    /** Closes the idle readers released by the given owner */
+    void clear(Object owner) {
+        List<PooledReader> readers = new ArrayList<>();
+        synchronized (this) {
+            Iterator<PooledReader> it = lru.iterator();
+            while (it.hasNext()) {
+                PooledReader pooled = it.next();
+                if (pooled.owner == owner) {
+                    it.remove();
+                    Deque<PooledReader> deque = idle.get(pooled.key);
+                    deque.remove(pooled);
+                    if (deque.isEmpty()) {
+                        idle.remove(pooled.key);
+                    }
+                    readers.add(pooled);
+                }
+            }
+        }
+        readers.forEach(PooledReader::close);
+    }
+
+    /** The number of idle readers */
+    synchronized int size() {
+        return lru.size();
+    }
+}
@@ -1389,6 +1389,9 @@ public class ImageMosaicConfigHandler {
         }
         properties.setProperty(
                 Utils.Prop.CACHING, Boolean.toString(catalogConfigurationBean.isCaching()));
+        if (catalogConfigurationBean.isPersistentIndex()) {
+            properties.setProperty(Utils.Prop.PERSISTENT_INDEX, "true");
+        }
         if (mosaicConfiguration.getAuxiliaryFilePath() != null) {
             properties.setProperty(
                     Utils.Prop.AUXILIARY_FILE, mosaicConfiguration.getAuxiliaryFilePath());
@@ -1595,6 +1598,8 @@ public class ImageMosaicConfigHandler {
                     new CatalogConfigurationBean();
             catalogConfigurationBean.setCaching(
                     IndexerUtils.getParameterAsBoolean(Prop.CACHING, indexer));
+            catalogConfigurationBean.setPersistentIndex(
+                    IndexerUtils.getParameterAsBoolean(Prop.PERSISTENT_INDEX, indexer));
             catalogConfigurationBean.setAbsolutePath(
                     IndexerUtils.getParameterAsBoolean(Prop.ABSOLUTE_PATH, indexer));
             catalogConfigurationBean.setPathType(
@@ -250,6 +250,15 @@ public final class ImageMosaicFormat extends AbstractGridFormat implements Forma
                     new Boolean[] {Boolean.TRUE, Boolean.FALSE},
                     Boolean.FALSE);
 
+    /**
+     * Control the max time, in milliseconds, the granules of a single request can take to load.
+     * Loads still pending when it expires are cancelled and the read fails. A negative value means
+     * no limit.
+     */
+    public static final ParameterDescriptor<Long> GRANULE_LOADING_TIMEOUT =
+            new DefaultParameterDescriptor<Long>(
+                    "GranuleLoadingTimeout", Long.class, null, Long.valueOf(-1));
+
     /** Creates an instance and sets the metadata. */
     public ImageMosaicFormat() {
         setInfo();
@@ -288,7 +297,8 @@ public final class ImageMosaicFormat extends AbstractGridFormat implements Forma
                                     FOOTPRINT_BEHAVIOR,
                                     OVERVIEW_POLICY,
                                     BANDS,
-                                    EXCESS_GRANULE_REMOVAL
+                                    EXCESS_GRANULE_REMOVAL,
+                                    GRANULE_LOADING_TIMEOUT
                                 }));
 
         // reading parameters
@@ -1000,6 +1000,7 @@ public class ImageMosaicReader extends AbstractGridCoverage2DReader
             try {
                 if (granuleCatalog != null) this.granuleCatalog.dispose();
                 disposeManagers();
+                GranuleReaderPool.INSTANCE.clear(this);
             } catch (Exception e) {
                 if (LOGGER.isLoggable(Level.FINE))
                     LOGGER.log(Level.FINE, e.getLocalizedMessage(), e);
@@ -141,6 +141,9 @@ public class RasterLayerRequest {
     /** Flag specifying whether we need to set the ROI in any case in the output mosaic */
     private boolean setRoiProperty;
 
+    /** Max time, in milliseconds, for loading the granules, negative if unlimited */
+    private long granuleLoadingTimeout = -1;
+
     private final Map<String, List> requestedAdditionalDomains = new HashMap<String, List>();
 
     // the bands parameter define the order and which bands should be returned
@@ -531,6 +534,12 @@ public class RasterLayerRequest {
                 setRoiProperty = ((Boolean) value).booleanValue();
                 continue;
             }
+
+            if (name.equals(ImageMosaicFormat.GRANULE_LOADING_TIMEOUT.getName())) {
+                if (value == null) continue;
+                granuleLoadingTimeout = ((Number) value).longValue();
+                continue;
+            }
         }
     }
 
@@ -877,6 +886,13 @@ public class RasterLayerRequest {
             setRoiProperty = ((Boolean) value).booleanValue();
             return;
         }
+
+        if (name.equals(ImageMosaicFormat.GRANULE_LOADING_TIMEOUT.getName())) {
+            final Object value = param.getValue();
+            if (value == null) return;
+            granuleLoadingTimeout = ((Number) value).longValue();
+            return;
+        }
     }
 
     /** @return the accurateResolution */
@@ -1021,6 +1037,15 @@ public class RasterLayerRequest {
         this.setRoiProperty = setRoiProperty;
     }
 
+    /** @return the max time, in milliseconds, for loading the granules, negative if unlimited */
+    public long getGranuleLoadingTimeout() {
+        return granuleLoadingTimeout;
+    }
+
+    public void setGranuleLoadingTimeout(long granuleLoadingTimeout) {
+        this.granuleLoadingTimeout = granuleLoadingTimeout;
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
@@ -44,6 +44,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageReadParam;
@@ -493,6 +494,12 @@ public class RasterLayerResponse {
 
     private boolean multithreadingAllowed;
 
+    /** Max time, in milliseconds, for loading the granules, negative if unlimited */
+    private long granuleLoadingTimeout;
+
+    /** When the response started, as a {@link System#nanoTime()} value */
+    private final long startTime = System.nanoTime();
+
     private FootprintBehavior footprintBehavior = FootprintBehavior.None;
 
     private int defaultArtifactsFilterThreshold = Integer.MIN_VALUE;
@@ -548,6 +555,7 @@ public class RasterLayerResponse {
         finalTransparentColor = request.getOutputTransparentColor();
         // are we doing multithreading?
         multithreadingAllowed = request.isMultithreadingAllowed();
+        granuleLoadingTimeout = request.getGranuleLoadingTimeout();
         footprintBehavior = request.getFootprintBehavior();
         backgroundValues = request.getBackgroundValues();
         defaultArtifactsFilterThreshold = request.getDefaultArtifactsFilterThreshold();
@@ -1327,6 +1335,23 @@ public class RasterLayerResponse {
         return multithreadingAllowed;
     }
 
+    /** @return the max time, in milliseconds, for loading the granules, negative if unlimited */
+    public long getGranuleLoadingTimeout() {
+        return granuleLoadingTimeout;
+    }
+
+    /**
+     * Returns the nanoseconds left for loading the granules of this response, or {@link
+     * Long#MAX_VALUE} if there is no limit
+     */
+    public long getGranuleLoadingTimeLeft() {
+        if (granuleLoadingTimeout < 0) {
+            return Long.MAX_VALUE;
+        }
+        long elapsed = System.nanoTime() - startTime;
+        return TimeUnit.MILLISECONDS.toNanos(granuleLoadingTimeout) - elapsed;
+    }
+
     public RasterManager getRasterManager() {
         return rasterManager;
     }
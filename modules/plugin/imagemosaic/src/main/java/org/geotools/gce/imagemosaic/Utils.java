@@ -296,6 +296,8 @@ public class Utils {
 
         public static final String CACHING = "Caching";
 
+        public static final String PERSISTENT_INDEX = "PersistentIndex";
+
         public static final String WRAP_STORE = "WrapStore";
 
         public static final String GRANULE_ACCEPTORS = "GranuleAcceptors";
@@ -764,6 +766,14 @@ public class Utils {
             }
         }
 
+        //
+        // persistent index
+        //
+        if (properties.containsKey(Prop.PERSISTENT_INDEX)) {
+            String persistentIndex = properties.getProperty(Prop.PERSISTENT_INDEX).trim();
+            catalogConfigurationBean.setPersistentIndex(Boolean.valueOf(persistentIndex));
+        }
+
         //
         // name is not optional
         //
@@ -42,6 +42,9 @@ public class CatalogConfigurationBean {
     /** we want to use caching for our index. */
     private boolean caching = Utils.DEFAULT_CONFIGURATION_CACHING;
 
+    /** we want to save a spatial index of the catalog next to the mosaic */
+    private boolean persistentIndex;
+
     private boolean heterogeneous;
 
     private boolean heterogeneousCRS;
@@ -100,6 +103,14 @@ public class CatalogConfigurationBean {
         this.caching = caching;
     }
 
+    public boolean isPersistentIndex() {
+        return persistentIndex;
+    }
+
+    public void setPersistentIndex(final boolean persistentIndex) {
+        this.persistentIndex = persistentIndex;
+    }
+
     /** @return the suggestedSPI */
     public String getSuggestedSPI() {
         return suggestedSPI;
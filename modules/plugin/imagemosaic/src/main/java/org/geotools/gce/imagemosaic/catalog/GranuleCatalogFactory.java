@@ -17,6 +17,7 @@
 package org.geotools.gce.imagemosaic.catalog;
 
 import java.io.File;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Optional;
 import java.util.Properties;
@@ -81,6 +82,12 @@ public abstract class GranuleCatalogFactory {
             catalog = new STRTreeGranuleCatalog(params, gtCatalog, hints);
         } else {
             catalog = new CachingDataStoreGranuleCatalog(gtCatalog);
+            File indexDirectory = getPersistentIndexDirectory(params);
+            if (indexDirectory != null) {
+                catalog =
+                        new HilbertIndexGranuleCatalog(
+                                catalog, indexDirectory, getCatalogFile(params), hints);
+            }
         }
 
         // locking wrappers
@@ -96,6 +103,40 @@ public abstract class GranuleCatalogFactory {
         return catalog;
     }
 
+    /**
+     * Returns the directory where the persistent granule index should be saved, or null if the
+     * persistent index is not enabled
+     */
+    private static File getPersistentIndexDirectory(Properties params) {
+        Object enabled = params.get(Utils.Prop.PERSISTENT_INDEX);
+        Object parent = params.get(Utils.Prop.PARENT_LOCATION);
+        if (enabled == null || !Boolean.valueOf(enabled.toString()) || parent == null) {
+            return null;
+        }
+        try {
+            File directory = URLs.urlToFile(new URL(parent.toString()));
+            return directory != null && directory.isDirectory() ? directory : null;
+        } catch (MalformedURLException e) {
+            LOGGER.log(Level.FINE, "Invalid parent location " + parent, e);
+            return null;
+        }
+    }
+
+    /** Returns the file storing the catalog, if it's file based, or null */
+    private static File getCatalogFile(Properties params) {
+        Object url = params.get(ShapefileDataStoreFactory.URLP.key);
+        try {
+            if (url instanceof String) {
+                url = new URL((String) url);
+            }
+        } catch (MalformedURLException e) {
+            LOGGER.log(Level.FINE, "Invalid catalog location " + url, e);
+            return null;
+        }
+        File file = url instanceof URL ? URLs.urlToFile((URL) url) : null;
+        return file != null && file.isFile() ? file : null;
+    }
+
     public static GranuleCatalog createGranuleCatalog(
             final URL sourceURL,
             final CatalogConfigurationBean catalogConfigurationBean,
@@ -124,6 +165,9 @@ public abstract class GranuleCatalogFactory {
 
         params.put(Utils.Prop.HETEROGENEOUS, catalogConfigurationBean.isHeterogeneous());
         params.put(Utils.Prop.WRAP_STORE, catalogConfigurationBean.isWrapStore());
+        if (catalogConfigurationBean.isPersistentIndex()) {
+            params.put(Utils.Prop.PERSISTENT_INDEX, true);
+        }
         if (sourceURL != null) {
             File parentDirectory = URLs.urlToFile(sourceURL);
             if (parentDirectory.isFile()) parentDirectory = parentDirectory.getParentFile();
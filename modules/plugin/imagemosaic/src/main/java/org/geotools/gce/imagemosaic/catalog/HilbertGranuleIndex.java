@@ -0,0 +1,350 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.function.IntConsumer;
+import org.geotools.data.offheap.PackedHilbertRTree;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.simple.SimpleFeature;
+
+/**
+ * A read only index of the granules of a catalog type, saved in a single file that is memory mapped
+ * when opened, so that large catalogs do not need to be scanned and indexed in memory at each
+ * startup.
+ *
+ * <p>The file contains a {@link PackedHilbertRTree} on the granule footprints, the values of the
+ * numeric and temporal attributes (typically time and elevation) for each granule, and the granule
+ * feature ids. Items are identified by their position in the file, as in the tree.
+ *
+ * <p>File layout, little endian:
+ *
+ * <ul>
+ *   <li>header: magic number, version, number of items, number of attributes, tree size and
+ *       catalog fingerprint (4 ints and 2 longs)
+ *   <li>attribute names, as a length prefixed UTF-8 string each
+ *   <li>the packed R-tree, aligned on 8 bytes
+ *   <li>attribute values, one double per item and attribute, NaN for null values
+ *   <li>feature ids, as an offset table followed by the UTF-8 bytes
+ * </ul>
+ *
+ * @since 22
+ */
+class HilbertGranuleIndex {
+
+    static final int MAGIC = 0x47544749; // GTGI
+
+    static final int VERSION = 3;
+
+    static final int HEADER_SIZE = 32;
+
+    private final PackedHilbertRTree tree;
+
+    private final String[] attributes;
+
+    private final DoubleBuffer values;
+
+    private final IntBuffer fidOffsets;
+
+    private final ByteBuffer fids;
+
+    private final int size;
+
+    private final long fingerprint;
+
+    private HilbertGranuleIndex(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a granule index");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException(
+                    "Unsupported granule index version " + buffer.getInt(4));
+        }
+        this.size = buffer.getInt(8);
+        int numAttributes = buffer.getInt(12);
+        long treeSize = buffer.getLong(16);
+        this.fingerprint = buffer.getLong(24);
+
+        int position = HEADER_SIZE;
+        this.attributes = new String[numAttributes];
+        for (int i = 0; i < numAttributes; i++) {
+            int length = buffer.getInt(position);
+            byte[] bytes = new byte[length];
+            ByteBuffer dup = buffer.duplicate();
+            dup.position(position + 4);
+            dup.get(bytes);
+            attributes[i] = new String(bytes, StandardCharsets.UTF_8);
+            position += 4 + length;
+        }
+        position = align(position);
+        this.tree = PackedHilbertRTree.wrap(slice(buffer, position, (int) treeSize));
+        position = align(position + (int) treeSize);
+        int valuesSize = size * numAttributes * 8;
+        this.values = slice(buffer, position, valuesSize).asDoubleBuffer();
+        position += valuesSize;
+        int offsetsSize = (size + 1) * 4;
+        this.fidOffsets = slice(buffer, position, offsetsSize).asIntBuffer();
+        position += offsetsSize;
+        this.fids = slice(buffer, position, fidOffsets.get(size));
+    }
+
+    private static int align(int position) {
+        return (position + 7) & ~7;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(position);
+        dup.limit(position + length);
+        return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Opens an index previously written by {@link #build(SimpleFeatureCollection, String[], long,
+     * File)}, memory mapping it
+     *
+     * @param file
+     * @return
+     * @throws IOException if the file cannot be read, or is not a valid index
+     */
+    static HilbertGranuleIndex open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new HilbertGranuleIndex(buffer);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Invalid granule index " + file, e);
+        }
+    }
+
+    /**
+     * Indexes the granules and saves the index in the given file, replacing it atomically if it
+     * already exists, then opens it.
+     *
+     * @param granules the granules to index
+     * @param attributes the names of the numeric or temporal attributes to store in the index
+     * @param fingerprint the fingerprint of the catalog state the granules are read from
+     * @param file the index file
+     * @return
+     * @throws IOException
+     */
+    static HilbertGranuleIndex build(
+            SimpleFeatureCollection granules, String[] attributes, long fingerprint, File file)
+            throws IOException {
+        double[] bounds = new double[1024];
+        double[] values = new double[256 * Math.max(1, attributes.length)];
+        List<byte[]> fids = new ArrayList<>();
+        int fidBytes = 0;
+        int size = 0;
+        boolean nullGeometries = false;
+        Envelope total = new Envelope();
+        try (SimpleFeatureIterator it = granules.features()) {
+            while (it.hasNext()) {
+                SimpleFeature sf = it.next();
+                if ((size + 1) * 4 > bounds.length) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+                if ((size + 1) * attributes.length > values.length) {
+                    values = Arrays.copyOf(values, values.length * 2);
+                }
+                Geometry geometry = (Geometry) sf.getDefaultGeometry();
+                if (geometry == null || geometry.isEmpty()) {
+                    // fixed up below, null footprints must not make the granule invisible
+                    bounds[size * 4] = Double.NaN;
+                    nullGeometries = true;
+                } else {
+                    Envelope envelope = geometry.getEnvelopeInternal();
+                    bounds[size * 4] = envelope.getMinX();
+                    bounds[size * 4 + 1] = envelope.getMinY();
+                    bounds[size * 4 + 2] = envelope.getMaxX();
+                    bounds[size * 4 + 3] = envelope.getMaxY();
+                    total.expandToInclude(envelope);
+                }
+                for (int i = 0; i < attributes.length; i++) {
+                    values[size * attributes.length + i] = toDouble(sf.getAttribute(attributes[i]));
+                }
+                byte[] fid = sf.getID().getBytes(StandardCharsets.UTF_8);
+                fids.add(fid);
+                fidBytes += fid.length;
+                size++;
+            }
+        }
+        if (nullGeometries) {
+            if (total.isNull()) {
+                double max = Double.MAX_VALUE;
+                total.init(-max, max, -max, max);
+            }
+            for (int i = 0; i < size; i++) {
+                if (Double.isNaN(bounds[i * 4])) {
+                    bounds[i * 4] = total.getMinX();
+                    bounds[i * 4 + 1] = total.getMinY();
+                    bounds[i * 4 + 2] = total.getMaxX();
+                    bounds[i * 4 + 3] = total.getMaxY();
+                }
+            }
+        }
+
+        // header and attribute names
+        List<byte[]> names = new ArrayList<>();
+        int position = HEADER_SIZE;
+        for (String attribute : attributes) {
+            byte[] name = attribute.getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            position += 4 + name.length;
+        }
+        PackedHilbertRTree tree = PackedHilbertRTree.build(DoubleBuffer.wrap(bounds), size);
+        long treeSize =
+                PackedHilbertRTree.getBufferSize(size, PackedHilbertRTree.DEFAULT_NODE_SIZE);
+        ByteBuffer header = ByteBuffer.allocate(align(position)).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(attributes.length);
+        header.putLong(treeSize).putLong(fingerprint);
+        for (byte[] name : names) {
+            header.putInt(name.length).put(name);
+        }
+        header.position(0);
+
+        // values and feature ids, the tree is aligned on 8 bytes so padding is needed after it
+        int padding = align((int) treeSize) - (int) treeSize;
+        int valuesSize = size * attributes.length * 8;
+        ByteBuffer tail =
+                ByteBuffer.allocate(padding + valuesSize + (size + 1) * 4 + fidBytes)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+        tail.position(padding);
+        for (int i = 0; i < size * attributes.length; i++) {
+            tail.putDouble(values[i]);
+        }
+        int offset = 0;
+        for (byte[] fid : fids) {
+            tail.putInt(offset);
+            offset += fid.length;
+        }
+        tail.putInt(offset);
+        for (byte[] fid : fids) {
+            tail.put(fid);
+        }
+        tail.position(0);
+
+        // write to a unique temporary file and move, so that readers never see a partial index
+        // and concurrent builders do not write over each other
+        Path temp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                tree.write(channel);
+                while (tail.hasRemaining()) {
+                    channel.write(tail);
+                }
+            }
+            try {
+                Files.move(
+                        temp,
+                        file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        return open(file);
+    }
+
+    /** Converts a numeric or temporal attribute value to a double, NaN if null or unsupported */
+    static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        return Double.NaN;
+    }
+
+    /** The fingerprint of the catalog state this index was built from */
+    long getFingerprint() {
+        return fingerprint;
+    }
+
+    /** The number of granules in the index */
+    int size() {
+        return size;
+    }
+
+    /** The names of the attributes whose values are stored in the index */
+    String[] getAttributes() {
+        return attributes.clone();
+    }
+
+    /**
+     * Visits the items whose footprint intersects the envelope, and whose attribute values fall
+     * within the provided ranges, inclusive. Items with a null value for an attribute are always
+     * considered as matching it.
+     *
+     * @param envelope the search area
+     * @param mins the lower bound for each attribute, in the order of {@link #getAttributes()}
+     * @param maxs the upper bound for each attribute, in the order of {@link #getAttributes()}
+     * @param visitor the item consumer
+     */
+    void search(Envelope envelope, double[] mins, double[] maxs, IntConsumer visitor) {
+        final int numAttributes = attributes.length;
+        tree.search(
+                envelope,
+                item -> {
+                    int base = item * numAttributes;
+                    for (int i = 0; i < numAttributes; i++) {
+                        double value = values.get(base + i);
+                        if (value < mins[i] || value > maxs[i]) {
+                            return;
+                        }
+                    }
+                    visitor.accept(item);
+                });
+    }
+
+    /** Returns the feature id of the given item */
+    String getFeatureId(int item) {
+        int start = fidOffsets.get(item);
+        int end = fidOffsets.get(item + 1);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer dup = fids.duplicate();
+        dup.position(start);
+        dup.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,682 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.coverage.grid.io.footprint.MultiLevelROI;
+import org.geotools.coverage.grid.io.footprint.MultiLevelROIProvider;
+import org.geotools.data.Query;
+import org.geotools.data.QueryCapabilities;
+import org.geotools.data.Transaction;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.SchemaException;
+import org.geotools.feature.visitor.FeatureCalc;
+import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
+import org.geotools.util.Converters;
+import org.geotools.util.factory.Hints;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.And;
+import org.opengis.filter.BinaryComparisonOperator;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.filter.Or;
+import org.opengis.filter.PropertyIsBetween;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsGreaterThan;
+import org.opengis.filter.PropertyIsGreaterThanOrEqualTo;
+import org.opengis.filter.PropertyIsLessThan;
+import org.opengis.filter.PropertyIsLessThanOrEqualTo;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.identity.FeatureId;
+import org.opengis.filter.temporal.After;
+import org.opengis.filter.temporal.Before;
+import org.opengis.filter.temporal.BinaryTemporalOperator;
+import org.opengis.filter.temporal.During;
+import org.opengis.filter.temporal.TEquals;
+import org.opengis.geometry.BoundingBox;
+import org.opengis.temporal.Instant;
+import org.opengis.temporal.Period;
+
+/**
+ * A {@link GranuleCatalog} wrapper that narrows down the queries using a {@link
+ * HilbertGranuleIndex} saved next to the mosaic, one per catalog type. The index is built on first
+ * use, and reopened afterwards as long as the catalog fingerprint it was built with still matches:
+ * the granule count and bounds, plus the modification time and size of the catalog files when the
+ * catalog is file based (e.g., a shapefile). Changes made to a database catalog by other processes
+ * that preserve the count and bounds are not detected, the index file has to be removed then.
+ *
+ * <p>The spatial extent and the ranges of the numeric and temporal attributes (e.g., time and
+ * elevation) found in the query filter are looked up in the index, and the query is then run
+ * against the delegate catalog as a feature id filter combined with the original one. Queries
+ * that are not selective enough, or that might match granules added after the index was built,
+ * are passed to the delegate unchanged.
+ *
+ * <p>Granules added to the catalog are tracked in memory until there are enough of them to justify
+ * a rebuild. Removals may change the feature ids of the remaining granules (e.g., with shapefiles)
+ * so they cause the index to be rebuilt on the next query. Rebuilds happen in the thread of the
+ * query that finds the index missing or stale, the concurrent queries on the same type go straight
+ * to the delegate catalog meanwhile.
+ *
+ * @since 22
+ */
+class HilbertIndexGranuleCatalog extends GranuleCatalog {
+
+    static final Logger LOGGER = Logging.getLogger(HilbertIndexGranuleCatalog.class);
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    /** Extension of the index files */
+    static final String INDEX_EXTENSION = ".gix";
+
+    /** Max number of attributes, besides the footprint, stored in the index */
+    static final int MAX_ATTRIBUTES = 8;
+
+    /** Max number of ids to use in a feature id filter, larger results use the original query */
+    static final int MAX_CANDIDATES = 2000;
+
+    /** Min number of pending additions before the index gets rebuilt */
+    static final int MIN_PENDING = 64;
+
+    private final GranuleCatalog delegate;
+
+    private final File directory;
+
+    private final File catalogFile;
+
+    private final Map<String, TypeIndex> indexes = new ConcurrentHashMap<>();
+
+    /** The types whose index is being loaded or built */
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+
+    /** Bumped on each modification of the catalog, to spot those happening during a build */
+    private final AtomicLong modifications = new AtomicLong();
+
+    /**
+     * @param delegate the catalog to wrap
+     * @param directory the directory holding the index files
+     * @param catalogFile the file storing the catalog, if any, used to detect modifications
+     * @param hints
+     */
+    public HilbertIndexGranuleCatalog(
+            GranuleCatalog delegate, File directory, File catalogFile, Hints hints) {
+        super(hints);
+        this.delegate = delegate;
+        this.directory = directory;
+        this.catalogFile = catalogFile;
+    }
+
+    /** The granules and pending additions of a single catalog type */
+    static class TypeIndex {
+
+        final HilbertGranuleIndex index;
+
+        final Class<?>[] bindings;
+
+        /** Granules added after the index was built, as bounds followed by attribute values */
+        final List<double[]> pending = new ArrayList<>();
+
+        /** Set when the index does not reflect the catalog contents anymore */
+        volatile boolean stale;
+
+        TypeIndex(HilbertGranuleIndex index, Class<?>[] bindings) {
+            this.index = index;
+            this.bindings = bindings;
+        }
+
+        synchronized void add(SimpleFeature granule) {
+            String[] attributes = index.getAttributes();
+            double[] item = new double[4 + attributes.length];
+            Geometry geometry = (Geometry) granule.getDefaultGeometry();
+            if (geometry == null || geometry.isEmpty()) {
+                double max = Double.MAX_VALUE;
+                item[0] = item[1] = -max;
+                item[2] = item[3] = max;
+            } else {
+                Envelope envelope = geometry.getEnvelopeInternal();
+                item[0] = envelope.getMinX();
+                item[1] = envelope.getMinY();
+                item[2] = envelope.getMaxX();
+                item[3] = envelope.getMaxY();
+            }
+            for (int i = 0; i < attributes.length; i++) {
+                item[4 + i] = HilbertGranuleIndex.toDouble(granule.getAttribute(attributes[i]));
+            }
+            pending.add(item);
+            if (pending.size() > Math.max(MIN_PENDING, index.size() / 10)) {
+                stale = true;
+            }
+        }
+
+        /**
+         * Returns the ids of the granules possibly matching the filter, or null if the index cannot
+         * help answering it
+         */
+        synchronized Set<FeatureId> search(Filter filter) {
+            Envelope envelope =
+                    (Envelope) filter.accept(ExtractBoundsFilterVisitor.BOUNDS_VISITOR, null);
+            if (envelope == null) {
+                envelope = new Envelope();
+            }
+            String[] attributes = index.getAttributes();
+            double[] mins = new double[attributes.length];
+            double[] maxs = new double[attributes.length];
+            boolean constrained = !isInfinite(envelope);
+            for (int i = 0; i < attributes.length; i++) {
+                double[] range = getRange(filter, attributes[i], bindings[i]);
+                mins[i] = range[0];
+                maxs[i] = range[1];
+                constrained |= !Double.isInfinite(range[0]) || !Double.isInfinite(range[1]);
+            }
+            if (!constrained) {
+                return null;
+            }
+            if (envelope.isNull()) {
+                return new HashSet<>();
+            }
+
+            // granules added after the index was built have unknown ids
+            for (double[] item : pending) {
+                if (matches(item, envelope, mins, maxs)) {
+                    return null;
+                }
+            }
+
+            Set<FeatureId> ids = new HashSet<>();
+            int[] count = new int[1];
+            index.search(
+                    envelope,
+                    mins,
+                    maxs,
+                    item -> {
+                        if (count[0]++ < MAX_CANDIDATES) {
+                            ids.add(FF.featureId(index.getFeatureId(item)));
+                        }
+                    });
+            return count[0] > MAX_CANDIDATES ? null : ids;
+        }
+
+        private boolean matches(double[] item, Envelope envelope, double[] mins, double[] maxs) {
+            if (item[2] < envelope.getMinX()
+                    || item[0] > envelope.getMaxX()
+                    || item[3] < envelope.getMinY()
+                    || item[1] > envelope.getMaxY()) {
+                return false;
+            }
+            for (int i = 0; i < mins.length; i++) {
+                double value = item[4 + i];
+                if (value < mins[i] || value > maxs[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static boolean isInfinite(Envelope envelope) {
+        return Double.isInfinite(envelope.getMinX())
+                && Double.isInfinite(envelope.getMaxX())
+                && Double.isInfinite(envelope.getMinY())
+                && Double.isInfinite(envelope.getMaxY());
+    }
+
+    /**
+     * Returns the inclusive range of values the filter restricts the attribute to, as a {min, max}
+     * pair. The range is conservative, parts of the filter that cannot be interpreted leave it
+     * unbounded.
+     */
+    static double[] getRange(Filter filter, String attribute, Class<?> binding) {
+        if (filter instanceof And) {
+            double[] range = {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+            for (Filter child : ((And) filter).getChildren()) {
+                double[] childRange = getRange(child, attribute, binding);
+                range[0] = Math.max(range[0], childRange[0]);
+                range[1] = Math.min(range[1], childRange[1]);
+            }
+            return range;
+        } else if (filter instanceof Or) {
+            double[] range = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            for (Filter child : ((Or) filter).getChildren()) {
+                double[] childRange = getRange(child, attribute, binding);
+                range[0] = Math.min(range[0], childRange[0]);
+                range[1] = Math.max(range[1], childRange[1]);
+            }
+            return range;
+        } else if (filter == Filter.EXCLUDE) {
+            return new double[] {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        } else if (filter instanceof PropertyIsBetween) {
+            PropertyIsBetween between = (PropertyIsBetween) filter;
+            if (isProperty(between.getExpression(), attribute)) {
+                return new double[] {
+                    getLimit(between.getLowerBoundary(), binding, Double.NEGATIVE_INFINITY),
+                    getLimit(between.getUpperBoundary(), binding, Double.POSITIVE_INFINITY)
+                };
+            }
+        } else if (filter instanceof BinaryComparisonOperator) {
+            BinaryComparisonOperator comparison = (BinaryComparisonOperator) filter;
+            boolean lessThan =
+                    filter instanceof PropertyIsLessThan
+                            || filter instanceof PropertyIsLessThanOrEqualTo;
+            boolean greaterThan =
+                    filter instanceof PropertyIsGreaterThan
+                            || filter instanceof PropertyIsGreaterThanOrEqualTo;
+            Expression other;
+            if (isProperty(comparison.getExpression1(), attribute)) {
+                other = comparison.getExpression2();
+            } else if (isProperty(comparison.getExpression2(), attribute)) {
+                other = comparison.getExpression1();
+                boolean swap = lessThan;
+                lessThan = greaterThan;
+                greaterThan = swap;
+            } else {
+                return unbounded();
+            }
+            double value = getLimit(other, binding, Double.NaN);
+            if (Double.isNaN(value)) {
+                return unbounded();
+            } else if (filter instanceof PropertyIsEqualTo) {
+                return new double[] {value, value};
+            } else if (lessThan) {
+                return new double[] {Double.NEGATIVE_INFINITY, value};
+            } else if (greaterThan) {
+                return new double[] {value, Double.POSITIVE_INFINITY};
+            }
+        } else if (filter instanceof BinaryTemporalOperator) {
+            BinaryTemporalOperator temporal = (BinaryTemporalOperator) filter;
+            boolean after = filter instanceof After;
+            boolean before = filter instanceof Before;
+            Expression other;
+            if (isProperty(temporal.getExpression1(), attribute)) {
+                other = temporal.getExpression2();
+            } else if (isProperty(temporal.getExpression2(), attribute)
+                    && !(filter instanceof During)) {
+                other = temporal.getExpression1();
+                after = filter instanceof Before;
+                before = filter instanceof After;
+            } else {
+                return unbounded();
+            }
+            double[] period = getPeriod(other);
+            if (period == null) {
+                return unbounded();
+            } else if (filter instanceof During || filter instanceof TEquals) {
+                return period;
+            } else if (after) {
+                return new double[] {period[1], Double.POSITIVE_INFINITY};
+            } else if (before) {
+                return new double[] {Double.NEGATIVE_INFINITY, period[0]};
+            }
+        }
+        return unbounded();
+    }
+
+    private static double[] unbounded() {
+        return new double[] {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+    }
+
+    private static boolean isProperty(Expression expression, String attribute) {
+        return expression instanceof PropertyName
+                && attribute.equals(((PropertyName) expression).getPropertyName());
+    }
+
+    private static double getLimit(Expression expression, Class<?> binding, double fallback) {
+        if (expression instanceof Literal) {
+            Object value = ((Literal) expression).getValue();
+            if (!(value instanceof Number) && !(value instanceof Date)) {
+                value = Converters.convert(value, binding);
+            }
+            double result = HilbertGranuleIndex.toDouble(value);
+            if (!Double.isNaN(result)) {
+                return result;
+            }
+        }
+        return fallback;
+    }
+
+    /** Returns the {begin, end} time range of a literal date or period, or null */
+    private static double[] getPeriod(Expression expression) {
+        if (!(expression instanceof Literal)) {
+            return null;
+        }
+        Object value = ((Literal) expression).getValue();
+        if (value instanceof Period) {
+            Period period = (Period) value;
+            Date begin = getDate(period.getBeginning());
+            Date end = getDate(period.getEnding());
+            if (begin != null && end != null) {
+                return new double[] {begin.getTime(), end.getTime()};
+            }
+            return null;
+        } else if (value instanceof Instant) {
+            value = getDate((Instant) value);
+        } else if (!(value instanceof Date)) {
+            value = Converters.convert(value, Date.class);
+        }
+        if (value instanceof Date) {
+            double time = ((Date) value).getTime();
+            return new double[] {time, time};
+        }
+        return null;
+    }
+
+    private static Date getDate(Instant instant) {
+        if (instant == null || instant.getPosition() == null) {
+            return null;
+        }
+        return instant.getPosition().getDate();
+    }
+
+    /**
+     * Returns the index for the type, or null if it cannot be used, or is being loaded by another
+     * thread
+     */
+    TypeIndex getIndex(String typeName) {
+        TypeIndex index = indexes.get(typeName);
+        if (index == null || index.stale) {
+            if (!loading.add(typeName)) {
+                return null;
+            }
+            try {
+                index = indexes.get(typeName);
+                if (index == null || index.stale) {
+                    long expected = modifications.get();
+                    index = loadIndex(typeName, index != null);
+                    // granules added or removed during the load might be missing from it
+                    if (modifications.get() != expected) {
+                        index.stale = true;
+                    }
+                    indexes.put(typeName, index);
+                }
+            } finally {
+                loading.remove(typeName);
+            }
+        }
+        return index.index != null ? index : null;
+    }
+
+    /**
+     * Returns a fingerprint of the catalog contents that is cheap to compute, as opposed to
+     * scanning the granules: their count and bounds, and the modification time and size of the
+     * catalog files
+     */
+    long getFingerprint(String typeName) throws IOException {
+        long fingerprint = delegate.getGranulesCount(new Query(typeName));
+        BoundingBox bounds = delegate.getBounds(typeName);
+        if (bounds != null && !bounds.isEmpty()) {
+            fingerprint = 31 * fingerprint + Double.hashCode(bounds.getMinX());
+            fingerprint = 31 * fingerprint + Double.hashCode(bounds.getMinY());
+            fingerprint = 31 * fingerprint + Double.hashCode(bounds.getMaxX());
+            fingerprint = 31 * fingerprint + Double.hashCode(bounds.getMaxY());
+        }
+        for (File file : getCatalogFiles()) {
+            fingerprint = 31 * fingerprint + file.lastModified();
+            fingerprint = 31 * fingerprint + file.length();
+        }
+        return fingerprint;
+    }
+
+    /** The catalog file and, for shapefiles, the attribute file next to it */
+    private List<File> getCatalogFiles() {
+        List<File> files = new ArrayList<>();
+        if (catalogFile != null) {
+            files.add(catalogFile);
+            String name = catalogFile.getName();
+            if (name.toLowerCase().endsWith(".shp")) {
+                String base = name.substring(0, name.length() - 4);
+                String extension = name.endsWith(".shp") ? ".dbf" : ".DBF";
+                files.add(new File(catalogFile.getParentFile(), base + extension));
+            }
+        }
+        return files;
+    }
+
+    private TypeIndex loadIndex(String typeName, boolean rebuild) {
+        try {
+            SimpleFeatureType schema = delegate.getType(typeName);
+            if (schema == null) {
+                return new TypeIndex(null, null);
+            }
+            List<String> names = new ArrayList<>();
+            List<Class<?>> bindings = new ArrayList<>();
+            for (AttributeDescriptor ad : schema.getAttributeDescriptors()) {
+                Class<?> binding = ad.getType().getBinding();
+                if (!(ad instanceof GeometryDescriptor)
+                        && (Number.class.isAssignableFrom(binding)
+                                || Date.class.isAssignableFrom(binding))
+                        && names.size() < MAX_ATTRIBUTES) {
+                    names.add(ad.getLocalName());
+                    bindings.add(binding);
+                }
+            }
+            String[] attributes = names.toArray(new String[names.size()]);
+            Class<?>[] attributeBindings = bindings.toArray(new Class<?>[bindings.size()]);
+
+            File file = getIndexFile(typeName);
+            long fingerprint = getFingerprint(typeName);
+            if (!rebuild && file.exists()) {
+                try {
+                    HilbertGranuleIndex index = HilbertGranuleIndex.open(file);
+                    if (Arrays.equals(index.getAttributes(), attributes)
+                            && index.getFingerprint() == fingerprint) {
+                        return new TypeIndex(index, attributeBindings);
+                    }
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Could not open granule index " + file, e);
+                }
+            }
+
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Building granule index " + file);
+            }
+            SimpleFeatureCollection granules = delegate.getGranules(new Query(typeName));
+            HilbertGranuleIndex index =
+                    HilbertGranuleIndex.build(granules, attributes, fingerprint, file);
+            return new TypeIndex(index, attributeBindings);
+        } catch (IOException e) {
+            LOGGER.log(
+                    Level.WARNING,
+                    "Could not build the granule index for "
+                            + typeName
+                            + ", queries will not use it",
+                    e);
+            return new TypeIndex(null, null);
+        }
+    }
+
+    File getIndexFile(String typeName) {
+        return new File(directory, typeName.replaceAll("[^\\w\\-]", "_") + INDEX_EXTENSION);
+    }
+
+    /** Narrows down the query filter with the ids of the candidate granules found in the index */
+    Query narrow(Query q) {
+        Filter filter = q.getFilter();
+        String typeName = q.getTypeName();
+        if (filter == null || filter == Filter.INCLUDE || typeName == null) {
+            return q;
+        }
+        TypeIndex index = getIndex(typeName);
+        if (index == null) {
+            return q;
+        }
+        Set<FeatureId> ids = index.search(filter);
+        if (ids == null) {
+            return q;
+        }
+        Query narrowed = new Query(q);
+        narrowed.setFilter(ids.isEmpty() ? Filter.EXCLUDE : FF.and(FF.id(ids), filter));
+        return narrowed;
+    }
+
+    private void invalidate(String typeName) {
+        modifications.incrementAndGet();
+        TypeIndex index = indexes.get(typeName);
+        if (index != null) {
+            index.stale = true;
+        }
+        deleteIndexFile(typeName);
+    }
+
+    private void deleteIndexFile(String typeName) {
+        File file = getIndexFile(typeName);
+        if (file.exists() && !file.delete()) {
+            LOGGER.fine("Could not delete granule index " + file);
+        }
+    }
+
+    @Override
+    public void addGranules(
+            String typeName, Collection<SimpleFeature> granules, Transaction transaction)
+            throws IOException {
+        delegate.addGranules(typeName, granules, transaction);
+        modifications.incrementAndGet();
+        TypeIndex index = indexes.get(typeName);
+        if (index != null && index.index != null) {
+            for (SimpleFeature granule : granules) {
+                index.add(granule);
+            }
+        }
+        // the saved index misses the new granules, make sure it's not reopened
+        deleteIndexFile(typeName);
+    }
+
+    @Override
+    public int removeGranules(Query query) {
+        int removed = delegate.removeGranules(query);
+        if (removed != 0 && query.getTypeName() != null) {
+            invalidate(query.getTypeName());
+        }
+        return removed;
+    }
+
+    @Override
+    public void computeAggregateFunction(Query q, FeatureCalc function) throws IOException {
+        delegate.computeAggregateFunction(narrow(q), function);
+    }
+
+    @Override
+    public SimpleFeatureCollection getGranules(Query q) throws IOException {
+        return delegate.getGranules(narrow(q));
+    }
+
+    @Override
+    public int getGranulesCount(Query q) throws IOException {
+        return delegate.getGranulesCount(narrow(q));
+    }
+
+    @Override
+    public void getGranuleDescriptors(Query q, GranuleCatalogVisitor visitor) throws IOException {
+        delegate.getGranuleDescriptors(narrow(q), visitor);
+    }
+
+    @Override
+    public void createType(String namespace, String typeName, String typeSpec)
+            throws IOException, SchemaException {
+        delegate.createType(namespace, typeName, typeSpec);
+    }
+
+    @Override
+    public void createType(SimpleFeatureType featureType) throws IOException {
+        delegate.createType(featureType);
+    }
+
+    @Override
+    public void createType(String identification, String typeSpec)
+            throws SchemaException, IOException {
+        delegate.createType(identification, typeSpec);
+    }
+
+    @Override
+    public void dispose() {
+        indexes.clear();
+        delegate.dispose();
+    }
+
+    @Override
+    public BoundingBox getBounds(String typeName) {
+        return delegate.getBounds(typeName);
+    }
+
+    @Override
+    public QueryCapabilities getQueryCapabilities(String typeName) {
+        return delegate.getQueryCapabilities(typeName);
+    }
+
+    @Override
+    public SimpleFeatureType getType(String typeName) throws IOException {
+        return delegate.getType(typeName);
+    }
+
+    @Override
+    public void removeType(String typeName) throws IOException {
+        delegate.removeType(typeName);
+        invalidate(typeName);
+        indexes.remove(typeName);
+    }
+
+    @Override
+    public String[] getTypeNames() {
+        return delegate.getTypeNames();
+    }
+
+    @Override
+    public void setMultiScaleROIProvider(MultiLevelROIProvider footprintProvider) {
+        delegate.setMultiScaleROIProvider(footprintProvider);
+    }
+
+    @Override
+    protected MultiLevelROI getGranuleFootprint(SimpleFeature sf) {
+        return delegate.getGranuleFootprint(sf);
+    }
+
+    @Override
+    public List<File> getFootprintFiles(SimpleFeature sf) throws IOException {
+        return delegate.getFootprintFiles(sf);
+    }
+
+    @Override
+    public void drop() throws IOException {
+        String[] typeNames = delegate.getTypeNames();
+        delegate.drop();
+        if (typeNames != null) {
+            for (String typeName : typeNames) {
+                invalidate(typeName);
+            }
+        }
+        indexes.clear();
+    }
+}
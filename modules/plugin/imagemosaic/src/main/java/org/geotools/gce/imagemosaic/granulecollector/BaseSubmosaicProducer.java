@@ -34,6 +34,8 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.media.jai.Histogram;
@@ -113,12 +115,14 @@ public class BaseSubmosaicProducer implements SubmosaicProducer {
         final StringBuilder paths = new StringBuilder();
         URL sourceUrl = null;
         final List<MosaicElement> returnValues = new ArrayList<>();
-        // collect sources for the current dimension and then process them
-        for (Future<GranuleDescriptor.GranuleLoadingResult> future : granulesFutures) {
+        // collect sources for the current dimension and then process them, in order, while the
+        // next granules keep loading
+        for (int i = 0; i < granulesFutures.size(); i++) {
+            final Future<GranuleDescriptor.GranuleLoadingResult> future = granulesFutures.get(i);
 
             try {
                 // get the resulting RenderedImage
-                final GranuleDescriptor.GranuleLoadingResult result = future.get();
+                final GranuleDescriptor.GranuleLoadingResult result = getResult(future);
                 if (result == null) {
                     if (LOGGER.isLoggable(Level.FINE)) {
                         LOGGER.log(
@@ -146,6 +150,8 @@ public class BaseSubmosaicProducer implements SubmosaicProducer {
                     ROIExcessGranuleRemover remover = rasterLayerResponse.getExcessGranuleRemover();
                     if (remover != null) {
                         if (remover.isRenderingAreaComplete()) {
+                            // no need for the granules still loading
+                            cancelGranules(i + 1);
                             break;
                         }
                         if (!remover.addGranule(result)) {
@@ -213,11 +219,17 @@ public class BaseSubmosaicProducer implements SubmosaicProducer {
                 returnValues.add(input);
 
             } catch (Exception e) {
+                // the current granule might still be loading too, e.g. after a timeout, while
+                // cancelling one that is done is a no-op
+                cancelGranules(i);
                 if (LOGGER.isLoggable(Level.INFO)) {
                     LOGGER.info(
                             "Adding to mosaic failed, original request was "
                                     + rasterLayerResponse.getRequest());
                 }
+                if (e instanceof TimeoutException) {
+                    throw new IOException(getTimeoutMessage(), e);
+                }
                 throw new IOException(e);
             }
         }
@@ -235,6 +247,29 @@ public class BaseSubmosaicProducer implements SubmosaicProducer {
         return new MosaicInputs(doInputTransparency, hasAlpha, returnValues, sourceThreshold);
     }
 
+    /** Waits for a granule to load, up to the response granule loading timeout */
+    private GranuleLoadingResult getResult(Future<GranuleLoadingResult> future)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long timeLeft = rasterLayerResponse.getGranuleLoadingTimeLeft();
+        if (timeLeft == Long.MAX_VALUE || future.isDone()) {
+            return future.get();
+        }
+        return future.get(Math.max(0, timeLeft), TimeUnit.NANOSECONDS);
+    }
+
+    private String getTimeoutMessage() {
+        return "Granules loading did not complete within "
+                + rasterLayerResponse.getGranuleLoadingTimeout()
+                + "ms";
+    }
+
+    /** Cancels the loading of the granules, starting from the given position */
+    private void cancelGranules(int from) {
+        for (int i = from; i < granulesFutures.size(); i++) {
+            granulesFutures.get(i).cancel(true);
+        }
+    }
+
     private MosaicElement preProcessGranuleRaster(
             RenderedImage granule,
             final GranuleDescriptor.GranuleLoadingResult result,
@@ -421,6 +456,11 @@ public class BaseSubmosaicProducer implements SubmosaicProducer {
                         rasterLayerResponse.getRequest(),
                         rasterLayerResponse.getHints());
         if (!dryRun) {
+            if (rasterLayerResponse.getGranuleLoadingTimeLeft() <= 0) {
+                // no time left, stop loading and give up on the already submitted granules
+                cancelGranules(0);
+                throw new IllegalStateException(getTimeoutMessage());
+            }
             final boolean multiThreadedLoading = isMultithreadedLoadingEnabled();
             if (multiThreadedLoading) {
                 // MULTITHREADED EXECUTION submitting the task
@@ -0,0 +1,164 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.apache.commons.io.FileUtils;
+import org.geotools.test.TestData;
+import org.geotools.util.URLs;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GranuleReaderPoolTest {
+
+    static final Object OWNER = new Object();
+
+    @Rule public TemporaryFolder temp = new TemporaryFolder();
+
+    private ImageReader openReader(URL url, ImageInputStream stream) {
+        ImageReader reader = ImageIO.getImageReaders(stream).next();
+        reader.setInput(stream);
+        return reader;
+    }
+
+    private URL getGranule(int index) throws IOException {
+        File dir = TestData.file(this, "rgb");
+        return URLs.fileToUrl(new File(dir, "global_mosaic_" + index + ".png"));
+    }
+
+    private void assertClosed(ImageInputStream stream) {
+        try {
+            stream.read();
+            fail("The stream should have been closed");
+        } catch (IOException e) {
+            // fine
+        }
+    }
+
+    @Test
+    public void testBorrowRelease() throws Exception {
+        GranuleReaderPool pool = new GranuleReaderPool(4);
+        URL url = getGranule(0);
+        ImageInputStream stream = ImageIO.createImageInputStream(URLs.urlToFile(url));
+        ImageReader reader = openReader(url, stream);
+        int width = reader.getWidth(0);
+
+        pool.release(OWNER, url, reader, stream);
+        assertEquals(1, pool.size());
+
+        // the same reader is handed back, ready to be used
+        GranuleReaderPool.PooledReader pooled =
+                pool.borrow(url, reader.getOriginatingProvider());
+        assertNotNull(pooled);
+        assertSame(reader, pooled.reader);
+        assertSame(stream, pooled.stream);
+        assertEquals(width, pooled.reader.read(0).getWidth());
+        assertEquals(0, pool.size());
+
+        // borrowed exclusively
+        assertNull(pool.borrow(url, reader.getOriginatingProvider()));
+        pool.release(OWNER, url, pooled.reader, pooled.stream);
+        pool.clear();
+        assertEquals(0, pool.size());
+        assertClosed(stream);
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        GranuleReaderPool pool = new GranuleReaderPool(1);
+        URL url0 = getGranule(0);
+        ImageInputStream stream0 = ImageIO.createImageInputStream(URLs.urlToFile(url0));
+        ImageReader reader0 = openReader(url0, stream0);
+        URL url1 = getGranule(1);
+        ImageInputStream stream1 = ImageIO.createImageInputStream(URLs.urlToFile(url1));
+        ImageReader reader1 = openReader(url1, stream1);
+
+        pool.release(OWNER, url0, reader0, stream0);
+        pool.release(OWNER, url1, reader1, stream1);
+        assertEquals(1, pool.size());
+        assertClosed(stream0);
+        assertNull(pool.borrow(url0, reader0.getOriginatingProvider()));
+        assertSame(reader1, pool.borrow(url1, reader1.getOriginatingProvider()).reader);
+        reader1.dispose();
+        stream1.close();
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        GranuleReaderPool pool = new GranuleReaderPool(0);
+        URL url = getGranule(0);
+        ImageInputStream stream = ImageIO.createImageInputStream(URLs.urlToFile(url));
+        ImageReader reader = openReader(url, stream);
+
+        pool.release(OWNER, url, reader, stream);
+        assertEquals(0, pool.size());
+        assertClosed(stream);
+    }
+
+    @Test
+    public void testClearOwner() throws Exception {
+        GranuleReaderPool pool = new GranuleReaderPool(4);
+        URL url = getGranule(0);
+        ImageInputStream stream0 = ImageIO.createImageInputStream(URLs.urlToFile(url));
+        ImageReader reader0 = openReader(url, stream0);
+        ImageInputStream stream1 = ImageIO.createImageInputStream(URLs.urlToFile(url));
+        ImageReader reader1 = openReader(url, stream1);
+
+        Object other = new Object();
+        pool.release(OWNER, url, reader0, stream0);
+        pool.release(other, url, reader1, stream1);
+        assertEquals(2, pool.size());
+
+        // disposing a mosaic only closes its own readers
+        pool.clear(OWNER);
+        assertEquals(1, pool.size());
+        assertClosed(stream0);
+        assertSame(reader1, pool.borrow(url, reader1.getOriginatingProvider()).reader);
+        reader1.dispose();
+        stream1.close();
+    }
+
+    @Test
+    public void testReplacedGranule() throws Exception {
+        File granule = temp.newFile("granule.png");
+        FileUtils.copyFile(URLs.urlToFile(getGranule(0)), granule);
+        URL url = URLs.fileToUrl(granule);
+        ImageInputStream stream = ImageIO.createImageInputStream(granule);
+        ImageReader reader = openReader(url, stream);
+        GranuleReaderPool pool = new GranuleReaderPool(4);
+        pool.release(OWNER, url, reader, stream);
+
+        // the granule changes on disk, the pooled reader is closed rather than reused
+        assertTrue(granule.setLastModified(granule.lastModified() - 10000));
+        assertNull(pool.borrow(url, reader.getOriginatingProvider()));
+        assertEquals(0, pool.size());
+        assertClosed(stream);
+    }
+}
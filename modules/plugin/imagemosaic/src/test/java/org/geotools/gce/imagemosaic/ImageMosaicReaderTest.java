@@ -5110,6 +5110,28 @@ public class ImageMosaicReaderTest extends Assert {
         reader.dispose();
     }
 
+    @Test
+    public void testGranuleLoadingTimeout() throws Exception {
+        AbstractGridFormat format = TestUtils.getFormat(rgbURL);
+        ImageMosaicReader reader = getReader(rgbURL, format);
+        ParameterValue<Long> timeout = ImageMosaicFormat.GRANULE_LOADING_TIMEOUT.createValue();
+
+        // plenty of time
+        timeout.setValue(60000L);
+        TestUtils.checkCoverage(reader, new GeneralParameterValue[] {timeout}, null);
+
+        // no time at all
+        timeout.setValue(0L);
+        try {
+            reader.read(new GeneralParameterValue[] {timeout});
+            fail("Should have failed, the granules loading timed out");
+        } catch (IOException e) {
+            // fine
+        }
+
+        reader.dispose();
+    }
+
     @Test
     public void testFilteredGranuleFootprint() throws Exception {
         AbstractGridFormat format = TestUtils.getFormat(rgbURL);
@@ -5208,10 +5230,45 @@ public class ImageMosaicReaderTest extends Assert {
         reader.dispose();
     }
 
+    @Test
+    public void testPersistentIndexFiltered() throws Exception {
+        File timeIndexed = setupTimeMosaic("timeIndexed", "PersistentIndex");
+
+        // read reference image (the one that should be on top)
+        BufferedImage expected =
+                ImageIO.read(new File(timeIndexed, "world.200403.3x5400x2700.tiff"));
+
+        final ParameterValue<String> sortBy = ImageMosaicFormat.SORT_BY.createValue();
+        sortBy.setValue("time A");
+        final ParameterValue<Filter> filter = ImageMosaicFormat.FILTER.createValue();
+        filter.setValue(ECQL.toFilter("time during 2004-02-28T23:59:59/2004-05-01T00:00:00"));
+        ImageMosaicReader reader = new ImageMosaicReader(timeIndexed);
+        GridCoverage2D coverage = reader.read(new GeneralParameterValue[] {sortBy, filter});
+        ImageAssert.assertEquals(expected, coverage.getRenderedImage(), 0);
+        coverage.dispose(true);
+        reader.dispose();
+
+        // the index has been saved, and gets reused by a new reader
+        File index = new File(timeIndexed, "timeIndexed.gix");
+        assertTrue(index.exists());
+        long lastModified = index.lastModified();
+        reader = new ImageMosaicReader(timeIndexed);
+        coverage = reader.read(new GeneralParameterValue[] {sortBy, filter});
+        ImageAssert.assertEquals(expected, coverage.getRenderedImage(), 0);
+        coverage.dispose(true);
+        reader.dispose();
+        assertEquals(lastModified, index.lastModified());
+    }
+
     private File setupTimeCachedMosaic() throws IOException, FactoryException {
+        return setupTimeMosaic("timeCached", "Caching");
+    }
+
+    private File setupTimeMosaic(String name, String catalogProperty)
+            throws IOException, FactoryException {
         // copy the test data
         File source = URLs.urlToFile(timeURL);
-        File timeCached = tempFolder.newFolder("timeCached");
+        File timeCached = tempFolder.newFolder(name);
         FileUtils.copyDirectory(source, timeCached);
         Arrays.stream(
                         timeCached.listFiles(
@@ -5224,13 +5281,13 @@ public class ImageMosaicReaderTest extends Assert {
         ImageMosaicReader reader = getReader(timeCached);
         reader.dispose();
 
-        // set it up so that it uses caching
-        File indexerProperties = new File(timeCached, "timeCached.properties");
+        // set it up so that it uses the catalog option
+        File indexerProperties = new File(timeCached, name + ".properties");
         Properties indexer = new Properties();
         try (InputStream is = new FileInputStream(indexerProperties)) {
             indexer.load(is);
         }
-        indexer.put("Caching", "true");
+        indexer.put(catalogProperty, "true");
         try (OutputStream os = new FileOutputStream(indexerProperties)) {
             indexer.store(os, null);
         }
@@ -0,0 +1,172 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.gce.imagemosaic.catalog;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.filter.text.ecql.ECQL;
+import org.geotools.geometry.jts.JTS;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+public class HilbertGranuleIndexTest {
+
+    static final GeometryFactory GF = new GeometryFactory();
+
+    static final double INF = Double.POSITIVE_INFINITY;
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    SimpleFeatureType schema;
+
+    ListFeatureCollection granules;
+
+    HilbertGranuleIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        schema =
+                DataUtilities.createType(
+                        "granules",
+                        "the_geom:Polygon,location:String,time:java.util.Date,elevation:Double");
+        granules = new ListFeatureCollection(schema);
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(schema);
+        // a 10x10 grid of unit granules, time and elevation growing along x and y
+        for (int i = 0; i < 100; i++) {
+            int x = i % 10;
+            int y = i / 10;
+            fb.add(JTS.toGeometry(new Envelope(x, x + 1, y, y + 1), GF));
+            fb.add("granule" + i);
+            fb.add(new Date(x * 1000L));
+            fb.add(i == 99 ? null : (double) y);
+            granules.add(fb.buildFeature("granules." + i));
+        }
+        // one granule without a footprint
+        fb.add(null);
+        fb.add("granule100");
+        fb.add(new Date(0));
+        fb.add(0d);
+        granules.add(fb.buildFeature("granules.100"));
+
+        index =
+                HilbertGranuleIndex.build(
+                        granules,
+                        new String[] {"time", "elevation"},
+                        42,
+                        new File(folder.getRoot(), "granules.gix"));
+    }
+
+    private Set<String> search(Envelope envelope, double[] mins, double[] maxs) {
+        Set<String> ids = new HashSet<>();
+        index.search(envelope, mins, maxs, item -> ids.add(index.getFeatureId(item)));
+        return ids;
+    }
+
+    /** The ids of the grid granules in the cell range, plus the one without footprint if asked */
+    private Set<String> expected(int minX, int maxX, int minY, int maxY, boolean nullGeometry) {
+        Set<String> ids = new HashSet<>();
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                ids.add("granules." + (y * 10 + x));
+            }
+        }
+        if (nullGeometry) {
+            ids.add("granules.100");
+        }
+        return ids;
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        HilbertGranuleIndex reopened =
+                HilbertGranuleIndex.open(new File(folder.getRoot(), "granules.gix"));
+        assertEquals(101, reopened.size());
+        assertEquals(42, reopened.getFingerprint());
+        assertArrayEquals(new String[] {"time", "elevation"}, reopened.getAttributes());
+        assertEquals("granules.57", reopened.getFeatureId(57));
+    }
+
+    @Test
+    public void testSpatialSearch() throws Exception {
+        double[] mins = {-INF, -INF};
+        double[] maxs = {INF, INF};
+        // touching granules are included, the one without footprint covers the whole area
+        assertEquals(
+                expected(3, 4, 3, 4, true), search(new Envelope(3.5, 4, 4, 4.5), mins, maxs));
+        assertEquals(new HashSet<>(), search(new Envelope(20, 21, 20, 21), mins, maxs));
+    }
+
+    @Test
+    public void testAttributeRanges() throws Exception {
+        Envelope world = new Envelope(-INF, INF, -INF, INF);
+        // inclusive time range
+        assertEquals(
+                expected(2, 3, 0, 9, false),
+                search(world, new double[] {2000, -INF}, new double[] {3000, INF}));
+
+        // time and elevation, the null elevation of granule 99 matches any range
+        Set<String> combined = expected(7, 9, 5, 5, false);
+        combined.add("granules.99");
+        assertEquals(combined, search(world, new double[] {7000, 5}, new double[] {INF, 5}));
+
+        // the granule without footprint is matched on its attributes
+        assertEquals(
+                expected(0, 0, 0, 0, true),
+                search(world, new double[] {-INF, -INF}, new double[] {0, 0}));
+
+        // empty range
+        assertEquals(
+                new HashSet<>(),
+                search(world, new double[] {5000, -INF}, new double[] {4000, INF}));
+    }
+
+    @Test
+    public void testFilterRanges() throws Exception {
+        assertRange("elevation BETWEEN 2 AND 4", "elevation", 2, 4);
+        assertRange("elevation > 3", "elevation", 3, INF);
+        assertRange("3 > elevation", "elevation", -INF, 3);
+        assertRange("elevation = 3 OR elevation = 7", "elevation", 3, 7);
+        assertRange("elevation >= 3 AND elevation < 7 AND time > 0", "elevation", 3, 7);
+        assertRange("elevation >= 3 OR location = 'a'", "elevation", -INF, INF);
+        assertRange("location = 'a'", "elevation", -INF, INF);
+        assertRange("time DURING 1970-01-01T00:00:01Z/1970-01-01T00:00:03Z", "time", 1000, 3000);
+        assertRange("time AFTER 1970-01-01T00:00:01Z", "time", 1000, INF);
+        assertRange("time BEFORE 1970-01-01T00:00:01Z", "time", -INF, 1000);
+    }
+
+    private void assertRange(String cql, String attribute, double min, double max)
+            throws Exception {
+        Class<?> binding = schema.getDescriptor(attribute).getType().getBinding();
+        double[] range =
+                HilbertIndexGranuleCatalog.getRange(ECQL.toFilter(cql), attribute, binding);
+        assertArrayEquals(cql, new double[] {min, max}, range, 0);
+    }
+}
@@ -91,6 +91,7 @@ public class OracleNGOCIDataStoreFactory extends OracleNGDataStoreFactory {
 
         parameters.put(OracleNGDataStoreFactory.LOOSEBBOX.key, OracleNGDataStoreFactory.LOOSEBBOX);
         parameters.put(MAX_OPEN_PREPARED_STATEMENTS.key, MAX_OPEN_PREPARED_STATEMENTS);
+        parameters.put(SQL_TEMPLATE_CACHE_SIZE.key, SQL_TEMPLATE_CACHE_SIZE);
 
         parameters.put(
                 OracleNGDataStoreFactory.ESTIMATED_EXTENTS.key,
@@ -0,0 +1,469 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.postgis;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.data.jdbc.datasource.DataSourceFinder;
+import org.geotools.data.jdbc.datasource.UnWrapper;
+import org.geotools.jdbc.BulkInsertWriter;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.PrimaryKeyColumn;
+import org.geotools.util.Converters;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.io.WKBWriter;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * Loads rows with {@code COPY ... FROM STDIN (FORMAT binary)}, geometries being sent as EWKB.
+ *
+ * <p>The binary format requires each value to be encoded exactly as the column type, so the writer
+ * is only created when all the columns have one of the supported types (integers, floating
+ * points, booleans, text, bytea, uuid, dates and times, geometry). The {@code COPY} is started
+ * when the first rows are sent, rows are buffered and sent in chunks of {@value #CHUNK_SIZE}
+ * bytes.
+ *
+ * @since 22
+ */
+final class PostGISBulkInsertWriter implements BulkInsertWriter {
+
+    static final Logger LOGGER = Logging.getLogger(PostGISBulkInsertWriter.class);
+
+    /** The binary copy signature, followed by the flags and header extension length */
+    private static final byte[] SIGNATURE = {
+        'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0
+    };
+
+    /** Size of the chunks sent to the server */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /** EWKB flag for geometries with a SRID */
+    private static final int EWKB_SRID_FLAG = 0x20;
+
+    /** The PostgreSQL epoch (2000-01-01), in days since the Java epoch */
+    private static final long PG_EPOCH_DAYS = LocalDate.of(2000, 1, 1).toEpochDay();
+
+    /** The PostgreSQL epoch (2000-01-01), in microseconds since the Java epoch */
+    private static final long PG_EPOCH_MICROS = PG_EPOCH_DAYS * 86400L * 1000000L;
+
+    /** The column types supported by the writer */
+    enum ColumnType {
+        INT2,
+        INT4,
+        INT8,
+        FLOAT4,
+        FLOAT8,
+        BOOL,
+        TEXT,
+        BYTEA,
+        UUID,
+        DATE,
+        TIME,
+        TIMESTAMP,
+        TIMESTAMPTZ,
+        GEOMETRY
+    }
+
+    /** A byte array output stream giving access to its buffer */
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    private final CopyManager copyManager;
+
+    private final String sql;
+
+    private final ColumnType[] types;
+
+    private final Buffer buffer = new Buffer(CHUNK_SIZE + CHUNK_SIZE / 4);
+
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    private final WKBWriter[] wkbWriters = new WKBWriter[2];
+
+    /** The copy in progress, or null if not started yet */
+    private CopyIn copy;
+
+    /** The index of the next column in the current row */
+    private int column;
+
+    PostGISBulkInsertWriter(CopyManager copyManager, String sql, ColumnType[] types)
+            throws IOException {
+        this.copyManager = copyManager;
+        this.sql = sql;
+        this.types = types;
+        out.write(SIGNATURE);
+        out.writeInt(0); // flags
+        out.writeInt(0); // header extension length
+    }
+
+    /**
+     * Creates a writer for the given columns, or returns null if some column has a type that is
+     * not supported, or the native connection is not reachable.
+     */
+    static PostGISBulkInsertWriter create(
+            PostGISDialect dialect,
+            String schemaName,
+            String tableName,
+            List<AttributeDescriptor> attributes,
+            List<PrimaryKeyColumn> keyColumns,
+            Connection cx)
+            throws SQLException {
+        if (attributes.isEmpty() && keyColumns.isEmpty()) {
+            return null;
+        }
+        ColumnType[] types = new ColumnType[attributes.size() + keyColumns.size()];
+        StringBuffer sql = new StringBuffer("COPY ");
+        if (schemaName != null && !schemaName.isEmpty()) {
+            dialect.encodeSchemaName(schemaName, sql);
+            sql.append(".");
+        }
+        dialect.encodeTableName(tableName, sql);
+        sql.append(" (");
+        int i = 0;
+        for (AttributeDescriptor att : attributes) {
+            String typeName = (String) att.getUserData().get(JDBCDataStore.JDBC_NATIVE_TYPENAME);
+            types[i] = getColumnType(typeName, att.getType().getBinding());
+            if (types[i++] == null) {
+                LOGGER.log(
+                        Level.FINE,
+                        "Cannot bulk insert column {0} of type {1}",
+                        new Object[] {att.getLocalName(), typeName});
+                return null;
+            }
+            dialect.encodeColumnName(null, att.getLocalName(), sql);
+            sql.append(",");
+        }
+        for (PrimaryKeyColumn col : keyColumns) {
+            types[i] = getColumnType(col.getType());
+            if (types[i++] == null) {
+                LOGGER.log(
+                        Level.FINE,
+                        "Cannot bulk insert key column {0} of type {1}",
+                        new Object[] {col.getName(), col.getType()});
+                return null;
+            }
+            dialect.encodeColumnName(null, col.getName(), sql);
+            sql.append(",");
+        }
+        sql.setLength(sql.length() - 1);
+        sql.append(") FROM STDIN (FORMAT binary)");
+
+        PGConnection pgConnection = unwrap(cx);
+        if (pgConnection == null) {
+            LOGGER.fine("Cannot bulk insert, native connection not found for " + cx.getClass());
+            return null;
+        }
+        try {
+            return new PostGISBulkInsertWriter(pgConnection.getCopyAPI(), sql.toString(), types);
+        } catch (IOException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    /** Returns the type of the column with the given native type name, or null if not supported */
+    static ColumnType getColumnType(String typeName, Class<?> binding) {
+        if (typeName == null) {
+            return null;
+        }
+        // type names can be qualified and quoted for types outside of the search path
+        String name = typeName.substring(typeName.lastIndexOf('.') + 1);
+        name = name.replace("\"", "").toLowerCase(Locale.ENGLISH);
+        switch (name) {
+            case "int2":
+            case "smallserial":
+                return ColumnType.INT2;
+            case "int4":
+            case "serial":
+                return ColumnType.INT4;
+            case "int8":
+            case "bigserial":
+                return ColumnType.INT8;
+            case "float4":
+                return ColumnType.FLOAT4;
+            case "float8":
+                return ColumnType.FLOAT8;
+            case "bool":
+                return ColumnType.BOOL;
+            case "text":
+            case "varchar":
+            case "bpchar":
+                return ColumnType.TEXT;
+            case "bytea":
+                return ColumnType.BYTEA;
+            case "uuid":
+                return ColumnType.UUID;
+            case "date":
+                return ColumnType.DATE;
+            case "time":
+                return ColumnType.TIME;
+            case "timestamp":
+                return ColumnType.TIMESTAMP;
+            case "timestamptz":
+                return ColumnType.TIMESTAMPTZ;
+            case "geometry":
+                return Geometry.class.isAssignableFrom(binding) ? ColumnType.GEOMETRY : null;
+            default:
+                return null;
+        }
+    }
+
+    /** Returns the type of a primary key column, or null if not supported */
+    static ColumnType getColumnType(Class<?> type) {
+        if (Short.class.equals(type)) {
+            return ColumnType.INT2;
+        } else if (Integer.class.equals(type)) {
+            return ColumnType.INT4;
+        } else if (Long.class.equals(type)) {
+            return ColumnType.INT8;
+        } else if (String.class.equals(type)) {
+            return ColumnType.TEXT;
+        } else if (UUID.class.equals(type)) {
+            return ColumnType.UUID;
+        }
+        return null;
+    }
+
+    /** Obtains the native PostgreSQL connection, or null if not found */
+    static PGConnection unwrap(Connection cx) {
+        if (cx instanceof PGConnection) {
+            return (PGConnection) cx;
+        }
+        try {
+            if (cx.isWrapperFor(PGConnection.class)) {
+                return cx.unwrap(PGConnection.class);
+            }
+        } catch (Throwable t) {
+            // not a mistake, old DBCP versions will throw an Error here, we need to catch it
+            LOGGER.log(Level.FINER, "Failed to unwrap connection using java 6 facilities", t);
+        }
+        UnWrapper unwrapper = DataSourceFinder.getUnWrapper(cx);
+        if (unwrapper != null) {
+            Connection unwrapped = unwrapper.unwrap(cx);
+            if (unwrapped instanceof PGConnection) {
+                return (PGConnection) unwrapped;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void writeGeometry(Geometry g, int dimension, int srid, Class<?> binding)
+            throws IOException {
+        ColumnType type = nextColumn();
+        if (type != ColumnType.GEOMETRY) {
+            throw new IOException("Cannot write a geometry in a column of type " + type);
+        }
+        if (g == null || g.isEmpty()) {
+            out.writeInt(-1);
+            return;
+        }
+        if (g instanceof LinearRing) {
+            // postgis does not handle linear rings, convert to just a line string
+            g = g.getFactory().createLineString(((LinearRing) g).getCoordinateSequence());
+        }
+        int outputDimension = dimension > 2 ? 3 : 2;
+        WKBWriter wkbWriter = wkbWriters[outputDimension - 2];
+        if (wkbWriter == null) {
+            wkbWriter = new WKBWriter(outputDimension);
+            wkbWriters[outputDimension - 2] = wkbWriter;
+        }
+        byte[] wkb = wkbWriter.write(g);
+        if (srid <= 0) {
+            out.writeInt(wkb.length);
+            out.write(wkb);
+        } else {
+            // turn the big endian WKB into EWKB: flag the type and insert the srid after it
+            out.writeInt(wkb.length + 4);
+            out.write(wkb[0]);
+            out.write(wkb[1] | EWKB_SRID_FLAG);
+            out.write(wkb, 2, 3);
+            out.writeInt(srid);
+            out.write(wkb, 5, wkb.length - 5);
+        }
+    }
+
+    @Override
+    public void writeValue(Object value, Class<?> binding) throws IOException {
+        ColumnType type = nextColumn();
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        switch (type) {
+            case INT2:
+                out.writeInt(2);
+                out.writeShort(convert(value, Short.class).shortValue());
+                break;
+            case INT4:
+                out.writeInt(4);
+                out.writeInt(convert(value, Integer.class).intValue());
+                break;
+            case INT8:
+                out.writeInt(8);
+                out.writeLong(convert(value, Long.class).longValue());
+                break;
+            case FLOAT4:
+                out.writeInt(4);
+                out.writeFloat(convert(value, Float.class).floatValue());
+                break;
+            case FLOAT8:
+                out.writeInt(8);
+                out.writeDouble(convert(value, Double.class).doubleValue());
+                break;
+            case BOOL:
+                out.writeInt(1);
+                out.writeByte(convert(value, Boolean.class) ? 1 : 0);
+                break;
+            case TEXT:
+                writeBytes(convert(value, String.class).getBytes(StandardCharsets.UTF_8));
+                break;
+            case BYTEA:
+                writeBytes(convert(value, byte[].class));
+                break;
+            case UUID:
+                UUID uuid = convert(value, UUID.class);
+                out.writeInt(16);
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+                break;
+            case DATE:
+                LocalDate date = convert(value, java.sql.Date.class).toLocalDate();
+                out.writeInt(4);
+                out.writeInt((int) (date.toEpochDay() - PG_EPOCH_DAYS));
+                break;
+            case TIME:
+                long nanos = convert(value, Time.class).toLocalTime().toNanoOfDay();
+                out.writeInt(8);
+                out.writeLong(nanos / 1000);
+                break;
+            case TIMESTAMP:
+                // same as the driver, the local date time in the JVM time zone
+                LocalDateTime local = convert(value, Timestamp.class).toLocalDateTime();
+                out.writeInt(8);
+                out.writeLong(
+                        toMicros(local.toEpochSecond(ZoneOffset.UTC), local.getNano())
+                                - PG_EPOCH_MICROS);
+                break;
+            case TIMESTAMPTZ:
+                Instant instant = convert(value, Timestamp.class).toInstant();
+                out.writeInt(8);
+                out.writeLong(
+                        toMicros(instant.getEpochSecond(), instant.getNano()) - PG_EPOCH_MICROS);
+                break;
+            default:
+                throw new IOException("Cannot write a " + value.getClass() + " as a " + type);
+        }
+    }
+
+    private static long toMicros(long seconds, int nanos) {
+        return seconds * 1000000L + nanos / 1000;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Returns the type of the next column, starting a new row if needed */
+    private ColumnType nextColumn() throws IOException {
+        if (column >= types.length) {
+            throw new IOException("Too many values in row, expected " + types.length);
+        }
+        if (column == 0) {
+            out.writeShort(types.length);
+        }
+        return types[column++];
+    }
+
+    private static <T> T convert(Object value, Class<T> target) throws IOException {
+        if (target.isInstance(value)) {
+            return target.cast(value);
+        }
+        T converted = Converters.convert(value, target);
+        if (converted == null) {
+            throw new IOException("Cannot convert " + value + " to " + target.getSimpleName());
+        }
+        return converted;
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        if (column != types.length) {
+            throw new IOException(
+                    "Incomplete row, expected " + types.length + " values but got " + column);
+        }
+        column = 0;
+        if (buffer.size() >= CHUNK_SIZE) {
+            flush();
+        }
+    }
+
+    /** Sends the buffered rows, starting the copy if needed */
+    private void flush() throws IOException {
+        try {
+            if (copy == null) {
+                LOGGER.fine(sql);
+                copy = copyManager.copyIn(sql);
+            }
+            copy.writeToCopy(buffer.array(), 0, buffer.size());
+            buffer.reset();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public long finish() throws IOException, SQLException {
+        out.writeShort(-1); // file trailer
+        flush();
+        return copy.endCopy();
+    }
+
+    @Override
+    public void cancel() throws IOException, SQLException {
+        if (copy != null && copy.isActive()) {
+            copy.cancelCopy();
+        }
+    }
+}
@@ -48,8 +48,10 @@ import org.geotools.geometry.jts.MultiSurface;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.geometry.jts.WKTWriter2;
 import org.geotools.jdbc.BasicSQLDialect;
+import org.geotools.jdbc.BulkInsertWriter;
 import org.geotools.jdbc.ColumnMetadata;
 import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.PrimaryKeyColumn;
 import org.geotools.referencing.CRS;
 import org.geotools.util.Version;
 import org.geotools.util.factory.Hints;
@@ -192,6 +194,11 @@ public class PostGISDialect extends BasicSQLDialect {
 
     boolean simplifyEnabled = true;
 
+    boolean bulkInsertEnabled = false;
+
+    /** The batch insert size used when bulk insert is enabled and no explicit size is given */
+    static final int DEFAULT_BULK_INSERT_SIZE = 10000;
+
     Version version, pgsqlVersion;
 
     public boolean isLooseBBOXEnabled() {
@@ -241,6 +248,19 @@ public class PostGISDialect extends BasicSQLDialect {
         this.simplifyEnabled = simplifyEnabled;
     }
 
+    public boolean isBulkInsertEnabled() {
+        return bulkInsertEnabled;
+    }
+
+    /**
+     * Enables/disables usage of COPY ... FROM STDIN to insert multiple features at once
+     *
+     * @see PostgisNGDataStoreFactory#BULK_INSERT
+     */
+    public void setBulkInsertEnabled(boolean bulkInsertEnabled) {
+        this.bulkInsertEnabled = bulkInsertEnabled;
+    }
+
     @Override
     public void initializeConnection(Connection cx) throws SQLException {
         super.initializeConnection(cx);
@@ -299,6 +319,23 @@ public class PostGISDialect extends BasicSQLDialect {
         return (Geometry) reader.read(rs, column);
     }
 
+    @Override
+    public Class<? extends Geometry> decodeGeometryValueEnvelope(
+            GeometryDescriptor descriptor,
+            ResultSet rs,
+            int column,
+            Envelope envelope,
+            Connection cx)
+            throws IOException, SQLException {
+        // the envelope does not depend on the geometry factory, don't switch it
+        WKBAttributeIO reader = wkbReader.get();
+        if (reader == null) {
+            reader = getWKBReader(dataStore.getGeometryFactory());
+        }
+
+        return reader.readEnvelope(rs, column, envelope);
+    }
+
     private WKBAttributeIO getWKBReader(GeometryFactory factory) {
         WKBAttributeIO reader = wkbReader.get();
         if (reader == null) {
@@ -964,6 +1001,51 @@ public class PostGISDialect extends BasicSQLDialect {
         return null;
     }
 
+    @Override
+    public List<Object> getNextSequenceValues(
+            String schemaName, String sequenceName, int count, Connection cx)
+            throws SQLException {
+        List<Object> values = new ArrayList<>(count);
+        Statement st = cx.createStatement();
+        try {
+            String sql =
+                    "SELECT "
+                            + encodeNextSequenceValue(schemaName, sequenceName)
+                            + " FROM generate_series(1, "
+                            + count
+                            + ")";
+
+            dataStore.getLogger().fine(sql);
+            ResultSet rs = st.executeQuery(sql);
+            try {
+                while (rs.next()) {
+                    values.add(rs.getLong(1));
+                }
+            } finally {
+                dataStore.closeSafe(rs);
+            }
+        } finally {
+            dataStore.closeSafe(st);
+        }
+
+        return values;
+    }
+
+    @Override
+    public BulkInsertWriter createBulkInsertWriter(
+            String schemaName,
+            String tableName,
+            List<AttributeDescriptor> attributes,
+            List<PrimaryKeyColumn> keyColumns,
+            Connection cx)
+            throws SQLException {
+        if (!bulkInsertEnabled) {
+            return null;
+        }
+        return PostGISBulkInsertWriter.create(
+                this, schemaName, tableName, attributes, keyColumns, cx);
+    }
+
     @Override
     public String encodeNextSequenceValue(String schemaName, String sequenceName) {
         return "nextval('" + sequenceName + "')";
@@ -22,11 +22,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.List;
 import java.util.Map;
+import org.geotools.jdbc.BulkInsertWriter;
 import org.geotools.jdbc.ColumnMetadata;
 import org.geotools.jdbc.JDBCDataStore;
 import org.geotools.jdbc.PreparedFilterToSQL;
 import org.geotools.jdbc.PreparedStatementSQLDialect;
+import org.geotools.jdbc.PrimaryKeyColumn;
 import org.geotools.util.factory.Hints;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
@@ -74,6 +77,17 @@ public class PostGISPSDialect extends PreparedStatementSQLDialect {
         return delegate.decodeGeometryValue(descriptor, rs, column, factory, cx, new Hints());
     }
 
+    @Override
+    public Class<? extends Geometry> decodeGeometryValueEnvelope(
+            GeometryDescriptor descriptor,
+            ResultSet rs,
+            int column,
+            Envelope envelope,
+            Connection cx)
+            throws IOException, SQLException {
+        return delegate.decodeGeometryValueEnvelope(descriptor, rs, column, envelope, cx);
+    }
+
     public Geometry decodeGeometryValue(
             GeometryDescriptor descriptor,
             ResultSet rs,
@@ -142,6 +156,24 @@ public class PostGISPSDialect extends PreparedStatementSQLDialect {
         return delegate.getNextSequenceValue(schemaName, sequenceName, cx);
     }
 
+    @Override
+    public List<Object> getNextSequenceValues(
+            String schemaName, String sequenceName, int count, Connection cx)
+            throws SQLException {
+        return delegate.getNextSequenceValues(schemaName, sequenceName, count, cx);
+    }
+
+    @Override
+    public BulkInsertWriter createBulkInsertWriter(
+            String schemaName,
+            String tableName,
+            List<AttributeDescriptor> attributes,
+            List<PrimaryKeyColumn> keyColumns,
+            Connection cx)
+            throws SQLException {
+        return delegate.createBulkInsertWriter(schemaName, tableName, attributes, keyColumns, cx);
+    }
+
     @Override
     public String encodeNextSequenceValue(String schemaName, String sequenceName) {
         return delegate.encodeNextSequenceValue(schemaName, sequenceName);
@@ -123,6 +123,18 @@ public class PostgisNGDataStoreFactory extends JDBCDataStoreFactory {
                     false,
                     Boolean.TRUE);
 
+    /** Enables usage of COPY ... FROM STDIN when inserting multiple features */
+    public static final Param BULK_INSERT =
+            new Param(
+                    "Bulk insert",
+                    Boolean.class,
+                    "Use COPY ... FROM STDIN to insert features in bulk. Unless the batch insert "
+                            + "size is set, features are buffered and sent in batches of "
+                            + PostGISDialect.DEFAULT_BULK_INSERT_SIZE,
+                    false,
+                    Boolean.FALSE,
+                    new KVP(Param.LEVEL, "advanced"));
+
     @Override
     protected SQLDialect createSQLDialect(JDBCDataStore dataStore) {
         return new PostGISDialect(dataStore);
@@ -192,6 +204,13 @@ public class PostgisNGDataStoreFactory extends JDBCDataStoreFactory {
         Boolean simplify = (Boolean) SIMPLIFY.lookUp(params);
         dialect.setSimplifyEnabled(simplify == null || simplify);
 
+        // check bulk insert, buffering larger batches unless the batch size has been set
+        Boolean bulkInsert = (Boolean) BULK_INSERT.lookUp(params);
+        dialect.setBulkInsertEnabled(Boolean.TRUE.equals(bulkInsert));
+        if (Boolean.TRUE.equals(bulkInsert) && BATCH_INSERT_SIZE.lookUp(params) == null) {
+            dataStore.setBatchInsertSize(PostGISDialect.DEFAULT_BULK_INSERT_SIZE);
+        }
+
         // encode BBOX filter with wrapping ST_Envelope (GEOT-5167)
         Boolean encodeBBOXAsEnvelope = false;
         String largeGeometriesOptimized =
@@ -216,8 +235,10 @@ public class PostgisNGDataStoreFactory extends JDBCDataStoreFactory {
         parameters.put(PORT.key, PORT);
         parameters.put(PREPARED_STATEMENTS.key, PREPARED_STATEMENTS);
         parameters.put(MAX_OPEN_PREPARED_STATEMENTS.key, MAX_OPEN_PREPARED_STATEMENTS);
+        parameters.put(SQL_TEMPLATE_CACHE_SIZE.key, SQL_TEMPLATE_CACHE_SIZE);
         parameters.put(ENCODE_FUNCTIONS.key, ENCODE_FUNCTIONS);
         parameters.put(SIMPLIFY.key, SIMPLIFY);
+        parameters.put(BULK_INSERT.key, BULK_INSERT);
         parameters.put(CREATE_DB_IF_MISSING.key, CREATE_DB_IF_MISSING);
         parameters.put(CREATE_PARAMS.key, CREATE_PARAMS);
     }
@@ -22,11 +22,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
-import org.geotools.data.Base64;
+import java.util.Arrays;
 import org.geotools.data.DataSourceException;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.io.ByteArrayInStream;
+import org.locationtech.jts.io.InStream;
+import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKBWriter;
 
 /**
@@ -36,20 +39,47 @@ import org.locationtech.jts.io.WKBWriter;
  * @since 2.4.1
  */
 public class WKBAttributeIO {
+    /** Maps base64 characters to their 6 bits value, -1 for characters that should be skipped */
+    private static final byte[] BASE64_DECODABET = new byte[128];
+
+    static {
+        Arrays.fill(BASE64_DECODABET, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_DECODABET[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
     WKBReader wkbr;
     ByteArrayInStream inStream = new ByteArrayInStream(new byte[0]);
     GeometryFactory gf;
 
+    /** Reused buffer holding the decoded WKB, can be larger than the actual WKB */
+    byte[] buffer = new byte[0];
+
+    /**
+     * The result set and column whose current value was last decoded in the buffer by {@link
+     * #readEnvelope(ResultSet, int, Envelope)}, to avoid decoding it again when the geometry is
+     * read afterwards
+     */
+    ResultSet decodedResultSet;
+
+    int decodedColumn;
+
     public WKBAttributeIO() {
         this(new GeometryFactory());
     }
 
     public WKBAttributeIO(GeometryFactory gf) {
-        wkbr = new WKBReader(gf);
+        setGeometryFactory(gf);
     }
 
     public void setGeometryFactory(GeometryFactory gf) {
-        wkbr = new WKBReader(gf);
+        // the reader is meant to be reused, only recreate it if the factory changed
+        if (wkbr == null || this.gf != gf) {
+            this.gf = gf;
+            wkbr = new WKBReader(gf);
+        }
     }
 
     /**
@@ -75,13 +105,80 @@ public class WKBAttributeIO {
         }
     }
 
+    /**
+     * Decodes the base64 encoded WKB into the reused buffer, and returns it. The WKB format is self
+     * delimiting, so the buffer can be longer than the WKB.
+     */
+    byte[] decodeBase64(byte[] base64) {
+        int maxLength = base64.length / 4 * 3 + 3;
+        if (buffer.length < maxLength) {
+            buffer = new byte[Math.max(maxLength, buffer.length * 2)];
+        }
+        int length = 0;
+        int bits = 0;
+        int count = 0;
+        for (byte b : base64) {
+            // skip the line breaks added by the database, stop at the padding
+            if (b == '=') {
+                break;
+            }
+            int value = b < 0 ? -1 : BASE64_DECODABET[b];
+            if (value < 0) {
+                continue;
+            }
+            bits = (bits << 6) | value;
+            if (++count == 4) {
+                buffer[length++] = (byte) (bits >> 16);
+                buffer[length++] = (byte) (bits >> 8);
+                buffer[length++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count == 3) {
+            buffer[length++] = (byte) (bits >> 10);
+            buffer[length++] = (byte) (bits >> 2);
+        } else if (count == 2) {
+            buffer[length++] = (byte) (bits >> 4);
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads the envelope of the geometry without building it, see {@link
+     * WKBReader#readEnvelope(InStream, Envelope)}
+     *
+     * <p>The decoded WKB is kept, and reused by a following {@link #read(ResultSet, int)} of the
+     * same column, which must then happen before the result set is moved to the next row.
+     *
+     * @return the geometry type, or null if the value is null or the envelope could not be read
+     */
+    public Class<? extends Geometry> readEnvelope(ResultSet rs, int columnIndex, Envelope envelope)
+            throws IOException {
+        decodedResultSet = null;
+        try {
+            byte bytes[] = rs.getBytes(columnIndex);
+            if (bytes == null) {
+                return null;
+            }
+            inStream.setBytes(decodeBase64(bytes));
+            decodedResultSet = rs;
+            decodedColumn = columnIndex;
+            return wkbr.readEnvelope(inStream, envelope);
+        } catch (SQLException e) {
+            throw new DataSourceException("SQL exception occurred while reading the geometry.", e);
+        } catch (ParseException e) {
+            throw new DataSourceException("An exception occurred while parsing WKB data", e);
+        }
+    }
+
     /** @see org.geotools.data.jdbc.attributeio.AttributeIO#read(java.sql.ResultSet, int) */
     public Object read(ResultSet rs, String columnName) throws IOException {
         try {
             byte bytes[] = rs.getBytes(columnName);
             if (bytes == null) // ie. its a null column -> return a null geometry!
             return null;
-            return wkb2Geometry(Base64.decode(bytes));
+            return wkb2Geometry(decodeBase64(bytes));
         } catch (SQLException e) {
             throw new DataSourceException("SQL exception occurred while reading the geometry.", e);
         }
@@ -89,11 +186,17 @@ public class WKBAttributeIO {
 
     /** @see org.geotools.data.jdbc.attributeio.AttributeIO#read(java.sql.ResultSet, int) */
     public Object read(ResultSet rs, int columnIndex) throws IOException {
+        if (decodedResultSet == rs && decodedColumn == columnIndex) {
+            // already decoded while reading the envelope
+            decodedResultSet = null;
+            return wkb2Geometry(buffer);
+        }
+        decodedResultSet = null;
         try {
             byte bytes[] = rs.getBytes(columnIndex);
             if (bytes == null) // ie. its a null column -> return a null geometry!
             return null;
-            return wkb2Geometry(Base64.decode(bytes));
+            return wkb2Geometry(decodeBase64(bytes));
         } catch (SQLException e) {
             throw new DataSourceException("SQL exception occurred while reading the geometry.", e);
         }
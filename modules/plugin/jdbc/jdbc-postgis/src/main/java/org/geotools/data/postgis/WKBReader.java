@@ -45,10 +45,13 @@ import org.geotools.geometry.jts.CompoundCurve;
 import org.geotools.geometry.jts.CompoundRing;
 import org.geotools.geometry.jts.CurvedGeometryFactory;
 import org.geotools.geometry.jts.JTS;
+import org.geotools.geometry.jts.LiteCoordinateSequence;
+import org.geotools.geometry.jts.LiteCoordinateSequenceFactory;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.CoordinateSequence;
 import org.locationtech.jts.geom.CoordinateSequenceFactory;
 import org.locationtech.jts.geom.CoordinateSequences;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryCollection;
 import org.locationtech.jts.geom.GeometryFactory;
@@ -178,6 +181,110 @@ public class WKBReader {
         return g;
     }
 
+    /**
+     * Reads the envelope of a geometry in WKB format, without building the geometry. Only the
+     * linear geometry types are supported, as the envelope of the control points of a curve is not
+     * the envelope of the curve.
+     *
+     * @param is the stream to read from
+     * @param envelope the envelope to be filled
+     * @return the type of the geometry, or null if the geometry is empty or contains curves
+     * @throws IOException if the underlying stream creates an error
+     * @throws ParseException if the WKB is ill-formed
+     */
+    public Class<? extends Geometry> readEnvelope(InStream is, Envelope envelope)
+            throws IOException, ParseException {
+        dis.setInStream(is);
+        envelope.setToNull();
+        int geometryType = scanGeometry(envelope);
+        if (geometryType < 0 || envelope.isNull()) {
+            return null;
+        }
+        switch (geometryType) {
+            case WKBConstants.wkbPoint:
+                return Point.class;
+            case WKBConstants.wkbLineString:
+                return LineString.class;
+            case WKBConstants.wkbPolygon:
+                return Polygon.class;
+            case WKBConstants.wkbMultiPoint:
+                return MultiPoint.class;
+            case WKBConstants.wkbMultiLineString:
+                return MultiLineString.class;
+            case WKBConstants.wkbMultiPolygon:
+                return MultiPolygon.class;
+            default:
+                return GeometryCollection.class;
+        }
+    }
+
+    /**
+     * Expands the envelope with the coordinates of the geometry, returns the geometry type or -1 if
+     * the geometry contains curves
+     */
+    private int scanGeometry(Envelope envelope) throws IOException, ParseException {
+        byte byteOrderWKB = dis.readByte();
+        dis.setOrder(
+                byteOrderWKB == WKBConstants.wkbNDR
+                        ? ByteOrderValues.LITTLE_ENDIAN
+                        : ByteOrderValues.BIG_ENDIAN);
+        int typeInt = dis.readInt();
+        int geometryType = typeInt & 0xff;
+        int dimension = 2;
+        if ((typeInt & 0x80000000) != 0) dimension++;
+        if ((typeInt & 0x40000000) != 0) dimension++;
+        if ((typeInt & 0x20000000) != 0) dis.readInt(); // srid
+
+        switch (geometryType) {
+            case WKBConstants.wkbPoint:
+                scanCoordinates(1, dimension, envelope);
+                break;
+            case WKBConstants.wkbLineString:
+                scanCoordinates(dis.readInt(), dimension, envelope);
+                break;
+            case WKBConstants.wkbPolygon:
+                int numRings = dis.readInt();
+                for (int i = 0; i < numRings; i++) {
+                    scanCoordinates(dis.readInt(), dimension, envelope);
+                }
+                break;
+            case WKBConstants.wkbMultiPoint:
+            case WKBConstants.wkbMultiLineString:
+            case WKBConstants.wkbMultiPolygon:
+            case WKBConstants.wkbGeometryCollection:
+                int numGeom = dis.readInt();
+                for (int i = 0; i < numGeom; i++) {
+                    if (scanGeometry(envelope) < 0) {
+                        return -1;
+                    }
+                }
+                break;
+            case WKBConstants.wkbCircularString:
+            case WKBConstants.wkbCompoundCurve:
+            case WKBConstants.wkbCurvePolygon:
+            case WKBConstants.wkbMultiCurve:
+            case WKBConstants.wkbMultiSurface:
+                return -1;
+            default:
+                throw new ParseException("Unknown WKB type " + geometryType);
+        }
+        return geometryType;
+    }
+
+    private void scanCoordinates(int size, int dimension, Envelope envelope) throws IOException {
+        for (int i = 0; i < size; i++) {
+            double x = dis.readDouble();
+            double y = dis.readDouble();
+            for (int j = 2; j < dimension; j++) {
+                dis.readDouble();
+            }
+            // empty points are encoded with NaN ordinates
+            if (!Double.isNaN(x) && !Double.isNaN(y)) {
+                envelope.expandToInclude(x, y);
+            }
+        }
+    }
+
     protected Geometry readGeometry() throws IOException, ParseException {
         // determine byte order
         byte byteOrderWKB = dis.readByte();
@@ -409,6 +516,17 @@ public class WKBReader {
     }
 
     private CoordinateSequence readCoordinateSequence(int size) throws IOException {
+        if (csFactory instanceof LiteCoordinateSequenceFactory) {
+            // fill the packed ordinates directly, no need to go through setOrdinate
+            double[] coords = new double[size * inputDimension];
+            for (int i = 0, k = 0; i < size; i++) {
+                readCoordinate();
+                for (int j = 0; j < inputDimension; j++) {
+                    coords[k++] = ordValues[j];
+                }
+            }
+            return new LiteCoordinateSequence(coords, inputDimension, inputMeasures);
+        }
         CoordinateSequence seq = JTS.createCS(csFactory, size, inputDimension, inputMeasures);
         int targetDim = seq.getDimension();
         if (targetDim > inputDimension) targetDim = inputDimension;
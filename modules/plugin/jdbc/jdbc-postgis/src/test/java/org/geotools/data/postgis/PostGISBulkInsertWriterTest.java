@@ -0,0 +1,174 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.postgis;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import org.geotools.data.postgis.PostGISBulkInsertWriter.ColumnType;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+/** Checks the rows are encoded in the binary COPY format without a database */
+public class PostGISBulkInsertWriterTest {
+
+    /** Signature, flags and header extension length */
+    static final String HEADER = "5047434f50590aff0d0a00 00000000 00000000";
+
+    static final String TRAILER = "ffff";
+
+    GeometryFactory gf = new GeometryFactory();
+
+    ByteArrayOutputStream sent;
+
+    CopyManager copyManager;
+
+    @Before
+    public void setUp() throws Exception {
+        sent = new ByteArrayOutputStream();
+        CopyIn copy = mock(CopyIn.class);
+        doAnswer(
+                        invocation -> {
+                            byte[] bytes = invocation.getArgument(0);
+                            int offset = invocation.getArgument(1);
+                            int length = invocation.getArgument(2);
+                            sent.write(bytes, offset, length);
+                            return null;
+                        })
+                .when(copy)
+                .writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copy.endCopy()).thenReturn(1L);
+        copyManager = mock(CopyManager.class);
+        when(copyManager.copyIn(anyString())).thenReturn(copy);
+    }
+
+    @Test
+    public void testGeometry() throws Exception {
+        PostGISBulkInsertWriter writer =
+                new PostGISBulkInsertWriter(
+                        copyManager,
+                        "COPY",
+                        new ColumnType[] {
+                            ColumnType.GEOMETRY, ColumnType.GEOMETRY, ColumnType.GEOMETRY
+                        });
+        Point point = gf.createPoint(new Coordinate(1, 2));
+        Point point3D = gf.createPoint(new Coordinate(1, 2, 3));
+        writer.writeGeometry(point, 2, 4326, Point.class);
+        writer.writeGeometry(point, 2, 0, Point.class);
+        writer.writeGeometry(point3D, 3, 4326, Point.class);
+        writer.endRow();
+        assertEquals(1, writer.finish());
+
+        assertSent(
+                HEADER,
+                "0003",
+                // EWKB, the srid flag is set in the type and the srid follows it
+                "00000019 00 20000001 000010e6 3ff0000000000000 4000000000000000",
+                // no srid, plain WKB
+                "00000015 00 00000001 3ff0000000000000 4000000000000000",
+                // the srid flag combines with the 3D one
+                "00000021 00 a0000001 000010e6 3ff0000000000000 4000000000000000"
+                        + " 4008000000000000",
+                TRAILER);
+    }
+
+    @Test
+    public void testDateTime() throws Exception {
+        PostGISBulkInsertWriter writer =
+                new PostGISBulkInsertWriter(
+                        copyManager,
+                        "COPY",
+                        new ColumnType[] {
+                            ColumnType.DATE,
+                            ColumnType.DATE,
+                            ColumnType.TIME,
+                            ColumnType.TIMESTAMP,
+                            ColumnType.TIMESTAMPTZ
+                        });
+        writer.writeValue(Date.valueOf("2000-01-02"), Date.class);
+        writer.writeValue(Date.valueOf("1999-12-31"), Date.class);
+        writer.writeValue(Time.valueOf("01:02:03"), Time.class);
+        writer.writeValue(Timestamp.valueOf("2000-01-01 00:00:01.25"), Timestamp.class);
+        writer.writeValue(
+                Timestamp.from(Instant.parse("1999-12-31T23:59:59.999999Z")), Timestamp.class);
+        writer.endRow();
+        writer.finish();
+
+        assertSent(
+                HEADER,
+                "0005",
+                // days since 2000-01-01
+                "00000004 00000001",
+                "00000004 ffffffff",
+                // microseconds since midnight
+                "00000008 00000000dde878c0",
+                // microseconds since 2000-01-01
+                "00000008 00000000001312d0",
+                "00000008 ffffffffffffffff",
+                TRAILER);
+    }
+
+    @Test
+    public void testNulls() throws Exception {
+        PostGISBulkInsertWriter writer =
+                new PostGISBulkInsertWriter(
+                        copyManager,
+                        "COPY",
+                        new ColumnType[] {ColumnType.INT4, ColumnType.TEXT, ColumnType.GEOMETRY});
+        writer.writeValue(null, Integer.class);
+        writer.writeValue(null, String.class);
+        writer.writeGeometry(null, 2, 4326, Geometry.class);
+        writer.endRow();
+        writer.writeValue(7, Integer.class);
+        writer.writeValue("\u00e9", String.class);
+        writer.writeGeometry(gf.createPoint(), 2, 4326, Geometry.class);
+        writer.endRow();
+        writer.finish();
+
+        assertSent(
+                HEADER,
+                "0003 ffffffff ffffffff ffffffff",
+                // empty geometries are written as nulls
+                "0003 00000004 00000007 00000002 c3a9 ffffffff",
+                TRAILER);
+    }
+
+    private void assertSent(String... hex) {
+        String expected = String.join("", hex).replace(" ", "");
+        StringBuilder actual = new StringBuilder();
+        for (byte b : sent.toByteArray()) {
+            actual.append(String.format("%02x", b & 0xFF));
+        }
+        assertEquals(expected, actual.toString());
+    }
+}
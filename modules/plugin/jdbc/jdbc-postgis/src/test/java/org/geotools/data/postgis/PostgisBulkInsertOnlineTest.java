@@ -0,0 +1,99 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.postgis;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import org.geotools.data.DefaultTransaction;
+import org.geotools.data.Query;
+import org.geotools.data.Transaction;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.feature.DefaultFeatureCollection;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.jdbc.JDBCFeatureStoreOnlineTest;
+import org.geotools.jdbc.JDBCTestSetup;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.identity.FeatureId;
+
+/** Runs the feature store tests with inserts going through COPY ... FROM STDIN */
+public class PostgisBulkInsertOnlineTest extends JDBCFeatureStoreOnlineTest {
+
+    @Override
+    protected JDBCTestSetup createTestSetup() {
+        return new PostGISTestSetup();
+    }
+
+    @Override
+    protected void connect() throws Exception {
+        super.connect();
+        ((PostGISDialect) dataStore.getSQLDialect()).setBulkInsertEnabled(true);
+        dataStore.setBatchInsertSize(100);
+    }
+
+    public void testBulkAddFeatures() throws IOException {
+        SimpleFeatureCollection collection = createFeatures(250);
+        List<FeatureId> fids = featureStore.addFeatures(collection);
+        assertEquals(250, fids.size());
+        assertEquals(253, featureStore.getCount(Query.ALL));
+
+        FilterFactory ff = dataStore.getFilterFactory();
+        FeatureId last = fids.get(fids.size() - 1);
+        SimpleFeatureCollection features =
+                featureStore.getFeatures(ff.id(Collections.singleton(last)));
+        assertEquals(1, features.size());
+        try (SimpleFeatureIterator it = features.features()) {
+            SimpleFeature f = it.next();
+            assertEquals(252, ((Number) f.getAttribute(aname("intProperty"))).intValue());
+            assertEquals("bulk252", f.getAttribute(aname("stringProperty")));
+            assertEquals(
+                    new Coordinate(252, 252), ((Point) f.getDefaultGeometry()).getCoordinate());
+        }
+    }
+
+    public void testBulkAddFeaturesRollback() throws IOException {
+        try (Transaction t = new DefaultTransaction()) {
+            featureStore.setTransaction(t);
+            featureStore.addFeatures(createFeatures(250));
+            assertEquals(253, featureStore.getCount(Query.ALL));
+            t.rollback();
+        } finally {
+            featureStore.setTransaction(Transaction.AUTO_COMMIT);
+        }
+        assertEquals(3, featureStore.getCount(Query.ALL));
+    }
+
+    SimpleFeatureCollection createFeatures(int count) {
+        SimpleFeatureBuilder b = new SimpleFeatureBuilder(featureStore.getSchema());
+        DefaultFeatureCollection collection =
+                new DefaultFeatureCollection(null, featureStore.getSchema());
+        GeometryFactory gf = new GeometryFactory();
+        for (int i = 3; i < count + 3; i++) {
+            b.set(aname("intProperty"), Integer.valueOf(i));
+            b.set(aname("doubleProperty"), Double.valueOf(i + 0.5));
+            b.set(aname("stringProperty"), "bulk" + i);
+            b.set(aname("geometry"), gf.createPoint(new Coordinate(i, i)));
+            collection.add(b.buildFeature(null));
+        }
+        return collection;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.postgis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.geotools.data.Base64;
+import org.geotools.geometry.jts.LiteCoordinateSequence;
+import org.geotools.geometry.jts.LiteCoordinateSequenceFactory;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.io.ByteArrayInStream;
+import org.locationtech.jts.io.WKBWriter;
+import org.locationtech.jts.io.WKTReader;
+
+public class WKBReaderTest {
+
+    @Test
+    public void testReadEnvelope() throws Exception {
+        Envelope envelope = new Envelope();
+        WKBReader reader = new WKBReader();
+
+        Geometry polygon = wkt("POLYGON((0 0, 10 0, 10 5, 0 5, 0 0), (1 1, 2 1, 2 2, 1 1))");
+        assertEquals(Polygon.class, reader.readEnvelope(wkb(polygon, 2), envelope));
+        assertEquals(polygon.getEnvelopeInternal(), envelope);
+
+        Geometry points = wkt("MULTIPOINT((-3 4 1), (7 -2 2))");
+        assertEquals(MultiPoint.class, reader.readEnvelope(wkb(points, 3), envelope));
+        assertEquals(new Envelope(-3, 7, -2, 4), envelope);
+
+        // same reader, after a 3D geometry
+        Geometry line = wkt("LINESTRING(1 1, 2 3)");
+        assertEquals(LineString.class, reader.readEnvelope(wkb(line, 2), envelope));
+        assertEquals(line.getEnvelopeInternal(), envelope);
+    }
+
+    @Test
+    public void testReadEnvelopeEmpty() throws Exception {
+        Envelope envelope = new Envelope();
+        WKBReader reader = new WKBReader();
+        assertNull(reader.readEnvelope(wkb(wkt("LINESTRING EMPTY"), 2), envelope));
+    }
+
+    @Test
+    public void testReadLiteCoordinateSequence() throws Exception {
+        GeometryFactory gf = new GeometryFactory(new LiteCoordinateSequenceFactory());
+        WKBReader reader = new WKBReader(gf);
+        Geometry line = wkt("LINESTRING(1 2 3, 4 5 6)");
+        LineString read = (LineString) reader.read(new WKBWriter(3).write(line));
+        assertTrue(read.getCoordinateSequence() instanceof LiteCoordinateSequence);
+        assertArrayEquals(
+                new double[] {1, 2, 3, 4, 5, 6},
+                ((LiteCoordinateSequence) read.getCoordinateSequence()).getOrdinateArray(3),
+                0d);
+    }
+
+    @Test
+    public void testDecodeBase64() throws Exception {
+        WKBAttributeIO io = new WKBAttributeIO();
+        for (int length = 0; length < 100; length++) {
+            byte[] data = new byte[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) (i * 37);
+            }
+            // the database breaks lines every 76 characters
+            String encoded =
+                    Base64.encodeBytes(data, Base64.DONT_BREAK_LINES).replaceAll("(.{76})", "$1\n");
+            byte[] decoded = io.decodeBase64(encoded.getBytes(StandardCharsets.US_ASCII));
+            assertArrayEquals(data, Arrays.copyOf(decoded, length));
+        }
+    }
+
+    Geometry wkt(String wkt) throws Exception {
+        return new WKTReader().read(wkt);
+    }
+
+    ByteArrayInStream wkb(Geometry g, int dimension) {
+        return new ByteArrayInStream(new WKBWriter(dimension).write(g));
+    }
+}
@@ -28,6 +28,7 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.geotools.data.CloseableIterator;
@@ -40,6 +41,7 @@ import org.geotools.data.Query;
 import org.geotools.data.ReTypeFeatureReader;
 import org.geotools.data.shapefile.dbf.DbaseFileHeader;
 import org.geotools.data.shapefile.dbf.DbaseFileReader;
+import org.geotools.data.shapefile.dbf.IndexedDbaseFileReader;
 import org.geotools.data.shapefile.fid.IndexedFidReader;
 import org.geotools.data.shapefile.files.FileReader;
 import org.geotools.data.shapefile.files.ShpFiles;
@@ -56,6 +58,9 @@ import org.geotools.feature.AttributeTypeBuilder;
 import org.geotools.feature.FeatureTypes;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
 import org.geotools.feature.type.BasicFeatureTypes;
+import org.geotools.feature.visitor.BoundsVisitor;
+import org.geotools.feature.visitor.CountVisitor;
+import org.geotools.feature.visitor.FeatureAttributeVisitor;
 import org.geotools.filter.FilterAttributeExtractor;
 import org.geotools.filter.visitor.ExtractBoundsFilterVisitor;
 import org.geotools.geometry.jts.ReferencedEnvelope;
@@ -186,8 +191,13 @@ class ShapefileFeatureSource extends ContentFeatureSource {
 
     static final Logger LOGGER = Logging.getLogger(ShapefileFeatureSource.class);
 
+    /** Minimum number of records each thread should read during a parallel visit */
+    static final int MIN_VISIT_CHUNK_SIZE = 10000;
+
     ShpFiles shpFiles;
 
+    int minVisitChunkSize = MIN_VISIT_CHUNK_SIZE;
+
     public ShapefileFeatureSource(ContentEntry entry, ShpFiles shpFiles) {
         super(entry, Query.ALL);
         this.shpFiles = shpFiles;
@@ -602,4 +612,141 @@ class ShapefileFeatureSource extends ContentFeatureSource {
     protected boolean handleVisitor(Query query, FeatureVisitor visitor) throws IOException {
         return super.handleVisitor(query, visitor);
     }
+
+    /**
+     * Visits the shapefile in parallel when the visitor results can be merged, splitting the
+     * records in ranges located via the .shx file, each one read by its own {@link
+     * ShapefileSplitFeatureReader}
+     *
+     * @return true if the visit was performed, false if it's not possible to run it in parallel
+     */
+    @Override
+    protected boolean visitInParallel(Query query, FeatureVisitor visitor) throws IOException {
+        // fid filters and rendering hints are better served by the sequential reader
+        Filter filter = query.getFilter();
+        Hints hints = query.getHints();
+        if (filter instanceof Id
+                || filter == Filter.EXCLUDE
+                || (hints != null
+                        && (hints.get(Hints.SCREENMAP) != null
+                                || hints.get(Hints.GEOMETRY_DISTANCE) != null))
+                || !shpFiles.isLocal()) {
+            return false;
+        }
+
+        // read only what the visitor and the filter need
+        Query q = new Query(query);
+        q.setPropertyNames(getVisitorPropertyNames(visitor));
+        return super.visitInParallel(q, visitor);
+    }
+
+    @Override
+    protected List<Callable<FeatureReader<SimpleFeatureType, SimpleFeature>>>
+            getReaderPartitionsInternal(Query query, int partitions) throws IOException {
+        ShapefileSetManager shpManager = getDataStore().shpManager;
+        IndexFile shx = shpManager.openIndexFile();
+        if (shx == null) {
+            return null;
+        }
+        int records;
+        try {
+            records = shx.getRecordCount();
+        } finally {
+            shx.close();
+        }
+        int chunks = Math.min(partitions, records / minVisitChunkSize);
+        if (chunks < 2) {
+            return null;
+        }
+
+        Filter filter = query.getFilter() != null ? query.getFilter() : Filter.INCLUDE;
+        SimpleFeatureType readSchema = getReadSchema(query);
+        GeometryFactory geometryFactory = getGeometryFactory(query);
+        Envelope bbox =
+                (Envelope)
+                        filter.accept(
+                                ExtractBoundsFilterVisitor.BOUNDS_VISITOR,
+                                new ReferencedEnvelope());
+        boolean readDbf = hasDbfAttributes(readSchema);
+
+        List<Callable<FeatureReader<SimpleFeatureType, SimpleFeature>>> result =
+                new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int start = (int) ((long) i * records / chunks);
+            int end = (int) ((long) (i + 1) * records / chunks);
+            result.add(
+                    () -> {
+                        ShapefileFeatureReader reader =
+                                getSplitReader(readSchema, geometryFactory, readDbf, start, end);
+                        if (!Filter.INCLUDE.equals(filter)) {
+                            reader.setFilter(filter);
+                        }
+                        if (bbox != null && !bbox.isNull()) {
+                            reader.setTargetBBox(bbox);
+                        }
+                        return reader;
+                    });
+        }
+        return result;
+    }
+
+    /** Opens a reader on the records between start (included) and end (excluded) */
+    ShapefileFeatureReader getSplitReader(
+            SimpleFeatureType readSchema,
+            GeometryFactory geometryFactory,
+            boolean readDbf,
+            int start,
+            int end)
+            throws IOException {
+        ShapefileSetManager shpManager = getDataStore().shpManager;
+        ShapefileReader shapeReader = null;
+        IndexedDbaseFileReader dbfReader = null;
+        IndexFile shx = null;
+        try {
+            shapeReader = shpManager.openShapeReader(geometryFactory, true);
+            if (readDbf) {
+                dbfReader = (IndexedDbaseFileReader) shpManager.openDbfReader(true);
+            }
+            shx = shpManager.openIndexFile();
+            if (shx == null) {
+                throw new IOException("Could not open the .shx file of " + shpFiles.get(SHP));
+            }
+            return new ShapefileSplitFeatureReader(
+                    readSchema, shapeReader, dbfReader, shx, start, end);
+        } catch (IOException | RuntimeException e) {
+            if (shapeReader != null) {
+                shapeReader.close();
+            }
+            if (dbfReader != null) {
+                dbfReader.close();
+            }
+            if (shx != null) {
+                shx.close();
+            }
+            throw e;
+        }
+    }
+
+    /** Returns the names of the attributes the visitor needs, for the supported visitors */
+    String[] getVisitorPropertyNames(FeatureVisitor visitor) {
+        if (visitor instanceof BoundsVisitor) {
+            return new String[] {getSchema().getGeometryDescriptor().getLocalName()};
+        } else if (visitor instanceof FeatureAttributeVisitor) {
+            FilterAttributeExtractor extractor = new AbsoluteAttributeExtractor(getSchema());
+            for (Expression expression : ((FeatureAttributeVisitor) visitor).getExpressions()) {
+                expression.accept(extractor, null);
+            }
+            return extractor.getAttributeNames();
+        } else if (visitor instanceof CountVisitor) {
+            // count does not need any attribute
+            return new String[0];
+        }
+        return Query.ALL_NAMES;
+    }
+
+    private boolean hasDbfAttributes(SimpleFeatureType readSchema) {
+        List<AttributeDescriptor> attributes = readSchema.getAttributeDescriptors();
+        return attributes.size() > 1
+                || (attributes.size() == 1 && readSchema.getGeometryDescriptor() == null);
+    }
 }
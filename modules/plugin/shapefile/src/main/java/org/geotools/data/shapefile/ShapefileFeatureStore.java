@@ -175,4 +175,9 @@ class ShapefileFeatureStore extends ContentFeatureStore {
     protected boolean handleVisitor(Query query, FeatureVisitor visitor) throws IOException {
         return delegate.handleVisitor(query, visitor);
     }
+
+    @Override
+    protected boolean visitInParallel(Query query, FeatureVisitor visitor) throws IOException {
+        return delegate.visitInParallel(query, visitor);
+    }
 }
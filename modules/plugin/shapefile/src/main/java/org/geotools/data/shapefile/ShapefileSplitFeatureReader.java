@@ -0,0 +1,106 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.shapefile;
+
+import java.io.IOException;
+import org.geotools.data.shapefile.dbf.DbaseFileReader.Row;
+import org.geotools.data.shapefile.dbf.IndexedDbaseFileReader;
+import org.geotools.data.shapefile.shp.IndexFile;
+import org.geotools.data.shapefile.shp.ShapefileReader;
+import org.geotools.data.shapefile.shp.ShapefileReader.Record;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * A shapefile feature reader reading only a range of records, located using the .shx file. Many
+ * split readers can work on the same shapefile at the same time, each one with its own channels
+ * (memory mapped buffers are shared if the store is memory mapped).
+ */
+class ShapefileSplitFeatureReader extends ShapefileFeatureReader {
+
+    IndexFile shx;
+
+    int current;
+
+    int end;
+
+    /**
+     * Create the split reader
+     *
+     * @param schema - the schema that we are going to read.
+     * @param shp - the shape reader, required, must be opened for random access
+     * @param dbf - the dbf file reader. May be null, in this case no attributes will be read from
+     *     the dbf file
+     * @param shx - the index file, will be closed along with this reader
+     * @param start - the first record to read, zero based
+     * @param end - the record after the last one to read
+     */
+    public ShapefileSplitFeatureReader(
+            SimpleFeatureType schema,
+            ShapefileReader shp,
+            IndexedDbaseFileReader dbf,
+            IndexFile shx,
+            int start,
+            int end)
+            throws IOException {
+        super(schema, shp, dbf, null);
+        this.shx = shx;
+        this.current = start;
+        this.end = end;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        while (nextFeature == null && current < end) {
+            // the shx gives the offset of each record, sparse shapefiles are fine too
+            shp.goTo(shx.getOffsetInBytes(current++));
+            Record record = shp.nextRecord();
+
+            Geometry geometry = getGeometry(record);
+            if (geometry == SKIP) {
+                continue;
+            }
+
+            Row row;
+            if (dbf != null) {
+                ((IndexedDbaseFileReader) dbf).goTo(record.number);
+                row = dbf.readRow();
+                if (row.isDeleted()) {
+                    continue;
+                }
+            } else {
+                row = null;
+            }
+
+            nextFeature = buildFeature(record.number, geometry, row, record.envelope());
+        }
+
+        return nextFeature != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (shx != null) {
+                shx.close();
+            }
+            shx = null;
+        }
+    }
+}
@@ -73,6 +73,12 @@ import org.geotools.feature.FeatureTypes;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
 import org.geotools.feature.type.BasicFeatureTypes;
+import org.geotools.feature.visitor.BoundsVisitor;
+import org.geotools.feature.visitor.CountVisitor;
+import org.geotools.feature.visitor.GroupByVisitor;
+import org.geotools.feature.visitor.GroupByVisitorBuilder;
+import org.geotools.feature.visitor.MedianVisitor;
+import org.geotools.feature.visitor.UniqueVisitor;
 import org.geotools.filter.IllegalFilterException;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.referencing.CRS;
@@ -2096,4 +2102,77 @@ public class ShapefileDataStoreTest extends TestCaseSupport {
         // compare byte stream produced in shp file
         assertTrue(FileUtils.contentEquals(tmpFile, expected));
     }
+
+    @Test
+    public void testParallelVisit() throws Exception {
+        File shpFile = copyShapefiles(STATE_POP);
+        ShapefileDataStore ds = new ShapefileDataStore(shpFile.toURI().toURL());
+        try {
+            ShapefileFeatureStore fs = (ShapefileFeatureStore) ds.getFeatureSource();
+            // force the 49 states to be split in 4 chunks
+            ds.setVisitThreads(4);
+            fs.delegate.minVisitChunkSize = 10;
+            Filter filter = ff.greater(ff.property("PERSONS"), ff.literal(1000000));
+            Query query = new Query(fs.getSchema().getTypeName(), filter);
+
+            CountVisitor count = new CountVisitor();
+            assertTrue(fs.delegate.visitInParallel(query, count));
+            BoundsVisitor bounds = new BoundsVisitor();
+            assertTrue(fs.delegate.visitInParallel(query, bounds));
+            UniqueVisitor unique = new UniqueVisitor("SUB_REGION");
+            assertTrue(fs.delegate.visitInParallel(query, unique));
+            GroupByVisitor groupBy =
+                    new GroupByVisitorBuilder()
+                            .withAggregateAttribute("PERSONS", fs.getSchema())
+                            .withAggregateVisitor("Sum")
+                            .withGroupByAttribute("SUB_REGION", fs.getSchema())
+                            .build();
+            assertTrue(fs.delegate.visitInParallel(query, groupBy));
+
+            // compare with a sequential visit
+            ds.setVisitThreads(1);
+            CountVisitor expectedCount = new CountVisitor();
+            fs.getFeatures(query).accepts(expectedCount, null);
+            assertEquals(expectedCount.getCount(), count.getCount());
+            BoundsVisitor expectedBounds = new BoundsVisitor();
+            fs.getFeatures(query).accepts(expectedBounds, null);
+            assertEquals(expectedBounds.getBounds(), bounds.getBounds());
+            UniqueVisitor expectedUnique = new UniqueVisitor("SUB_REGION");
+            fs.getFeatures(query).accepts(expectedUnique, null);
+            assertEquals(expectedUnique.getUnique(), unique.getUnique());
+            GroupByVisitor expectedGroupBy =
+                    new GroupByVisitorBuilder()
+                            .withAggregateAttribute("PERSONS", fs.getSchema())
+                            .withAggregateVisitor("Sum")
+                            .withGroupByAttribute("SUB_REGION", fs.getSchema())
+                            .build();
+            fs.getFeatures(query).accepts(expectedGroupBy, null);
+            assertEquals(expectedGroupBy.getResult().toMap(), groupBy.getResult().toMap());
+        } finally {
+            ds.dispose();
+        }
+    }
+
+    @Test
+    public void testParallelVisitNotUsed() throws Exception {
+        File shpFile = copyShapefiles(STATE_POP);
+        ShapefileDataStore ds = new ShapefileDataStore(shpFile.toURI().toURL());
+        try {
+            ShapefileFeatureStore fs = (ShapefileFeatureStore) ds.getFeatureSource();
+            ds.setVisitThreads(4);
+            // too few records with the default chunk size
+            assertFalse(fs.delegate.visitInParallel(Query.ALL, new CountVisitor()));
+            fs.delegate.minVisitChunkSize = 10;
+            // paging depends on the visit order
+            Query query = new Query(fs.getSchema().getTypeName());
+            query.setMaxFeatures(10);
+            assertFalse(fs.delegate.visitInParallel(query, new CountVisitor()));
+            // unsupported visitor
+            assertFalse(
+                    fs.delegate.visitInParallel(
+                            Query.ALL, new MedianVisitor(ff.property("PERSONS"))));
+        } finally {
+            ds.dispose();
+        }
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.geotools.data.DataUtilities;
+import org.geotools.feature.SchemaException;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * Generates the synthetic, reproducible data sets shared by the benchmark suites. The same seed is
+ * used on every run so that results are comparable across releases.
+ */
+class BenchmarkData {
+
+    /** The area covered by the generated features */
+    static final ReferencedEnvelope BOUNDS =
+            new ReferencedEnvelope(-4, 10, 45, 58, DefaultGeographicCRS.WGS84);
+
+    static final String[] CATEGORIES = {"residential", "commercial", "industrial", "park", "water"};
+
+    static final String TYPE_NAME = "bench";
+
+    static final long SEED = 42;
+
+    static final String TYPE_SPEC =
+            "the_geom:Polygon:srid=4326,name:String,pop:Integer,area:Double,category:String";
+
+    private BenchmarkData() {}
+
+    /** Builds the feature type used by all suites, the geometry is named after shapefile needs */
+    static SimpleFeatureType createType() {
+        try {
+            return DataUtilities.createType(TYPE_NAME, TYPE_SPEC);
+        } catch (SchemaException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Builds {@code count} small square polygons randomly spread over {@link #BOUNDS} */
+    static List<SimpleFeature> createFeatures(SimpleFeatureType type, int count) {
+        Random random = new Random(SEED);
+        GeometryFactory gf = JTSFactoryFinder.getGeometryFactory();
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(type);
+        List<SimpleFeature> features = new ArrayList<>(count);
+        double size = Math.sqrt(BOUNDS.getArea() / count) / 2;
+        for (int i = 0; i < count; i++) {
+            double x = BOUNDS.getMinX() + random.nextDouble() * (BOUNDS.getWidth() - size);
+            double y = BOUNDS.getMinY() + random.nextDouble() * (BOUNDS.getHeight() - size);
+            Polygon polygon =
+                    gf.createPolygon(
+                            new Coordinate[] {
+                                new Coordinate(x, y),
+                                new Coordinate(x, y + size),
+                                new Coordinate(x + size, y + size),
+                                new Coordinate(x + size, y),
+                                new Coordinate(x, y)
+                            });
+            fb.add(polygon);
+            fb.add("feature " + i);
+            fb.add(random.nextInt(100000));
+            fb.add(polygon.getArea());
+            fb.add(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            features.add(fb.buildFeature(TYPE_NAME + "." + i));
+        }
+        return features;
+    }
+
+    /** Returns an array of {@code count} interleaved lon/lat ordinates within {@link #BOUNDS} */
+    static double[] createOrdinates(int count) {
+        Random random = new Random(SEED);
+        double[] ordinates = new double[count * 2];
+        for (int i = 0; i < ordinates.length; i += 2) {
+            ordinates[i] = BOUNDS.getMinX() + random.nextDouble() * BOUNDS.getWidth();
+            ordinates[i + 1] = BOUNDS.getMinY() + random.nextDouble() * BOUNDS.getHeight();
+        }
+        return ordinates;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.benchmark;
+
+import java.util.Arrays;
+import org.geotools.filter.FilterFactoryImpl;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+/** The filters exercised by both the in memory evaluation and the SQL encoding suites */
+enum BenchmarkFilters {
+    EQUALITY {
+        @Override
+        Filter build(FilterFactory2 ff) {
+            return ff.equals(ff.property("category"), ff.literal("park"));
+        }
+    },
+    RANGE {
+        @Override
+        Filter build(FilterFactory2 ff) {
+            return ff.between(ff.property("pop"), ff.literal(1000), ff.literal(20000));
+        }
+    },
+    LIKE {
+        @Override
+        Filter build(FilterFactory2 ff) {
+            return ff.like(ff.property("name"), "feature 1*");
+        }
+    },
+    BBOX {
+        @Override
+        Filter build(FilterFactory2 ff) {
+            return ff.bbox(ff.property("the_geom"), 0, 50, 5, 55, "EPSG:4326");
+        }
+    },
+    COMPOUND {
+        @Override
+        Filter build(FilterFactory2 ff) {
+            return ff.and(
+                    Arrays.asList(
+                            BBOX.build(ff),
+                            ff.or(
+                                    EQUALITY.build(ff),
+                                    ff.greater(ff.property("area"), ff.literal(0.01))),
+                            ff.not(RANGE.build(ff))));
+        }
+    };
+
+    /** Uses the plain {@link FilterFactoryImpl}, as most of the library does */
+    static final FilterFactory2 FF = new FilterFactoryImpl();
+
+    abstract Filter build(FilterFactory2 ff);
+
+    Filter build() {
+        return build(FF);
+    }
+}
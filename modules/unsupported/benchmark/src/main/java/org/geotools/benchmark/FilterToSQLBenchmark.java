@@ -0,0 +1,86 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.geotools.data.jdbc.FilterToSQL;
+import org.geotools.data.postgis.PostGISDialect;
+import org.geotools.data.postgis.PostGISPSDialect;
+import org.geotools.jdbc.JDBCDataStore;
+import org.geotools.jdbc.PreparedFilterToSQL;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encodes filters to SQL with the PostGIS {@link FilterToSQL} and {@link PreparedFilterToSQL}
+ * encoders. No database connection is needed, the dialects are only used for encoding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterToSQLBenchmark {
+
+    @Param({"EQUALITY", "RANGE", "LIKE", "BBOX", "COMPOUND"})
+    BenchmarkFilters filterType;
+
+    SimpleFeatureType featureType;
+
+    Filter filter;
+
+    PostGISDialect dialect;
+
+    PostGISPSDialect preparedDialect;
+
+    @Setup
+    public void setup() {
+        featureType = BenchmarkData.createType();
+        featureType.getGeometryDescriptor().getUserData().put(JDBCDataStore.JDBC_NATIVE_SRID, 4326);
+        filter = filterType.build();
+
+        JDBCDataStore store = new JDBCDataStore();
+        dialect = new PostGISDialect(store);
+        preparedDialect = new PostGISPSDialect(store, dialect);
+    }
+
+    @Benchmark
+    public String encode() throws Exception {
+        FilterToSQL encoder = dialect.createFilterToSQL();
+        encoder.setFeatureType(featureType);
+        return encoder.encodeToString(filter);
+    }
+
+    @Benchmark
+    public String encodePrepared() throws Exception {
+        PreparedFilterToSQL encoder = preparedDialect.createPreparedFilterToSQL();
+        encoder.setFeatureType(featureType);
+        return encoder.encodeToString(filter);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.geotools.referencing.ReferencingFactoryFinder;
+import org.geotools.referencing.operation.projection.MapProjection;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.MathTransformFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transforms packed coordinate arrays through a bare {@link MapProjection}, as built by the {@link
+ * org.geotools.referencing.operation.DefaultMathTransformFactory}, without any surrounding affine
+ * or datum shift step.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapProjectionBenchmark {
+
+    @Param({"Mercator_1SP", "Transverse_Mercator", "Lambert_Conformal_Conic_1SP"})
+    String projectionName;
+
+    @Param({"1000", "100000"})
+    int points;
+
+    double[] source;
+
+    double[] destination;
+
+    MathTransform projection;
+
+    @Setup
+    public void setup() throws Exception {
+        source = BenchmarkData.createOrdinates(points);
+        destination = new double[source.length];
+
+        MathTransformFactory factory = ReferencingFactoryFinder.getMathTransformFactory(null);
+        ParameterValueGroup parameters = factory.getDefaultParameters(projectionName);
+        parameters.parameter("semi_major").setValue(6378137.0);
+        parameters.parameter("semi_minor").setValue(6356752.314245179);
+        parameters.parameter("central_meridian").setValue(3.0);
+        double latitudeOfOrigin = "Mercator_1SP".equals(projectionName) ? 0 : 51.5;
+        parameters.parameter("latitude_of_origin").setValue(latitudeOfOrigin);
+        projection = factory.createParameterizedTransform(parameters);
+    }
+
+    @Benchmark
+    public double[] transform() throws Exception {
+        projection.transform(source, 0, destination, 0, points);
+        return destination;
+    }
+}
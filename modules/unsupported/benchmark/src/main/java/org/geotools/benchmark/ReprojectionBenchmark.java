@@ -0,0 +1,74 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.geotools.referencing.CRS;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transforms packed coordinate arrays through the full transform chains returned by {@link
+ * CRS#findMathTransform}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReprojectionBenchmark {
+
+    /** Web mercator, UTM 32N and British National Grid (the latter includes a datum shift) */
+    @Param({"EPSG:3857", "EPSG:32632", "EPSG:27700"})
+    String target;
+
+    @Param({"1000", "100000"})
+    int points;
+
+    double[] source;
+
+    double[] destination;
+
+    MathTransform chain;
+
+    @Setup
+    public void setup() throws Exception {
+        source = BenchmarkData.createOrdinates(points);
+        destination = new double[source.length];
+
+        CoordinateReferenceSystem wgs84 = CRS.decode("EPSG:4326", true);
+        chain = CRS.findMathTransform(wgs84, CRS.decode(target, true), true);
+    }
+
+    @Benchmark
+    public double[] transformChain() throws Exception {
+        chain.transform(source, 0, destination, 0, points);
+        return destination;
+    }
+}
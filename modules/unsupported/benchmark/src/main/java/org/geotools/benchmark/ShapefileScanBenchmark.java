@@ -0,0 +1,145 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.benchmark;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.geotools.data.DefaultTransaction;
+import org.geotools.data.Transaction;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.data.shapefile.ShapefileDataStore;
+import org.geotools.data.shapefile.dbf.DbaseFileReader;
+import org.geotools.data.shapefile.files.ShpFiles;
+import org.geotools.data.shapefile.shp.ShapefileReader;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.simple.SimpleFeatureStore;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full scans of a generated shapefile, using the low level {@link ShapefileReader} and {@link
+ * DbaseFileReader} as well as the {@link ShapefileDataStore} feature reader on top of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShapefileScanBenchmark {
+
+    @Param({"10000", "100000"})
+    int features;
+
+    @Param({"true", "false"})
+    boolean memoryMapped;
+
+    File directory;
+
+    ShpFiles shpFiles;
+
+    ShapefileDataStore store;
+
+    GeometryFactory geometryFactory = new GeometryFactory();
+
+    @Setup
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("gt-benchmark").toFile();
+        File file = new File(directory, BenchmarkData.TYPE_NAME + ".shp");
+
+        SimpleFeatureType type = BenchmarkData.createType();
+        store = new ShapefileDataStore(file.toURI().toURL());
+        store.createSchema(type);
+        try (Transaction t = new DefaultTransaction()) {
+            SimpleFeatureStore fs = (SimpleFeatureStore) store.getFeatureSource();
+            fs.setTransaction(t);
+            fs.addFeatures(
+                    new ListFeatureCollection(type, BenchmarkData.createFeatures(type, features)));
+            t.commit();
+        }
+        store.setMemoryMapped(memoryMapped);
+        shpFiles = new ShpFiles(file);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        store.dispose();
+        shpFiles.dispose();
+        FileUtils.deleteQuietly(directory);
+    }
+
+    @Benchmark
+    public int scanGeometries() throws Exception {
+        int count = 0;
+        ShapefileReader reader =
+                new ShapefileReader(shpFiles, false, memoryMapped, geometryFactory);
+        try {
+            while (reader.hasNext()) {
+                if (reader.nextRecord().shape() != null) {
+                    count++;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int scanAttributes() throws Exception {
+        int count = 0;
+        DbaseFileReader reader =
+                new DbaseFileReader(shpFiles, memoryMapped, Charset.forName("ISO-8859-1"));
+        try {
+            Object[] entry = new Object[reader.getHeader().getNumFields()];
+            while (reader.hasNext()) {
+                reader.readEntry(entry);
+                count++;
+            }
+        } finally {
+            reader.close();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int scanFeatures() throws Exception {
+        int count = 0;
+        try (SimpleFeatureIterator fi = store.getFeatureSource().getFeatures().features()) {
+            while (fi.hasNext()) {
+                fi.next();
+                count++;
+            }
+        }
+        return count;
+    }
+}
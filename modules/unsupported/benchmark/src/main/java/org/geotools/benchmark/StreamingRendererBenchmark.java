@@ -0,0 +1,101 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.map.FeatureLayer;
+import org.geotools.map.MapContent;
+import org.geotools.renderer.lite.StreamingRenderer;
+import org.geotools.styling.SLD;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Paints an in memory polygon layer with {@link StreamingRenderer#paint} */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingRendererBenchmark {
+
+    static final int SIZE = 768;
+
+    @Param({"1000", "10000"})
+    int features;
+
+    @Param({"true", "false"})
+    boolean antialiasing;
+
+    MapContent content;
+
+    StreamingRenderer renderer;
+
+    BufferedImage image;
+
+    @Setup
+    public void setup() {
+        SimpleFeatureType type = BenchmarkData.createType();
+        ListFeatureCollection collection =
+                new ListFeatureCollection(type, BenchmarkData.createFeatures(type, features));
+        content = new MapContent();
+        content.addLayer(
+                new FeatureLayer(collection, SLD.createPolygonStyle(Color.BLUE, Color.CYAN, 0.5f)));
+
+        renderer = new StreamingRenderer();
+        renderer.setMapContent(content);
+        if (antialiasing) {
+            renderer.setJava2DHints(
+                    new RenderingHints(
+                            RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON));
+        }
+        image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    @TearDown
+    public void tearDown() {
+        content.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        Graphics2D graphics = image.createGraphics();
+        try {
+            renderer.paint(graphics, new Rectangle(SIZE, SIZE), BenchmarkData.BOUNDS);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg.snapshot;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.measure.Unit;
+import org.geotools.metadata.i18n.Vocabulary;
+import org.geotools.metadata.i18n.VocabularyKeys;
+import org.geotools.metadata.iso.citation.CitationImpl;
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.referencing.factory.AbstractAuthorityFactory;
+import org.geotools.referencing.factory.DirectAuthorityFactory;
+import org.geotools.referencing.factory.IdentifiedObjectSet;
+import org.geotools.util.SimpleInternationalString;
+import org.geotools.util.TableWriter;
+import org.geotools.util.Version;
+import org.geotools.util.factory.Hints;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.parameter.ParameterDescriptor;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.IdentifiedObject;
+import org.opengis.referencing.NoSuchAuthorityCodeException;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.cs.CSAuthorityFactory;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+import org.opengis.referencing.datum.Datum;
+import org.opengis.referencing.datum.DatumAuthorityFactory;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.datum.PrimeMeridian;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.referencing.operation.CoordinateOperationAuthorityFactory;
+import org.opengis.referencing.operation.OperationMethod;
+import org.opengis.util.InternationalString;
+
+/**
+ * An EPSG authority factory reading objects from an {@linkplain EpsgSnapshot EPSG snapshot}
+ * instead of querying a database. Objects are deserialized on each request, this factory should
+ * be wrapped in a buffered factory like {@link SnapshotEpsgFactory}.
+ *
+ * <p>This factory is thread safe and does not need synchronization: the snapshot is read only.
+ *
+ * @since 22
+ */
+final class DirectSnapshotFactory extends DirectAuthorityFactory
+        implements CRSAuthorityFactory,
+                CSAuthorityFactory,
+                DatumAuthorityFactory,
+                CoordinateOperationAuthorityFactory {
+    /** The snapshot content. */
+    private final EpsgSnapshot snapshot;
+
+    /** The location of the snapshot. */
+    private final URL url;
+
+    /** The authority, including the EPSG database version. */
+    private final Citation authority;
+
+    /**
+     * The buffered authority factory, or {@code this} if none. Set by {@link SnapshotEpsgFactory}
+     * so that dependencies between objects go through its cache.
+     */
+    AbstractAuthorityFactory buffered = this;
+
+    /**
+     * Opens the snapshot at the given URL.
+     *
+     * @param userHints The hints, or {@code null} if none.
+     * @param url The snapshot location.
+     * @throws IOException if the snapshot can not be read.
+     */
+    DirectSnapshotFactory(final Hints userHints, final URL url) throws IOException {
+        super(userHints, SnapshotEpsgFactory.PRIORITY);
+        this.url = url;
+        this.snapshot = EpsgSnapshot.open(url);
+        // The following hints have no effect on this class behaviour,
+        // but tell to the user what this factory do about axis order.
+        hints.put(Hints.FORCE_LONGITUDE_FIRST_AXIS_ORDER, Boolean.FALSE);
+        hints.put(Hints.FORCE_STANDARD_AXIS_DIRECTIONS, Boolean.FALSE);
+        hints.put(Hints.FORCE_STANDARD_AXIS_UNITS, Boolean.FALSE);
+        hints.put(Hints.VERSION, new Version(snapshot.version));
+
+        final CitationImpl c = new CitationImpl(Citations.EPSG);
+        c.getAlternateTitles()
+                .add(
+                        Vocabulary.formatInternational(
+                                VocabularyKeys.DATA_BASE_$3,
+                                "EPSG",
+                                snapshot.version,
+                                snapshot.engine));
+        c.setEdition(new SimpleInternationalString(snapshot.version));
+        if (snapshot.date >= 0) {
+            c.setEditionDate(new Date(snapshot.date));
+        }
+        authority = (Citation) c.unmodifiable();
+    }
+
+    /**
+     * Returns the authority for this EPSG database. This authority contains the database version in
+     * the {@linkplain Citation#getEdition edition} attribute, together with the {@linkplain
+     * Citation#getEditionDate edition date}.
+     */
+    public Citation getAuthority() {
+        return authority;
+    }
+
+    /** Returns a description of the snapshot. */
+    @Override
+    public String getBackingStoreDescription() throws FactoryException {
+        final TableWriter table = new TableWriter(null, " ");
+        final Vocabulary resources = Vocabulary.getResources(null);
+        table.write(resources.getString(VocabularyKeys.VERSION_OF_$1, "EPSG"));
+        table.write(':');
+        table.nextColumn();
+        table.write(snapshot.version);
+        table.nextLine();
+        table.write(resources.getLabel(VocabularyKeys.DATABASE_ENGINE));
+        table.nextColumn();
+        table.write(snapshot.engine);
+        table.write(" (snapshot)");
+        table.nextLine();
+        table.write(resources.getLabel(VocabularyKeys.DATABASE_URL));
+        table.nextColumn();
+        table.write(url.toExternalForm());
+        table.nextLine();
+        return table.toString();
+    }
+
+    /**
+     * Returns the set of authority codes of the given type. The type may be one of the tables in
+     * the EPSG database (e.g. {@link CoordinateReferenceSystem}), a more generic type (all tables
+     * it is assignable from are returned) or a more specific one (e.g. {@link
+     * org.opengis.referencing.crs.ProjectedCRS}).
+     */
+    public Set<String> getAuthorityCodes(final Class<? extends IdentifiedObject> type)
+            throws FactoryException {
+        return snapshot.getCodes(type);
+    }
+
+    /**
+     * Gets a description of the object corresponding to a code.
+     *
+     * @param code Value allocated by authority.
+     * @return A description of the object.
+     * @throws NoSuchAuthorityCodeException if the specified {@code code} was not found.
+     */
+    public InternationalString getDescriptionText(final String code) throws FactoryException {
+        ensureNonNull("code", code);
+        final String key = trimAuthority(code);
+        for (int i = 0; i < EpsgSnapshot.TYPES.length; i++) {
+            final EpsgSnapshot.Entry entry = snapshot.find(i, key);
+            if (entry != null) {
+                return new SimpleInternationalString(entry.name);
+            }
+        }
+        throw noSuchAuthorityCode(IdentifiedObject.class, code);
+    }
+
+    /**
+     * Returns an arbitrary object from a code. The tables are searched in the same order as {@code
+     * DirectEpsgFactory}, and the creation is delegated to the buffered factory.
+     */
+    @Override
+    public IdentifiedObject createObject(final String code) throws FactoryException {
+        ensureNonNull("code", code);
+        final String key = trimAuthority(code);
+        for (int i = 0; i < EpsgSnapshot.TYPES.length; i++) {
+            final EpsgSnapshot.Entry entry = snapshot.find(i, key);
+            if (entry != null) {
+                switch (i) {
+                    case 0:
+                        return buffered.createCoordinateReferenceSystem(code);
+                    case 1:
+                        return buffered.createCoordinateSystem(code);
+                    case 2:
+                        return buffered.createCoordinateSystemAxis(code);
+                    case 3:
+                        return buffered.createDatum(code);
+                    case 4:
+                        return buffered.createEllipsoid(code);
+                    case 5:
+                        return buffered.createPrimeMeridian(code);
+                    case 6:
+                        return buffered.createCoordinateOperation(code);
+                    case 7:
+                        return buffered.createOperationMethod(code);
+                    case 8:
+                        return buffered.createParameterDescriptor(code);
+                    default:
+                        break; // Units are not identified objects.
+                }
+            }
+        }
+        throw noSuchAuthorityCode(IdentifiedObject.class, code);
+    }
+
+    /**
+     * Reads the object for the given code from the table at the given index in {@link
+     * EpsgSnapshot#TYPES}.
+     */
+    private Object read(final int table, final String code) throws FactoryException {
+        ensureNonNull("code", code);
+        final EpsgSnapshot.Entry entry = snapshot.find(table, trimAuthority(code));
+        if (entry == null) {
+            throw noSuchAuthorityCode(EpsgSnapshot.TYPES[table], code);
+        }
+        return snapshot.read(entry);
+    }
+
+    @Override
+    public CoordinateReferenceSystem createCoordinateReferenceSystem(final String code)
+            throws FactoryException {
+        return (CoordinateReferenceSystem) read(0, code);
+    }
+
+    @Override
+    public CoordinateSystem createCoordinateSystem(final String code) throws FactoryException {
+        return (CoordinateSystem) read(1, code);
+    }
+
+    @Override
+    public CoordinateSystemAxis createCoordinateSystemAxis(final String code)
+            throws FactoryException {
+        return (CoordinateSystemAxis) read(2, code);
+    }
+
+    @Override
+    public Datum createDatum(final String code) throws FactoryException {
+        return (Datum) read(3, code);
+    }
+
+    @Override
+    public Ellipsoid createEllipsoid(final String code) throws FactoryException {
+        return (Ellipsoid) read(4, code);
+    }
+
+    @Override
+    public PrimeMeridian createPrimeMeridian(final String code) throws FactoryException {
+        return (PrimeMeridian) read(5, code);
+    }
+
+    @Override
+    public CoordinateOperation createCoordinateOperation(final String code)
+            throws FactoryException {
+        return (CoordinateOperation) read(6, code);
+    }
+
+    @Override
+    public OperationMethod createOperationMethod(final String code) throws FactoryException {
+        return (OperationMethod) read(7, code);
+    }
+
+    @Override
+    public ParameterDescriptor createParameterDescriptor(final String code)
+            throws FactoryException {
+        return (ParameterDescriptor) read(8, code);
+    }
+
+    @Override
+    public Unit<?> createUnit(final String code) throws FactoryException {
+        return (Unit<?>) read(9, code);
+    }
+
+    /**
+     * Creates operations from coordinate reference system codes. The operations are returned in
+     * the order computed by {@code DirectEpsgFactory} when the snapshot was written: defining
+     * conversions first, then transformations by decreasing accuracy and supersession.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<CoordinateOperation> createFromCoordinateReferenceSystemCodes(
+            final String sourceCode, final String targetCode) throws FactoryException {
+        ensureNonNull("sourceCode", sourceCode);
+        ensureNonNull("targetCode", targetCode);
+        final EpsgSnapshot.Operation[] operations =
+                snapshot.getOperations(toPrimaryKeyCRS(sourceCode), toPrimaryKeyCRS(targetCode));
+        if (operations == null) {
+            return Collections.emptySet();
+        }
+        final OperationSet set = new OperationSet(buffered);
+        for (final EpsgSnapshot.Operation operation : operations) {
+            set.addAuthorityCode(operation.code, operation.projectedCRS);
+        }
+        // Report early any problem, like DirectEpsgFactory does.
+        set.resolve(1);
+        return set;
+    }
+
+    /**
+     * Returns the code of the given CRS code or name. Numeric codes not in the snapshot are
+     * returned unchanged, like {@code DirectEpsgFactory} does.
+     */
+    private String toPrimaryKeyCRS(final String code) throws FactoryException {
+        final String key = trimAuthority(code);
+        final EpsgSnapshot.Entry entry = snapshot.find(0, key);
+        if (entry != null) {
+            return entry.code;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (!Character.isDigit(key.charAt(i))) {
+                throw noSuchAuthorityCode(CoordinateReferenceSystem.class, code);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * A lazy set of coordinate operations. Projection conversions are obtained from their
+     * projected CRS, like the {@code CoordinateOperationSet} of {@code DirectEpsgFactory}.
+     */
+    private static final class OperationSet extends IdentifiedObjectSet {
+        private static final long serialVersionUID = 2934766430573632358L;
+
+        /** The projected CRS codes for the conversion codes, or {@code null} if none. */
+        private Map<String, String> projections;
+
+        OperationSet(final AbstractAuthorityFactory factory) {
+            super(factory);
+        }
+
+        /** Adds the given operation code, and the code of its projected CRS if any. */
+        boolean addAuthorityCode(final String code, final String crs) {
+            if (crs != null) {
+                if (projections == null) {
+                    projections = new HashMap<>();
+                }
+                projections.put(code, crs);
+            }
+            return super.addAuthorityCode(code);
+        }
+
+        @Override
+        protected IdentifiedObject createObject(final String code) throws FactoryException {
+            if (projections != null) {
+                final String crs = projections.get(code);
+                if (crs != null) {
+                    return ((CRSAuthorityFactory) factory)
+                            .createProjectedCRS(crs)
+                            .getConversionFromBase();
+                }
+            }
+            return ((CoordinateOperationAuthorityFactory) factory).createCoordinateOperation(code);
+        }
+    }
+}
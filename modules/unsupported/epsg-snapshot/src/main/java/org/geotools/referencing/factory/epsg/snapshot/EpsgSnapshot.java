@@ -0,0 +1,399 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg.snapshot;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.InflaterInputStream;
+import javax.measure.Unit;
+import org.geotools.util.URLs;
+import org.opengis.parameter.ParameterDescriptor;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+import org.opengis.referencing.datum.Datum;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.datum.PrimeMeridian;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.referencing.operation.OperationMethod;
+
+/**
+ * Read-only access to an EPSG snapshot file, as written by {@link EpsgSnapshotWriter}. The file
+ * layout is:
+ *
+ * <ul>
+ *   <li>A header with the {@link #MAGIC} number, the format {@link #VERSION}, the EPSG database
+ *       version and date, and the name of the database engine the snapshot was taken from.
+ *   <li>The names of the classes of the stored objects.
+ *   <li>For each of the {@link #TYPES}, the index of the stored codes: code, name, class, and
+ *       position of the object in the data section.
+ *   <li>The coordinate operations available for each pair of source and target CRS codes.
+ *   <li>The data section, where each object is stored in Java serialization form, compressed.
+ * </ul>
+ *
+ * The index is loaded in memory when the snapshot is opened, objects are deserialized only when
+ * requested. A snapshot in a plain file is memory mapped, otherwise it is read in memory.
+ *
+ * <p>Instances of this class are thread safe.
+ *
+ * @since 22
+ */
+final class EpsgSnapshot {
+    /** The magic number at the start of a snapshot file, {@code "EPSG"} in ASCII. */
+    static final int MAGIC = 0x45505347;
+
+    /** The version of the file format. */
+    static final int VERSION = 1;
+
+    /** The name of the snapshot resource, next to this class. */
+    static final String FILENAME = "epsg.snapshot";
+
+    /** The class index of a code whose object could not be created. */
+    static final short FAILURE = -1;
+
+    /**
+     * The types of objects stored in the snapshot, in the order {@code DirectEpsgFactory} searches
+     * its tables.
+     */
+    static final Class<?>[] TYPES = {
+        CoordinateReferenceSystem.class,
+        CoordinateSystem.class,
+        CoordinateSystemAxis.class,
+        Datum.class,
+        Ellipsoid.class,
+        PrimeMeridian.class,
+        CoordinateOperation.class,
+        OperationMethod.class,
+        ParameterDescriptor.class,
+        Unit.class
+    };
+
+    /** Separator between the source and target codes in {@link #operations} keys. */
+    private static final char PAIR_SEPARATOR = '\u21E8';
+
+    /** A code stored in the snapshot. */
+    static final class Entry {
+        /** The EPSG code. */
+        final String code;
+
+        /** The object name. */
+        final String name;
+
+        /** Index of the object class in {@link #classNames}, or {@link #FAILURE}. */
+        final short type;
+
+        /** Position of the serialized object (or failure message) in the data section. */
+        final int offset;
+
+        /** Length in bytes of the serialized object (or failure message). */
+        final int length;
+
+        Entry(String code, String name, short type, int offset, int length) {
+            this.code = code;
+            this.name = name;
+            this.type = type;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A coordinate operation between a pair of CRS. If {@link #projectedCRS} is not null, the
+     * operation is the conversion from base of that CRS.
+     */
+    static final class Operation {
+        final String code;
+
+        final String projectedCRS;
+
+        Operation(String code, String projectedCRS) {
+            this.code = code;
+            this.projectedCRS = projectedCRS;
+        }
+    }
+
+    /** The whole snapshot content. */
+    private final ByteBuffer buffer;
+
+    /** The position of the data section in {@link #buffer}. */
+    private final int dataStart;
+
+    /** The EPSG database version. */
+    final String version;
+
+    /** The EPSG database version date, in milliseconds since epoch, or -1 if unknown. */
+    final long date;
+
+    /** The name of the database engine the snapshot has been taken from. */
+    final String engine;
+
+    /** The names of the stored object classes. */
+    private final String[] classNames;
+
+    /** The stored object classes, loaded when first needed. */
+    private final Class<?>[] classes;
+
+    /** The entries by code, for each of the {@link #TYPES}. */
+    private final Map<String, Entry>[] codes;
+
+    /** The codes by name for each of the {@link #TYPES}, or an empty string if not unique. */
+    private final Map<String, String>[] names;
+
+    /** The coordinate operations by pair of source and target CRS codes. */
+    private final Map<String, Operation[]> operations;
+
+    /** Reads the index of the given snapshot. */
+    @SuppressWarnings("unchecked")
+    private EpsgSnapshot(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        final DataInputStream in = new DataInputStream(new BufferInputStream(buffer.duplicate()));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an EPSG snapshot");
+        }
+        final int formatVersion = in.readInt();
+        if (formatVersion != VERSION) {
+            throw new IOException("Unsupported EPSG snapshot version: " + formatVersion);
+        }
+        version = in.readUTF();
+        date = in.readLong();
+        engine = in.readUTF();
+        classNames = new String[in.readInt()];
+        for (int i = 0; i < classNames.length; i++) {
+            classNames[i] = in.readUTF();
+        }
+        classes = new Class<?>[classNames.length];
+        codes = new Map[TYPES.length];
+        names = new Map[TYPES.length];
+        for (int t = 0; t < TYPES.length; t++) {
+            final int count = in.readInt();
+            final Map<String, Entry> byCode = new LinkedHashMap<>(count * 2);
+            final Map<String, String> byName = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                final Entry entry =
+                        new Entry(
+                                in.readUTF(),
+                                in.readUTF(),
+                                in.readShort(),
+                                in.readInt(),
+                                in.readInt());
+                byCode.put(entry.code, entry);
+                if (byName.putIfAbsent(entry.name, entry.code) != null) {
+                    byName.put(entry.name, "");
+                }
+            }
+            codes[t] = byCode;
+            names[t] = byName;
+        }
+        final int pairCount = in.readInt();
+        operations = new HashMap<>(pairCount * 2);
+        for (int i = 0; i < pairCount; i++) {
+            final String key = in.readUTF() + PAIR_SEPARATOR + in.readUTF();
+            final Operation[] ops = new Operation[in.readShort()];
+            for (int j = 0; j < ops.length; j++) {
+                final String code = in.readUTF();
+                final String crs = in.readUTF();
+                ops[j] = new Operation(code, crs.isEmpty() ? null : crs);
+            }
+            operations.put(key, ops);
+        }
+        dataStart = in.readInt();
+    }
+
+    /**
+     * Opens the snapshot at the given URL. Files are memory mapped, other resources (e.g. inside a
+     * JAR) are read in memory.
+     */
+    static EpsgSnapshot open(final URL url) throws IOException {
+        final File file = URLs.urlToFile(url);
+        if (file != null && file.isFile()) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                return new EpsgSnapshot(
+                        channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            byte[] bytes = new byte[1 << 20];
+            int length = 0;
+            int n;
+            while ((n = in.read(bytes, length, bytes.length - length)) >= 0) {
+                length += n;
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, length * 2);
+                }
+            }
+            return new EpsgSnapshot(ByteBuffer.wrap(bytes, 0, length).slice());
+        }
+    }
+
+    /**
+     * Returns the entry for the given code or object name in the table of the given type, or
+     * {@code null} if none.
+     *
+     * @param type Index in {@link #TYPES}.
+     * @param code The code (without authority), or the object name.
+     * @throws FactoryException if the given name is used by more than one object.
+     */
+    Entry find(final int type, final String code) throws FactoryException {
+        Entry entry = codes[type].get(code);
+        if (entry == null) {
+            final String byName = names[type].get(code);
+            if (byName != null) {
+                if (byName.isEmpty()) {
+                    throw new FactoryException("Duplicated values for name \"" + code + "\".");
+                }
+                entry = codes[type].get(byName);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the codes of the objects of the given type, in the order they were written. The
+     * rules are those of {@code DirectEpsgFactory}: a type more general than a table returns all
+     * codes of that table, a more specific type returns the codes of that table whose objects are
+     * instances of that type.
+     */
+    Set<String> getCodes(final Class<?> type) {
+        Set<String> result = null;
+        for (int t = 0; t < TYPES.length; t++) {
+            final Class<?> table = TYPES[t];
+            if (type.isAssignableFrom(table)) {
+                if (result == null) {
+                    result = new LinkedHashSet<>();
+                }
+                result.addAll(codes[t].keySet());
+            } else if (table.isAssignableFrom(type)) {
+                if (result == null) {
+                    result = new LinkedHashSet<>();
+                }
+                for (final Entry entry : codes[t].values()) {
+                    final Class<?> c = getClass(entry.type);
+                    if (c != null && type.isAssignableFrom(c)) {
+                        result.add(entry.code);
+                    }
+                }
+            }
+        }
+        return (result != null) ? Collections.unmodifiableSet(result) : Collections.emptySet();
+    }
+
+    /** Returns the operations between the given source and target CRS codes, or null if none. */
+    Operation[] getOperations(final String source, final String target) {
+        return operations.get(source + PAIR_SEPARATOR + target);
+    }
+
+    /** Returns the class at the given index, or {@code null} if it can not be loaded. */
+    private Class<?> getClass(final short index) {
+        if (index < 0) {
+            return null;
+        }
+        Class<?> c = classes[index];
+        if (c == null) {
+            try {
+                c = Class.forName(classNames[index], false, EpsgSnapshot.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+            classes[index] = c; // Not a big deal if loaded twice.
+        }
+        return c;
+    }
+
+    /**
+     * Reads the object for the given entry.
+     *
+     * @throws FactoryException if the object could not be created when the snapshot was written,
+     *     or can not be read.
+     */
+    Object read(final Entry entry) throws FactoryException {
+        final ByteBuffer data = buffer.duplicate();
+        data.position(dataStart + entry.offset);
+        data.limit(dataStart + entry.offset + entry.length);
+        try (InputStream in = new InflaterInputStream(new BufferInputStream(data))) {
+            if (entry.type == FAILURE) {
+                throw new FactoryException(new DataInputStream(in).readUTF());
+            }
+            try (ObjectInputStream objects = new SnapshotObjectInputStream(in)) {
+                return objects.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new FactoryException("Can't read EPSG:" + entry.code + " from snapshot", e);
+        }
+    }
+
+    /** Resolves classes with the GeoTools class loader first. */
+    private static final class SnapshotObjectInputStream extends ObjectInputStream {
+        SnapshotObjectInputStream(final InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc)
+                throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, EpsgSnapshot.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+
+    /** An input stream reading the remaining bytes of a buffer. */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
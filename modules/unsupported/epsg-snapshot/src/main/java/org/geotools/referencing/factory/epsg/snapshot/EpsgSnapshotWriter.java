@@ -0,0 +1,342 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.referencing.AbstractIdentifiedObject;
+import org.geotools.referencing.factory.epsg.ThreadedEpsgFactory;
+import org.geotools.referencing.factory.epsg.hsql.ThreadedHsqlEpsgFactory;
+import org.geotools.util.logging.Logging;
+import org.opengis.metadata.Identifier;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.IdentifiedObject;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.operation.CoordinateOperation;
+
+/**
+ * Writes an {@linkplain EpsgSnapshot EPSG snapshot} from an EPSG database. Every object of every
+ * table is created with the given factory and stored in serialized form, together with the
+ * coordinate operations available between each pair of CRS found in the database. Objects which
+ * can not be created or serialized are recorded as failures, so that the snapshot reports the
+ * same error as the database.
+ *
+ * <p>This class is run at build time by the {@code main} method, writing the snapshot from the
+ * HSQL EPSG database.
+ *
+ * @since 22
+ */
+public final class EpsgSnapshotWriter {
+    /** The logger. */
+    private static final Logger LOGGER = Logging.getLogger(EpsgSnapshotWriter.class);
+
+    /** Maximal length of the failure messages. */
+    private static final int MAX_MESSAGE_LENGTH = 2000;
+
+    /** The factory to take the snapshot from. */
+    private final ThreadedEpsgFactory source;
+
+    /** The class names of the stored objects, with their index. */
+    private final Map<String, Short> classes = new LinkedHashMap<>();
+
+    /** The data section. */
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream(1 << 24);
+
+    /** The index of the data section, for each of the {@link EpsgSnapshot#TYPES}. */
+    private final List<List<EpsgSnapshot.Entry>> entries = new ArrayList<>();
+
+    /** The pairs of source and target CRS codes for which to record coordinate operations. */
+    private final Set<List<String>> pairs = new LinkedHashSet<>();
+
+    /**
+     * Creates a writer taking a snapshot of the given factory.
+     *
+     * @param source The EPSG factory to take the snapshot from.
+     */
+    public EpsgSnapshotWriter(final ThreadedEpsgFactory source) {
+        this.source = source;
+    }
+
+    /**
+     * Writes the snapshot to the given stream. The stream is not closed.
+     *
+     * @throws IOException if the snapshot can not be written.
+     * @throws FactoryException if the EPSG database can not be read.
+     */
+    public void write(final OutputStream out) throws IOException, FactoryException {
+        for (int t = 0; t < EpsgSnapshot.TYPES.length; t++) {
+            entries.add(readTable(t));
+        }
+        final Map<List<String>, List<EpsgSnapshot.Operation>> operations = readOperations();
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 20);
+        final DataOutputStream head = new DataOutputStream(buffer);
+        final Citation authority = source.getAuthority();
+        final Date date = authority.getEditionDate();
+        head.writeInt(EpsgSnapshot.MAGIC);
+        head.writeInt(EpsgSnapshot.VERSION);
+        head.writeUTF(String.valueOf(authority.getEdition()));
+        head.writeLong(date != null ? date.getTime() : -1);
+        head.writeUTF(getEngine());
+        head.writeInt(classes.size());
+        for (final String name : classes.keySet()) {
+            head.writeUTF(name);
+        }
+        for (final List<EpsgSnapshot.Entry> table : entries) {
+            head.writeInt(table.size());
+            for (final EpsgSnapshot.Entry entry : table) {
+                head.writeUTF(entry.code);
+                head.writeUTF(entry.name);
+                head.writeShort(entry.type);
+                head.writeInt(entry.offset);
+                head.writeInt(entry.length);
+            }
+        }
+        head.writeInt(operations.size());
+        for (final Map.Entry<List<String>, List<EpsgSnapshot.Operation>> e :
+                operations.entrySet()) {
+            head.writeUTF(e.getKey().get(0));
+            head.writeUTF(e.getKey().get(1));
+            head.writeShort(e.getValue().size());
+            for (final EpsgSnapshot.Operation operation : e.getValue()) {
+                head.writeUTF(operation.code);
+                head.writeUTF(operation.projectedCRS != null ? operation.projectedCRS : "");
+            }
+        }
+        head.writeInt(buffer.size() + Integer.BYTES); // Start of the data section.
+        head.flush();
+        buffer.writeTo(out);
+        data.writeTo(out);
+        out.flush();
+    }
+
+    /** Returns the name of the database engine. */
+    private String getEngine() throws IOException {
+        try (Connection connection = source.getDataSource().getConnection()) {
+            return connection.getMetaData().getDatabaseProductName();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /** Stores all the objects of the table at the given index in {@link EpsgSnapshot#TYPES}. */
+    @SuppressWarnings("unchecked")
+    private List<EpsgSnapshot.Entry> readTable(final int table)
+            throws IOException, FactoryException {
+        final Class type = EpsgSnapshot.TYPES[table];
+        // Copy the codes, the returned set may be backed by a live result set.
+        final List<String> codes = new ArrayList<>(source.getAuthorityCodes(type));
+        final List<EpsgSnapshot.Entry> result = new ArrayList<>(codes.size());
+        LOGGER.info("Writing " + codes.size() + " " + type.getSimpleName() + " codes");
+        for (final String code : codes) {
+            final int offset = data.size();
+            String name;
+            short index;
+            try {
+                final Object object = create(table, code);
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out =
+                        new ObjectOutputStream(new DeflaterOutputStream(bytes))) {
+                    out.writeObject(object);
+                }
+                bytes.writeTo(data);
+                name = getName(object, code);
+                index = classes.computeIfAbsent(object.getClass().getName(), k -> next());
+                collectPairs(object);
+            } catch (FactoryException | IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Storing EPSG:" + code + " as a failure", e);
+                String message = e.getLocalizedMessage();
+                if (message == null) {
+                    message = e.toString();
+                } else if (message.length() > MAX_MESSAGE_LENGTH) {
+                    message = message.substring(0, MAX_MESSAGE_LENGTH);
+                }
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+                    out.writeUTF(message);
+                }
+                bytes.writeTo(data);
+                name = getName(null, code);
+                index = EpsgSnapshot.FAILURE;
+            }
+            result.add(new EpsgSnapshot.Entry(code, name, index, offset, data.size() - offset));
+        }
+        return result;
+    }
+
+    /** Returns the index of the next class to be stored. */
+    private Short next() {
+        return (short) classes.size();
+    }
+
+    /** Creates the object for the given code, in the table at the given index. */
+    private Object create(final int table, final String code) throws FactoryException {
+        switch (table) {
+            case 0:
+                return source.createCoordinateReferenceSystem(code);
+            case 1:
+                return source.createCoordinateSystem(code);
+            case 2:
+                return source.createCoordinateSystemAxis(code);
+            case 3:
+                return source.createDatum(code);
+            case 4:
+                return source.createEllipsoid(code);
+            case 5:
+                return source.createPrimeMeridian(code);
+            case 6:
+                return source.createCoordinateOperation(code);
+            case 7:
+                return source.createOperationMethod(code);
+            case 8:
+                return source.createParameterDescriptor(code);
+            case 9:
+                return source.createUnit(code);
+            default:
+                throw new IllegalArgumentException(String.valueOf(table));
+        }
+    }
+
+    /**
+     * Returns the name used for looking up the given object by name. This is the name of
+     * identified objects, and the description text for the other ones.
+     */
+    private String getName(final Object object, final String code) {
+        if (object instanceof IdentifiedObject) {
+            return ((IdentifiedObject) object).getName().getCode();
+        }
+        try {
+            return source.getDescriptionText(code).toString();
+        } catch (FactoryException e) {
+            return code;
+        }
+    }
+
+    /** Records the pairs of CRS codes for which the given object may provide operations. */
+    private void collectPairs(final Object object) {
+        if (object instanceof CoordinateOperation) {
+            final CoordinateOperation operation = (CoordinateOperation) object;
+            addPair(operation.getSourceCRS(), operation.getTargetCRS());
+        } else if (object instanceof ProjectedCRS) {
+            final ProjectedCRS crs = (ProjectedCRS) object;
+            addPair(crs.getBaseCRS(), crs);
+        }
+    }
+
+    /** Records the given pair of CRS, if both have an EPSG code. */
+    private void addPair(
+            final CoordinateReferenceSystem sourceCRS, final CoordinateReferenceSystem targetCRS) {
+        final String sourceCode = getCode(sourceCRS);
+        final String targetCode = getCode(targetCRS);
+        if (sourceCode != null && targetCode != null) {
+            final List<String> pair = new ArrayList<>(2);
+            pair.add(sourceCode);
+            pair.add(targetCode);
+            pairs.add(pair);
+        }
+    }
+
+    /** Returns the EPSG code of the given object, or {@code null} if none. */
+    private static String getCode(final IdentifiedObject object) {
+        if (object == null) {
+            return null;
+        }
+        final Identifier identifier =
+                AbstractIdentifiedObject.getIdentifier(object, Citations.EPSG);
+        return (identifier != null) ? identifier.getCode() : null;
+    }
+
+    /**
+     * Returns the coordinate operations for all the recorded pairs, in the order returned by the
+     * source factory.
+     */
+    private Map<List<String>, List<EpsgSnapshot.Operation>> readOperations() {
+        LOGGER.info("Writing operations for " + pairs.size() + " pairs of CRS");
+        final Map<List<String>, List<EpsgSnapshot.Operation>> result = new LinkedHashMap<>();
+        for (final List<String> pair : pairs) {
+            final List<EpsgSnapshot.Operation> operations = new ArrayList<>();
+            try {
+                final CoordinateReferenceSystem target =
+                        source.createCoordinateReferenceSystem(pair.get(1));
+                final Object projection =
+                        (target instanceof ProjectedCRS)
+                                ? ((ProjectedCRS) target).getConversionFromBase()
+                                : null;
+                for (final CoordinateOperation operation :
+                        source.createFromCoordinateReferenceSystemCodes(pair.get(0), pair.get(1))) {
+                    final String code = getCode(operation);
+                    if (code != null) {
+                        final boolean projected = operation.equals(projection);
+                        operations.add(
+                                new EpsgSnapshot.Operation(code, projected ? pair.get(1) : null));
+                    }
+                }
+            } catch (FactoryException | RuntimeException e) {
+                LOGGER.log(Level.FINE, "Skipping operations for pair " + pair, e);
+                continue;
+            }
+            if (!operations.isEmpty()) {
+                result.put(pair, operations);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the snapshot of the HSQL EPSG database to the file given as the first argument.
+     *
+     * @param args The output file.
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: EpsgSnapshotWriter <output file>");
+            System.exit(1);
+        }
+        final File file = new File(args[0]);
+        final File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Can't create directory " + parent);
+        }
+        final ThreadedEpsgFactory source = new ThreadedHsqlEpsgFactory();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            new EpsgSnapshotWriter(source).write(out);
+        } finally {
+            source.dispose();
+        }
+    }
+}
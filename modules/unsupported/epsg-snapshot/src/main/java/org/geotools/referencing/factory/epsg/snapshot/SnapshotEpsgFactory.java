@@ -0,0 +1,121 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg.snapshot;
+
+import java.io.IOException;
+import java.net.URL;
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.referencing.factory.AbstractAuthorityFactory;
+import org.geotools.referencing.factory.DeferredAuthorityFactory;
+import org.geotools.referencing.factory.FactoryNotFoundException;
+import org.geotools.util.factory.Hints;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.cs.CSAuthorityFactory;
+import org.opengis.referencing.datum.DatumAuthorityFactory;
+import org.opengis.referencing.operation.CoordinateOperationAuthorityFactory;
+
+/**
+ * An EPSG authority factory backed by a precompiled, read-only snapshot of the EPSG database. The
+ * snapshot is generated at build time from the HSQL EPSG database by {@link EpsgSnapshotWriter},
+ * and contains every object of the database in serialized form, indexed by code. Opening it does
+ * not require a SQL engine nor the extraction of a database on disk, which makes the first {@code
+ * CRS.decode} call much faster than with {@code ThreadedHsqlEpsgFactory}.
+ *
+ * <p>This factory has a higher priority than the HSQL one, so that it is used when both are on the
+ * classpath. It provides the same objects as {@code DirectEpsgFactory}, with the exception of
+ * extents ({@link #createExtent} is not supported).
+ *
+ * <p>Users should not creates instance of this class directly. They should invoke one of <code>
+ * {@linkplain org.geotools.referencing.ReferencingFactoryFinder}.getFooAuthorityFactory("EPSG")
+ * </code> methods instead.
+ *
+ * @since 22
+ */
+public class SnapshotEpsgFactory extends DeferredAuthorityFactory
+        implements CRSAuthorityFactory,
+                CSAuthorityFactory,
+                DatumAuthorityFactory,
+                CoordinateOperationAuthorityFactory {
+    /** The default priority level for this factory, higher than the HSQL EPSG factory. */
+    static final int PRIORITY = MAXIMUM_PRIORITY - 5;
+
+    /** The hints given at construction time, for the backing store. */
+    private final Hints userHints;
+
+    /** The snapshot location, or {@code null} if not found. */
+    private final URL url;
+
+    /** Constructs an authority factory using the default set of factories. */
+    public SnapshotEpsgFactory() {
+        this(null);
+    }
+
+    /**
+     * Constructs an authority factory using a set of factories created from the specified hints,
+     * reading the snapshot bundled with this module.
+     */
+    public SnapshotEpsgFactory(final Hints userHints) {
+        this(userHints, SnapshotEpsgFactory.class.getResource(EpsgSnapshot.FILENAME));
+    }
+
+    /**
+     * Constructs an authority factory reading the given snapshot.
+     *
+     * @param userHints An optional set of hints, or {@code null} if none.
+     * @param url The snapshot location, as written by {@link EpsgSnapshotWriter}.
+     */
+    public SnapshotEpsgFactory(final Hints userHints, final URL url) {
+        super(userHints, PRIORITY);
+        this.userHints = userHints;
+        this.url = url;
+    }
+
+    /**
+     * Returns the authority for this EPSG database. This authority will contains the database
+     * version in the {@linkplain Citation#getEdition edition} attribute, together with the
+     * {@linkplain Citation#getEditionDate edition date}.
+     */
+    @Override
+    public Citation getAuthority() {
+        final Citation authority = super.getAuthority();
+        return (authority != null) ? authority : Citations.EPSG;
+    }
+
+    /**
+     * Opens the snapshot.
+     *
+     * @throws FactoryNotFoundException if the snapshot has not been found.
+     * @throws FactoryException if the snapshot can not be read.
+     */
+    @Override
+    protected AbstractAuthorityFactory createBackingStore() throws FactoryException {
+        if (url == null) {
+            throw new FactoryNotFoundException(
+                    "EPSG snapshot " + EpsgSnapshot.FILENAME + " not found");
+        }
+        final DirectSnapshotFactory factory;
+        try {
+            factory = new DirectSnapshotFactory(userHints, url);
+        } catch (IOException exception) {
+            throw new FactoryException("Can't read the EPSG snapshot at " + url, exception);
+        }
+        factory.buffered = this;
+        return factory;
+    }
+}
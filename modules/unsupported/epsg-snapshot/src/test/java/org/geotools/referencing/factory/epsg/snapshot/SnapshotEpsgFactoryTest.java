@@ -0,0 +1,178 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.referencing.factory.epsg.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.geotools.TestData;
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.referencing.AbstractIdentifiedObject;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.ReferencingFactoryFinder;
+import org.geotools.referencing.factory.epsg.hsql.ThreadedHsqlEpsgFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.NoSuchAuthorityCodeException;
+import org.opengis.referencing.crs.CRSAuthorityFactory;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.operation.CoordinateOperation;
+
+/**
+ * Checks that {@link SnapshotEpsgFactory} returns the same objects as the HSQL EPSG database the
+ * snapshot has been taken from.
+ */
+public class SnapshotEpsgFactoryTest {
+
+    private static SnapshotEpsgFactory snapshot;
+
+    private static ThreadedHsqlEpsgFactory hsql;
+
+    @BeforeClass
+    public static void setUp() {
+        snapshot = new SnapshotEpsgFactory();
+        hsql = new ThreadedHsqlEpsgFactory();
+    }
+
+    @AfterClass
+    public static void tearDown() throws FactoryException {
+        snapshot.dispose();
+        hsql.dispose();
+    }
+
+    @Test
+    public void testRegistered() throws FactoryException {
+        CRSAuthorityFactory factory = ReferencingFactoryFinder.getCRSAuthorityFactory("EPSG", null);
+        assertTrue(factory instanceof SnapshotEpsgFactory);
+        assertNotNull(CRS.decode("EPSG:4326"));
+    }
+
+    @Test
+    public void testAuthority() {
+        assertEquals(hsql.getAuthority().getEdition(), snapshot.getAuthority().getEdition());
+        assertEquals(
+                hsql.getAuthority().getEditionDate(), snapshot.getAuthority().getEditionDate());
+    }
+
+    @Test
+    public void testCoordinateReferenceSystems() throws FactoryException {
+        for (String code :
+                new String[] {
+                    "4326", "EPSG:32632", "2154", "3857", "27700", "4979", "5714", "7405"
+                }) {
+            assertEquals(
+                    code,
+                    hsql.createCoordinateReferenceSystem(code),
+                    snapshot.createCoordinateReferenceSystem(code));
+        }
+        assertTrue(snapshot.createCoordinateReferenceSystem("32632") instanceof ProjectedCRS);
+        assertEquals(hsql.createProjectedCRS("32632"), snapshot.createProjectedCRS("32632"));
+    }
+
+    @Test
+    public void testOtherObjects() throws FactoryException {
+        assertEquals(hsql.createCoordinateSystem("6422"), snapshot.createCoordinateSystem("6422"));
+        assertEquals(hsql.createDatum("6326"), snapshot.createDatum("6326"));
+        assertEquals(hsql.createEllipsoid("7030"), snapshot.createEllipsoid("7030"));
+        assertEquals(hsql.createPrimeMeridian("8901"), snapshot.createPrimeMeridian("8901"));
+        assertEquals(hsql.createUnit("9001"), snapshot.createUnit("9001"));
+        assertEquals(hsql.createObject("4326"), snapshot.createObject("4326"));
+        assertEquals(
+                hsql.createCoordinateOperation("1241"), snapshot.createCoordinateOperation("1241"));
+        assertEquals(hsql.getDescriptionText("4326"), snapshot.getDescriptionText("4326"));
+    }
+
+    @Test
+    public void testNames() throws FactoryException {
+        assertEquals(
+                hsql.createCoordinateReferenceSystem("NTF (Paris)"),
+                snapshot.createCoordinateReferenceSystem("NTF (Paris)"));
+    }
+
+    @Test
+    public void testUnknownCode() throws FactoryException {
+        try {
+            snapshot.createCoordinateReferenceSystem("999999");
+            fail("Expected a NoSuchAuthorityCodeException");
+        } catch (NoSuchAuthorityCodeException e) {
+            assertEquals("999999", e.getAuthorityCode());
+        }
+    }
+
+    @Test
+    public void testAuthorityCodes() throws FactoryException {
+        assertEquals(
+                hsql.getAuthorityCodes(CoordinateReferenceSystem.class),
+                snapshot.getAuthorityCodes(CoordinateReferenceSystem.class));
+        assertEquals(
+                hsql.getAuthorityCodes(ProjectedCRS.class),
+                snapshot.getAuthorityCodes(ProjectedCRS.class));
+    }
+
+    @Test
+    public void testOperations() throws FactoryException {
+        assertEquals(
+                getCodes(hsql.createFromCoordinateReferenceSystemCodes("4230", "4326")),
+                getCodes(snapshot.createFromCoordinateReferenceSystemCodes("4230", "4326")));
+        // a projected CRS gives its conversion from base
+        Set<CoordinateOperation> conversions =
+                snapshot.createFromCoordinateReferenceSystemCodes("4326", "32632");
+        assertFalse(conversions.isEmpty());
+        assertEquals(
+                snapshot.createProjectedCRS("32632").getConversionFromBase(),
+                conversions.iterator().next());
+    }
+
+    @Test
+    public void testAllCoordinateReferenceSystems() throws FactoryException {
+        if (!TestData.isExtensiveTest()) {
+            return;
+        }
+        for (String code : hsql.getAuthorityCodes(CoordinateReferenceSystem.class)) {
+            CoordinateReferenceSystem expected;
+            try {
+                expected = hsql.createCoordinateReferenceSystem(code);
+            } catch (FactoryException e) {
+                try {
+                    snapshot.createCoordinateReferenceSystem(code);
+                    fail("Expected a failure for " + code);
+                } catch (FactoryException expectedFailure) {
+                    // fine, same as the database
+                }
+                continue;
+            }
+            assertEquals(code, expected, snapshot.createCoordinateReferenceSystem(code));
+        }
+    }
+
+    private static List<String> getCodes(Set<CoordinateOperation> operations) {
+        List<String> codes = new ArrayList<>();
+        for (CoordinateOperation operation : operations) {
+            codes.add(AbstractIdentifiedObject.getIdentifier(operation, Citations.EPSG).getCode());
+        }
+        return codes;
+    }
+}
@@ -178,6 +178,13 @@ class WFSFeatureSource extends ContentFeatureSource {
         GetFeatureResponse response = client.issueRequest(request);
         GetFeatureParser featureParser = response.getFeatures(null);
         int resultCount = featureParser.getNumberOfFeatures();
+        // the server reports the total number of matches, regardless of the requested start
+        // index and maximum. Offsets are not supported, the superclass skips the start index
+        // from the count, clamp so that the result is min(maxFeatures, matched - startIndex)
+        int startIndex = query.getStartIndex() != null ? query.getStartIndex() : 0;
+        if (resultCount - startIndex > query.getMaxFeatures()) {
+            resultCount = startIndex + query.getMaxFeatures();
+        }
         return resultCount;
     }
 
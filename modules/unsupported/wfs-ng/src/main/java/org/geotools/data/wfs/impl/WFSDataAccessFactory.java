@@ -147,7 +147,7 @@ public class WFSDataAccessFactory implements DataAccessFactory {
     }
 
     /** Access with {@link WFSDataStoreFactory#getParametersInfo()  */
-    private static final WFSFactoryParam<?>[] parametersInfo = new WFSFactoryParam[21];
+    private static final WFSFactoryParam<?>[] parametersInfo = new WFSFactoryParam[22];
 
     private static final int GMLComplianceLevel = 2;
 
@@ -574,6 +574,23 @@ public class WFSDataAccessFactory implements DataAccessFactory {
                         new WFSFactoryParam<Boolean>(name, Boolean.class, title, description, true);
     }
 
+    /**
+     * Optional {@code Boolean} use the streaming parser for WFS 2.0 simple feature responses, it
+     * does not support curved geometries
+     */
+    public static final WFSFactoryParam<Boolean> USE_STREAMING_PARSER;
+
+    static {
+        String name = "WFSDataStoreFactory:USE_STREAMING_PARSER";
+        String title = "Use Streaming Parser";
+        String description =
+                "Parses WFS 2.0 simple feature responses without the XML bindings. "
+                        + "Disable for servers returning curved geometries";
+        parametersInfo[21] =
+                USE_STREAMING_PARSER =
+                        new WFSFactoryParam<Boolean>(name, Boolean.class, title, description, true);
+    }
+
     /**
      * Checks whether {@code params} contains a valid set of parameters to connect to a WFS.
      *
@@ -33,6 +33,7 @@ import static org.geotools.data.wfs.WFSDataStoreFactory.TIMEOUT;
 import static org.geotools.data.wfs.WFSDataStoreFactory.TRY_GZIP;
 import static org.geotools.data.wfs.WFSDataStoreFactory.USERNAME;
 import static org.geotools.data.wfs.WFSDataStoreFactory.USE_HTTP_CONNECTION_POOLING;
+import static org.geotools.data.wfs.WFSDataStoreFactory.USE_STREAMING_PARSER;
 import static org.geotools.data.wfs.WFSDataStoreFactory.WFS_STRATEGY;
 
 import java.io.IOException;
@@ -85,6 +86,8 @@ public class WFSConfig {
 
     protected boolean useHttpConnectionPooling;
 
+    protected boolean useStreamingParser;
+
     protected EntityResolver entityResolver;
 
     public static enum PreferredHttpMethod {
@@ -111,6 +114,7 @@ public class WFSConfig {
         gmlCompatibleTypenames = (Boolean) GML_COMPATIBLE_TYPENAMES.getDefaultValue();
         entityResolver = (EntityResolver) ENTITY_RESOLVER.getDefaultValue();
         useHttpConnectionPooling = (Boolean) USE_HTTP_CONNECTION_POOLING.getDefaultValue();
+        useStreamingParser = (Boolean) USE_STREAMING_PARSER.getDefaultValue();
     }
 
     public static WFSConfig fromParams(Map<?, ?> params) throws IOException {
@@ -155,6 +159,7 @@ public class WFSConfig {
                         : GML_COMPATIBLE_TYPENAMES.lookUp(params);
         config.entityResolver = ENTITY_RESOLVER.lookUp(params);
         config.useHttpConnectionPooling = USE_HTTP_CONNECTION_POOLING.lookUp(params);
+        config.useStreamingParser = USE_STREAMING_PARSER.lookUp(params);
         return config;
     }
 
@@ -257,6 +262,11 @@ public class WFSConfig {
         return useHttpConnectionPooling;
     }
 
+    /** @return if the streaming parser should be used for WFS 2.0 simple feature responses */
+    public boolean isUseStreamingParser() {
+        return useStreamingParser;
+    }
+
     /**
      * Checks if axis flipping is needed comparing axis order requested for the DataStore with query
      * crs.
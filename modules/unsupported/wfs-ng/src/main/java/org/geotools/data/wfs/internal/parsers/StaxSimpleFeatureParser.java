@@ -0,0 +1,808 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.wfs.internal.parsers;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.geotools.data.DataSourceException;
+import org.geotools.data.wfs.internal.GetFeatureParser;
+import org.geotools.data.wfs.internal.Loggers;
+import org.geotools.data.wfs.internal.WFSConfig;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.geotools.util.Converters;
+import org.locationtech.jts.geom.CoordinateList;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.FeatureType;
+import org.opengis.feature.type.GeometryType;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * A {@link GetFeatureParser} for simple features that goes straight from StAX events to {@link
+ * SimpleFeature}s, without building any intermediate parse tree nor using the XML binding
+ * machinery.
+ *
+ * <p>Handles GML 2, 3.1 and 3.2 feature collections (WFS 1.0, 1.1 and 2.0 responses). Coordinates
+ * are parsed into a reusable ordinate buffer and copied into sequences created by the configured
+ * {@link GeometryFactory}, so that with a packed coordinate sequence factory no {@code
+ * Coordinate} object is ever allocated, and memory usage does not depend on the response size.
+ *
+ * <p>Supported geometries are the GML simple feature ones: points, line strings, polygons, their
+ * multi counterparts (including multi curves and multi surfaces) and curves and surfaces made of
+ * linear segments and planar patches. Responses with curved geometries can be read with the
+ * binding based parser instead, see {@link
+ * org.geotools.data.wfs.WFSDataStoreFactory#USE_STREAMING_PARSER}.
+ *
+ * @since 22
+ */
+@SuppressWarnings("nls")
+public class StaxSimpleFeatureParser implements GetFeatureParser {
+
+    private static final Logger LOGGER = Loggers.RESPONSES;
+
+    /** Common prefix of the GML 2/3.1 and GML 3.2 namespaces */
+    static final String GML_NAMESPACE_PREFIX = "http://www.opengis.net/gml";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /** The powers of ten that can be represented exactly as doubles */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+        1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Maximum number of significant digits that a long mantissa holds exactly as a double */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private GeometryFactory geomFac = new GeometryFactory();
+
+    private InputStream inputStream;
+
+    private XMLStreamReader reader;
+
+    private final SimpleFeatureType targetType;
+
+    private final SimpleFeatureBuilder builder;
+
+    final String featureNamespace;
+
+    final String featureName;
+
+    private final Map<String, AttributeDescriptor> expectedProperties;
+
+    private final String axisOrder;
+
+    private final CoordinateReferenceSystem defaultCrs;
+
+    private final Map<String, CoordinateReferenceSystem> crsCache = new HashMap<>();
+
+    private final Set<String> unknownSrsNames = new HashSet<>();
+
+    private CoordinateReferenceSystem lastCrs;
+
+    private boolean lastInvertXY;
+
+    private int numberOfFeatures = -1;
+
+    /** Ordinates of the coordinate list being parsed, reused across geometries */
+    private double[] ordinates = new double[256];
+
+    /** Text of the simple attribute being parsed, reused across attributes */
+    private final StringBuilder text = new StringBuilder();
+
+    public StaxSimpleFeatureParser(
+            final InputStream getFeatureResponseStream,
+            final SimpleFeatureType targetType,
+            QName featureDescriptorName,
+            String axisOrder)
+            throws IOException {
+        this.inputStream = getFeatureResponseStream;
+        this.featureNamespace = featureDescriptorName.getNamespaceURI();
+        this.featureName = featureDescriptorName.getLocalPart();
+        this.targetType = targetType;
+        this.builder = new SimpleFeatureBuilder(targetType);
+        this.axisOrder = axisOrder;
+        CoordinateReferenceSystem typeCrs = targetType.getCoordinateReferenceSystem();
+        this.defaultCrs = typeCrs != null ? typeCrs : DefaultGeographicCRS.WGS84;
+
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+            factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+            factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            reader = factory.createXMLStreamReader(inputStream);
+
+            // parse root element
+            reader.nextTag();
+            if (!"FeatureCollection".equals(reader.getLocalName())) {
+                throw new DataSourceException(
+                        "Expected a FeatureCollection, got " + reader.getName());
+            }
+            // WFS 2.0 reports the total in numberMatched, WFS 1.x in numberOfFeatures
+            numberOfFeatures = count(reader.getAttributeValue(null, "numberMatched"));
+            if (numberOfFeatures < 0) {
+                numberOfFeatures = count(reader.getAttributeValue(null, "numberOfFeatures"));
+            }
+        } catch (XMLStreamException e) {
+            throw new DataSourceException(e);
+        }
+
+        // same as XmlSimpleFeatureParser, be lenient on the case of property names, some servers
+        // don't match the case used in DescribeFeatureType in their GetFeature responses
+        expectedProperties =
+                new TreeMap<String, AttributeDescriptor>(String.CASE_INSENSITIVE_ORDER);
+        for (AttributeDescriptor desc : targetType.getAttributeDescriptors()) {
+            expectedProperties.put(desc.getLocalName(), desc);
+        }
+    }
+
+    private int count(String value) {
+        if (value == null || "unknown".equals(value)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException nfe) {
+            LOGGER.warning("Can't parse number of features out of " + value);
+            return -1;
+        }
+    }
+
+    @Override
+    public void setGeometryFactory(GeometryFactory geometryFactory) {
+        if (null != geometryFactory) {
+            this.geomFac = geometryFactory;
+        }
+    }
+
+    @Override
+    public FeatureType getFeatureType() {
+        return targetType;
+    }
+
+    @Override
+    public int getNumberOfFeatures() {
+        return numberOfFeatures;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.inputStream != null) {
+            try {
+                this.reader.close();
+            } catch (XMLStreamException e) {
+                throw new DataSourceException(e);
+            } finally {
+                this.reader = null;
+                this.inputStream.close();
+                this.inputStream = null;
+            }
+        }
+    }
+
+    @Override
+    public SimpleFeature parse() throws IOException {
+        if (reader == null) {
+            return null;
+        }
+        final String fid;
+        try {
+            fid = seekFeature();
+            if (fid == null) {
+                return null;
+            }
+            while (true) {
+                int event = reader.next();
+                if (END_DOCUMENT == event) {
+                    close();
+                    return null;
+                }
+                if (END_ELEMENT == event
+                        && featureName.equals(reader.getLocalName())
+                        && featureNamespace.equals(reader.getNamespaceURI())) {
+                    // found end of current feature
+                    break;
+                }
+                if (START_ELEMENT == event) {
+                    AttributeDescriptor descriptor = expectedProperties.get(reader.getLocalName());
+                    if (descriptor != null) {
+                        builder.set(descriptor.getLocalName(), parseAttributeValue(descriptor));
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new DataSourceException(e);
+        }
+        return builder.buildFeature(fid);
+    }
+
+    /**
+     * Moves to the start of the next feature and returns its identifier, or null if there are no
+     * more features
+     */
+    private String seekFeature() throws IOException, XMLStreamException {
+        while (true) {
+            int event = reader.next();
+            if (END_DOCUMENT == event) {
+                close();
+                return null;
+            }
+            if (START_ELEMENT == event
+                    && featureName.equals(reader.getLocalName())
+                    && featureNamespace.equals(reader.getNamespaceURI())) {
+                String featureId = null;
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    String name = reader.getAttributeLocalName(i);
+                    String namespace = reader.getAttributeNamespace(i);
+                    if ("id".equals(name)
+                            && namespace != null
+                            && namespace.startsWith(GML_NAMESPACE_PREFIX)) {
+                        featureId = reader.getAttributeValue(i);
+                        break;
+                    }
+                }
+                if (featureId == null) {
+                    featureId = reader.getAttributeValue(null, "fid");
+                }
+                // Mapserver hack
+                if (featureId == null) {
+                    featureId = reader.getAttributeValue(null, "id");
+                }
+                return featureId;
+            }
+        }
+    }
+
+    /**
+     * Parses the value of the current attribute, the reader is positioned on the attribute start
+     * element, and will be left on its end element.
+     */
+    private Object parseAttributeValue(AttributeDescriptor descriptor)
+            throws IOException, XMLStreamException {
+        if (descriptor.getType() instanceof GeometryType) {
+            Geometry geometry = null;
+            if (reader.nextTag() == START_ELEMENT) {
+                geometry = parseGeometry(defaultCrs, 0);
+                reader.nextTag();
+            }
+            return geometry;
+        }
+        return Converters.convert(readText(), descriptor.getType().getBinding());
+    }
+
+    /** Reads the text content of the current element, skipping over any nested element */
+    private String readText() throws XMLStreamException {
+        return readCharacters().toString();
+    }
+
+    /**
+     * Reads the text content of the current element like {@link #readText()}, into a buffer that
+     * is reused by the next call
+     */
+    private CharSequence readCharacters() throws XMLStreamException {
+        text.setLength(0);
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (START_ELEMENT == event) {
+                depth++;
+            } else if (END_ELEMENT == event) {
+                depth--;
+            } else if (depth == 1 && (CHARACTERS == event || CDATA == event || SPACE == event)) {
+                text.append(
+                        reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+        }
+        return text;
+    }
+
+    /** Skips the current element and its contents */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (START_ELEMENT == event) {
+                depth++;
+            } else if (END_ELEMENT == event) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Parses a geometry, the reader is positioned on the geometry start element, and will be left
+     * on its end element.
+     *
+     * @param crs the coordinate reference system inherited from the enclosing geometry
+     * @param dimension the coordinate dimension inherited from the enclosing geometry, 0 if unknown
+     */
+    private Geometry parseGeometry(CoordinateReferenceSystem crs, int dimension)
+            throws IOException, XMLStreamException {
+        final String name = reader.getLocalName();
+        crs = crs(crs);
+        dimension = dimension(dimension);
+
+        Geometry geometry;
+        switch (name) {
+            case "Point":
+                geometry = geomFac.createPoint(parseCoordinates(crs, dimension));
+                break;
+            case "LineString":
+                geometry = geomFac.createLineString(parseCoordinates(crs, dimension));
+                break;
+            case "LinearRing":
+                geometry = geomFac.createLinearRing(parseCoordinates(crs, dimension));
+                break;
+            case "Ring":
+                geometry = parseRing(crs, dimension);
+                break;
+            case "Curve":
+                geometry = parseCurve(crs, dimension);
+                break;
+            case "Polygon":
+            case "PolygonPatch":
+                geometry = parsePolygon(crs, dimension);
+                break;
+            case "Surface":
+                geometry = parseSurface(crs, dimension);
+                break;
+            case "MultiPoint":
+                geometry =
+                        geomFac.createMultiPoint(
+                                members(parseMembers(crs, dimension), new Point[0]));
+                break;
+            case "MultiLineString":
+            case "MultiCurve":
+                geometry =
+                        geomFac.createMultiLineString(
+                                members(parseMembers(crs, dimension), new LineString[0]));
+                break;
+            case "MultiPolygon":
+            case "MultiSurface":
+                geometry =
+                        geomFac.createMultiPolygon(
+                                members(parseMembers(crs, dimension), new Polygon[0]));
+                break;
+            case "MultiGeometry":
+                geometry =
+                        geomFac.createGeometryCollection(
+                                members(parseMembers(crs, dimension), new Geometry[0]));
+                break;
+            default:
+                throw new DataSourceException("Unsupported geometry element " + reader.getName());
+        }
+        reader.require(END_ELEMENT, null, name);
+        geometry.setUserData(crs);
+        return geometry;
+    }
+
+    /** Parses the members of a multi geometry, whatever the member property names are */
+    private List<Geometry> parseMembers(CoordinateReferenceSystem crs, int dimension)
+            throws IOException, XMLStreamException {
+        List<Geometry> members = new ArrayList<>();
+        while (reader.nextTag() == START_ELEMENT) {
+            String property = reader.getLocalName();
+            if (property.endsWith("Members")) {
+                while (reader.nextTag() == START_ELEMENT) {
+                    members.add(parseGeometry(crs, dimension));
+                }
+            } else if (property.endsWith("Member")) {
+                if (reader.nextTag() == START_ELEMENT) {
+                    members.add(parseGeometry(crs, dimension));
+                    reader.nextTag();
+                }
+            } else {
+                skipElement();
+            }
+        }
+        return members;
+    }
+
+    private <T extends Geometry> T[] members(List<Geometry> members, T[] type)
+            throws DataSourceException {
+        for (Geometry member : members) {
+            if (!type.getClass().getComponentType().isInstance(member)) {
+                throw new DataSourceException(
+                        "Unexpected " + member.getGeometryType() + " member in multi geometry");
+            }
+        }
+        return members.toArray(type);
+    }
+
+    private Polygon parsePolygon(CoordinateReferenceSystem crs, int dimension)
+            throws IOException, XMLStreamException {
+        LinearRing shell = null;
+        List<LinearRing> holes = null;
+        while (reader.nextTag() == START_ELEMENT) {
+            String boundary = reader.getLocalName();
+            boolean exterior = "exterior".equals(boundary) || "outerBoundaryIs".equals(boundary);
+            boolean interior = "interior".equals(boundary) || "innerBoundaryIs".equals(boundary);
+            if (!exterior && !interior) {
+                skipElement();
+                continue;
+            }
+            reader.nextTag();
+            Geometry ring = parseGeometry(crs, dimension);
+            if (!(ring instanceof LinearRing)) {
+                throw new DataSourceException(
+                        "Unsupported polygon boundary " + ring.getGeometryType());
+            }
+            if (exterior) {
+                shell = (LinearRing) ring;
+            } else {
+                if (holes == null) {
+                    holes = new ArrayList<>(2);
+                }
+                holes.add((LinearRing) ring);
+            }
+            reader.nextTag();
+        }
+        LinearRing[] holesArray = holes == null ? null : holes.toArray(new LinearRing[0]);
+        return geomFac.createPolygon(shell, holesArray);
+    }
+
+    private Geometry parseSurface(CoordinateReferenceSystem crs, int dimension)
+            throws IOException, XMLStreamException {
+        List<Geometry> patches = new ArrayList<>(1);
+        while (reader.nextTag() == START_ELEMENT) {
+            if ("patches".equals(reader.getLocalName())) {
+                while (reader.nextTag() == START_ELEMENT) {
+                    patches.add(parseGeometry(crs, dimension));
+                }
+            } else {
+                skipElement();
+            }
+        }
+        Polygon[] polygons = members(patches, new Polygon[0]);
+        if (polygons.length == 1) {
+            return polygons[0];
+        }
+        return geomFac.createMultiPolygon(polygons);
+    }
+
+    private LinearRing parseRing(CoordinateReferenceSystem crs, int dimension)
+            throws IOException, XMLStreamException {
+        LineString[] curves = members(parseMembers(crs, dimension), new LineString[0]);
+        if (curves.length == 1) {
+            return geomFac.createLinearRing(curves[0].getCoordinateSequence());
+        }
+        CoordinateList coordinates = new CoordinateList();
+        for (LineString curve : curves) {
+            coordinates.add(curve.getCoordinates(), false);
+        }
+        return geomFac.createLinearRing(coordinates.toCoordinateArray());
+    }
+
+    private LineString parseCurve(CoordinateReferenceSystem crs, int dimension)
+            throws IOException, XMLStreamException {
+        List<CoordinateSequence> segments = new ArrayList<>(1);
+        while (reader.nextTag() == START_ELEMENT) {
+            if (!"segments".equals(reader.getLocalName())) {
+                skipElement();
+                continue;
+            }
+            while (reader.nextTag() == START_ELEMENT) {
+                if (!"LineStringSegment".equals(reader.getLocalName())) {
+                    throw new DataSourceException(
+                            "Unsupported curve segment " + reader.getName());
+                }
+                segments.add(parseCoordinates(crs, dimension(dimension)));
+            }
+        }
+        if (segments.size() == 1) {
+            return geomFac.createLineString(segments.get(0));
+        }
+        CoordinateList coordinates = new CoordinateList();
+        for (CoordinateSequence segment : segments) {
+            coordinates.add(segment.toCoordinateArray(), false);
+        }
+        return geomFac.createLineString(coordinates.toCoordinateArray());
+    }
+
+    /**
+     * Parses the coordinates of a point, line string or linear ring out of {@code pos}, {@code
+     * posList}, {@code coordinates} or {@code coord} elements. The reader is positioned on the
+     * geometry start element, and will be left on its end element.
+     */
+    private CoordinateSequence parseCoordinates(CoordinateReferenceSystem crs, int dimension)
+            throws IOException, XMLStreamException {
+        int count = 0;
+        while (reader.nextTag() == START_ELEMENT) {
+            String name = reader.getLocalName();
+            if ("posList".equals(name)) {
+                dimension = dimension(dimension);
+                count = readOrdinates(WHITESPACE, readCharacters(), count);
+            } else if ("pos".equals(name)) {
+                int explicit = dimension(0);
+                int read = readOrdinates(WHITESPACE, readCharacters(), count) - count;
+                if (explicit > 0) {
+                    dimension = explicit;
+                } else if (count == 0 && dimension == 0) {
+                    dimension = read;
+                }
+                count += read;
+            } else if ("coordinates".equals(name)) {
+                String decimal = attribute("decimal", ".");
+                String cs = attribute("cs", ",");
+                String ts = attribute("ts", " ");
+                String coordinates = readText();
+                if (!".".equals(decimal)) {
+                    coordinates = coordinates.replace(decimal, ".");
+                }
+                Pattern tupleSeparator = separator(ts);
+                Pattern coordinateSeparator = separator(cs);
+                for (String tuple : tupleSeparator.split(coordinates.trim())) {
+                    int read = readOrdinates(coordinateSeparator, tuple, count) - count;
+                    if (count == 0) {
+                        dimension = read;
+                    }
+                    count += read;
+                }
+            } else if ("coord".equals(name)) {
+                int read = 0;
+                while (reader.nextTag() == START_ELEMENT) {
+                    ensureOrdinates(count + read + 1);
+                    ordinates[count + read] = Double.parseDouble(readText().trim());
+                    read++;
+                }
+                if (count == 0) {
+                    dimension = read;
+                }
+                count += read;
+            } else {
+                skipElement();
+            }
+        }
+        return sequence(count, dimension == 0 ? 2 : dimension, invertXY(crs));
+    }
+
+    private String attribute(String name, String defaultValue) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? defaultValue : value;
+    }
+
+    private Pattern separator(String separator) {
+        if (separator.trim().isEmpty()) {
+            return WHITESPACE;
+        }
+        return Pattern.compile("\\s*" + Pattern.quote(separator) + "+\\s*");
+    }
+
+    /**
+     * Parses the ordinates in the text, separated by the given pattern, storing them in the
+     * ordinate buffer starting at {@code offset}
+     *
+     * @return the new number of ordinates in the buffer
+     */
+    private int readOrdinates(Pattern separator, CharSequence text, int offset)
+            throws DataSourceException {
+        int count = offset;
+        if (separator == WHITESPACE) {
+            // fast path, manual tokenization
+            int length = text.length();
+            int i = 0;
+            while (i < length) {
+                while (i < length && Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                int start = i;
+                while (i < length && !Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                if (i > start) {
+                    ensureOrdinates(count + 1);
+                    ordinates[count++] = parseOrdinate(text, start, i);
+                }
+            }
+        } else {
+            for (String ordinate : separator.split(text.toString().trim())) {
+                if (!ordinate.isEmpty()) {
+                    ensureOrdinates(count + 1);
+                    ordinates[count++] = parseOrdinate(ordinate, 0, ordinate.length());
+                }
+            }
+        }
+        return count;
+    }
+
+    private double parseOrdinate(CharSequence text, int start, int end) throws DataSourceException {
+        try {
+            return parseDouble(text, start, end);
+        } catch (NumberFormatException e) {
+            throw new DataSourceException(
+                    "Invalid ordinate value " + text.subSequence(start, end), e);
+        }
+    }
+
+    /**
+     * Parses the double in the given range of characters. Plain decimal numbers with up to {@value
+     * #MAX_EXACT_DIGITS} significant digits and a small exponent, the vast majority of ordinates,
+     * are parsed without creating a string: their digits fit a long that converts exactly to a
+     * double, and a single multiplication or division by an exact power of ten is correctly
+     * rounded, giving the same result as {@link Double#parseDouble(String)}. Other numbers are
+     * handed over to the latter.
+     *
+     * @throws NumberFormatException if the characters are not a valid number
+     */
+    static double parseDouble(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean decimalPoint = false;
+        boolean valid = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                valid = true;
+                // leading zeros are not significant
+                if (digits > 0 || c != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (decimalPoint) {
+                    scale--;
+                }
+            } else if (c == '.' && !decimalPoint) {
+                decimalPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (valid && i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negativeExponent = text.charAt(i) == '-';
+                i++;
+            }
+            int exponent = 0;
+            valid = false;
+            for (; i < end && exponent < 1000; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                valid = true;
+                exponent = exponent * 10 + (c - '0');
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (valid
+                && i == end
+                && digits <= MAX_EXACT_DIGITS
+                && scale >= -(POWERS_OF_TEN.length - 1)
+                && scale <= POWERS_OF_TEN.length - 1) {
+            double value =
+                    scale >= 0 ? mantissa * POWERS_OF_TEN[scale] : mantissa / POWERS_OF_TEN[-scale];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(text.subSequence(start, end).toString());
+    }
+
+    private void ensureOrdinates(int length) {
+        if (length > ordinates.length) {
+            ordinates = Arrays.copyOf(ordinates, Math.max(length, ordinates.length * 2));
+        }
+    }
+
+    /** Builds a coordinate sequence out of the first {@code count} ordinates in the buffer */
+    private CoordinateSequence sequence(int count, int dimension, boolean invertXY)
+            throws DataSourceException {
+        if (count % dimension != 0) {
+            throw new DataSourceException(
+                    "Number of ordinates ("
+                            + count
+                            + ") does not match crs dimension: "
+                            + dimension);
+        }
+        int size = count / dimension;
+        CoordinateSequence sequence =
+                geomFac.getCoordinateSequenceFactory().create(size, dimension);
+        int copied = Math.min(dimension, sequence.getDimension());
+        int x = invertXY ? 1 : 0;
+        int y = invertXY ? 0 : 1;
+        for (int i = 0, offset = 0; i < size; i++, offset += dimension) {
+            sequence.setOrdinate(i, 0, ordinates[offset + x]);
+            sequence.setOrdinate(i, 1, ordinates[offset + y]);
+            for (int d = 2; d < copied; d++) {
+                sequence.setOrdinate(i, d, ordinates[offset + d]);
+            }
+        }
+        return sequence;
+    }
+
+    private CoordinateReferenceSystem crs(CoordinateReferenceSystem defaultValue) {
+        String srsName = reader.getAttributeValue(null, "srsName");
+        if (srsName == null || unknownSrsNames.contains(srsName)) {
+            return defaultValue;
+        }
+        CoordinateReferenceSystem crs = crsCache.get(srsName);
+        if (crs == null) {
+            String code = srsName;
+            if (code.startsWith("http://") && code.indexOf('#') != -1) {
+                code = "EPSG:" + code.substring(1 + code.lastIndexOf('#'));
+            }
+            try {
+                crs = CRS.decode(code);
+            } catch (FactoryException e) {
+                LOGGER.log(
+                        Level.WARNING, "Unknown srsName " + srsName + ", using the default one", e);
+                unknownSrsNames.add(srsName);
+                return defaultValue;
+            }
+            crsCache.put(srsName, crs);
+        }
+        return crs;
+    }
+
+    private int dimension(int defaultValue) {
+        String srsDimension = reader.getAttributeValue(null, "srsDimension");
+        if (srsDimension == null) {
+            return defaultValue;
+        }
+        return Integer.parseInt(srsDimension.trim());
+    }
+
+    private boolean invertXY(CoordinateReferenceSystem crs) {
+        if (crs != lastCrs) {
+            lastCrs = crs;
+            lastInvertXY = WFSConfig.invertAxisNeeded(axisOrder, crs);
+        }
+        return lastInvertXY;
+    }
+}
@@ -36,11 +36,16 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
 import javax.xml.namespace.QName;
+import org.geotools.data.Query;
 import org.geotools.data.store.ContentFeatureSource;
 import org.geotools.data.wfs.internal.DescribeFeatureTypeRequest;
 import org.geotools.data.wfs.internal.DescribeFeatureTypeResponse;
+import org.geotools.data.wfs.internal.GetFeatureParser;
+import org.geotools.data.wfs.internal.GetFeatureRequest;
+import org.geotools.data.wfs.internal.GetFeatureResponse;
 import org.geotools.data.wfs.internal.WFSClient;
 import org.geotools.data.wfs.internal.WFSConfig;
+import org.geotools.data.wfs.internal.WFSStrategy;
 import org.geotools.feature.NameImpl;
 import org.junit.After;
 import org.junit.Before;
@@ -188,4 +193,42 @@ public class WFSDataStoreTest {
         assertTrue(source instanceof WFSFeatureSource);
         // assertFalse(source instanceof WFSContentFeatureStore);
     }
+
+    @Test
+    public void testGetCount() throws Exception {
+        GetFeatureRequest request = mock(GetFeatureRequest.class);
+        when(request.getStrategy()).thenReturn(mock(WFSStrategy.class));
+        GetFeatureResponse response = mock(GetFeatureResponse.class);
+        GetFeatureParser parser = mock(GetFeatureParser.class);
+        when(wfs.canCount()).thenReturn(true);
+        // the superclass does not apply max features then, the source has to
+        when(wfs.canLimit()).thenReturn(true);
+        when(wfs.createGetFeatureRequest()).thenReturn(request);
+        when(wfs.issueRequest(same(request))).thenReturn(response);
+        when(response.getFeatures(null)).thenReturn(parser);
+        // the number of matches, whatever the start index and max features
+        when(parser.getNumberOfFeatures()).thenReturn(10);
+
+        ContentFeatureSource source =
+                (ContentFeatureSource) dataStore.getFeatureSource(simpleTypeName2);
+        assertEquals(10, source.getCount(Query.ALL));
+        assertEquals(5, source.getCount(countQuery(null, 5)));
+        assertEquals(7, source.getCount(countQuery(3, null)));
+        assertEquals(5, source.getCount(countQuery(3, 5)));
+        assertEquals(2, source.getCount(countQuery(8, 5)));
+        assertEquals(0, source.getCount(countQuery(12, 5)));
+
+        // unknown count
+        when(parser.getNumberOfFeatures()).thenReturn(-1);
+        assertEquals(-1, source.getCount(countQuery(3, 5)));
+    }
+
+    private Query countQuery(Integer startIndex, Integer maxFeatures) {
+        Query query = new Query(simpleTypeName2.getLocalPart());
+        query.setStartIndex(startIndex);
+        if (maxFeatures != null) {
+            query.setMaxFeatures(maxFeatures);
+        }
+        return query;
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.wfs.internal.parsers;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.namespace.QName;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.wfs.WFSDataStoreFactory;
+import org.geotools.data.wfs.WFSTestData;
+import org.geotools.data.wfs.internal.GetFeatureParser;
+import org.geotools.data.wfs.internal.GetFeatureRequest;
+import org.geotools.data.wfs.internal.Versions;
+import org.geotools.data.wfs.internal.WFSConfig;
+import org.geotools.data.wfs.internal.WFSStrategy;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+public class GetFeatureResponseParserFactoryTest {
+
+    @Test
+    public void testStreamingParserByDefault() throws Exception {
+        GetFeatureParser parser = createParser(new HashMap<>());
+        try {
+            assertTrue(parser instanceof StaxSimpleFeatureParser);
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void testStreamingParserDisabled() throws Exception {
+        // servers returning curved geometries need the binding based parser
+        Map<String, Object> params = new HashMap<>();
+        params.put(WFSDataStoreFactory.USE_STREAMING_PARSER.key, false);
+        GetFeatureParser parser = createParser(params);
+        try {
+            assertTrue(parser instanceof PullParserFeatureReader);
+        } finally {
+            parser.close();
+        }
+    }
+
+    private GetFeatureParser createParser(Map<String, Object> params) throws Exception {
+        WFSStrategy strategy = mock(WFSStrategy.class);
+        when(strategy.getConfig()).thenReturn(WFSConfig.fromParams(params));
+        when(strategy.getVersion()).thenReturn(Versions.v2_0_0.toString());
+
+        QName typeName = new QName("http://www.openplans.org/spearfish", "roads");
+        SimpleFeatureType featureType =
+                DataUtilities.createType(
+                        "http://www.openplans.org/spearfish",
+                        "roads",
+                        "the_geom:MultiLineString,cat:java.lang.Long,label:String");
+        GetFeatureRequest request = mock(GetFeatureRequest.class);
+        when(request.getStrategy()).thenReturn(strategy);
+        when(request.getTypeName()).thenReturn(typeName);
+        when(request.getQueryType()).thenReturn(featureType);
+
+        InputStream in = WFSTestData.url("GeoServer_2.2.x/2.0.0/GetFeature_roads.xml").openStream();
+        return new GetFeatureResponseParserFactory().parser(request, in);
+    }
+}
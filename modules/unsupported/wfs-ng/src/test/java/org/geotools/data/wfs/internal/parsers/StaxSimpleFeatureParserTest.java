@@ -0,0 +1,143 @@
+/*
+ *    GeoTools - The Open Source Java GIS Toolkit
+ *    http://geotools.org
+ *
+ *    (C) 2019, Open Source Geospatial Foundation (OSGeo)
+ *
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation;
+ *    version 2.1 of the License.
+ *
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *    Lesser General Public License for more details.
+ */
+package org.geotools.data.wfs.internal.parsers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Locale;
+import java.util.Random;
+import javax.xml.namespace.QName;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.wfs.WFSTestData;
+import org.geotools.data.wfs.internal.GetFeatureParser;
+import org.geotools.referencing.CRS;
+import org.junit.Test;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+public class StaxSimpleFeatureParserTest extends AbstractGetFeatureParserTest {
+
+    @Override
+    protected GetFeatureParser getParser(
+            final QName featureName,
+            final URL schemaLocation,
+            final SimpleFeatureType featureType,
+            final URL getFeaturesRequest,
+            String axisOrder)
+            throws IOException {
+
+        InputStream inputStream = new BufferedInputStream(getFeaturesRequest.openStream());
+        GetFeatureParser parser =
+                new StaxSimpleFeatureParser(inputStream, featureType, featureName, axisOrder);
+        return parser;
+    }
+
+    /** Parses a GML 3.2 WFS 2.0 response into packed coordinate sequences */
+    @Test
+    public void testParseGeoServer_roads_MultiCurve_200() throws Exception {
+        final QName featureName = new QName("http://www.openplans.org/spearfish", "roads");
+        SimpleFeatureType featureType =
+                DataUtilities.createType(
+                        "roads", "the_geom:MultiLineString,cat:java.lang.Long,label:String");
+        featureType =
+                DataUtilities.createSubType(
+                        featureType, null, CRS.decode("urn:x-ogc:def:crs:EPSG:6.11.2:26713"));
+        URL data = WFSTestData.url("GeoServer_2.2.x/2.0.0/GetFeature_roads.xml");
+
+        GetFeatureParser parser = getParser(featureName, null, featureType, data, null);
+        parser.setGeometryFactory(
+                new GeometryFactory(PackedCoordinateSequenceFactory.DOUBLE_FACTORY));
+        try {
+            assertEquals(3, parser.getNumberOfFeatures());
+
+            SimpleFeature feature = parser.parse();
+            assertEquals("roads.1", feature.getID());
+            assertEquals(Long.valueOf(5), feature.getAttribute("cat"));
+            assertEquals("unimproved road", feature.getAttribute("label"));
+
+            MultiLineString geometry = (MultiLineString) feature.getDefaultGeometry();
+            assertEquals(1, geometry.getNumGeometries());
+            LineString line = (LineString) geometry.getGeometryN(0);
+            assertTrue(line.getCoordinateSequence() instanceof PackedCoordinateSequence.Double);
+            assertEquals(3, line.getNumPoints());
+            assertEquals(598566, line.getCoordinateN(0).x, 0d);
+            assertEquals(4914058, line.getCoordinateN(0).y, 0d);
+            assertEquals(598346, line.getCoordinateN(2).x, 0d);
+            assertEquals(4915117, line.getCoordinateN(2).y, 0d);
+            assertTrue(
+                    CRS.equalsIgnoreMetadata(
+                            featureType.getCoordinateReferenceSystem(), geometry.getUserData()));
+
+            int count = 1;
+            while (parser.parse() != null) {
+                count++;
+            }
+            assertEquals(3, count);
+            assertNull(parser.parse());
+        } finally {
+            parser.close();
+        }
+    }
+
+    /** The ordinates parsed out of a character range match {@link Double#parseDouble(String)} */
+    @Test
+    public void testParseDouble() throws Exception {
+        String[] values = {
+            "0", "-0", "+1", ".5", "5.", "1e5", "1E-5", "-1.25e+3", "0.1", "0.3", "4.35", "1e22",
+            "1e23", "1e-22", "123456789012345", "1234567890123456", "9007199254740993",
+            "598566.123456789", "00000000000000000012.5", "1.50000000000000000", "1.5d", "NaN",
+            "-Infinity", "2.2250738585072014E-308"
+        };
+        for (String value : values) {
+            assertParseDouble(value);
+        }
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            double d = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(20) - 8);
+            assertParseDouble(Double.toString(d));
+            assertParseDouble(String.format(Locale.ENGLISH, "%." + random.nextInt(12) + "f", d));
+        }
+
+        for (String invalid : new String[] {"", "-", ".", "1e", "+-1", "1..2", "abc"}) {
+            try {
+                StaxSimpleFeatureParser.parseDouble(" " + invalid + " ", 1, invalid.length() + 1);
+                fail("Expected a NumberFormatException parsing " + invalid);
+            } catch (NumberFormatException e) {
+                // fine
+            }
+        }
+    }
+
+    private void assertParseDouble(String value) {
+        double expected = Double.parseDouble(value);
+        double actual =
+                StaxSimpleFeatureParser.parseDouble(" " + value + " ", 1, value.length() + 1);
+        assertEquals(value, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+}